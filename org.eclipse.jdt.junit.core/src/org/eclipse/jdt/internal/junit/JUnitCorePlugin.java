@@ -36,6 +36,7 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 
+import org.eclipse.jdt.internal.junit.launcher.JUnit4TestIndex;
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
 
 /**
@@ -79,6 +80,8 @@ public class JUnitCorePlugin extends Plugin {
 
 	private final JUnitModel fJUnitModel= new JUnitModel();
 
+	private final JUnit4TestIndex fJUnit4TestIndex= new JUnit4TestIndex();
+
 
 	/**
 	 * List storing the registered test run listeners
@@ -123,6 +126,7 @@ public class JUnitCorePlugin extends Plugin {
 		super.start(context);
 		fBundleContext= context;
 		fJUnitModel.start();
+		fJUnit4TestIndex.start();
 	}
 
 	/**
@@ -133,6 +137,7 @@ public class JUnitCorePlugin extends Plugin {
 		try {
 			InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).flush();
 			fJUnitModel.stop();
+			fJUnit4TestIndex.stop();
 		} finally {
 			super.stop(context);
 		}
@@ -157,6 +162,10 @@ public class JUnitCorePlugin extends Plugin {
 		return getDefault().fJUnitModel;
 	}
 
+	public static JUnit4TestIndex getJUnit4TestIndex() {
+		return getDefault().fJUnit4TestIndex;
+	}
+
 	/**
 	 * Initializes TestRun Listener extensions
 	 * @deprecated to avoid deprecation warning
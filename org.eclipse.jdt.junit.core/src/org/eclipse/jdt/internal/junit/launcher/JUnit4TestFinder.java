@@ -25,6 +25,7 @@ import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IRegion;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.IType;
@@ -121,6 +122,49 @@ public class JUnit4TestFinder implements ITestFinder {
 		if (pm == null)
 			pm= new NullProgressMonitor();
 
+		if (isIndexed(element)) {
+			IType[] tests= JUnitCorePlugin.getJUnit4TestIndex().getTests(element.getJavaProject(), this, pm);
+			if (tests != null) {
+				IRegion region= CoreTestSearchEngine.getRegion(element);
+				for (int i= 0; i < tests.length; i++) {
+					if (region.contains(tests[i]))
+						result.add(tests[i]);
+				}
+				return;
+			}
+		}
+		searchTestsInRegion(element, result, pm);
+	}
+
+	/**
+	 * @param element the container
+	 * @return <code>true</code> if the tests in the container can be taken from the
+	 *         {@link JUnit4TestIndex}
+	 * @throws JavaModelException if the package fragment root cannot be accessed
+	 */
+	private static boolean isIndexed(IJavaElement element) throws JavaModelException {
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_PROJECT:
+				return true;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+			case IJavaElement.COMPILATION_UNIT:
+				IPackageFragmentRoot root= (IPackageFragmentRoot) element.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+				return root != null && root.getKind() == IPackageFragmentRoot.K_SOURCE;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Searches all tests in the given container, without using the {@link JUnit4TestIndex}.
+	 *
+	 * @param element the container
+	 * @param result the set to add the tests to
+	 * @param pm the progress monitor
+	 * @throws CoreException if the search fails
+	 */
+	void searchTestsInRegion(IJavaElement element, Set result, IProgressMonitor pm) throws CoreException {
 		try {
 			pm.beginTask(JUnitMessages.JUnit4TestFinder_searching_description, 4);
 
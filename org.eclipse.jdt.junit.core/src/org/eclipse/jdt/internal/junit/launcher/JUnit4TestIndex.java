@@ -0,0 +1,697 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * Persistent index of the JUnit 4 test classes in the source folders of Java projects.
+ * <p>
+ * The index of a project is built with a full search the first time the tests of the project
+ * are requested. Afterwards, it is kept up to date from Java element deltas: only changed
+ * compilation units are evaluated again, together with the subclasses of changed classes that
+ * can make other classes tests. Changed compilation units of required projects mark the
+ * subclasses of their classes in the project. Classpath changes and added or removed package
+ * fragment roots and packages discard the index of a project and of the projects that require it.
+ * The indexes are stored in the plug-in's state location together with the modification stamps
+ * of the compilation units and a key of the stamps of the required projects and libraries, so
+ * that files changed while the workbench was not running are evaluated again after a restart.
+ * </p>
+ */
+public class JUnit4TestIndex {
+
+	private static final String INDEX_DIR_NAME= "testindex"; //$NON-NLS-1$
+	private static final String INDEX_FILE_EXTENSION= ".index"; //$NON-NLS-1$
+	private static final int FORMAT_VERSION= 2;
+
+	/**
+	 * If more compilation units have changed, the index of a project is rebuilt with a full
+	 * search, which is faster than evaluating many compilation units one by one.
+	 */
+	private static final int MAX_INCREMENTAL_UNITS= 200;
+
+	private static final long UNKNOWN_STAMP= IResource.NULL_STAMP;
+
+	private static final String[] NO_TYPES= new String[0];
+
+	/**
+	 * The test types of the source compilation units of a project.
+	 */
+	private static class ProjectIndex {
+		final long fClasspathKey;
+		/**
+		 * Maps handle identifiers of compilation units to the modification stamps they had when
+		 * they were evaluated.
+		 */
+		final HashMap/*<String, Long>*/ fUnitStamps= new HashMap();
+		/**
+		 * Maps handle identifiers of compilation units to the handle identifiers of their test
+		 * types. Units without tests are not contained.
+		 */
+		final HashMap/*<String, String[]>*/ fUnitTests= new HashMap();
+		/**
+		 * Handle identifiers of the compilation units that have to be evaluated again.
+		 */
+		final HashSet/*<String>*/ fDirtyUnits= new HashSet();
+		/**
+		 * Handle identifiers of the changed compilation units of required projects, whose
+		 * subclasses in this project have to be evaluated again.
+		 */
+		final HashSet/*<String>*/ fDirtyRequiredUnits= new HashSet();
+
+		ProjectIndex(long classpathKey) {
+			fClasspathKey= classpathKey;
+		}
+	}
+
+	private final IElementChangedListener fListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			synchronized (fPendingChanges) {
+				processDelta(event.getDelta());
+			}
+		}
+	};
+
+	/**
+	 * Changes reported by Java element deltas that are not yet applied to the indexes. Maps
+	 * project names to sets of handle identifiers of changed compilation units, or to
+	 * <code>null</code> if the index of the project has to be discarded. Guarded by itself, so
+	 * that delta processing never waits for a running index update.
+	 */
+	private final HashMap/*<String, Set<String>>*/ fPendingChanges= new HashMap();
+
+	/**
+	 * Indexes in memory, by project name. Guarded by <code>this</code>.
+	 */
+	private final HashMap/*<String, ProjectIndex>*/ fIndexes= new HashMap();
+
+	/**
+	 * Handle identifiers of changed compilation units of projects without an index in memory, by
+	 * project name. They are marked dirty when the stored index is loaded. Guarded by
+	 * <code>this</code>.
+	 */
+	private final HashMap/*<String, Set<String>>*/ fUnindexedChanges= new HashMap();
+
+	public void start() {
+		JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE);
+	}
+
+	public synchronized void stop() {
+		JavaCore.removeElementChangedListener(fListener);
+		applyPendingChanges();
+		for (Iterator iter= fIndexes.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			String projectName= (String) entry.getKey();
+			ProjectIndex index= (ProjectIndex) entry.getValue();
+			if (!index.fDirtyRequiredUnits.isEmpty()) {
+				// the key of the required projects cannot tell which changes have been applied
+				getIndexFile(projectName).delete();
+				continue;
+			}
+			try {
+				save(projectName, index);
+			} catch (IOException e) {
+				JUnitCorePlugin.log(e);
+			} catch (JavaModelException e) {
+				JUnitCorePlugin.log(e);
+			}
+		}
+		fIndexes.clear();
+		// after a restart, the modification stamps of the units tell the unindexed changes
+		fUnindexedChanges.clear();
+	}
+
+	/**
+	 * Returns the test types in the source folders of the given project.
+	 *
+	 * @param project the Java project
+	 * @param finder the test finder used to build and update the index
+	 * @param pm the progress monitor, or <code>null</code>; not used if <code>null</code> is
+	 *            returned
+	 * @return the test types, or <code>null</code> if the project cannot be indexed because it
+	 *         contains class folders
+	 * @throws CoreException if the tests cannot be searched
+	 */
+	public synchronized IType[] getTests(IJavaProject project, JUnit4TestFinder finder, IProgressMonitor pm) throws CoreException {
+		if (!isIndexable(project))
+			return null;
+		if (pm == null)
+			pm= new NullProgressMonitor();
+
+		applyPendingChanges();
+		String projectName= project.getElementName();
+		long classpathKey= computeClasspathKey(project);
+		ProjectIndex index= (ProjectIndex) fIndexes.get(projectName);
+		if (index == null || index.fClasspathKey != classpathKey) {
+			index= load(project, classpathKey);
+			Set unindexedChanges= (Set) fUnindexedChanges.remove(projectName);
+			if (index != null && unindexedChanges != null)
+				index.fDirtyUnits.addAll(unindexedChanges);
+		}
+		if (index == null
+				|| index.fDirtyUnits.size() + index.fDirtyRequiredUnits.size() > MAX_INCREMENTAL_UNITS
+				|| !allExist(index.fDirtyRequiredUnits)) {
+			index= build(project, classpathKey, finder, pm);
+		} else if (!index.fDirtyUnits.isEmpty() || !index.fDirtyRequiredUnits.isEmpty()) {
+			update(project, index, finder, pm);
+		} else {
+			pm.done();
+		}
+		fIndexes.put(projectName, index);
+
+		List result= new ArrayList();
+		for (Iterator iter= index.fUnitTests.values().iterator(); iter.hasNext();) {
+			String[] handles= (String[]) iter.next();
+			for (int i= 0; i < handles.length; i++) {
+				IJavaElement element= JavaCore.create(handles[i]);
+				if (element instanceof IType)
+					result.add(element);
+			}
+		}
+		return (IType[]) result.toArray(new IType[result.size()]);
+	}
+
+	/**
+	 * @param project the Java project
+	 * @return <code>true</code> if all non-archive package fragment roots are source folders
+	 * @throws JavaModelException if the roots cannot be accessed
+	 */
+	private static boolean isIndexable(IJavaProject project) throws JavaModelException {
+		IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+		for (int i= 0; i < roots.length; i++) {
+			if (!roots[i].isArchive() && roots[i].getKind() != IPackageFragmentRoot.K_SOURCE)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param unitHandles handle identifiers of compilation units
+	 * @return <code>true</code> if all compilation units exist; the subclasses of the classes of
+	 *         removed units cannot be found
+	 */
+	private static boolean allExist(Set unitHandles) {
+		for (Iterator iter= unitHandles.iterator(); iter.hasNext();) {
+			if (!JavaCore.create((String) iter.next()).exists())
+				return false;
+		}
+		return true;
+	}
+
+	private static long computeClasspathKey(IJavaProject project) throws JavaModelException {
+		IClasspathEntry[] entries= project.getResolvedClasspath(true);
+		long key= FORMAT_VERSION;
+		for (int i= 0; i < entries.length; i++) {
+			key= 31 * key + entries[i].getEntryKind();
+			key= 31 * key + entries[i].getPath().toString().hashCode();
+		}
+		return key;
+	}
+
+	/**
+	 * Computes a key of the modification stamps of the compilation units of the required projects
+	 * and of the time stamps of the libraries on the classpath of a project. Changes in required
+	 * projects are not reflected in the stamps of the project's own units, but can make the
+	 * subclasses in the project tests.
+	 *
+	 * @param project the Java project
+	 * @return the key
+	 * @throws JavaModelException if the classpath or the required projects cannot be accessed
+	 */
+	private static long computeRequiredKey(IJavaProject project) throws JavaModelException {
+		IWorkspaceRoot root= ResourcesPlugin.getWorkspace().getRoot();
+		IClasspathEntry[] entries= project.getResolvedClasspath(true);
+		long key= 17;
+		for (int i= 0; i < entries.length; i++) {
+			IPath path= entries[i].getPath();
+			if (entries[i].getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+				IResource resource= root.findMember(path);
+				key= 31 * key + (resource != null ? resource.getLocalTimeStamp() : path.toFile().lastModified());
+			} else if (entries[i].getEntryKind() == IClasspathEntry.CPE_PROJECT) {
+				IJavaProject required= JavaCore.create(root.getProject(path.lastSegment()));
+				if (!required.exists())
+					continue;
+				long unitsKey= 0;
+				HashMap stamps= collectUnitStamps(required);
+				for (Iterator iter= stamps.entrySet().iterator(); iter.hasNext();) {
+					Map.Entry entry= (Map.Entry) iter.next();
+					// independent of the iteration order
+					unitsKey+= entry.getKey().hashCode() * 31 + ((Long) entry.getValue()).longValue();
+				}
+				key= 31 * key + unitsKey;
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * @param project the Java project
+	 * @return the modification stamps of all compilation units in the source folders of the
+	 *         project, keyed by handle identifier
+	 * @throws JavaModelException if the source folders cannot be accessed
+	 */
+	private static HashMap collectUnitStamps(IJavaProject project) throws JavaModelException {
+		HashMap stamps= new HashMap();
+		IPackageFragmentRoot[] roots= project.getPackageFragmentRoots();
+		for (int i= 0; i < roots.length; i++) {
+			if (roots[i].getKind() != IPackageFragmentRoot.K_SOURCE || !project.equals(roots[i].getJavaProject()))
+				continue;
+			IJavaElement[] fragments= roots[i].getChildren();
+			for (int j= 0; j < fragments.length; j++) {
+				ICompilationUnit[] units= ((IPackageFragment) fragments[j]).getCompilationUnits();
+				for (int k= 0; k < units.length; k++) {
+					stamps.put(units[k].getHandleIdentifier(), new Long(getStamp(units[k])));
+				}
+			}
+		}
+		return stamps;
+	}
+
+	private static long getStamp(ICompilationUnit unit) {
+		IResource resource= unit.getResource();
+		return resource == null ? UNKNOWN_STAMP : resource.getModificationStamp();
+	}
+
+	private ProjectIndex build(IJavaProject project, long classpathKey, JUnit4TestFinder finder, IProgressMonitor pm) throws CoreException {
+		ProjectIndex index= new ProjectIndex(classpathKey);
+		index.fUnitStamps.putAll(collectUnitStamps(project));
+
+		HashSet tests= new HashSet();
+		finder.searchTestsInRegion(project, tests, pm);
+		HashMap unitTests= new HashMap();
+		for (Iterator iter= tests.iterator(); iter.hasNext();) {
+			Object element= iter.next();
+			if (!(element instanceof IType))
+				continue;
+			IType type= (IType) element;
+			ICompilationUnit unit= type.getCompilationUnit();
+			if (unit == null)
+				continue;
+			String unitHandle= unit.getHandleIdentifier();
+			List list= (List) unitTests.get(unitHandle);
+			if (list == null) {
+				list= new ArrayList();
+				unitTests.put(unitHandle, list);
+			}
+			list.add(type.getHandleIdentifier());
+		}
+		for (Iterator iter= unitTests.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			List list= (List) entry.getValue();
+			index.fUnitTests.put(entry.getKey(), list.toArray(new String[list.size()]));
+		}
+		return index;
+	}
+
+	/**
+	 * Evaluates the dirty compilation units of the index again. If a unit contains tests or
+	 * classes that can make their subclasses tests, the compilation units of the subclasses in
+	 * the project are evaluated as well. So are the subclasses of the classes in the dirty units
+	 * of required projects.
+	 *
+	 * @param project the Java project
+	 * @param index the index of the project
+	 * @param finder the test finder
+	 * @param pm the progress monitor
+	 * @throws CoreException if a test cannot be evaluated
+	 */
+	private void update(IJavaProject project, ProjectIndex index, JUnit4TestFinder finder, IProgressMonitor pm) throws CoreException {
+		LinkedList worklist= new LinkedList(index.fDirtyUnits);
+		HashSet processed= new HashSet();
+		pm.beginTask("", worklist.size() + index.fDirtyRequiredUnits.size()); //$NON-NLS-1$
+		try {
+			for (Iterator iter= index.fDirtyRequiredUnits.iterator(); iter.hasNext();) {
+				ICompilationUnit unit= (ICompilationUnit) JavaCore.create((String) iter.next());
+				IType[] types= unit.getAllTypes();
+				for (int i= 0; i < types.length; i++) {
+					if (types[i].isClass())
+						addSubclassUnits(project, types[i], worklist, new SubProgressMonitor(pm, 0));
+				}
+				pm.worked(1);
+			}
+			while (!worklist.isEmpty()) {
+				String unitHandle= (String) worklist.removeFirst();
+				if (!processed.add(unitHandle))
+					continue;
+				String[] oldTests= (String[]) index.fUnitTests.remove(unitHandle);
+				IJavaElement element= JavaCore.create(unitHandle);
+				if (!(element instanceof ICompilationUnit) || !element.exists()) {
+					index.fUnitStamps.remove(unitHandle);
+					pm.worked(1);
+					continue;
+				}
+				ICompilationUnit unit= (ICompilationUnit) element;
+				index.fUnitStamps.put(unitHandle, new Long(getStamp(unit)));
+
+				IType[] types= unit.getAllTypes();
+				List tests= new ArrayList();
+				for (int i= 0; i < types.length; i++) {
+					if (finder.isTest(types[i]))
+						tests.add(types[i].getHandleIdentifier());
+				}
+				if (!tests.isEmpty())
+					index.fUnitTests.put(unitHandle, tests.toArray(new String[tests.size()]));
+
+				if (oldTests != null || !tests.isEmpty() || canContributeTests(types)) {
+					for (int i= 0; i < types.length; i++) {
+						if (types[i].isClass())
+							addSubclassUnits(project, types[i], worklist, new SubProgressMonitor(pm, 0));
+					}
+				}
+				pm.worked(1);
+			}
+		} finally {
+			index.fDirtyUnits.clear();
+			index.fDirtyRequiredUnits.clear();
+			pm.done();
+		}
+	}
+
+	private static void addSubclassUnits(IJavaProject project, IType type, List worklist, IProgressMonitor pm) throws JavaModelException {
+		ITypeHierarchy hierarchy= type.newTypeHierarchy(project, pm);
+		IType[] subclasses= hierarchy.getAllSubclasses(type);
+		for (int i= 0; i < subclasses.length; i++) {
+			ICompilationUnit unit= subclasses[i].getCompilationUnit();
+			if (unit != null && project.equals(unit.getJavaProject()))
+				worklist.add(unit.getHandleIdentifier());
+		}
+	}
+
+	/**
+	 * @param types the types of a compilation unit
+	 * @return <code>true</code> if a type is abstract or declares JUnit 4 annotations, so that its
+	 *         subclasses may be tests
+	 * @throws JavaModelException if a type cannot be accessed
+	 */
+	private static boolean canContributeTests(IType[] types) throws JavaModelException {
+		for (int i= 0; i < types.length; i++) {
+			IType type= types[i];
+			if (!type.isClass())
+				continue;
+			if (Flags.isAbstract(type.getFlags()) || hasAnnotation(type.getAnnotations(), "RunWith")) //$NON-NLS-1$
+				return true;
+			IMethod[] methods= type.getMethods();
+			for (int j= 0; j < methods.length; j++) {
+				if (hasAnnotation(methods[j].getAnnotations(), "Test")) //$NON-NLS-1$
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasAnnotation(IAnnotation[] annotations, String simpleName) {
+		for (int i= 0; i < annotations.length; i++) {
+			String name= annotations[i].getElementName();
+			if (name.equals(simpleName) || name.endsWith('.' + simpleName))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param projectName the name of a project
+	 * @return the names of the projects that require the project
+	 */
+	private static List getRequiringProjects(String projectName) {
+		List result= new ArrayList();
+		try {
+			IJavaProject[] projects= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+			for (int i= 0; i < projects.length; i++) {
+				IJavaProject other= projects[i];
+				if (!other.exists() || other.getElementName().equals(projectName))
+					continue;
+				if (Arrays.asList(other.getRequiredProjectNames()).contains(projectName))
+					result.add(other.getElementName());
+			}
+		} catch (JavaModelException e) {
+			JUnitCorePlugin.log(e);
+		}
+		return result;
+	}
+
+	private void discard(String projectName) {
+		fIndexes.remove(projectName);
+		fUnindexedChanges.remove(projectName);
+		getIndexFile(projectName).delete();
+	}
+
+	//---- pending changes ----
+
+	private void applyPendingChanges() {
+		HashMap changes;
+		synchronized (fPendingChanges) {
+			if (fPendingChanges.isEmpty())
+				return;
+			changes= new HashMap(fPendingChanges);
+			fPendingChanges.clear();
+		}
+		for (Iterator iter= changes.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			String projectName= (String) entry.getKey();
+			Set units= (Set) entry.getValue();
+			if (units == null) {
+				discard(projectName);
+			} else {
+				ProjectIndex index= (ProjectIndex) fIndexes.get(projectName);
+				if (index != null) {
+					index.fDirtyUnits.addAll(units);
+				} else {
+					Set unindexed= (Set) fUnindexedChanges.get(projectName);
+					if (unindexed == null) {
+						unindexed= new HashSet();
+						fUnindexedChanges.put(projectName, unindexed);
+					}
+					unindexed.addAll(units);
+				}
+			}
+
+			List requiringProjects= getRequiringProjects(projectName);
+			for (Iterator reqIter= requiringProjects.iterator(); reqIter.hasNext();) {
+				String requiringName= (String) reqIter.next();
+				ProjectIndex requiringIndex= (ProjectIndex) fIndexes.get(requiringName);
+				if (units == null) {
+					discard(requiringName);
+				} else if (requiringIndex != null) {
+					requiringIndex.fDirtyRequiredUnits.addAll(units);
+				}
+				// a stored index is checked against the key of the required projects on load
+			}
+		}
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		int flags= delta.getFlags();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				processChildren(delta);
+				return;
+			case IJavaElement.JAVA_PROJECT:
+				if (kind != IJavaElementDelta.CHANGED
+						|| (flags & (IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED
+								| IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+					discardPending(element);
+					return;
+				}
+				processChildren(delta);
+				return;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (kind != IJavaElementDelta.CHANGED
+						|| (flags & (IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH
+								| IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED)) != 0) {
+					discardPending(element);
+					return;
+				}
+				processChildren(delta);
+				return;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind != IJavaElementDelta.CHANGED) {
+					discardPending(element);
+					return;
+				}
+				processChildren(delta);
+				return;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit unit= (ICompilationUnit) element;
+				if (unit.getOwner() != null)
+					return; // not a primary compilation unit
+				if (kind == IJavaElementDelta.CHANGED && flags == IJavaElementDelta.F_PRIMARY_WORKING_COPY)
+					return; // opened or closed in an editor
+				String projectName= element.getJavaProject().getElementName();
+				if (fPendingChanges.containsKey(projectName)) {
+					Set units= (Set) fPendingChanges.get(projectName);
+					if (units != null)
+						units.add(unit.getPrimary().getHandleIdentifier());
+				} else {
+					Set units= new HashSet();
+					units.add(unit.getPrimary().getHandleIdentifier());
+					fPendingChanges.put(projectName, units);
+				}
+				return;
+			default:
+				return;
+		}
+	}
+
+	private void processChildren(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			processDelta(children[i]);
+		}
+	}
+
+	private void discardPending(IJavaElement element) {
+		fPendingChanges.put(element.getJavaProject().getElementName(), null);
+	}
+
+	//---- persistence ----
+
+	private static File getIndexFile(String projectName) {
+		IPath dir= JUnitCorePlugin.getDefault().getStateLocation().append(INDEX_DIR_NAME);
+		return dir.append(Integer.toHexString(projectName.hashCode()) + INDEX_FILE_EXTENSION).toFile();
+	}
+
+	/**
+	 * Loads the stored index of a project and marks all compilation units that have been changed,
+	 * added, or removed since the index was stored as dirty.
+	 *
+	 * @param project the Java project
+	 * @param classpathKey the key of the current classpath
+	 * @return the index, or <code>null</code> if no valid index is stored
+	 * @throws JavaModelException if the compilation units of the project or of its required projects
+	 *             cannot be accessed
+	 */
+	private static ProjectIndex load(IJavaProject project, long classpathKey) throws JavaModelException {
+		File file= getIndexFile(project.getElementName());
+		if (!file.isFile())
+			return null;
+		ProjectIndex index= new ProjectIndex(classpathKey);
+		try {
+			DataInputStream in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION || !project.getElementName().equals(in.readUTF()) || in.readLong() != classpathKey
+						|| in.readLong() != computeRequiredKey(project))
+					return null;
+				int unitCount= in.readInt();
+				for (int i= 0; i < unitCount; i++) {
+					String unitHandle= in.readUTF();
+					index.fUnitStamps.put(unitHandle, new Long(in.readLong()));
+					int testCount= in.readInt();
+					String[] tests= testCount == 0 ? NO_TYPES : new String[testCount];
+					for (int j= 0; j < testCount; j++) {
+						tests[j]= in.readUTF();
+					}
+					if (testCount > 0)
+						index.fUnitTests.put(unitHandle, tests);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+
+		HashMap currentStamps= collectUnitStamps(project);
+		for (Iterator iter= currentStamps.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			Object stamp= index.fUnitStamps.get(entry.getKey());
+			if (stamp == null || ((Long) stamp).longValue() == UNKNOWN_STAMP || !stamp.equals(entry.getValue()))
+				index.fDirtyUnits.add(entry.getKey());
+		}
+		for (Iterator iter= index.fUnitStamps.keySet().iterator(); iter.hasNext();) {
+			Object unitHandle= iter.next();
+			if (!currentStamps.containsKey(unitHandle))
+				index.fDirtyUnits.add(unitHandle);
+		}
+		return index;
+	}
+
+	private static void save(String projectName, ProjectIndex index) throws IOException, JavaModelException {
+		File file= getIndexFile(projectName);
+		IJavaProject project= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot().getProject(projectName));
+		if (!project.exists()) {
+			file.delete();
+			return;
+		}
+		long requiredKey= computeRequiredKey(project);
+		file.getParentFile().mkdirs();
+		DataOutputStream out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(projectName);
+			out.writeLong(index.fClasspathKey);
+			out.writeLong(requiredKey);
+			out.writeInt(index.fUnitStamps.size());
+			for (Iterator iter= index.fUnitStamps.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry entry= (Map.Entry) iter.next();
+				String unitHandle= (String) entry.getKey();
+				boolean dirty= index.fDirtyUnits.contains(unitHandle);
+				out.writeUTF(unitHandle);
+				out.writeLong(dirty ? UNKNOWN_STAMP : ((Long) entry.getValue()).longValue());
+				String[] tests= (String[]) index.fUnitTests.get(unitHandle);
+				if (tests == null)
+					tests= NO_TYPES;
+				out.writeInt(tests.length);
+				for (int i= 0; i < tests.length; i++) {
+					out.writeUTF(tests[i]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -54,6 +54,39 @@ public class JUnitLaunchConfigurationConstants {
 
 	public static final String ATTR_TEST_RUNNER_KIND= JUnitCorePlugin.PLUGIN_ID+".TEST_KIND"; //$NON-NLS-1$
 
+	/**
+	 * The number of test runner VMs the test classes are distributed to. Values &lt;= 1 run all
+	 * tests in a single VM. Sharding is only used in run mode and if more than one test class is
+	 * run.
+	 */
+	public static final String ATTR_SHARD_COUNT= JUnitCorePlugin.PLUGIN_ID+".SHARD_COUNT"; //$NON-NLS-1$
+
+	/**
+	 * Launch attribute with the comma separated ports of all test runner VMs of a sharded
+	 * launch. {@link #ATTR_PORT} holds the port of the first VM.
+	 */
+	public static final String ATTR_SHARD_PORTS= JUnitCorePlugin.PLUGIN_ID+".SHARD_PORTS"; //$NON-NLS-1$
+
+	/**
+	 * Boolean attribute. If <code>true</code>, tests that failed in the last runs of the launch
+	 * configuration are run first, followed by tests without history and then by the remaining
+	 * tests, each ordered by their previous elapsed times.
+	 */
+	public static final String ATTR_PRIORITIZE_BY_HISTORY= JUnitCorePlugin.PLUGIN_ID+".PRIORITIZE_BY_HISTORY"; //$NON-NLS-1$
+
+	/**
+	 * Boolean attribute. If <code>true</code>, the test runner VM stays alive after a run in run
+	 * mode, and later launches of the configuration with the same VM settings run their tests in
+	 * it. The class path of the project is loaded by a new class loader for each run.
+	 */
+	public static final String ATTR_WARM_RUNNER= JUnitCorePlugin.PLUGIN_ID+".WARM_RUNNER"; //$NON-NLS-1$
+
+	/**
+	 * Launch attribute of launches with a warm test runner VM. The value identifies the VM
+	 * settings; a warm test runner is only reused by launches with the same value.
+	 */
+	public static final String ATTR_WARM_RUNNER_KEY= JUnitCorePlugin.PLUGIN_ID+".WARM_RUNNER_KEY"; //$NON-NLS-1$
+
 	public static ITestKind getTestRunnerKind(ILaunchConfiguration launchConfiguration) {
 		try {
 			String loaderId = launchConfiguration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, (String) null);
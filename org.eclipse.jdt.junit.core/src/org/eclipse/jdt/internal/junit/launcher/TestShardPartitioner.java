@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.launcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.junit.model.TestTimingHistory;
+
+/**
+ * Splits test classes into shards that are run in separate VMs. The classes are distributed
+ * such that the expected run time of the shards is balanced, based on the times of previous runs.
+ */
+public class TestShardPartitioner {
+
+	/**
+	 * Time assumed for a test class if there is no history at all.
+	 */
+	private static final double DEFAULT_CLASS_TIME= 1.0;
+
+	private TestShardPartitioner() {
+	}
+
+	/**
+	 * Splits the given test types into at most <code>shardCount</code> non-empty shards.
+	 *
+	 * @param types the test types
+	 * @param shardCount the requested number of shards, must be &gt; 0
+	 * @param history the timing history used to balance the shards
+	 * @return the shards, each with at least one type
+	 */
+	public static IType[][] partition(IType[] types, int shardCount, TestTimingHistory history) {
+		double defaultTime= history.getAverageClassTime();
+		if (Double.isNaN(defaultTime) || defaultTime <= 0)
+			defaultTime= DEFAULT_CLASS_TIME;
+
+		double[] weights= new double[types.length];
+		for (int i= 0; i < types.length; i++) {
+			double time= history.getClassTime(types[i].getFullyQualifiedName());
+			weights[i]= Double.isNaN(time) ? defaultTime : time;
+		}
+
+		int[] assignment= assignShards(weights, shardCount);
+		int usedShards= Math.min(shardCount, types.length);
+		List[] shards= new List[usedShards];
+		for (int i= 0; i < usedShards; i++) {
+			shards[i]= new ArrayList();
+		}
+		for (int i= 0; i < types.length; i++) {
+			shards[assignment[i]].add(types[i]);
+		}
+		IType[][] result= new IType[usedShards][];
+		for (int i= 0; i < usedShards; i++) {
+			result[i]= (IType[]) shards[i].toArray(new IType[shards[i].size()]);
+		}
+		return result;
+	}
+
+	/**
+	 * Assigns the items with the given weights to shards, using the longest processing time first
+	 * rule: the items are sorted by decreasing weight and each item is assigned to the currently
+	 * lightest shard (on ties, to the one with fewer items). If there are at least as many items
+	 * as shards, every shard gets an item.
+	 *
+	 * @param weights the weights of the items
+	 * @param shardCount the number of shards, must be &gt; 0
+	 * @return for each item the index of its shard, in the range
+	 *         <code>[0, min(shardCount, weights.length))</code>
+	 */
+	public static int[] assignShards(final double[] weights, int shardCount) {
+		Integer[] order= new Integer[weights.length];
+		for (int i= 0; i < order.length; i++) {
+			order[i]= new Integer(i);
+		}
+		Arrays.sort(order, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				int i1= ((Integer) o1).intValue();
+				int i2= ((Integer) o2).intValue();
+				int cmp= Double.compare(weights[i2], weights[i1]);
+				return cmp != 0 ? cmp : i1 - i2;
+			}
+		});
+
+		int usedShards= Math.min(shardCount, weights.length);
+		double[] load= new double[usedShards];
+		int[] count= new int[usedShards];
+		int[] assignment= new int[weights.length];
+		for (int k= 0; k < order.length; k++) {
+			int item= order[k].intValue();
+			int lightest= 0;
+			for (int s= 1; s < usedShards; s++) {
+				if (load[s] < load[lightest] || (load[s] == load[lightest] && count[s] < count[lightest]))
+					lightest= s;
+			}
+			assignment[item]= lightest;
+			load[lightest]+= weights[item];
+			count[lightest]++;
+		}
+		return assignment;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,6 +47,15 @@ public interface ITestRunListener2 {
  	 * @param elapsedTime the time elapsed before the test run was stopped
 	 */
 	public void testRunStopped(long elapsedTime);
+	/**
+	 * The run history projects when the first test that failed in its last run
+	 * will have run.
+	 *
+	 * @param elapsedTime the projected time in milliseconds after the start of the test run
+	 *
+	 * @see MessageIds#TEST_FAILURE_PROJECTED
+	 */
+	public void testFailureProjected(long elapsedTime);
 	/**
 	 * An individual test has started.
 	 *
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,14 @@ public interface IXMLTags {
 	public static final String NODE_SYSTEM_ERR= "system-err"; //$NON-NLS-1$
 	public static final String NODE_SKIPPED = "skipped"; //$NON-NLS-1$
 
+	/*
+	 * Maven Surefire reports of rerun tests:
+	 */
+	public static final String NODE_RERUN_FAILURE= "rerunFailure"; //$NON-NLS-1$
+	public static final String NODE_RERUN_ERROR= "rerunError"; //$NON-NLS-1$
+	public static final String NODE_FLAKY_FAILURE= "flakyFailure"; //$NON-NLS-1$
+	public static final String NODE_FLAKY_ERROR= "flakyError"; //$NON-NLS-1$
+
 	/**
 	 * value: String
 	 */
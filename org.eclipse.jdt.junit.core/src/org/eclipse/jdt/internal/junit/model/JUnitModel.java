@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,30 +12,20 @@
 
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.sax.SAXSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import org.eclipse.jdt.junit.TestRunListener;
@@ -119,22 +109,31 @@ public final class JUnitModel {
 			if (portStr == null)
 				return;
 			try {
-				final int port= Integer.parseInt(portStr);
+				final int[] ports= parsePorts(portStr, launch.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_PORTS));
 				fTrackedLaunches.remove(launch);
-				connectTestRunner(launch, javaProject, port);
+				connectTestRunner(launch, javaProject, ports);
 			} catch (NumberFormatException e) {
 				return;
 			}
 		}
 
-		private void connectTestRunner(ILaunch launch, IJavaProject javaProject, int port) {
-			TestRunSession testRunSession= new TestRunSession(launch, javaProject, port);
-			addTestRunSession(testRunSession);
-			
-			Object[] listeners= JUnitCorePlugin.getDefault().getNewTestRunListeners().getListeners();
-			for (int i= 0; i < listeners.length; i++) {
-				((TestRunListener) listeners[i]).sessionLaunched(testRunSession);
+		private int[] parsePorts(String portStr, String shardPortsStr) {
+			if (shardPortsStr == null)
+				return new int[] { Integer.parseInt(portStr) };
+			String[] shardPorts= shardPortsStr.split(","); //$NON-NLS-1$
+			int[] ports= new int[shardPorts.length];
+			for (int i= 0; i < shardPorts.length; i++) {
+				ports[i]= Integer.parseInt(shardPorts[i].trim());
 			}
+			return ports;
+		}
+
+		private void connectTestRunner(ILaunch launch, IJavaProject javaProject, int[] ports) {
+			TestRunSession testRunSession= new TestRunSession(launch, javaProject, ports);
+			String warmRunnerKey= launch.getAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER_KEY);
+			if (warmRunnerKey != null)
+				fWarmTestRunners.addTestRunner(warmRunnerKey, testRunSession);
+			testRunSessionLaunched(testRunSession);
 		}
 	}
 
@@ -149,6 +148,9 @@ public final class JUnitModel {
 			// Only serve one legacy ITestRunListener at a time, since they cannot distinguish between different concurrent test sessions:
 			if (fActiveTestRunSession != null)
 				return;
+			// imported sessions are not test runs for legacy listeners
+			if (testRunSession.getLaunch() == null)
+				return;
 
 			fActiveTestRunSession= testRunSession;
 
@@ -236,6 +238,7 @@ public final class JUnitModel {
 	 */
 	private final LinkedList/*<TestRunSession>*/ fTestRunSessions= new LinkedList();
 	private final ILaunchListener fLaunchListener= new JUnitLaunchListener();
+	private final WarmTestRunners fWarmTestRunners= new WarmTestRunners();
 
 	/**
 	 * Starts the model (called by the {@link JUnitCorePlugin} on startup).
@@ -281,6 +284,7 @@ public final class JUnitModel {
 	public void stop() {
 		ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.removeLaunchListener(fLaunchListener);
+		fWarmTestRunners.stop();
 
 		File historyDirectory= JUnitCorePlugin.getHistoryDirectory();
 		File[] swapFiles= historyDirectory.listFiles();
@@ -304,6 +308,27 @@ public final class JUnitModel {
 	}
 
 
+	/**
+	 * @return the warm test runner VMs that can run further launches
+	 */
+	public WarmTestRunners getWarmTestRunners() {
+		return fWarmTestRunners;
+	}
+
+	/**
+	 * Adds a session of a new launch and informs the {@link TestRunListener}s.
+	 *
+	 * @param testRunSession the launched session
+	 */
+	void testRunSessionLaunched(TestRunSession testRunSession) {
+		addTestRunSession(testRunSession);
+
+		Object[] listeners= JUnitCorePlugin.getDefault().getNewTestRunListeners().getListeners();
+		for (int i= 0; i < listeners.length; i++) {
+			((TestRunListener) listeners[i]).sessionLaunched(testRunSession);
+		}
+	}
+
 	public void addTestRunSessionListener(ITestRunSessionListener listener) {
 		fTestRunSessionListeners.add(listener);
 	}
@@ -366,27 +391,55 @@ public final class JUnitModel {
 	 */
 	public static TestRunSession importTestRunSession(File file) throws CoreException {
 		try {
-			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
-//			parserFactory.setValidating(true); // TODO: add DTD and debug flag
-			SAXParser parser= parserFactory.newSAXParser();
 			TestRunHandler handler= new TestRunHandler();
-			parser.parse(file, handler);
+			TestRunXMLReader.parse(file, handler);
 			TestRunSession session= handler.getTestRunSession();
+			if (session == null)
+				throw new SAXException("no test run found"); //$NON-NLS-1$
 			JUnitCorePlugin.getModel().addTestRunSession(session);
 			return session;
-		} catch (ParserConfigurationException e) {
-			throwImportError(file, e);
 		} catch (SAXException e) {
 			throwImportError(file, e);
 		} catch (IOException e) {
 			throwImportError(file, e);
-		} catch (IllegalArgumentException e) {
-			// Bug in parser: can throw IAE even if file is not null
-			throwImportError(file, e);
 		}
 		return null; // does not happen
 	}
 
+	/**
+	 * Imports the Ant or Maven Surefire JUnit reports (<code>TEST-*.xml</code>) in the given
+	 * directory into one test run session. The reports are read in parallel.
+	 * <p>
+	 * The session is added to the model while it is being imported. It is running until all
+	 * reports have been added, and its listeners are notified of the test elements of each report
+	 * once the report has been read. If the import is canceled or a report cannot be read, the
+	 * session is stopped and keeps the reports that have been added.
+	 * </p>
+	 *
+	 * @param directory the directory containing the reports
+	 * @param monitor the progress monitor
+	 * @return the imported test run session
+	 * @throws CoreException if the directory contains no reports or a report could not be read
+	 * @throws OperationCanceledException if the import was canceled
+	 */
+	public static TestRunSession importTestRunSessionFromDirectory(File directory, IProgressMonitor monitor) throws CoreException {
+		TestRunDirectoryImporter importer= new TestRunDirectoryImporter(directory);
+		if (importer.getFiles().length == 0)
+			throwImportError(directory, new IOException("no JUnit reports found")); //$NON-NLS-1$
+
+		TestRunSession session= new TestRunSession(directory.getName(), null);
+		session.importStarted();
+		JUnitCorePlugin.getModel().addTestRunSession(session);
+		boolean completed= false;
+		try {
+			importer.importInto(session, monitor);
+			completed= true;
+		} finally {
+			session.importEnded(! completed);
+		}
+		return session;
+	}
+
 	/**
 	 * Imports a test run session from the given URL.
 	 *
@@ -408,22 +461,16 @@ public final class JUnitModel {
 		Thread importThread= new Thread("JUnit URL importer") { //$NON-NLS-1$
 			public void run() {
 				try {
-					SAXParserFactory parserFactory= SAXParserFactory.newInstance();
-//					parserFactory.setValidating(true); // TODO: add DTD and debug flag
-					SAXParser parser= parserFactory.newSAXParser();
-					parser.parse(trimmedUrl, handler);
+					TestRunXMLReader.parse(new URL(trimmedUrl).openStream(), trimmedUrl, handler);
 					session[0]= handler.getTestRunSession();
+					if (session[0] == null)
+						storeImportError(new SAXException("no test run found")); //$NON-NLS-1$
 				} catch (OperationCanceledException e) {
 					// canceled
-				} catch (ParserConfigurationException e) {
-					storeImportError(e);
 				} catch (SAXException e) {
 					storeImportError(e);
 				} catch (IOException e) {
 					storeImportError(e);
-				} catch (IllegalArgumentException e) {
-					// Bug in parser: can throw IAE even if URL is not null
-					storeImportError(e);
 				}
 			}
 			private void storeImportError(Exception e) {
@@ -456,20 +503,11 @@ public final class JUnitModel {
 
 	public static void importIntoTestRunSession(File swapFile, TestRunSession testRunSession) throws CoreException {
 		try {
-			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
-//			parserFactory.setValidating(true); // TODO: add DTD and debug flag
-			SAXParser parser= parserFactory.newSAXParser();
-			TestRunHandler handler= new TestRunHandler(testRunSession);
-			parser.parse(swapFile, handler);
-		} catch (ParserConfigurationException e) {
-			throwImportError(swapFile, e);
+			TestRunXMLReader.parse(swapFile, new TestRunHandler(testRunSession));
 		} catch (SAXException e) {
 			throwImportError(swapFile, e);
 		} catch (IOException e) {
 			throwImportError(swapFile, e);
-		} catch (IllegalArgumentException e) {
-			// Bug in parser: can throw IAE even if file is not null
-			throwImportError(swapFile, e);
 		}
 	}
 
@@ -488,10 +526,6 @@ public final class JUnitModel {
 
 		} catch (IOException e) {
 			throwExportError(file, e);
-		} catch (TransformerConfigurationException e) {
-			throwExportError(file, e);
-		} catch (TransformerException e) {
-			throwExportError(file, e);
 		} finally {
 			if (out != null) {
 				try {
@@ -503,28 +537,16 @@ public final class JUnitModel {
 		}
 	}
 
-	public static void exportTestRunSession(TestRunSession testRunSession, OutputStream out)
-			throws TransformerFactoryConfigurationError, TransformerException {
-
-		Transformer transformer= TransformerFactory.newInstance().newTransformer();
-		InputSource inputSource= new InputSource();
-		SAXSource source= new SAXSource(new TestRunSessionSerializer(testRunSession), inputSource);
-		StreamResult result= new StreamResult(out);
-		transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8"); //$NON-NLS-1$
-		transformer.setOutputProperty(OutputKeys.INDENT, "yes"); //$NON-NLS-1$
-		/*
-		 * Bug in Xalan: Only indents if proprietary property
-		 * org.apache.xalan.templates.OutputProperties.S_KEY_INDENT_AMOUNT is set.
-		 *
-		 * Bug in Xalan as shipped with J2SE 5.0:
-		 * Does not read the indent-amount property at all >:-(.
-		 */
-		try {
-			transformer.setOutputProperty("{http://xml.apache.org/xalan}indent-amount", "2"); //$NON-NLS-1$ //$NON-NLS-2$
-		} catch (IllegalArgumentException e) {
-			// no indentation today...
-		}
-		transformer.transform(source, result);
+	/**
+	 * Exports the given test run session. The output stream is not closed.
+	 *
+	 * @param testRunSession the test run session
+	 * @param out the destination
+	 * @throws IOException if writing failed
+	 */
+	public static void exportTestRunSession(TestRunSession testRunSession, OutputStream out) throws IOException {
+		BufferedWriter writer= new BufferedWriter(new OutputStreamWriter(out, "UTF-8")); //$NON-NLS-1$
+		new TestRunSessionSerializer(testRunSession).serialize(writer);
 	}
 
 	private static void throwExportError(File file, Exception e) throws CoreException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -114,6 +114,11 @@ public class RemoteTestRunnerClient {
 	            notifyTestTreeEntry(arg);
 	            return this;
 	        }
+	        if (message.startsWith(MessageIds.TEST_FAILURE_PROJECTED)) {
+	            long elapsedTime = Long.parseLong(arg);
+	            notifyTestFailureProjected(elapsedTime);
+	            return this;
+	        }
 	        if (message.startsWith(MessageIds.TEST_RERAN)) {
 	            if (hasTestId())
 	                scanReranMessage(arg);
@@ -209,8 +214,9 @@ public class RemoteTestRunnerClient {
 
 	/**
 	 * An array of listeners that are informed about test events.
+	 * The listeners of a warm test runner are replaced for each run.
 	 */
-	private ITestRunListener2[] fListeners;
+	private volatile ITestRunListener2[] fListeners;
 
 	/**
 	 * The server socket
@@ -294,6 +300,28 @@ public class RemoteTestRunnerClient {
 		connection.start();
 	}
 
+	/**
+	 * Replaces the listeners that are informed about test events.
+	 *
+	 * @param listeners listeners to inform
+	 */
+	public void setListeners(ITestRunListener2[] listeners) {
+		fListeners= listeners;
+	}
+
+	/**
+	 * @param listener a listener
+	 * @return <code>true</code> if the listener is informed about test events
+	 */
+	public boolean hasListener(ITestRunListener2 listener) {
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			if (listeners[i] == listener)
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Requests to stop the remote test run.
 	 */
@@ -455,8 +483,9 @@ public class RemoteTestRunnerClient {
 	}
 
 	private void notifyTestReran(final String testId, final String className, final String testName, final int statusCode, final String trace) {
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					listener.testReran(testId,
@@ -468,8 +497,9 @@ public class RemoteTestRunnerClient {
 	}
 
 	private void notifyTestTreeEntry(final String treeEntry) {
-		for (int i= 0; i < fListeners.length; i++) {
-			ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			ITestRunListener2 listener= listeners[i];
 			if (!hasTestId())
 				listener.testTreeEntry(fakeTestId(treeEntry));
 			else
@@ -487,8 +517,9 @@ public class RemoteTestRunnerClient {
 	private void notifyTestRunStopped(final long elapsedTime) {
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					listener.testRunStopped(elapsedTime);
@@ -497,11 +528,26 @@ public class RemoteTestRunnerClient {
 		}
 	}
 
+	private void notifyTestFailureProjected(final long elapsedTime) {
+		if (JUnitCorePlugin.isStopped())
+			return;
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
+			SafeRunner.run(new ListenerSafeRunnable() {
+				public void run() {
+					listener.testFailureProjected(elapsedTime);
+				}
+			});
+		}
+	}
+
 	private void testRunEnded(final long elapsedTime) {
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					listener.testRunEnded(elapsedTime);
@@ -513,8 +559,9 @@ public class RemoteTestRunnerClient {
 	private void notifyTestEnded(final String test) {
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					String s[]= extractTestId(test);
@@ -527,8 +574,9 @@ public class RemoteTestRunnerClient {
 	private void notifyTestStarted(final String test) {
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					String s[]= extractTestId(test);
@@ -541,8 +589,9 @@ public class RemoteTestRunnerClient {
 	private void notifyTestRunStarted(final int count) {
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					listener.testRunStarted(count);
@@ -554,8 +603,9 @@ public class RemoteTestRunnerClient {
 	private void notifyTestFailed() {
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 			        listener.testFailed(fFailureKind, fFailedTestId,
@@ -594,8 +644,9 @@ public class RemoteTestRunnerClient {
 		// fix for 77771 RemoteTestRunnerClient doing work after junit shutdown [JUnit]
 		if (JUnitCorePlugin.isStopped())
 			return;
-		for (int i= 0; i < fListeners.length; i++) {
-			final ITestRunListener2 listener= fListeners[i];
+		ITestRunListener2[] listeners= fListeners;
+		for (int i= 0; i < listeners.length; i++) {
+			final ITestRunListener2 listener= listeners[i];
 			SafeRunner.run(new ListenerSafeRunnable() {
 				public void run() {
 					listener.testRunTerminated();
@@ -612,4 +663,20 @@ public class RemoteTestRunnerClient {
 			fWriter.flush();
 		}
 	}
+
+	/**
+	 * Requests a warm test runner to run tests.
+	 *
+	 * @param argumentFile a file containing the arguments that select the tests, one per line
+	 * @return <code>true</code> if the request has been sent
+	 */
+	public synchronized boolean requestTestRun(String argumentFile) {
+		if (!isRunning())
+			return false;
+		fActualResult.setLength(0);
+		fExpectedResult.setLength(0);
+		fWriter.println(MessageIds.TEST_RUN_REQUEST + argumentFile);
+		fWriter.flush();
+		return true;
+	}
 }
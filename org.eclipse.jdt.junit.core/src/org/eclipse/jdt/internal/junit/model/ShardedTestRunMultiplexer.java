@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the events of several test runner VMs (shards) into the events of a single test run.
+ * <p>
+ * Every shard has its own {@link RemoteTestRunnerClient} that reports to the listener returned
+ * by {@link #getShardListener(int)}. Test ids are made unique by prefixing them with the shard
+ * index. The test tree of a shard is forwarded as a whole, so that the trees of concurrently
+ * starting shards do not get mixed up. All other events are forwarded immediately, so the
+ * elapsed times of the tests are not affected. The run ends when all shards have ended.
+ * </p>
+ */
+class ShardedTestRunMultiplexer {
+
+	private static final char SHARD_SEPARATOR= ':';
+
+	private final TestRunSession fSession;
+	private final ITestRunListener2 fTarget;
+	private final int fShardCount;
+	private final Object fLock= new Object();
+
+	private int fStartedShards;
+	private int fFinishedShards;
+	private boolean fStopped;
+	private boolean fTerminated;
+	private long fStartTime;
+	private long fProjectedFailure= -1;
+
+	/**
+	 * @param session the session that gets the merged events
+	 * @param target the listener that gets the merged events
+	 * @param shardCount the number of shards
+	 */
+	public ShardedTestRunMultiplexer(TestRunSession session, ITestRunListener2 target, int shardCount) {
+		fSession= session;
+		fTarget= target;
+		fShardCount= shardCount;
+	}
+
+	/**
+	 * @param shard the shard index
+	 * @return the listener for the client of the given shard
+	 */
+	public ITestRunListener2 getShardListener(int shard) {
+		return new ShardListener(shard);
+	}
+
+	private static String toMergedTestId(int shard, String testId) {
+		return String.valueOf(shard) + SHARD_SEPARATOR + testId;
+	}
+
+	private void shardFinished() {
+		if (++fFinishedShards < fShardCount)
+			return;
+
+		long elapsedTime= fStartTime == 0 ? 0 : System.currentTimeMillis() - fStartTime;
+		if (fTerminated) {
+			fTarget.testRunTerminated();
+		} else if (fStopped) {
+			fTarget.testRunStopped(elapsedTime);
+		} else {
+			fTarget.testRunEnded(elapsedTime);
+		}
+	}
+
+	private class ShardListener implements ITestRunListener2 {
+
+		private final int fShard;
+		/**
+		 * Tree entries not yet forwarded. Only accessed from the client thread of this shard.
+		 */
+		private final List/*<String>*/ fPendingTreeEntries= new ArrayList();
+		private boolean fFinished;
+
+		ShardListener(int shard) {
+			fShard= shard;
+		}
+
+		private void flushTreeEntries() {
+			for (int i= 0; i < fPendingTreeEntries.size(); i++) {
+				fTarget.testTreeEntry((String) fPendingTreeEntries.get(i));
+			}
+			fPendingTreeEntries.clear();
+		}
+
+		private void finish() {
+			if (!fFinished) {
+				fFinished= true;
+				shardFinished();
+			}
+		}
+
+		public void testRunStarted(int testCount) {
+			synchronized (fLock) {
+				if (fStartedShards++ == 0) {
+					fStartTime= System.currentTimeMillis();
+					fTarget.testRunStarted(testCount);
+				} else {
+					fSession.shardStarted(testCount);
+				}
+			}
+		}
+
+		public void testFailureProjected(long elapsedTime) {
+			synchronized (fLock) {
+				// the shards run in parallel, so the earliest projected failure is the first one
+				if (fProjectedFailure < 0 || elapsedTime < fProjectedFailure) {
+					fProjectedFailure= elapsedTime;
+					fTarget.testFailureProjected(elapsedTime);
+				}
+			}
+		}
+
+		public void testTreeEntry(String description) {
+			fPendingTreeEntries.add(toMergedTestId(fShard, description));
+		}
+
+		public void testStarted(String testId, String testName) {
+			synchronized (fLock) {
+				flushTreeEntries();
+				fTarget.testStarted(toMergedTestId(fShard, testId), testName);
+			}
+		}
+
+		public void testEnded(String testId, String testName) {
+			synchronized (fLock) {
+				flushTreeEntries();
+				fTarget.testEnded(toMergedTestId(fShard, testId), testName);
+			}
+		}
+
+		public void testFailed(int status, String testId, String testName, String trace, String expected, String actual) {
+			synchronized (fLock) {
+				flushTreeEntries();
+				fTarget.testFailed(status, toMergedTestId(fShard, testId), testName, trace, expected, actual);
+			}
+		}
+
+		public void testReran(String testId, String testClass, String testName, int status, String trace, String expected, String actual) {
+			synchronized (fLock) {
+				fTarget.testReran(toMergedTestId(fShard, testId), testClass, testName, status, trace, expected, actual);
+			}
+		}
+
+		public void testRunEnded(long elapsedTime) {
+			synchronized (fLock) {
+				flushTreeEntries();
+				finish();
+			}
+		}
+
+		public void testRunStopped(long elapsedTime) {
+			synchronized (fLock) {
+				flushTreeEntries();
+				fStopped= true;
+				finish();
+			}
+		}
+
+		public void testRunTerminated() {
+			synchronized (fLock) {
+				flushTreeEntries();
+				fTerminated= true;
+				finish();
+			}
+		}
+	}
+}
@@ -170,7 +170,10 @@ public abstract class TestElement implements ITestElement {
 	private String fTestName;
 
 	private Status fStatus;
-	private String fTrace;
+	/**
+	 * The failure trace, compressed by the {@link TraceStore} of the root
+	 */
+	private TraceStore.Trace fTrace;
 	private String fExpected;
 	private String fActual;
 
@@ -250,7 +253,7 @@ public abstract class TestElement implements ITestElement {
 		Result testResult= getTestResult(false);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE
 				|| (testResult == Result.IGNORED && fTrace != null)) {
-			return new FailureTrace(fTrace, fExpected, fActual);
+			return new FailureTrace(getTrace(), fExpected, fActual);
 		}
 		return null;
 	}
@@ -291,13 +294,14 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
+		TraceStore traceStore= getRoot().getTraceStore();
 		if (trace != null && fTrace != null) {
 			//don't overwrite first trace if same test run logs multiple errors
-			fTrace= fTrace + trace;
+			fTrace= traceStore.intern(fTrace.toString() + trace);
 		} else {
-			fTrace= trace;
-			fExpected= expected;
-			fActual= actual;
+			fTrace= traceStore.intern(trace);
+			fExpected= traceStore.internText(expected);
+			fActual= traceStore.internText(actual);
 		}
 		setStatus(status);
 	}
@@ -306,8 +310,12 @@ public abstract class TestElement implements ITestElement {
 		return fStatus;
 	}
 
+	/**
+	 * @return the failure trace, or <code>null</code>. The trace is rendered from its
+	 *         compressed form on each call.
+	 */
 	public String getTrace() {
-		return fTrace;
+		return fTrace == null ? null : fTrace.toString();
 	}
 
 	public String getExpected() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2008 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import org.eclipse.jdt.junit.model.ITestRunSession;
 public class TestRoot extends TestSuiteElement {
 
 	private final ITestRunSession fSession;
+	private final TraceStore fTraceStore= new TraceStore();
 
 	public TestRoot(ITestRunSession session) {
 		super(null, "-1", session.getTestRunName(), 1); //$NON-NLS-1$
@@ -28,4 +29,11 @@ public class TestRoot extends TestSuiteElement {
 	public ITestRunSession getTestRunSession() {
 		return fSession;
 	}
+
+	/**
+	 * @return the store for the failure traces of the tests in this tree
+	 */
+	public TraceStore getTraceStore() {
+		return fTraceStore;
+	}
 }
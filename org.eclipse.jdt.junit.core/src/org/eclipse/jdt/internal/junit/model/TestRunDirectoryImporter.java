@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.jdt.internal.junit.BasicElementLabels;
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.Messages;
+
+/**
+ * Imports the JUnit reports in a directory, as written by Ant's <code>junit</code> task or by the
+ * Maven Surefire plug-in, into one test run session.
+ * <p>
+ * The reports are added to the session in the order of the file names, so the test suites of all
+ * files end up as top-level suites of the merged session. The report to be added next is parsed
+ * straight into the session. Meanwhile, reader threads parse the following reports, at most one
+ * report per reader ahead, and record their contents until it is their turn. Once a report has
+ * been added, the listeners of the session are notified of its test elements, so that a view
+ * showing the session is updated report by report.
+ * </p>
+ */
+public class TestRunDirectoryImporter {
+
+	private static final String REPORT_PREFIX= "TEST-"; //$NON-NLS-1$
+	private static final String REPORT_SUFFIX= ".xml"; //$NON-NLS-1$
+
+	/**
+	 * Forwards the events of a report to the handler of the session. The <code>testrun</code>
+	 * element of exported sessions is dropped.
+	 */
+	private static class ForwardingHandler extends DefaultHandler {
+		private final DefaultHandler fHandler;
+
+		public ForwardingHandler(DefaultHandler handler) {
+			fHandler= handler;
+		}
+
+		public void setDocumentLocator(Locator locator) {
+			fHandler.setDocumentLocator(locator);
+		}
+
+		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+			if (! qName.equals(IXMLTags.NODE_TESTRUN))
+				fHandler.startElement(uri, localName, qName, attributes);
+		}
+
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			if (! qName.equals(IXMLTags.NODE_TESTRUN))
+				fHandler.endElement(uri, localName, qName);
+		}
+
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			fHandler.characters(ch, start, length);
+		}
+	}
+
+	/**
+	 * Records the events of a report that is read ahead, so that it can be added to the session
+	 * when it is its turn. The <code>testrun</code> element of exported sessions is dropped.
+	 */
+	private static class RecordingHandler extends DefaultHandler {
+		private static final byte START= 0;
+		private static final byte END= 1;
+		private static final byte CHARACTERS= 2;
+
+		private byte[] fKinds= new byte[256];
+		private final ArrayList/*<Object>*/ fData= new ArrayList();
+
+		public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+			if (qName.equals(IXMLTags.NODE_TESTRUN))
+				return;
+			record(START, new Object[] { qName, new AttributesImpl(attributes) });
+		}
+
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			if (qName.equals(IXMLTags.NODE_TESTRUN))
+				return;
+			record(END, qName);
+		}
+
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			record(CHARACTERS, new String(ch, start, length));
+		}
+
+		private void record(byte kind, Object data) {
+			int size= fData.size();
+			if (size == fKinds.length) {
+				byte[] kinds= new byte[size * 2];
+				System.arraycopy(fKinds, 0, kinds, 0, size);
+				fKinds= kinds;
+			}
+			fKinds[size]= kind;
+			fData.add(data);
+		}
+
+		public void replay(DefaultHandler handler) throws SAXException {
+			for (int i= 0, size= fData.size(); i < size; i++) {
+				Object data= fData.get(i);
+				switch (fKinds[i]) {
+					case START:
+						Object[] start= (Object[]) data;
+						handler.startElement("", (String) start[0], (String) start[0], (Attributes) start[1]); //$NON-NLS-1$
+						break;
+					case END:
+						handler.endElement("", (String) data, (String) data); //$NON-NLS-1$
+						break;
+					default:
+						String characters= (String) data;
+						handler.characters(characters.toCharArray(), 0, characters.length());
+				}
+			}
+		}
+	}
+
+	private class ReportReader extends Thread {
+		public ReportReader(int number) {
+			super("JUnit report reader " + number); //$NON-NLS-1$
+			setDaemon(true);
+		}
+
+		public void run() {
+			int index;
+			while ((index= nextFileToReadAhead()) != -1) {
+				Object result;
+				try {
+					RecordingHandler handler= new RecordingHandler();
+					TestRunXMLReader.parse(fFiles[index], handler);
+					result= handler;
+				} catch (Exception e) {
+					result= e;
+				}
+				setResult(index, result);
+			}
+		}
+	}
+
+	private final File[] fFiles;
+
+	/**
+	 * For each file, the {@link RecordingHandler} with its contents, the exception that occurred
+	 * while reading it, or <code>null</code> if it has not been read yet.
+	 */
+	private final Object[] fResults;
+	/**
+	 * The index of the first file that has not been claimed by a reader or by the importing thread.
+	 */
+	private int fNextFile;
+	/**
+	 * The index of the file that is added to the session next.
+	 */
+	private int fNextToAdd;
+	/**
+	 * The number of files that may be read ahead of {@link #fNextToAdd}.
+	 */
+	private int fReadAhead;
+	private boolean fCanceled;
+
+	/**
+	 * @param directory the directory containing the reports
+	 */
+	public TestRunDirectoryImporter(File directory) {
+		File[] files= directory.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				String name= file.getName();
+				return name.startsWith(REPORT_PREFIX) && name.endsWith(REPORT_SUFFIX) && file.isFile();
+			}
+		});
+		if (files == null)
+			files= new File[0];
+		Arrays.sort(files, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				return ((File) o1).getName().compareTo(((File) o2).getName());
+			}
+		});
+		fFiles= files;
+		fResults= new Object[files.length];
+	}
+
+	/**
+	 * @return the report files in the directory, sorted by name
+	 */
+	public File[] getFiles() {
+		return fFiles;
+	}
+
+	/**
+	 * Reads all reports and adds their contents to the given session. The session listeners are
+	 * notified of the test elements of each report after it has been added.
+	 *
+	 * @param testRunSession the session to add the test suites to
+	 * @param monitor the progress monitor
+	 * @throws CoreException if a report could not be read
+	 * @throws OperationCanceledException if the import was canceled
+	 */
+	public void importInto(TestRunSession testRunSession, IProgressMonitor monitor) throws CoreException {
+		monitor.beginTask("", fFiles.length); //$NON-NLS-1$
+		int readerCount= Math.max(0, Math.min(fFiles.length - 1, Runtime.getRuntime().availableProcessors() - 1));
+		fReadAhead= readerCount;
+		for (int i= 0; i < readerCount; i++) {
+			new ReportReader(i).start();
+		}
+
+		TestRunHandler handler= new TestRunHandler(testRunSession);
+		try {
+			for (int i= 0; i < fFiles.length; i++) {
+				monitor.subTask(BasicElementLabels.getResourceName(fFiles[i].getName()));
+				try {
+					if (claimFile(i)) {
+						TestRunXMLReader.parse(fFiles[i], new ForwardingHandler(handler));
+					} else {
+						Object result= waitForResult(i, monitor);
+						if (result instanceof Exception)
+							throw (Exception) result;
+						((RecordingHandler) result).replay(handler);
+					}
+				} catch (OperationCanceledException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.getPluginId(),
+							Messages.format(ModelMessages.JUnitModel_could_not_read, BasicElementLabels.getPathLabel(fFiles[i])), e));
+				}
+				added(i);
+				testRunSession.importedTestElements();
+				monitor.worked(1);
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+			}
+		} finally {
+			cancel();
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Claims the next file for a reader, waiting until it is within the read-ahead window. The
+	 * file that is added next is left to the importing thread.
+	 *
+	 * @return the index of the file, or -1 if there are no files left or the import was canceled
+	 */
+	private synchronized int nextFileToReadAhead() {
+		while (! fCanceled && fNextFile < fFiles.length && (fNextFile <= fNextToAdd || fNextFile > fNextToAdd + fReadAhead)) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				// check again
+			}
+		}
+		if (fCanceled || fNextFile == fFiles.length)
+			return -1;
+		return fNextFile++;
+	}
+
+	/**
+	 * Claims the given file for the importing thread, unless a reader has already claimed it.
+	 *
+	 * @param index the index of the file to add next
+	 * @return <code>true</code> if the file has to be parsed into the session
+	 */
+	private synchronized boolean claimFile(int index) {
+		if (fNextFile != index)
+			return false;
+		fNextFile++;
+		notifyAll();
+		return true;
+	}
+
+	private synchronized void added(int index) {
+		fNextToAdd= index + 1;
+		notifyAll();
+	}
+
+	private synchronized void setResult(int index, Object result) {
+		fResults[index]= result;
+		notifyAll();
+	}
+
+	private synchronized Object waitForResult(int index, IProgressMonitor monitor) {
+		while (fResults[index] == null) {
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			try {
+				wait(100);
+			} catch (InterruptedException e) {
+				// check for cancellation
+			}
+		}
+		Object result= fResults[index];
+		fResults[index]= null; // the session holds the contents from now on
+		return result;
+	}
+
+	private synchronized void cancel() {
+		fCanceled= true;
+		notifyAll();
+	}
+}
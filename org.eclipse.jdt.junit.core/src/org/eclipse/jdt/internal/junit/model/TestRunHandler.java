@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,6 +56,11 @@ public class TestRunHandler extends DefaultHandler {
 
 	private Locator fLocator;
 
+	/**
+	 * Nesting depth inside an element whose contents are ignored, or 0.
+	 */
+	private int fSkippedDepth;
+
 	private Status fStatus;
 
 	private IProgressMonitor fMonitor;
@@ -91,7 +96,12 @@ public class TestRunHandler extends DefaultHandler {
 		}
 		if (Thread.interrupted())
 			throw new OperationCanceledException();
-		
+
+		if (fSkippedDepth > 0) {
+			fSkippedDepth++;
+			return;
+		}
+
 		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			if (fTestRunSession == null) {
 				String name= attributes.getValue(IXMLTags.ATTR_NAME);
@@ -121,6 +131,9 @@ public class TestRunHandler extends DefaultHandler {
 				// support standalone suites and Ant's 'junitreport' task:
 				fTestRunSession= new TestRunSession(name, null);
 				fTestSuite= fTestRunSession.getTestRoot();
+			} else if (fTestSuite == null) {
+				// importing suites into an existing session
+				fTestSuite= fTestRunSession.getTestRoot();
 			}
 
 			String pack= attributes.getValue(IXMLTags.ATTR_PACKAGE);
@@ -171,6 +184,11 @@ public class TestRunHandler extends DefaultHandler {
 				fFailureBuffer.append(message).append('\n');
 			}
 
+		} else if (qName.equals(IXMLTags.NODE_RERUN_FAILURE) || qName.equals(IXMLTags.NODE_RERUN_ERROR)
+				|| qName.equals(IXMLTags.NODE_FLAKY_FAILURE) || qName.equals(IXMLTags.NODE_FLAKY_ERROR)) {
+			// Surefire: results of reruns, the final result is reported by the test case itself
+			fSkippedDepth= 1;
+
 		} else {
 			throw new SAXParseException("unknown node '" + qName + "'", fLocator);  //$NON-NLS-1$//$NON-NLS-2$
 		}
@@ -187,7 +205,10 @@ public class TestRunHandler extends DefaultHandler {
 	}
 
 	public void characters(char[] ch, int start, int length) throws SAXException {
-		if (fInExpected) {
+		if (fSkippedDepth > 0) {
+			return;
+
+		} else if (fInExpected) {
 			fExpectedBuffer.append(ch, start, length);
 
 		} else if (fInActual) {
@@ -199,7 +220,10 @@ public class TestRunHandler extends DefaultHandler {
 	}
 
 	public void endElement(String uri, String localName, String qName) throws SAXException {
-		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
+		if (fSkippedDepth > 0) {
+			fSkippedDepth--;
+
+		} else if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			// OK
 
 		} else if (qName.equals(IXMLTags.NODE_TESTSUITES)) {
@@ -65,9 +65,15 @@ public class TestRunSession implements ITestRunSession {
 	private final ITestKind fTestRunnerKind;
 
 	/**
-	 * Test runner client or <code>null</code>.
+	 * Test runner clients, one per test runner VM, or <code>null</code>.
 	 */
-	private RemoteTestRunnerClient fTestRunnerClient;
+	private RemoteTestRunnerClient[] fTestRunnerClients;
+
+	/**
+	 * The listener of a single test runner client that translates its events into events of this
+	 * session, or <code>null</code> if this session listens to more than one client.
+	 */
+	private ITestRunListener2 fTestRunListener;
 
 	private final ListenerList/*<ITestSessionListener>*/ fSessionListeners;
 
@@ -131,6 +137,16 @@ public class TestRunSession implements ITestRunSession {
 	volatile boolean fIsRunning;
 
 	volatile boolean fIsStopped;
+	/**
+	 * Projected time in millis after the start of the test run until the first test that failed
+	 * in its last run has run, or -1 if no failure is expected.
+	 */
+	volatile long fProjectedTimeToFirstFailure= -1;
+
+	/**
+	 * Number of top-level elements of an import that the session listeners have been notified of.
+	 */
+	private int fImportedCount;
 
 
 	/**
@@ -153,14 +169,44 @@ public class TestRunSession implements ITestRunSession {
 		fTestRoot= new TestRoot(this);
 		fIdToTest= new HashMap();
 
-		fTestRunnerClient= null;
+		fTestRunnerClients= null;
 
 		fSessionListeners= new ListenerList();
 	}
 
 
 	public TestRunSession(ILaunch launch, IJavaProject project, int port) {
+		this(launch, project, new int[] { port });
+	}
+
+	/**
+	 * Creates a test run session that listens to one or more test runner VMs. If more than one
+	 * port is given, the tests have been split into shards that run in separate VMs, and the
+	 * events of all shards are merged into this session.
+	 *
+	 * @param launch the launch
+	 * @param project the launched project
+	 * @param ports the ports of the test runner VMs, at least one
+	 */
+	public TestRunSession(ILaunch launch, IJavaProject project, int[] ports) {
+		this(launch, project, ports, null);
+	}
+
+	/**
+	 * Creates a test run session for a further run of a warm test runner VM. The client is
+	 * already connected to the VM; from now on, its events are reported to this session.
+	 *
+	 * @param launch the launch
+	 * @param project the launched project
+	 * @param client the client of the warm test runner
+	 */
+	public TestRunSession(ILaunch launch, IJavaProject project, RemoteTestRunnerClient client) {
+		this(launch, project, null, client);
+	}
+
+	private TestRunSession(ILaunch launch, IJavaProject project, int[] ports, RemoteTestRunnerClient client) {
 		Assert.isNotNull(launch);
+		Assert.isLegal(client != null || ports.length > 0);
 
 		fLaunch= launch;
 		fProject= project;
@@ -177,24 +223,40 @@ public class TestRunSession implements ITestRunSession {
 		fTestRoot= new TestRoot(this);
 		fIdToTest= new HashMap();
 
-		fTestRunnerClient= new RemoteTestRunnerClient();
-		fTestRunnerClient.startListening(new ITestRunListener2[] { new TestSessionNotifier() }, port);
+		fSessionListeners= new ListenerList();
+		addTestSessionListener(new TestRunListenerAdapter(this));
+
+		if (client != null) {
+			fTestRunListener= new TestSessionNotifier();
+			fTestRunnerClients= new RemoteTestRunnerClient[] { client };
+			client.setListeners(new ITestRunListener2[] { fTestRunListener });
+			return;
+		}
+
+		fTestRunnerClients= new RemoteTestRunnerClient[ports.length];
+		if (ports.length == 1) {
+			fTestRunListener= new TestSessionNotifier();
+			fTestRunnerClients[0]= new RemoteTestRunnerClient();
+			fTestRunnerClients[0].startListening(new ITestRunListener2[] { fTestRunListener }, ports[0]);
+		} else {
+			ShardedTestRunMultiplexer multiplexer= new ShardedTestRunMultiplexer(this, new TestSessionNotifier(), ports.length);
+			for (int i= 0; i < ports.length; i++) {
+				fTestRunnerClients[i]= new RemoteTestRunnerClient();
+				fTestRunnerClients[i].startListening(new ITestRunListener2[] { multiplexer.getShardListener(i) }, ports[i]);
+			}
+		}
 
 		final ILaunchManager launchManager= DebugPlugin.getDefault().getLaunchManager();
 		launchManager.addLaunchListener(new ILaunchesListener2() {
 			public void launchesTerminated(ILaunch[] launches) {
 				if (Arrays.asList(launches).contains(fLaunch)) {
-					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
-					}
+					stopWaiting();
 					launchManager.removeLaunchListener(this);
 				}
 			}
 			public void launchesRemoved(ILaunch[] launches) {
 				if (Arrays.asList(launches).contains(fLaunch)) {
-					if (fTestRunnerClient != null) {
-						fTestRunnerClient.stopWaiting();
-					}
+					stopWaiting();
 					launchManager.removeLaunchListener(this);
 				}
 			}
@@ -203,9 +265,40 @@ public class TestRunSession implements ITestRunSession {
 			public void launchesAdded(ILaunch[] launches) {
 			}
 		});
+	}
 
-		fSessionListeners= new ListenerList();
-		addTestSessionListener(new TestRunListenerAdapter(this));
+	/**
+	 * @return the client of the test runner VM if this session listens to a single VM,
+	 *         or <code>null</code>
+	 */
+	RemoteTestRunnerClient getTestRunnerClient() {
+		RemoteTestRunnerClient[] clients= fTestRunnerClients;
+		return clients != null && fTestRunListener != null ? clients[0] : null;
+	}
+
+	/**
+	 * @return <code>true</code> iff the test runner VM still reports its events to this session,
+	 *         i.e. it has not been taken over by a further run of a warm test runner
+	 */
+	private boolean isAttached() {
+		return fTestRunListener == null || fTestRunnerClients[0].hasListener(fTestRunListener);
+	}
+
+	/**
+	 * @return <code>true</code> iff this session has been run by a warm test runner VM that
+	 *         stays alive for further launches
+	 */
+	private boolean isWarm() {
+		return fLaunch != null && fLaunch.getAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER_KEY) != null;
+	}
+
+	private void stopWaiting() {
+		RemoteTestRunnerClient[] clients= fTestRunnerClients;
+		if (clients != null) {
+			for (int i= 0; i < clients.length; i++) {
+				clients[i].stopWaiting();
+			}
+		}
 	}
 
 	void reset() {
@@ -350,6 +443,14 @@ public class TestRunSession implements ITestRunSession {
 		return fIsStopped;
 	}
 
+	/**
+	 * @return the time in millis after the start of the test run until the first test that
+	 *         failed in its last run is expected to have run, or -1 if no failure is expected
+	 */
+	public long getProjectedTimeToFirstFailure() {
+		return fProjectedTimeToFirstFailure;
+	}
+
 	public synchronized void addTestSessionListener(ITestSessionListener listener) {
 		swapIn();
 		fSessionListeners.add(listener);
@@ -378,7 +479,7 @@ public class TestRunSession implements ITestRunSession {
 			JUnitModel.exportTestRunSession(this, swapFile);
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
-			fTestRunnerClient= null;
+			fTestRunnerClients= null;
 			fIdToTest= new HashMap();
 			fIncompleteTestSuites= null;
 			fUnrootedSuite= null;
@@ -429,17 +530,25 @@ public class TestRunSession implements ITestRunSession {
 	public void stopTestRun() {
 		if (isRunning() || ! isKeptAlive())
 			fIsStopped= true;
-		if (fTestRunnerClient != null)
-			fTestRunnerClient.stopTest();
+		RemoteTestRunnerClient[] clients= fTestRunnerClients;
+		if (clients != null && isAttached()) {
+			for (int i= 0; i < clients.length; i++) {
+				clients[i].stopTest();
+			}
+		}
 	}
 
 	/**
 	 * @return <code>true</code> iff the runtime VM of this test session is still alive
 	 */
 	public boolean isKeptAlive() {
-		if (fTestRunnerClient != null
+		RemoteTestRunnerClient[] clients= fTestRunnerClients;
+		if (clients != null && isWarm()) {
+			return areRunning(clients) && isAttached();
+
+		} else if (clients != null
 				&& fLaunch != null
-				&& fTestRunnerClient.isRunning()
+				&& areRunning(clients)
 				&& ILaunchManager.DEBUG_MODE.equals(fLaunch.getLaunchMode())) {
 			ILaunchConfiguration config= fLaunch.getLaunchConfiguration();
 			try {
@@ -454,6 +563,14 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	private static boolean areRunning(RemoteTestRunnerClient[] clients) {
+		for (int i= 0; i < clients.length; i++) {
+			if (!clients[i].isRunning())
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * @return <code>true</code> iff this session has been started, but not ended nor stopped nor terminated
 	 */
@@ -477,7 +594,8 @@ public class TestRunSession implements ITestRunSession {
 			} else if (status == Status.FAILURE) {
 				fFailureCount--;
 			}
-			fTestRunnerClient.rerunTest(testId, className, testName);
+			// sharded launches are never kept alive, see JUnitLaunchConfigurationDelegate
+			fTestRunnerClients[0].rerunTest(testId, className, testName);
 			return true;
 		}
 		return false;
@@ -487,6 +605,101 @@ public class TestRunSession implements ITestRunSession {
 		return (TestElement) fIdToTest.get(id);
 	}
 
+	/**
+	 * Marks a session that is being imported as running, so that it is shown while the test
+	 * elements of the imported reports are added.
+	 *
+	 * @see #importedTestElements()
+	 * @see #importEnded(boolean)
+	 */
+	public void importStarted() {
+		fIsRunning= true;
+
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).sessionStarted();
+		}
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).runningBegins();
+		}
+	}
+
+	/**
+	 * Notifies the session listeners of the top-level elements that have been imported into the
+	 * test root since the last call, and of their children and results.
+	 */
+	public void importedTestElements() {
+		ITestElement[] children= fTestRoot.getChildren();
+		for (int i= fImportedCount; i < children.length; i++) {
+			notifyImported((TestElement) children[i]);
+		}
+		fImportedCount= children.length;
+	}
+
+	private void notifyImported(TestElement testElement) {
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			((ITestSessionListener) listeners[i]).testAdded(testElement);
+		}
+
+		Status status;
+		if (testElement instanceof TestSuiteElement) {
+			ITestElement[] children= ((TestSuiteElement) testElement).getChildren();
+			for (int i= 0; i < children.length; i++) {
+				notifyImported((TestElement) children[i]);
+			}
+			status= ((TestSuiteElement) testElement).getSuiteStatus();
+		} else {
+			for (int i= 0; i < listeners.length; ++i) {
+				((ITestSessionListener) listeners[i]).testEnded((TestCaseElement) testElement);
+			}
+			status= testElement.getStatus();
+		}
+
+		if (status.isErrorOrFailure()) {
+			String trace= testElement.getTrace();
+			for (int i= 0; i < listeners.length; ++i) {
+				((ITestSessionListener) listeners[i]).testFailed(testElement, status, trace, testElement.getExpected(), testElement.getActual());
+			}
+		}
+	}
+
+	/**
+	 * Ends the import of a session.
+	 *
+	 * @param stopped <code>true</code> if the import was canceled or failed before all reports
+	 *            were added
+	 */
+	public void importEnded(boolean stopped) {
+		fIsRunning= false;
+		fIsStopped= stopped;
+
+		double elapsedTime= 0;
+		ITestElement[] children= fTestRoot.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			double time= children[i].getElapsedTimeInSeconds();
+			if (! Double.isNaN(time))
+				elapsedTime+= time;
+		}
+
+		Object[] listeners= fSessionListeners.getListeners();
+		for (int i= 0; i < listeners.length; ++i) {
+			if (stopped)
+				((ITestSessionListener) listeners[i]).sessionStopped((long) (elapsedTime * 1000));
+			else
+				((ITestSessionListener) listeners[i]).sessionEnded((long) (elapsedTime * 1000));
+		}
+	}
+
+	/**
+	 * Called when a further shard of a sharded test run has started.
+	 *
+	 * @param testCount the number of tests in the shard
+	 */
+	void shardStarted(int testCount) {
+		fTotalCount+= testCount;
+	}
+
 	private TestElement addTreeEntry(String treeEntry) {
 		// format: testId","testName","isSuite","testcount
 		int index0= treeEntry.indexOf(',');
@@ -571,6 +784,7 @@ public class TestRunSession implements ITestRunSession {
 			fAssumptionFailureCount = 0;
 			fErrorCount= 0;
 			fTotalCount= testCount;
+			fProjectedTimeToFirstFailure= -1;
 
 			fStartTime= System.currentTimeMillis();
 			fIsRunning= true;
@@ -610,6 +824,10 @@ public class TestRunSession implements ITestRunSession {
 			}
 		}
 
+		public void testFailureProjected(long elapsedTime) {
+			fProjectedTimeToFirstFailure= elapsedTime;
+		}
+
 		/* (non-Javadoc)
 		 * @see org.eclipse.jdt.internal.junit.model.ITestRunListener2#testTreeEntry(java.lang.String)
 		 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,21 +14,12 @@
 package org.eclipse.jdt.internal.junit.model;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.util.Locale;
 
-import org.xml.sax.Attributes;
-import org.xml.sax.ContentHandler;
-import org.xml.sax.DTDHandler;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.ErrorHandler;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.AttributesImpl;
-
 import org.eclipse.jdt.junit.model.ITestElement;
 import org.eclipse.jdt.junit.model.ITestElement.FailureTrace;
 import org.eclipse.jdt.junit.model.ITestElement.ProgressState;
@@ -38,16 +29,21 @@ import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jdt.core.IJavaProject;
 
-public class TestRunSessionSerializer implements XMLReader {
-
-	private static final String EMPTY= ""; //$NON-NLS-1$
-	private static final String CDATA= "CDATA"; //$NON-NLS-1$
-	private static final Attributes NO_ATTS= new AttributesImpl();
+/**
+ * Writes a test run session as XML. The elements are written directly to the output while
+ * walking the test tree, without building a document or going through a transformer.
+ */
+public class TestRunSessionSerializer {
 
+	private static final String[] NO_ATTS= new String[0];
+	private static final String INDENT= "  "; //$NON-NLS-1$
 
 	private final TestRunSession fTestRunSession;
-	private ContentHandler fHandler;
-	private ErrorHandler fErrorHandler;
+	private Writer fWriter;
+
+	private int fDepth;
+	private boolean fInStartTag;
+	private boolean fAfterCharacters;
 
 	private final NumberFormat timeFormat= new DecimalFormat("0.0##", new DecimalFormatSymbols(Locale.US)); //$NON-NLS-1$ // not localized, parseable by Double.parseDouble(..)
 
@@ -59,26 +55,34 @@ public class TestRunSessionSerializer implements XMLReader {
 		fTestRunSession= testRunSession;
 	}
 
-	public void parse(InputSource input) throws IOException, SAXException {
-		if (fHandler == null)
-			throw new SAXException("ContentHandler missing"); //$NON-NLS-1$
-
-		fHandler.startDocument();
+	/**
+	 * Writes the test run session. The writer is flushed, but not closed.
+	 *
+	 * @param writer the writer, must use the UTF-8 encoding
+	 * @throws IOException if writing failed
+	 */
+	public void serialize(Writer writer) throws IOException {
+		fWriter= writer;
+		fDepth= 0;
+		fInStartTag= false;
+		fAfterCharacters= false;
+		fWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"); //$NON-NLS-1$
 		handleTestRun();
-		fHandler.endDocument();
+		fWriter.write('\n');
+		fWriter.flush();
 	}
 
-	private void handleTestRun() throws SAXException {
-		AttributesImpl atts= new AttributesImpl();
-		addCDATA(atts, IXMLTags.ATTR_NAME, fTestRunSession.getTestRunName());
+	private void handleTestRun() throws IOException {
 		IJavaProject project= fTestRunSession.getLaunchedProject();
-		if (project != null)
-			addCDATA(atts, IXMLTags.ATTR_PROJECT, project.getElementName());
-		addCDATA(atts, IXMLTags.ATTR_TESTS, fTestRunSession.getTotalCount());
-		addCDATA(atts, IXMLTags.ATTR_STARTED, fTestRunSession.getStartedCount());
-		addCDATA(atts, IXMLTags.ATTR_FAILURES, fTestRunSession.getFailureCount());
-		addCDATA(atts, IXMLTags.ATTR_ERRORS, fTestRunSession.getErrorCount());
-		addCDATA(atts, IXMLTags.ATTR_IGNORED, fTestRunSession.getIgnoredCount());
+		String[] atts= {
+				IXMLTags.ATTR_NAME, fTestRunSession.getTestRunName(),
+				IXMLTags.ATTR_PROJECT, project != null ? project.getElementName() : null,
+				IXMLTags.ATTR_TESTS, Integer.toString(fTestRunSession.getTotalCount()),
+				IXMLTags.ATTR_STARTED, Integer.toString(fTestRunSession.getStartedCount()),
+				IXMLTags.ATTR_FAILURES, Integer.toString(fTestRunSession.getFailureCount()),
+				IXMLTags.ATTR_ERRORS, Integer.toString(fTestRunSession.getErrorCount()),
+				IXMLTags.ATTR_IGNORED, Integer.toString(fTestRunSession.getIgnoredCount()),
+		};
 		startElement(IXMLTags.NODE_TESTRUN, atts);
 
 		TestRoot testRoot= fTestRunSession.getTestRoot();
@@ -90,17 +94,15 @@ public class TestRunSessionSerializer implements XMLReader {
 		endElement(IXMLTags.NODE_TESTRUN);
 	}
 
-	private void handleTestElement(ITestElement testElement) throws SAXException {
+	private void handleTestElement(ITestElement testElement) throws IOException {
 		if (testElement instanceof TestSuiteElement) {
 			TestSuiteElement testSuiteElement= (TestSuiteElement) testElement;
 
-			AttributesImpl atts= new AttributesImpl();
-			addCDATA(atts, IXMLTags.ATTR_NAME, testSuiteElement.getSuiteTypeName());
-			if (! Double.isNaN(testSuiteElement.getElapsedTimeInSeconds()))
-				addCDATA(atts, IXMLTags.ATTR_TIME, timeFormat.format(testSuiteElement.getElapsedTimeInSeconds()));
-			if (testElement.getProgressState() != ProgressState.COMPLETED || testElement.getTestResult(false) != Result.UNDEFINED)
-				addCDATA(atts, IXMLTags.ATTR_INCOMPLETE, Boolean.TRUE.toString());
-
+			String[] atts= {
+					IXMLTags.ATTR_NAME, testSuiteElement.getSuiteTypeName(),
+					IXMLTags.ATTR_TIME, formatTime(testSuiteElement.getElapsedTimeInSeconds()),
+					IXMLTags.ATTR_INCOMPLETE, testElement.getProgressState() != ProgressState.COMPLETED || testElement.getTestResult(false) != Result.UNDEFINED ? Boolean.TRUE.toString() : null,
+			};
 			startElement(IXMLTags.NODE_TESTSUITE, atts);
 			addFailure(testSuiteElement);
 
@@ -113,16 +115,13 @@ public class TestRunSessionSerializer implements XMLReader {
 		} else if (testElement instanceof TestCaseElement) {
 			TestCaseElement testCaseElement= (TestCaseElement) testElement;
 
-			AttributesImpl atts= new AttributesImpl();
-			addCDATA(atts, IXMLTags.ATTR_NAME, testCaseElement.getTestMethodName());
-			addCDATA(atts, IXMLTags.ATTR_CLASSNAME, testCaseElement.getClassName());
-			if (! Double.isNaN(testCaseElement.getElapsedTimeInSeconds()))
-				addCDATA(atts, IXMLTags.ATTR_TIME, timeFormat.format(testCaseElement.getElapsedTimeInSeconds()));
-			if (testElement.getProgressState() != ProgressState.COMPLETED)
-				addCDATA(atts, IXMLTags.ATTR_INCOMPLETE, Boolean.TRUE.toString());
-			if (testCaseElement.isIgnored())
-				addCDATA(atts, IXMLTags.ATTR_IGNORED, Boolean.TRUE.toString());
-
+			String[] atts= {
+					IXMLTags.ATTR_NAME, testCaseElement.getTestMethodName(),
+					IXMLTags.ATTR_CLASSNAME, testCaseElement.getClassName(),
+					IXMLTags.ATTR_TIME, formatTime(testCaseElement.getElapsedTimeInSeconds()),
+					IXMLTags.ATTR_INCOMPLETE, testElement.getProgressState() != ProgressState.COMPLETED ? Boolean.TRUE.toString() : null,
+					IXMLTags.ATTR_IGNORED, testCaseElement.isIgnored() ? Boolean.TRUE.toString() : null,
+			};
 			startElement(IXMLTags.NODE_TESTCASE, atts);
 			addFailure(testCaseElement);
 
@@ -134,7 +133,11 @@ public class TestRunSessionSerializer implements XMLReader {
 
 	}
 
-	private void addFailure(TestElement testElement) throws SAXException {
+	private String formatTime(double seconds) {
+		return Double.isNaN(seconds) ? null : timeFormat.format(seconds);
+	}
+
+	private void addFailure(TestElement testElement) throws IOException {
 		FailureTrace failureTrace= testElement.getFailureTrace();
 		
 		if (testElement.isAssumptionFailure()) {
@@ -145,11 +148,8 @@ public class TestRunSessionSerializer implements XMLReader {
 			endElement(IXMLTags.NODE_SKIPPED);
 			
 		} else if (failureTrace != null) {
-			AttributesImpl failureAtts= new AttributesImpl();
-//				addCDATA(failureAtts, IXMLTags.ATTR_MESSAGE, xx);
-//				addCDATA(failureAtts, IXMLTags.ATTR_TYPE, xx);
 			String failureKind= testElement.getTestResult(false) == Result.ERROR ? IXMLTags.NODE_ERROR : IXMLTags.NODE_FAILURE;
-			startElement(failureKind, failureAtts);
+			startElement(failureKind, NO_ATTS);
 			String expected= failureTrace.getExpected();
 			String actual= failureTrace.getActual();
 			if (expected != null) {
@@ -168,25 +168,110 @@ public class TestRunSessionSerializer implements XMLReader {
 		}
 	}
 
-	private void startElement(String name, Attributes atts) throws SAXException {
-		fHandler.startElement(EMPTY, name, name, atts);
+	/**
+	 * Starts an element. Elements that follow character data are not indented, so that the
+	 * character data is not changed.
+	 *
+	 * @param name the element name
+	 * @param atts alternating attribute names and values, <code>null</code> values are omitted
+	 * @throws IOException if writing failed
+	 */
+	private void startElement(String name, String[] atts) throws IOException {
+		closeStartTag();
+		if (!fAfterCharacters)
+			newLine();
+		fWriter.write('<');
+		fWriter.write(name);
+		for (int i= 0; i < atts.length; i+= 2) {
+			String value= atts[i + 1];
+			if (value != null) {
+				fWriter.write(' ');
+				fWriter.write(atts[i]);
+				fWriter.write("=\""); //$NON-NLS-1$
+				writeEscaped(value, true);
+				fWriter.write('"');
+			}
+		}
+		fInStartTag= true;
+		fAfterCharacters= false;
+		fDepth++;
+	}
+
+	private void endElement(String name) throws IOException {
+		fDepth--;
+		if (fInStartTag) {
+			fWriter.write("/>"); //$NON-NLS-1$
+			fInStartTag= false;
+		} else {
+			if (!fAfterCharacters)
+				newLine();
+			fWriter.write("</"); //$NON-NLS-1$
+			fWriter.write(name);
+			fWriter.write('>');
+		}
+		fAfterCharacters= false;
 	}
 
-	private void endElement(String name) throws SAXException {
-		fHandler.endElement(EMPTY, name, name);
+	private void closeStartTag() throws IOException {
+		if (fInStartTag) {
+			fWriter.write('>');
+			fInStartTag= false;
+		}
 	}
 
-	private static void addCDATA(AttributesImpl atts, String name, int value) {
-		addCDATA(atts, name, Integer.toString(value));
+	private void newLine() throws IOException {
+		fWriter.write('\n');
+		for (int i= 0; i < fDepth; i++) {
+			fWriter.write(INDENT);
+		}
 	}
 
-	private static void addCDATA(AttributesImpl atts, String name, String value) {
-		atts.addAttribute(EMPTY, EMPTY, name, CDATA, value);
+	private void addCharacters(String string) throws IOException {
+		if (string.length() == 0)
+			return;
+		closeStartTag();
+		writeEscaped(escapeNonUnicodeChars(string), false);
+		fAfterCharacters= true;
 	}
 
-	private void addCharacters(String string) throws SAXException {
-		string= escapeNonUnicodeChars(string);
-		fHandler.characters(string.toCharArray(), 0, string.length());
+	private void writeEscaped(String string, boolean inAttribute) throws IOException {
+		int length= string.length();
+		int start= 0;
+		for (int i= 0; i < length; i++) {
+			char ch= string.charAt(i);
+			String replacement;
+			switch (ch) {
+				case '<':
+					replacement= "&lt;"; //$NON-NLS-1$
+					break;
+				case '>':
+					replacement= "&gt;"; //$NON-NLS-1$
+					break;
+				case '&':
+					replacement= "&amp;"; //$NON-NLS-1$
+					break;
+				case '\r':
+					replacement= "&#13;"; //$NON-NLS-1$
+					break;
+				case '"':
+					replacement= inAttribute ? "&quot;" : null; //$NON-NLS-1$
+					break;
+				case '\n':
+					replacement= inAttribute ? "&#10;" : null; //$NON-NLS-1$
+					break;
+				case '\t':
+					replacement= inAttribute ? "&#9;" : null; //$NON-NLS-1$
+					break;
+				default:
+					replacement= null;
+			}
+			if (replacement != null) {
+				fWriter.write(string, start, i - start);
+				fWriter.write(replacement);
+				start= i + 1;
+			}
+		}
+		fWriter.write(string, start, length - start);
 	}
 	
 	/**
@@ -218,53 +303,4 @@ public class TestRunSessionSerializer implements XMLReader {
 		}
 		return string;
 	}
-
-	public void setContentHandler(ContentHandler handler) {
-		this.fHandler= handler;
-	}
-
-	public ContentHandler getContentHandler() {
-		return fHandler;
-	}
-
-	public void setErrorHandler(ErrorHandler handler) {
-		fErrorHandler= handler;
-	}
-
-	public ErrorHandler getErrorHandler() {
-		return fErrorHandler;
-	}
-
-	// ignored:
-
-	public void parse(String systemId) throws IOException, SAXException {
-	}
-
-	public void setDTDHandler(DTDHandler handler) {
-	}
-
-	public DTDHandler getDTDHandler() {
-		return null;
-	}
-
-	public void setEntityResolver(EntityResolver resolver) {
-	}
-
-	public EntityResolver getEntityResolver() {
-		return null;
-	}
-
-	public void setProperty(java.lang.String name, java.lang.Object value) {
-	}
-
-	public Object getProperty(java.lang.String name) {
-		return null;
-	}
-
-	public void setFeature(java.lang.String name, boolean value) {
-	}
-
-	public boolean getFeature(java.lang.String name) {
-		return false;
-	}
 }
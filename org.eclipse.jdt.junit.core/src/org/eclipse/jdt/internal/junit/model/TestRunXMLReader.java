@@ -0,0 +1,488 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * A small streaming reader for test run transcripts and Ant/Maven Surefire JUnit XML reports.
+ * <p>
+ * The reader tokenizes the input in a single pass and reports elements and character data to a
+ * {@link DefaultHandler} while reading, without a JAXP parser or an intermediate tree. The reader
+ * does not notify the listeners of a {@link TestRunSession} that a {@link TestRunHandler} fills;
+ * see {@link TestRunDirectoryImporter} for an import that does.
+ * </p>
+ * <p>
+ * Only the subset of XML produced by JUnit report writers is supported: the XML declaration,
+ * processing instructions, comments, document type declarations and CDATA sections are handled,
+ * but namespaces are not processed and external entities are not resolved.
+ * </p>
+ */
+public class TestRunXMLReader implements Locator {
+
+	private static final int BUFFER_SIZE= 8192;
+	private static final String CDATA= "CDATA"; //$NON-NLS-1$
+	private static final String EMPTY= ""; //$NON-NLS-1$
+
+	private final Reader fReader;
+	private final String fSystemId;
+
+	private final char[] fBuffer= new char[BUFFER_SIZE];
+	private int fPosition;
+	private int fLimit;
+
+	private int fLineNumber= 1;
+	private int fColumnNumber= 1;
+
+	private final StringBuffer fText= new StringBuffer();
+	private final StringBuffer fName= new StringBuffer();
+	private final ArrayList/*<String>*/ fOpenElements= new ArrayList();
+	private boolean fRootSeen;
+
+	/**
+	 * @param reader the reader to read from
+	 * @param systemId the system identifier for error messages, or <code>null</code>
+	 */
+	public TestRunXMLReader(Reader reader, String systemId) {
+		fReader= reader;
+		fSystemId= systemId;
+	}
+
+	/**
+	 * Reads the given XML file and reports it to the given handler.
+	 *
+	 * @param file the file
+	 * @param handler the handler
+	 * @throws IOException if reading failed
+	 * @throws SAXException if the input is not well-formed or the handler rejected it
+	 */
+	public static void parse(File file, DefaultHandler handler) throws IOException, SAXException {
+		parse(new FileInputStream(file), file.getPath(), handler);
+	}
+
+	/**
+	 * Reads the given XML stream and reports it to the given handler. The stream is closed
+	 * afterwards.
+	 *
+	 * @param stream the stream
+	 * @param systemId the system identifier for error messages, or <code>null</code>
+	 * @param handler the handler
+	 * @throws IOException if reading failed
+	 * @throws SAXException if the input is not well-formed or the handler rejected it
+	 */
+	public static void parse(InputStream stream, String systemId, DefaultHandler handler) throws IOException, SAXException {
+		Reader reader;
+		try {
+			reader= createReader(stream);
+		} catch (IOException e) {
+			stream.close();
+			throw e;
+		}
+		new TestRunXMLReader(reader, systemId).parse(handler);
+	}
+
+	/**
+	 * Creates a reader for the given XML input stream. The encoding is taken from the byte order
+	 * mark or the XML declaration and defaults to UTF-8.
+	 *
+	 * @param stream the stream
+	 * @return a reader for the decoded stream
+	 * @throws IOException if the stream cannot be read or the encoding is not supported
+	 */
+	public static Reader createReader(InputStream stream) throws IOException {
+		BufferedInputStream in= new BufferedInputStream(stream);
+		in.mark(256);
+		byte[] head= new byte[256];
+		int length= 0;
+		int read;
+		while (length < head.length && (read= in.read(head, length, head.length - length)) != -1) {
+			length+= read;
+		}
+		in.reset();
+
+		if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+			in.skip(3);
+			return new InputStreamReader(in, "UTF-8"); //$NON-NLS-1$
+		}
+		if (length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+			in.skip(2);
+			return new InputStreamReader(in, "UTF-16BE"); //$NON-NLS-1$
+		}
+		if (length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+			in.skip(2);
+			return new InputStreamReader(in, "UTF-16LE"); //$NON-NLS-1$
+		}
+
+		String encoding= "UTF-8"; //$NON-NLS-1$
+		String declaration= new String(head, 0, length, "ISO-8859-1"); //$NON-NLS-1$
+		if (declaration.startsWith("<?xml")) { //$NON-NLS-1$
+			int end= declaration.indexOf("?>"); //$NON-NLS-1$
+			int attr= declaration.indexOf("encoding"); //$NON-NLS-1$
+			if (end != -1 && attr != -1 && attr < end) {
+				int start= attr + "encoding".length(); //$NON-NLS-1$
+				while (start < end && declaration.charAt(start) != '"' && declaration.charAt(start) != '\'')
+					start++;
+				if (start < end) {
+					int close= declaration.indexOf(declaration.charAt(start), start + 1);
+					if (close != -1 && close < end)
+						encoding= declaration.substring(start + 1, close).trim();
+				}
+			}
+		}
+		try {
+			return new InputStreamReader(in, encoding);
+		} catch (UnsupportedEncodingException e) {
+			return new InputStreamReader(in, "UTF-8"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Reads the whole input and reports it to the given handler. The reader is closed afterwards.
+	 *
+	 * @param handler the handler
+	 * @throws IOException if reading failed
+	 * @throws SAXException if the input is not well-formed or the handler rejected it
+	 */
+	public void parse(DefaultHandler handler) throws IOException, SAXException {
+		try {
+			handler.setDocumentLocator(this);
+			handler.startDocument();
+			int c;
+			while ((c= read()) != -1) {
+				if (c == '<') {
+					flushText(handler);
+					readMarkup(handler);
+				} else if (c == '&') {
+					readReference(fText);
+				} else {
+					fText.append((char) c);
+				}
+			}
+			flushText(handler);
+			if (!fOpenElements.isEmpty())
+				throw error("unexpected end of document, missing </" + fOpenElements.get(fOpenElements.size() - 1) + '>'); //$NON-NLS-1$
+			handler.endDocument();
+		} finally {
+			fReader.close();
+		}
+	}
+
+	private void flushText(DefaultHandler handler) throws SAXException {
+		int length= fText.length();
+		if (length == 0)
+			return;
+		if (!fOpenElements.isEmpty()) {
+			char[] chars= new char[length];
+			fText.getChars(0, length, chars, 0);
+			handler.characters(chars, 0, length);
+		}
+		fText.setLength(0);
+	}
+
+	private void readMarkup(DefaultHandler handler) throws IOException, SAXException {
+		int c= read();
+		if (c == '?') {
+			skipPast("?>"); //$NON-NLS-1$
+		} else if (c == '!') {
+			c= read();
+			if (c == '-') {
+				expect('-');
+				skipPast("-->"); //$NON-NLS-1$
+			} else if (c == '[') {
+				expect("CDATA["); //$NON-NLS-1$
+				readCDATA();
+				flushText(handler);
+			} else {
+				skipDeclaration();
+			}
+		} else if (c == '/') {
+			String name= readName(read());
+			skipWhitespace(read(), '>');
+			int last= fOpenElements.size() - 1;
+			if (last < 0 || !fOpenElements.get(last).equals(name))
+				throw error("unexpected end tag </" + name + '>'); //$NON-NLS-1$
+			fOpenElements.remove(last);
+			handler.endElement(EMPTY, name, name);
+		} else {
+			readStartTag(handler, c);
+		}
+	}
+
+	private void readStartTag(DefaultHandler handler, int first) throws IOException, SAXException {
+		String name= readName(first);
+		AttributesImpl attributes= new AttributesImpl();
+		boolean empty= false;
+		int c= read();
+		while (true) {
+			while (isWhitespace(c))
+				c= read();
+			if (c == '>') {
+				break;
+			} else if (c == '/') {
+				expect('>');
+				empty= true;
+				break;
+			} else if (c == -1) {
+				throw error("unexpected end of document in <" + name + '>'); //$NON-NLS-1$
+			}
+			String attributeName= readName(c);
+			c= read();
+			while (isWhitespace(c))
+				c= read();
+			if (c != '=')
+				throw error("expected '=' after attribute " + attributeName); //$NON-NLS-1$
+			c= read();
+			while (isWhitespace(c))
+				c= read();
+			if (c != '"' && c != '\'')
+				throw error("expected quoted value for attribute " + attributeName); //$NON-NLS-1$
+			attributes.addAttribute(EMPTY, attributeName, attributeName, CDATA, readAttributeValue(c));
+			c= read();
+		}
+
+		if (fOpenElements.isEmpty() && fRootSeen)
+			throw error("more than one root element"); //$NON-NLS-1$
+		fRootSeen= true;
+		fOpenElements.add(name);
+		handler.startElement(EMPTY, name, name, attributes);
+		if (empty) {
+			fOpenElements.remove(fOpenElements.size() - 1);
+			handler.endElement(EMPTY, name, name);
+		}
+	}
+
+	private String readAttributeValue(int quote) throws IOException, SAXException {
+		StringBuffer value= new StringBuffer();
+		int c;
+		while ((c= read()) != quote) {
+			if (c == -1 || c == '<') {
+				throw error("unterminated attribute value"); //$NON-NLS-1$
+			} else if (c == '&') {
+				readReference(value);
+			} else if (c == '\n' || c == '\t') {
+				value.append(' '); // attribute value normalization
+			} else {
+				value.append((char) c);
+			}
+		}
+		return value.toString();
+	}
+
+	private void readReference(StringBuffer result) throws IOException, SAXException {
+		fName.setLength(0);
+		int c;
+		while ((c= read()) != ';') {
+			if (c == -1 || fName.length() > 10)
+				throw error("unterminated entity reference &" + fName); //$NON-NLS-1$
+			fName.append((char) c);
+		}
+		String entity= fName.toString();
+		if (entity.equals("lt")) { //$NON-NLS-1$
+			result.append('<');
+		} else if (entity.equals("gt")) { //$NON-NLS-1$
+			result.append('>');
+		} else if (entity.equals("amp")) { //$NON-NLS-1$
+			result.append('&');
+		} else if (entity.equals("quot")) { //$NON-NLS-1$
+			result.append('"');
+		} else if (entity.equals("apos")) { //$NON-NLS-1$
+			result.append('\'');
+		} else if (entity.startsWith("#")) { //$NON-NLS-1$
+			try {
+				int codePoint= entity.startsWith("#x") //$NON-NLS-1$
+						? Integer.parseInt(entity.substring(2), 16)
+						: Integer.parseInt(entity.substring(1));
+				appendCodePoint(result, codePoint);
+			} catch (NumberFormatException e) {
+				throw error("invalid character reference &" + entity + ';'); //$NON-NLS-1$
+			}
+		} else {
+			throw error("undeclared entity &" + entity + ';'); //$NON-NLS-1$
+		}
+	}
+
+	private static void appendCodePoint(StringBuffer result, int codePoint) {
+		if (codePoint >= 0x10000) {
+			codePoint-= 0x10000;
+			result.append((char) (0xD800 + (codePoint >> 10)));
+			result.append((char) (0xDC00 + (codePoint & 0x3FF)));
+		} else {
+			result.append((char) codePoint);
+		}
+	}
+
+	private void readCDATA() throws IOException, SAXException {
+		int brackets= 0;
+		int c;
+		while ((c= read()) != -1) {
+			if (c == ']') {
+				brackets++;
+			} else if (c == '>' && brackets >= 2) {
+				for (int i= 2; i < brackets; i++)
+					fText.append(']');
+				return;
+			} else {
+				for (int i= 0; i < brackets; i++)
+					fText.append(']');
+				brackets= 0;
+				fText.append((char) c);
+			}
+		}
+		throw error("unterminated CDATA section"); //$NON-NLS-1$
+	}
+
+	private void skipDeclaration() throws IOException, SAXException {
+		int depth= 0;
+		int quote= 0;
+		int c;
+		while ((c= read()) != -1) {
+			if (quote != 0) {
+				if (c == quote)
+					quote= 0;
+			} else if (c == '"' || c == '\'') {
+				quote= c;
+			} else if (c == '[') {
+				depth++;
+			} else if (c == ']') {
+				depth--;
+			} else if (c == '>' && depth <= 0) {
+				return;
+			}
+		}
+		throw error("unterminated declaration"); //$NON-NLS-1$
+	}
+
+	private void skipPast(String terminator) throws IOException, SAXException {
+		int matched= 0;
+		int length= terminator.length();
+		int c;
+		while ((c= read()) != -1) {
+			if (c == terminator.charAt(matched)) {
+				matched++;
+				if (matched == length)
+					return;
+			} else {
+				matched= c == terminator.charAt(0) ? 1 : 0;
+			}
+		}
+		throw error("missing " + terminator); //$NON-NLS-1$
+	}
+
+	private String readName(int first) throws IOException, SAXException {
+		if (first == -1 || isWhitespace(first) || first == '>' || first == '/' || first == '=')
+			throw error("expected a name"); //$NON-NLS-1$
+		fName.setLength(0);
+		fName.append((char) first);
+		while (true) {
+			int c= peek();
+			if (c == -1 || isWhitespace(c) || c == '>' || c == '/' || c == '=')
+				break;
+			fName.append((char) read());
+		}
+		return fName.toString();
+	}
+
+	private void skipWhitespace(int c, char expected) throws IOException, SAXException {
+		while (isWhitespace(c))
+			c= read();
+		if (c != expected)
+			throw error("expected '" + expected + '\'');  //$NON-NLS-1$
+	}
+
+	private void expect(char expected) throws IOException, SAXException {
+		if (read() != expected)
+			throw error("expected '" + expected + '\''); //$NON-NLS-1$
+	}
+
+	private void expect(String expected) throws IOException, SAXException {
+		for (int i= 0; i < expected.length(); i++) {
+			expect(expected.charAt(i));
+		}
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+	private boolean fill() throws IOException {
+		int read= fReader.read(fBuffer, 0, BUFFER_SIZE);
+		if (read <= 0)
+			return false;
+		fPosition= 0;
+		fLimit= read;
+		return true;
+	}
+
+	private int peek() throws IOException {
+		if (fPosition == fLimit && !fill())
+			return -1;
+		return fBuffer[fPosition];
+	}
+
+	/**
+	 * Reads the next character. Line ends are normalized to <code>'\n'</code>.
+	 *
+	 * @return the next character, or -1 at the end of the input
+	 * @throws IOException if reading failed
+	 */
+	private int read() throws IOException {
+		if (fPosition == fLimit && !fill())
+			return -1;
+		char c= fBuffer[fPosition++];
+		if (c == '\r') {
+			if (peek() == '\n')
+				fPosition++;
+			c= '\n';
+		}
+		if (c == '\n') {
+			fLineNumber++;
+			fColumnNumber= 1;
+		} else {
+			fColumnNumber++;
+		}
+		return c;
+	}
+
+	private SAXParseException error(String message) {
+		return new SAXParseException(message, this);
+	}
+
+	public String getPublicId() {
+		return null;
+	}
+
+	public String getSystemId() {
+		return fSystemId;
+	}
+
+	public int getLineNumber() {
+		return fLineNumber;
+	}
+
+	public int getColumnNumber() {
+		return fColumnNumber;
+	}
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
+/**
+ * Elapsed times of test classes and elapsed times and results of individual tests, collected
+ * from the most recent finished test run sessions with a given name. Data from younger sessions
+ * take precedence over data from older ones.
+ */
+public class TestTimingHistory {
+
+	/**
+	 * Maximal number of sessions that are inspected. Sessions may have to be swapped in from
+	 * the history directory, so only the youngest ones are considered.
+	 */
+	private static final int MAX_SESSIONS= 3;
+
+	private final HashMap/*<String, Double>*/ fClassTimes;
+
+	/**
+	 * Maps test names (see {@link TestElement#getTestName()}) to the result of the youngest run.
+	 */
+	private final HashMap/*<String, TestResult>*/ fTestResults;
+
+	private double fTotalTime;
+
+	private static class TestResult {
+		final double fSeconds;
+		final boolean fFailed;
+
+		TestResult(double seconds, boolean failed) {
+			fSeconds= seconds;
+			fFailed= failed;
+		}
+	}
+
+	public TestTimingHistory() {
+		fClassTimes= new HashMap();
+		fTestResults= new HashMap();
+	}
+
+	/**
+	 * Creates the timing history from the finished sessions in the {@link JUnitModel}.
+	 *
+	 * @param testRunName the name of the test runs to consider, usually the name of the launch
+	 *            configuration
+	 * @return the timing history, never <code>null</code>
+	 */
+	public static TestTimingHistory create(String testRunName) {
+		TestTimingHistory history= new TestTimingHistory();
+		List sessions= JUnitCorePlugin.getModel().getTestRunSessions(); // youngest first
+		int inspected= 0;
+		for (Iterator iter= sessions.iterator(); iter.hasNext() && inspected < MAX_SESSIONS;) {
+			TestRunSession session= (TestRunSession) iter.next();
+			if (!testRunName.equals(session.getTestRunName())
+					|| session.isStarting() || session.isRunning() || session.isKeptAlive())
+				continue;
+			history.addSession(session);
+			inspected++;
+		}
+		return history;
+	}
+
+	/**
+	 * Adds the times of the given session for all classes that are not yet known.
+	 *
+	 * @param session the session
+	 */
+	public void addSession(TestRunSession session) {
+		HashMap sessionTimes= new HashMap();
+		collectTimes(session.getTestRoot(), sessionTimes, fTestResults);
+		for (Iterator iter= sessionTimes.keySet().iterator(); iter.hasNext();) {
+			Object className= iter.next();
+			if (!fClassTimes.containsKey(className)) {
+				Double time= (Double) sessionTimes.get(className);
+				fClassTimes.put(className, time);
+				fTotalTime+= time.doubleValue();
+			}
+		}
+	}
+
+	/**
+	 * Sets the time of a test class. Does nothing if the class is already known.
+	 *
+	 * @param className the fully qualified name of the test class
+	 * @param seconds the elapsed time in seconds
+	 */
+	public void addClassTime(String className, double seconds) {
+		if (!fClassTimes.containsKey(className)) {
+			fClassTimes.put(className, new Double(seconds));
+			fTotalTime+= seconds;
+		}
+	}
+
+	private static void collectTimes(TestSuiteElement suite, HashMap sessionTimes, HashMap testResults) {
+		ITestElement[] children= suite.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			ITestElement child= children[i];
+			if (child instanceof TestSuiteElement) {
+				collectTimes((TestSuiteElement) child, sessionTimes, testResults);
+			} else if (child instanceof TestCaseElement) {
+				TestCaseElement testCase= (TestCaseElement) child;
+				double time= testCase.getElapsedTimeInSeconds();
+				if (Double.isNaN(time))
+					continue;
+				String testName= testCase.getTestName();
+				if (!testResults.containsKey(testName))
+					testResults.put(testName, new TestResult(time, testCase.getStatus().isErrorOrFailure()));
+				String className= testCase.getTestClassName();
+				Double known= (Double) sessionTimes.get(className);
+				sessionTimes.put(className, new Double(known == null ? time : known.doubleValue() + time));
+			}
+		}
+	}
+
+	/**
+	 * @param className the fully qualified name of the test class
+	 * @return the elapsed time in seconds or {@link Double#NaN} if the class is not known
+	 */
+	public double getClassTime(String className) {
+		Double time= (Double) fClassTimes.get(className);
+		return time == null ? Double.NaN : time.doubleValue();
+	}
+
+	/**
+	 * @return the average elapsed time of all known classes in seconds, or {@link Double#NaN}
+	 *         if no class is known
+	 */
+	public double getAverageClassTime() {
+		if (fClassTimes.isEmpty())
+			return Double.NaN;
+		return fTotalTime / fClassTimes.size();
+	}
+
+	/**
+	 * Writes the results of the known tests in the format read by the test runner's
+	 * <code>-testhistory</code> option: one line per test with a failure flag (<code>1</code> or
+	 * <code>0</code>), the elapsed time in seconds, and the test name, separated by spaces.
+	 *
+	 * @param writer the writer
+	 * @throws IOException if writing fails
+	 */
+	public void writeTestResults(BufferedWriter writer) throws IOException {
+		for (Iterator iter= fTestResults.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry= (Map.Entry) iter.next();
+			TestResult result= (TestResult) entry.getValue();
+			writer.write(result.fFailed ? '1' : '0');
+			writer.write(' ');
+			writer.write(String.valueOf(result.fSeconds));
+			writer.write(' ');
+			writer.write((String) entry.getKey());
+			writer.newLine();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if results of individual tests are known
+	 */
+	public boolean hasTestResults() {
+		return !fTestResults.isEmpty();
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Stores the failure traces of a test run in compressed form.
+ * <p>
+ * A trace is kept as a chain of its lines, from the first line to the last one. Lines are
+ * interned, and chains are shared from the end: two traces that end with the same stack frames
+ * share the nodes of these frames. When many tests fail with similar traces, e.g. because of a
+ * broken fixture, only the lines that differ are stored per test. The text of a trace is only
+ * rendered when it is requested.
+ * </p>
+ * <p>
+ * The store only references lines and traces weakly, so that traces that are no longer used by
+ * a test element, e.g. after a rerun, are garbage collected.
+ * </p>
+ */
+public class TraceStore {
+
+	/**
+	 * A line of a trace, followed by the rest of the trace. Instances are shared between traces
+	 * and must not be changed.
+	 */
+	public static final class Trace {
+		private final String fLine;
+		private final Trace fNext;
+		private final int fHashCode;
+
+		Trace(String line, Trace next) {
+			fLine= line;
+			fNext= next;
+			fHashCode= line.hashCode() * 31 + (next == null ? 0 : System.identityHashCode(next));
+		}
+
+		public int hashCode() {
+			return fHashCode;
+		}
+
+		/*
+		 * Lines are interned and successors are shared, so identity comparison is enough.
+		 */
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Trace))
+				return false;
+			Trace other= (Trace) obj;
+			return fLine == other.fLine && fNext == other.fNext;
+		}
+
+		/**
+		 * Renders the trace.
+		 *
+		 * @return the text of the trace, including the line delimiters
+		 */
+		public String toString() {
+			int length= 0;
+			for (Trace t= this; t != null; t= t.fNext) {
+				length+= t.fLine.length();
+			}
+			StringBuffer buf= new StringBuffer(length);
+			for (Trace t= this; t != null; t= t.fNext) {
+				buf.append(t.fLine);
+			}
+			return buf.toString();
+		}
+	}
+
+	/**
+	 * Map from line or text to a weak reference to its interned instance.
+	 */
+	private final WeakHashMap/*<String, WeakReference<String>>*/ fTexts= new WeakHashMap();
+
+	/**
+	 * Map from trace node to a weak reference to its shared instance.
+	 */
+	private final WeakHashMap/*<Trace, WeakReference<Trace>>*/ fTraces= new WeakHashMap();
+
+	/**
+	 * Compresses a trace.
+	 *
+	 * @param trace the trace, can be <code>null</code>
+	 * @return the compressed trace, or <code>null</code> if the trace is <code>null</code>
+	 */
+	public synchronized Trace intern(String trace) {
+		if (trace == null)
+			return null;
+		if (trace.length() == 0)
+			return internTrace(new Trace(internText(trace), null));
+
+		// split after each '\n', keeping the line delimiters so that the trace is restored exactly
+		int count= 0;
+		for (int i= trace.indexOf('\n'); i != -1; i= trace.indexOf('\n', i + 1)) {
+			count++;
+		}
+		int[] ends= new int[count + 1];
+		int n= 0;
+		for (int i= trace.indexOf('\n'); i != -1; i= trace.indexOf('\n', i + 1)) {
+			ends[n++]= i + 1;
+		}
+		if (n == 0 || ends[n - 1] != trace.length())
+			ends[n++]= trace.length();
+
+		Trace result= null;
+		for (int i= n - 1; i >= 0; i--) {
+			int start= i == 0 ? 0 : ends[i - 1];
+			result= internTrace(new Trace(internText(trace.substring(start, ends[i])), result));
+		}
+		return result;
+	}
+
+	/**
+	 * Interns a text like the expected or actual value of a comparison failure.
+	 *
+	 * @param text the text, can be <code>null</code>
+	 * @return the shared instance of the text, or <code>null</code> if the text is <code>null</code>
+	 */
+	public synchronized String internText(String text) {
+		if (text == null)
+			return null;
+		WeakReference reference= (WeakReference) fTexts.get(text);
+		String interned= reference == null ? null : (String) reference.get();
+		if (interned == null) {
+			interned= text;
+			fTexts.put(text, new WeakReference(text));
+		}
+		return interned;
+	}
+
+	private Trace internTrace(Trace trace) {
+		WeakReference reference= (WeakReference) fTraces.get(trace);
+		Trace interned= reference == null ? null : (Trace) reference.get();
+		if (interned == null) {
+			interned= trace;
+			fTraces.put(trace, new WeakReference(trace));
+		}
+		return interned;
+	}
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfiguration;
+
+import org.eclipse.jdt.core.IJavaProject;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+
+/**
+ * The warm test runner VMs of launch configurations with
+ * {@link JUnitLaunchConfigurationConstants#ATTR_WARM_RUNNER}.
+ * <p>
+ * A warm test runner stays alive after its test run. A later launch of the same launch
+ * configuration runs its tests in the idle VM instead of starting a new one, as long as the
+ * launch uses the same VM settings. Such a launch has no process of its own; it is removed when
+ * its test run has finished. There is at most one warm test runner per launch configuration.
+ * </p>
+ */
+public class WarmTestRunners {
+
+	private static class WarmTestRunner {
+		/**
+		 * The VM settings, see {@link JUnitLaunchConfigurationConstants#ATTR_WARM_RUNNER_KEY}
+		 */
+		final String fKey;
+		/**
+		 * The launch that started the VM
+		 */
+		final ILaunch fLaunch;
+		final RemoteTestRunnerClient fClient;
+		/**
+		 * The session of the current or last run
+		 */
+		TestRunSession fSession;
+		/**
+		 * <code>true</code> if the runner has been replaced by a runner with other VM settings
+		 * and is terminated when its current run has finished
+		 */
+		boolean fRetired;
+
+		WarmTestRunner(String key, ILaunch launch, RemoteTestRunnerClient client, TestRunSession session) {
+			fKey= key;
+			fLaunch= launch;
+			fClient= client;
+			fSession= session;
+		}
+
+		boolean isAlive() {
+			return !fLaunch.isTerminated();
+		}
+
+		boolean isIdle() {
+			return isAlive() && fClient.isRunning() && fSession.getStartTime() > 0 && !fSession.isRunning();
+		}
+	}
+
+	/**
+	 * Informs the runners about the end of their runs.
+	 */
+	private class RunFinishedListener implements ITestSessionListener {
+		private final WarmTestRunner fRunner;
+		private final TestRunSession fSession;
+
+		RunFinishedListener(WarmTestRunner runner, TestRunSession session) {
+			fRunner= runner;
+			fSession= session;
+		}
+
+		public void sessionStarted() {
+		}
+
+		public void sessionEnded(long elapsedTime) {
+			runFinished(fRunner, fSession);
+		}
+
+		public void sessionStopped(long elapsedTime) {
+			runFinished(fRunner, fSession);
+		}
+
+		public void sessionTerminated() {
+			runFinished(fRunner, fSession);
+		}
+
+		public void testAdded(TestElement testElement) {
+		}
+
+		public void runningBegins() {
+		}
+
+		public void testStarted(TestCaseElement testCaseElement) {
+		}
+
+		public void testEnded(TestCaseElement testCaseElement) {
+		}
+
+		public void testFailed(TestElement testElement, Status status, String trace, String expected, String actual) {
+		}
+
+		public void testReran(TestCaseElement testCaseElement, Status status, String trace, String expectedResult, String actualResult) {
+		}
+
+		public boolean acceptsSwapToDisk() {
+			return true;
+		}
+	}
+
+	/**
+	 * Map from launch configuration name to {@link WarmTestRunner}.
+	 */
+	private final HashMap/*<String, WarmTestRunner>*/ fRunners= new HashMap();
+
+	/**
+	 * Registers the VM of a new launch as warm test runner of the launch configuration. An earlier
+	 * warm test runner of the configuration is terminated.
+	 *
+	 * @param key the VM settings of the launch
+	 * @param testRunSession the session of the new launch
+	 */
+	void addTestRunner(String key, TestRunSession testRunSession) {
+		RemoteTestRunnerClient client= testRunSession.getTestRunnerClient();
+		ILaunchConfiguration configuration= testRunSession.getLaunch().getLaunchConfiguration();
+		if (client == null || configuration == null)
+			return;
+
+		WarmTestRunner runner= new WarmTestRunner(key, testRunSession.getLaunch(), client, testRunSession);
+		WarmTestRunner oldRunner;
+		synchronized (this) {
+			oldRunner= (WarmTestRunner) fRunners.put(configuration.getName(), runner);
+		}
+		testRunSession.addTestSessionListener(new RunFinishedListener(runner, testRunSession));
+		if (oldRunner != null)
+			retire(oldRunner);
+	}
+
+	/**
+	 * Runs tests in the warm test runner of a launch configuration, if it is idle and has been
+	 * started with the given VM settings.
+	 *
+	 * @param configurationName the name of the launch configuration
+	 * @param key the VM settings of the launch
+	 * @param launch the launch, which gets no process of its own
+	 * @param javaProject the launched project
+	 * @param argumentFile a file with the arguments that select the tests, one per line
+	 * @return <code>true</code> if the tests are run by the warm test runner, <code>false</code>
+	 *         if a new VM has to be started
+	 */
+	public boolean runTests(String configurationName, String key, ILaunch launch, IJavaProject javaProject, String argumentFile) {
+		WarmTestRunner runner;
+		TestRunSession testRunSession;
+		synchronized (this) {
+			runner= (WarmTestRunner) fRunners.get(configurationName);
+			if (runner == null || !runner.fKey.equals(key) || !runner.isIdle())
+				return false;
+			testRunSession= new TestRunSession(launch, javaProject, runner.fClient);
+			runner.fSession= testRunSession;
+		}
+		testRunSession.addTestSessionListener(new RunFinishedListener(runner, testRunSession));
+		JUnitCorePlugin.getModel().testRunSessionLaunched(testRunSession);
+		if (!runner.fClient.requestTestRun(argumentFile)) {
+			// the VM has gone in the meantime, a new one is started for the launch
+			JUnitCorePlugin.getModel().removeTestRunSession(testRunSession);
+			terminate(runner);
+			return false;
+		}
+		return true;
+	}
+
+	private void runFinished(WarmTestRunner runner, TestRunSession testRunSession) {
+		ILaunch launch= testRunSession.getLaunch();
+		if (launch != runner.fLaunch)
+			DebugPlugin.getDefault().getLaunchManager().removeLaunch(launch);
+
+		boolean retired;
+		synchronized (this) {
+			retired= runner.fRetired && runner.fSession == testRunSession;
+		}
+		if (retired || !runner.isAlive())
+			terminate(runner);
+	}
+
+	private void retire(WarmTestRunner runner) {
+		synchronized (this) {
+			runner.fRetired= true;
+			if (runner.fSession.isRunning() || runner.fSession.isStarting())
+				return;
+		}
+		terminate(runner);
+	}
+
+	private void terminate(WarmTestRunner runner) {
+		synchronized (this) {
+			ILaunchConfiguration configuration= runner.fLaunch.getLaunchConfiguration();
+			if (configuration != null && fRunners.get(configuration.getName()) == runner)
+				fRunners.remove(configuration.getName());
+		}
+		if (!runner.fLaunch.isTerminated()) {
+			try {
+				runner.fLaunch.terminate();
+			} catch (DebugException e) {
+				JUnitCorePlugin.log(e);
+			}
+		}
+	}
+
+	/**
+	 * Terminates all warm test runners (called by the {@link JUnitModel} on shutdown).
+	 */
+	void stop() {
+		ArrayList runners;
+		synchronized (this) {
+			runners= new ArrayList(fRunners.values());
+			fRunners.clear();
+		}
+		for (Iterator iter= runners.iterator(); iter.hasNext();) {
+			terminate((WarmTestRunner) iter.next());
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,13 +14,12 @@ package org.eclipse.jdt.junit;
 
 
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashSet;
 import java.util.Set;
 
-import javax.xml.transform.TransformerException;
-
 import org.eclipse.jdt.junit.model.ITestRunSession;
 
 import org.eclipse.core.runtime.CoreException;
@@ -169,7 +168,7 @@ public class JUnitCore {
 		try {
 			JUnitModel.exportTestRunSession((TestRunSession)testRunSession, output);
 			
-		} catch (TransformerException exception) {
+		} catch (IOException exception) {
 			String pluginID= JUnitCorePlugin.getPluginId();
 			String message= ModelMessages.JUnitModel_could_not_export;
 			throw new CoreException(new Status(IStatus.ERROR, pluginID, message, exception));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,6 +32,7 @@ import org.osgi.framework.Bundle;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -39,10 +40,16 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchManager;
 
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
@@ -57,6 +64,8 @@ import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.launcher.TestShardPartitioner;
+import org.eclipse.jdt.internal.junit.model.TestTimingHistory;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 import org.eclipse.jdt.internal.junit.util.IJUnitStatusConstants;
 
@@ -79,6 +88,7 @@ import org.eclipse.jdt.launching.VMRunnerConfiguration;
 public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigurationDelegate {
 
 	private boolean fKeepAlive= false;
+	private boolean fWarm= false;
 	private int fPort;
 	private IMember[] fTestElements;
 
@@ -119,10 +129,11 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			}
 
 			fKeepAlive= mode.equals(ILaunchManager.DEBUG_MODE) && configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, false);
+			fWarm= !fKeepAlive && mode.equals(ILaunchManager.RUN_MODE) && configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER, false);
 			fPort= evaluatePort();
-			launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT, String.valueOf(fPort));
 
-			fTestElements= evaluateTests(configuration, new SubProgressMonitor(monitor, 1));
+			IMember[][] shards= evaluateShards(configuration, mode, evaluateTests(configuration, new SubProgressMonitor(monitor, 1)));
+			int[] ports= evaluateShardPorts(shards.length);
 
 			String mainTypeName= verifyMainTypeName(configuration);
 			IVMRunner runner= getVMRunner(configuration, mode);
@@ -136,26 +147,38 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			// Environment variables
 			String[] envp= getEnvironment(configuration);
 
-			ArrayList vmArguments= new ArrayList();
-			ArrayList programArguments= new ArrayList();
-			collectExecutionArguments(configuration, vmArguments, programArguments);
-
 			// VM-specific attributes
 			Map vmAttributesMap= getVMSpecificAttributesMap(configuration);
 
 			// Classpath
 			String[] classpath= getClasspath(configuration);
+			String[] reloadableClasspath= null;
+			if (fWarm) {
+				reloadableClasspath= getReloadableClasspath(configuration, classpath);
+				classpath= removeEntries(classpath, reloadableClasspath);
+			}
 
-			// Create VM config
-			VMRunnerConfiguration runConfig= new VMRunnerConfiguration(mainTypeName, classpath);
-			runConfig.setVMArguments((String[]) vmArguments.toArray(new String[vmArguments.size()]));
-			runConfig.setProgramArguments((String[]) programArguments.toArray(new String[programArguments.size()]));
-			runConfig.setEnvironment(envp);
-			runConfig.setWorkingDirectory(workingDirName);
-			runConfig.setVMSpecificAttributesMap(vmAttributesMap);
-
-			// Bootpath
-			runConfig.setBootClassPath(getBootpath(configuration));
+			// Create VM configs, one per shard
+			VMRunnerConfiguration[] runConfigs= new VMRunnerConfiguration[shards.length];
+			for (int i= 0; i < shards.length; i++) {
+				fPort= ports[i];
+				fTestElements= shards[i];
+
+				ArrayList vmArguments= new ArrayList();
+				ArrayList programArguments= new ArrayList();
+				collectExecutionArguments(configuration, vmArguments, programArguments);
+
+				VMRunnerConfiguration runConfig= new VMRunnerConfiguration(mainTypeName, classpath);
+				runConfig.setVMArguments((String[]) vmArguments.toArray(new String[vmArguments.size()]));
+				runConfig.setProgramArguments((String[]) programArguments.toArray(new String[programArguments.size()]));
+				runConfig.setEnvironment(envp);
+				runConfig.setWorkingDirectory(workingDirName);
+				runConfig.setVMSpecificAttributesMap(vmAttributesMap);
+
+				// Bootpath
+				runConfig.setBootClassPath(getBootpath(configuration));
+				runConfigs[i]= runConfig;
+			}
 
 			// check for cancellation
 			if (monitor.isCanceled()) {
@@ -170,8 +193,27 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 			setDefaultSourceLocator(launch, configuration);
 			monitor.worked(1);
 
+			if (fWarm && runInWarmTestRunner(configuration, launch, runConfigs[0], reloadableClasspath)) {
+				monitor.worked(1);
+				return;
+			}
+
+			launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PORT, String.valueOf(ports[0]));
+			if (shards.length > 1) {
+				launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_PORTS, toCommaSeparatedString(ports));
+			}
+
 			// Launch the configuration - 1 unit of work
-			runner.run(runConfig, launch, monitor);
+			if (runConfigs.length == 1) {
+				runner.run(runConfigs[0], launch, monitor);
+			} else {
+				IProgressMonitor runMonitor= new SubProgressMonitor(monitor, 1);
+				runMonitor.beginTask("", runConfigs.length); //$NON-NLS-1$
+				for (int i= 0; i < runConfigs.length && !runMonitor.isCanceled(); i++) {
+					runner.run(runConfigs[i], launch, new SubProgressMonitor(runMonitor, 1));
+				}
+				runMonitor.done();
+			}
 
 			// check for cancellation
 			if (monitor.isCanceled()) {
@@ -191,6 +233,187 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		return port;
 	}
 
+	/**
+	 * Returns the ports for the test runner VMs of all shards. The first port is the one
+	 * stored in {@link JUnitLaunchConfigurationConstants#ATTR_PORT}.
+	 *
+	 * @param shardCount the number of shards
+	 * @return the ports, all distinct
+	 * @throws CoreException if no free port is available
+	 */
+	private int[] evaluateShardPorts(int shardCount) throws CoreException {
+		int[] ports= new int[shardCount];
+		ports[0]= fPort;
+		for (int i= 1; i < shardCount; i++) {
+			int port;
+			boolean isDuplicate;
+			do {
+				port= evaluatePort();
+				isDuplicate= false;
+				for (int j= 0; j < i; j++) {
+					isDuplicate|= ports[j] == port;
+				}
+			} while (isDuplicate);
+			ports[i]= port;
+		}
+		return ports;
+	}
+
+	private static String toCommaSeparatedString(int[] ports) {
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < ports.length; i++) {
+			if (i > 0)
+				buf.append(',');
+			buf.append(ports[i]);
+		}
+		return buf.toString();
+	}
+
+	/**
+	 * Splits the test elements into shards that are run in separate VMs. Sharding is only used if
+	 * {@link JUnitLaunchConfigurationConstants#ATTR_SHARD_COUNT} is &gt; 1, the launch is in run mode,
+	 * the test VM is neither kept alive nor reused, and only test types are launched. Sharded runs
+	 * thus never rerun single tests. The shards are balanced based on the elapsed times of
+	 * previous runs of the same launch configuration.
+	 *
+	 * @param configuration the launch configuration
+	 * @param mode the launch mode
+	 * @param testElements all test elements to run
+	 * @return the shards, at least one
+	 * @throws CoreException if the launch configuration cannot be read
+	 */
+	private IMember[][] evaluateShards(ILaunchConfiguration configuration, String mode, IMember[] testElements) throws CoreException {
+		int shardCount= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, 1);
+		if (shardCount <= 1 || testElements.length <= 1 || fKeepAlive || fWarm || !ILaunchManager.RUN_MODE.equals(mode))
+			return new IMember[][] { testElements };
+
+		IType[] types= new IType[testElements.length];
+		for (int i= 0; i < testElements.length; i++) {
+			if (!(testElements[i] instanceof IType))
+				return new IMember[][] { testElements };
+			types[i]= (IType) testElements[i];
+		}
+		return TestShardPartitioner.partition(types, shardCount, TestTimingHistory.create(configuration.getName()));
+	}
+
+	/**
+	 * Runs the tests in the warm test runner VM of an earlier launch of the configuration, if that
+	 * VM is idle and has been started with the same settings. Otherwise, prepares the VM
+	 * configuration to start a new warm test runner.
+	 *
+	 * @param configuration the launch configuration
+	 * @param launch the launch
+	 * @param runConfig the configuration of the test runner VM
+	 * @param reloadableClasspath the class path entries that are reloaded for each run
+	 * @return <code>true</code> if the tests are run by an existing VM
+	 * @throws CoreException if the argument files cannot be written
+	 */
+	private boolean runInWarmTestRunner(ILaunchConfiguration configuration, ILaunch launch, VMRunnerConfiguration runConfig, String[] reloadableClasspath) throws CoreException {
+		String key= createWarmRunnerKey(configuration, runConfig, reloadableClasspath);
+		String[] programArguments= runConfig.getProgramArguments();
+		String argumentFile= createArgumentFile("testArguments", programArguments); //$NON-NLS-1$
+		// the test runner deletes the argument file once it has read the request
+		if (JUnitCorePlugin.getModel().getWarmTestRunners().runTests(configuration.getName(), key, launch, getJavaProject(configuration), argumentFile))
+			return true;
+		new File(argumentFile).delete();
+
+		launch.setAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER_KEY, key);
+		String[] warmArguments= new String[programArguments.length + 3];
+		System.arraycopy(programArguments, 0, warmArguments, 0, programArguments.length);
+		warmArguments[programArguments.length]= "-warm"; //$NON-NLS-1$
+		warmArguments[programArguments.length + 1]= "-reloadablepath"; //$NON-NLS-1$
+		warmArguments[programArguments.length + 2]= createArgumentFile("reloadablePath", reloadableClasspath); //$NON-NLS-1$
+		runConfig.setProgramArguments(warmArguments);
+		return false;
+	}
+
+	/**
+	 * Returns the settings of a warm test runner VM that cannot change between runs. Only
+	 * launches with equal settings can share a VM.
+	 */
+	private String createWarmRunnerKey(ILaunchConfiguration configuration, VMRunnerConfiguration runConfig, String[] reloadableClasspath) throws CoreException {
+		StringBuffer key= new StringBuffer();
+		key.append(verifyVMInstall(configuration).getId()).append('\n');
+		key.append(runConfig.getClassToLaunch()).append('\n');
+		appendKeyEntries(key, runConfig.getVMArguments());
+		appendKeyEntries(key, runConfig.getClassPath());
+		appendKeyEntries(key, runConfig.getBootClassPath());
+		appendKeyEntries(key, reloadableClasspath);
+		appendKeyEntries(key, runConfig.getEnvironment());
+		key.append(runConfig.getWorkingDirectory()).append('\n');
+		key.append(runConfig.getVMSpecificAttributesMap()).append('\n');
+		key.append(getProgramArguments(configuration)).append('\n');
+		key.append(getTestRunnerKind(configuration).getLoaderClassName());
+		return key.toString();
+	}
+
+	private static void appendKeyEntries(StringBuffer key, String[] entries) {
+		if (entries != null) {
+			for (int i= 0; i < entries.length; i++) {
+				key.append(entries[i]).append(File.pathSeparatorChar);
+			}
+		}
+		key.append('\n');
+	}
+
+	/**
+	 * Returns the class path entries that are reloaded for each run of a warm test runner, i.e.
+	 * the output folders of the tested project and of the projects it requires. JUnit, the
+	 * libraries and the containers stay on the class path of the VM, since the test runner and
+	 * the test loaders link against JUnit and are loaded by the VM's class loader.
+	 *
+	 * @param configuration the launch configuration
+	 * @param classpath the class path of the VM
+	 * @return the entries of the class path that are output folders
+	 * @throws CoreException if the class path of a project cannot be read
+	 */
+	private String[] getReloadableClasspath(ILaunchConfiguration configuration, String[] classpath) throws CoreException {
+		HashSet outputLocations= new HashSet();
+		collectOutputLocations(getJavaProject(configuration), outputLocations, new HashSet());
+		ArrayList result= new ArrayList();
+		for (int i= 0; i < classpath.length; i++) {
+			if (outputLocations.contains(new File(classpath[i]).getAbsoluteFile()))
+				result.add(classpath[i]);
+		}
+		return (String[]) result.toArray(new String[result.size()]);
+	}
+
+	private static void collectOutputLocations(IJavaProject project, HashSet outputLocations, HashSet visited) throws CoreException {
+		if (project == null || !project.exists() || !visited.add(project))
+			return;
+		addLocation(project.getOutputLocation(), outputLocations);
+		IClasspathEntry[] entries= project.getRawClasspath();
+		for (int i= 0; i < entries.length; i++) {
+			IClasspathEntry entry= entries[i];
+			if (entry.getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+				addLocation(entry.getOutputLocation(), outputLocations);
+			} else if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
+				IProject required= ResourcesPlugin.getWorkspace().getRoot().getProject(entry.getPath().lastSegment());
+				collectOutputLocations(JavaCore.create(required), outputLocations, visited);
+			}
+		}
+	}
+
+	private static void addLocation(IPath outputLocation, HashSet outputLocations) {
+		if (outputLocation == null)
+			return;
+		IWorkspaceRoot root= ResourcesPlugin.getWorkspace().getRoot();
+		IResource resource= root.findMember(outputLocation);
+		IPath location= resource != null ? resource.getLocation() : root.getLocation().append(outputLocation);
+		if (location != null)
+			outputLocations.add(location.toFile().getAbsoluteFile());
+	}
+
+	private static String[] removeEntries(String[] classpath, String[] entries) {
+		List removed= Arrays.asList(entries);
+		ArrayList result= new ArrayList();
+		for (int i= 0; i < classpath.length; i++) {
+			if (!removed.contains(classpath[i]))
+				result.add(classpath[i]);
+		}
+		return (String[]) result.toArray(new String[result.size()]);
+	}
+
 	/**
 	 * Performs a check on the launch configuration's attributes. If an attribute contains an invalid value, a {@link CoreException}
 	 * with the error is thrown.
@@ -332,6 +555,53 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		if (testFailureNames.length() > 0) {
 			programArguments.add("-testfailures"); //$NON-NLS-1$
 			programArguments.add(testFailureNames);
+		} else if (configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, false)) {
+			TestTimingHistory history= TestTimingHistory.create(configuration.getName());
+			if (history.hasTestResults()) {
+				programArguments.add("-testhistory"); //$NON-NLS-1$
+				programArguments.add(createTestHistoryFile(history));
+			}
+		}
+	}
+
+	private String createTestHistoryFile(TestTimingHistory history) throws CoreException {
+		try {
+			File file= File.createTempFile("testHistory", ".txt"); //$NON-NLS-1$ //$NON-NLS-2$
+			file.deleteOnExit();
+			BufferedWriter bw= null;
+			try {
+				bw= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+				history.writeTestResults(bw);
+			} finally {
+				if (bw != null) {
+					bw.close();
+				}
+			}
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
+		}
+	}
+
+	private String createArgumentFile(String prefix, String[] lines) throws CoreException {
+		try {
+			File file= File.createTempFile(prefix, ".txt"); //$NON-NLS-1$
+			file.deleteOnExit();
+			BufferedWriter bw= null;
+			try {
+				bw= new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+				for (int i= 0; i < lines.length; i++) {
+					bw.write(lines[i]);
+					bw.newLine();
+				}
+			} finally {
+				if (bw != null) {
+					bw.close();
+				}
+			}
+			return file.getAbsolutePath();
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, JUnitCorePlugin.CORE_PLUGIN_ID, IStatus.ERROR, "", e)); //$NON-NLS-1$
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -110,6 +110,13 @@ public class MessageIds {
 	 * isSuite = "true" or "false"
 	 */
 	public static final String TEST_TREE="%TSTTREE"; //$NON-NLS-1$
+	/**
+	 * Notification about the time after which the first test that failed
+	 * in its last run is expected to have run, projected from the run history.
+	 * Sent after TEST_RUN_START if a failure is expected.
+	 * TEST_FAILURE_PROJECTED + elapsedTime.toString(), in milliseconds.
+	 */
+	public static final String TEST_FAILURE_PROJECTED="%PRJFAIL"; //$NON-NLS-1$
 	/**
 	 * Request to stop the current test run.
 	 */
@@ -119,6 +126,12 @@ public class MessageIds {
 	 * TEST_RERUN + testId + " " + testClass + " "+testName
 	 */
 	public static final String TEST_RERUN=	">RERUN  "; //$NON-NLS-1$
+	/**
+	 * Request to a warm test runner to run tests.
+	 * TEST_RUN_REQUEST + argumentFile, where the argument file contains the
+	 * test selection arguments, one per line
+	 */
+	public static final String TEST_RUN_REQUEST=	">RUN    "; //$NON-NLS-1$
 
 	/**
 	 * MessageFormat to encode test method identifiers:
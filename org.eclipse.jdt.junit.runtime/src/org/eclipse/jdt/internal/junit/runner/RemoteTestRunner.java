@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,7 +21,10 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
 import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Vector;
 
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
@@ -95,6 +98,21 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * This allows to rerun tests.
 	 */
 	private boolean fKeepAlive= false;
+	/**
+	 * Keep the test runner alive after a test run has finished and run the
+	 * tests of further run requests. The classes on the reloadable class path,
+	 * i.e. the output folders of the tested projects, are loaded by a new class
+	 * loader for each run.
+	 */
+	private boolean fWarm= false;
+	/**
+	 * The class path entries that are reloaded for each run of a warm test runner
+	 */
+	private URL[] fReloadableClassPath;
+	/**
+	 * The class loader for the reloadable class path of the current run
+	 */
+	private URLClassLoader fReloadableClassLoader;
 	/**
 	 * Has the server been stopped
 	 */
@@ -103,6 +121,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Queue of rerun requests.
 	 */
 	private Vector fRerunRequests= new Vector(10);
+	/**
+	 * Queue of run requests, i.e. the names of argument files.
+	 */
+	private Vector fRunRequests= new Vector(1);
 	/**
 	 * Thread reading from the socket
 	 */
@@ -110,10 +132,12 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private String fRerunTest;
 
-	private final TestIdMap fIds = new TestIdMap();
+	private TestIdMap fIds = new TestIdMap();
 
 	private String[] fFailureNames;
 
+	private TestRunHistory fTestRunHistory;
+
 	private ITestLoader fLoader;
 
 	private MessageSender fSender;
@@ -157,6 +181,23 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 								RemoteTestRunner.this.notifyAll();
 							}
 						}
+
+						else if (message.startsWith(MessageIds.TEST_RUN_REQUEST)) {
+							String argumentFile= message.substring(MessageIds.MSG_HEADER_LENGTH);
+							synchronized(RemoteTestRunner.this) {
+								fRunRequests.add(argumentFile);
+								RemoteTestRunner.this.notifyAll();
+							}
+						}
+
+					} else if (fWarm) {
+						// the client has gone, nobody will send further requests
+						fStopped= true;
+						RemoteTestRunner.this.stop();
+						synchronized(RemoteTestRunner.this) {
+							RemoteTestRunner.this.notifyAll();
+						}
+						break;
 					}
 				}
 			} catch (Exception e) {
@@ -183,6 +224,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -warm: keep the process alive and run the tests of further run requests
+	 * -reloadablepath: the name of a file containing the class path entries that are reloaded for each run
      * </pre>
      */
 	public static void main(String[] args) {
@@ -213,6 +256,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @return the class loader to lead test classes
 	 */
 	protected ClassLoader getTestClassLoader() {
+		if (fReloadableClassLoader != null)
+			return fReloadableClassLoader;
 		return getClass().getClassLoader();
 	}
 
@@ -222,43 +267,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 */
 	protected final void defaultInit(String[] args) {
 		for(int i= 0; i < args.length; i++) {
-			if(args[i].toLowerCase().equals("-classnames") || args[i].toLowerCase().equals("-classname")){ //$NON-NLS-1$ //$NON-NLS-2$
-				Vector list= new Vector();
-				for (int j= i+1; j < args.length; j++) {
-					if (args[j].startsWith("-")) //$NON-NLS-1$
-						break;
-					list.add(args[j]);
-				}
-				fTestClassNames= (String[]) list.toArray(new String[list.size()]);
-			}
-			else if(args[i].toLowerCase().equals("-test")) { //$NON-NLS-1$
-				String testName= args[i+1];
-				int p= testName.indexOf(':');
-				if (p == -1)
-					throw new IllegalArgumentException("Testname not separated by \'%\'"); //$NON-NLS-1$
-				fTestName= testName.substring(p+1);
-				fTestClassNames= new String[]{ testName.substring(0, p)  };
-				i++;
+			int next= parseTestSelection(args, i);
+			if (next != -1) {
+				i= next;
 			}
-			else if(args[i].toLowerCase().equals("-testnamefile")) { //$NON-NLS-1$
-				String testNameFile= args[i+1];
-				try {
-					readTestNames(testNameFile);
-				} catch (IOException e) {
-					throw new IllegalArgumentException("Cannot read testname file.");		 //$NON-NLS-1$
-				}
-				i++;
-
-			} else if(args[i].toLowerCase().equals("-testfailures")) { //$NON-NLS-1$
-				String testFailuresFile= args[i+1];
-				try {
-					readFailureNames(testFailuresFile);
-				} catch (IOException e) {
-					throw new IllegalArgumentException("Cannot read testfailures file.");		 //$NON-NLS-1$
-				}
-				i++;
-
-			} else if(args[i].toLowerCase().equals("-port")) { //$NON-NLS-1$
+			else if(args[i].toLowerCase().equals("-port")) { //$NON-NLS-1$
 				fPort= Integer.parseInt(args[i+1]);
 				i++;
 			}
@@ -273,6 +286,18 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else if(args[i].toLowerCase().equals("-keepalive")) { //$NON-NLS-1$
 				fKeepAlive= true;
 			}
+			else if(args[i].toLowerCase().equals("-warm")) { //$NON-NLS-1$
+				fWarm= true;
+			}
+			else if(args[i].toLowerCase().equals("-reloadablepath")) { //$NON-NLS-1$
+				String reloadablePathFile= args[i+1];
+				try {
+					readReloadableClassPath(reloadablePathFile);
+				} catch (IOException e) {
+					throw new IllegalArgumentException("Cannot read reloadablepath file.");		 //$NON-NLS-1$
+				}
+				i++;
+			}
 			else if(args[i].toLowerCase().equals("-debugging") || args[i].toLowerCase().equals("-debug")){ //$NON-NLS-1$ //$NON-NLS-2$
 			    fDebugMode= true;
 
@@ -297,6 +322,63 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			System.out.println("keepalive "+fKeepAlive); //$NON-NLS-1$
 	}
 
+	/**
+	 * Processes an argument that selects the tests to be run.
+	 * @param args arguments
+	 * @param i the index of the argument to process
+	 * @return the index of the last argument consumed, or -1 if the argument
+	 * does not select tests
+	 */
+	private int parseTestSelection(String[] args, int i) {
+		if(args[i].toLowerCase().equals("-classnames") || args[i].toLowerCase().equals("-classname")){ //$NON-NLS-1$ //$NON-NLS-2$
+			Vector list= new Vector();
+			for (int j= i+1; j < args.length; j++) {
+				if (args[j].startsWith("-")) //$NON-NLS-1$
+					break;
+				list.add(args[j]);
+			}
+			fTestClassNames= (String[]) list.toArray(new String[list.size()]);
+			return i;
+		}
+		else if(args[i].toLowerCase().equals("-test")) { //$NON-NLS-1$
+			String testName= args[i+1];
+			int p= testName.indexOf(':');
+			if (p == -1)
+				throw new IllegalArgumentException("Testname not separated by \'%\'"); //$NON-NLS-1$
+			fTestName= testName.substring(p+1);
+			fTestClassNames= new String[]{ testName.substring(0, p)  };
+			return i + 1;
+		}
+		else if(args[i].toLowerCase().equals("-testnamefile")) { //$NON-NLS-1$
+			String testNameFile= args[i+1];
+			try {
+				readTestNames(testNameFile);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Cannot read testname file.");		 //$NON-NLS-1$
+			}
+			return i + 1;
+
+		} else if(args[i].toLowerCase().equals("-testfailures")) { //$NON-NLS-1$
+			String testFailuresFile= args[i+1];
+			try {
+				readFailureNames(testFailuresFile);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Cannot read testfailures file.");		 //$NON-NLS-1$
+			}
+			return i + 1;
+
+		} else if(args[i].toLowerCase().equals("-testhistory")) { //$NON-NLS-1$
+			String testHistoryFile= args[i+1];
+			try {
+				fTestRunHistory= TestRunHistory.read(testHistoryFile);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Cannot read testhistory file.");		 //$NON-NLS-1$
+			}
+			return i + 1;
+		}
+		return -1;
+	}
+
 	public void initDefaultLoader() {
 		createLoader(JUnit3TestLoader.class.getName());
 	}
@@ -366,6 +448,33 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		}
 	}
 
+	private void readReloadableClassPath(String reloadablePathFile) throws IOException {
+		String[] entries= readLines(reloadablePathFile);
+		fReloadableClassPath= new URL[entries.length];
+		for (int i= 0; i < entries.length; i++) {
+			try {
+				fReloadableClassPath[i]= new File(entries[i]).toURI().toURL();
+			} catch (MalformedURLException e) {
+				throw new IOException(e.getMessage());
+			}
+		}
+	}
+
+	private String[] readLines(String fileName) throws IOException {
+		BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(new File(fileName)), "UTF-8")); //$NON-NLS-1$
+		try {
+			String line;
+			Vector list= new Vector();
+			while ((line= br.readLine()) != null) {
+				list.add(line);
+			}
+			return (String[]) list.toArray(new String[list.size()]);
+		}
+		finally {
+			br.close();
+		}
+	}
+
 	/**
 	 * Connects to the remote ports and runs the tests.
 	 */
@@ -377,11 +486,13 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			return;
 		}
 
+		if (fWarm)
+			createReloadableClassLoader();
 		FirstRunExecutionListener listener= firstRunExecutionListener();
 		fExecution= new TestExecution(listener, getClassifier());
 		runTests(fExecution);
-		if (fKeepAlive)
-			waitForReruns();
+		if (fKeepAlive || fWarm)
+			waitForRequests();
 
 		shutDown();
 
@@ -392,18 +503,105 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	/**
-	 * Waits for rerun requests until an explicit stop request
+	 * Waits for rerun and run requests until an explicit stop request.
+	 * The requests are processed without holding the lock, so that
+	 * a stop request can be received while tests are running.
 	 */
-	private synchronized void waitForReruns() {
-		while (!fStopped) {
-			try {
-				wait();
-				if (!fStopped && fRerunRequests.size() > 0) {
-					RerunRequest r= (RerunRequest)fRerunRequests.remove(0);
-					rerunTest(r);
+	private void waitForRequests() {
+		while (true) {
+			Object request;
+			synchronized (this) {
+				while (!fStopped && fRerunRequests.isEmpty() && fRunRequests.isEmpty()) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+					}
 				}
-			} catch (InterruptedException e) {
+				if (fStopped)
+					return;
+				if (!fRerunRequests.isEmpty())
+					request= fRerunRequests.remove(0);
+				else
+					request= fRunRequests.remove(0);
+			}
+			if (request instanceof RerunRequest)
+				rerunTest((RerunRequest) request);
+			else
+				runRequestedTests((String) request);
+		}
+	}
+
+	/**
+	 * Runs the tests selected by the arguments of a run request. The classes on the
+	 * reloadable class path are loaded by a new class loader, so that changes since
+	 * the last run are picked up. Arguments that do not select tests are ignored.
+	 * If the request cannot be read, the error is reported and the run is stopped
+	 * without running any tests.
+	 * @param argumentFile the name of a file containing the arguments, one per line.
+	 * The file is deleted after it has been read.
+	 */
+	private void runRequestedTests(String argumentFile) {
+		fTestClassNames= null;
+		fTestName= null;
+		fFailureNames= null;
+		fTestRunHistory= null;
+		fIds= new TestIdMap();
+		try {
+			String[] args= readLines(argumentFile);
+			for (int i= 0; i < args.length; i++) {
+				int next= parseTestSelection(args, i);
+				if (next != -1)
+					i= next;
 			}
+		} catch (IOException e) {
+			runRequestFailed(argumentFile, e);
+			return;
+		} catch (IllegalArgumentException e) {
+			runRequestFailed(argumentFile, e);
+			return;
+		} finally {
+			new File(argumentFile).delete();
+		}
+		if (fTestClassNames == null)
+			fTestClassNames= new String[0];
+
+		createReloadableClassLoader();
+		fExecution= new TestExecution(firstRunExecutionListener(), getClassifier());
+		runTests(fExecution);
+	}
+
+	private void runRequestFailed(String argumentFile, Exception e) {
+		runFailed(JUnitMessages.getFormattedString("RemoteTestRunner.error.runrequest", argumentFile), e); //$NON-NLS-1$
+		notifyTestRunStarted(0);
+		notifyTestRunStopped(0);
+	}
+
+	/**
+	 * Creates a new class loader for the reloadable class path and closes the
+	 * class loader of the previous run. The reloadable class path only contains
+	 * the output folders of the tested projects. The runner, JUnit and the
+	 * libraries stay on the class path of the VM and are loaded once by the
+	 * runner's class loader, which is the parent of the new class loader.
+	 */
+	private void createReloadableClassLoader() {
+		if (fReloadableClassLoader != null)
+			close(fReloadableClassLoader);
+		URL[] urls= fReloadableClassPath != null ? fReloadableClassPath : new URL[0];
+		fReloadableClassLoader= new URLClassLoader(urls, getClass().getClassLoader());
+		Thread.currentThread().setContextClassLoader(fReloadableClassLoader);
+	}
+
+	/**
+	 * Closes the jar files opened by a class loader.
+	 * URLClassLoader#close() is only available on Java 7 and later, on older VMs
+	 * the files are closed when the class loader is garbage collected.
+	 * @param loader the class loader
+	 */
+	private static void close(URLClassLoader loader) {
+		try {
+			loader.getClass().getMethod("close", new Class[0]).invoke(loader, new Object[0]); //$NON-NLS-1$
+		} catch (Exception e) {
+			// not available
 		}
 	}
 
@@ -447,6 +645,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		int count= countTests(suites);
 
 		notifyTestRunStarted(count);
+		if (fTestRunHistory != null) {
+			double secondsToFirstFailure= fTestRunHistory.getProjectedSecondsToFirstFailure();
+			if (secondsToFirstFailure >= 0)
+				notifyTestFailureProjected((long) (secondsToFirstFailure * 1000));
+		}
 
 		if (count == 0) {
 			notifyTestRunEnded(0);
@@ -647,6 +850,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		//shutDown();
 	}
 
+	private void notifyTestFailureProjected(long elapsedTime) {
+		fSender.sendMessage(MessageIds.TEST_FAILURE_PROJECTED + elapsedTime);
+	}
+
 	protected void notifyTestTreeEntry(String treeEntry) {
 		fSender.sendMessage(MessageIds.TEST_TREE + treeEntry);
 	}
@@ -679,6 +886,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		return fLoader;
 	}
 
+	/**
+	 * @return the results of previous runs used to order the tests, or <code>null</code> if the
+	 *         tests should not be ordered by their history
+	 */
+	public TestRunHistory getTestRunHistory() {
+		return fTestRunHistory;
+	}
+
 	public Class loadClass(String className, RemoteTestRunner listener) {
 		Class clazz= null;
 		try {
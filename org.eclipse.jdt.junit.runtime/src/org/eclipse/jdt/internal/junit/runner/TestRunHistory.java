@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+
+/**
+ * Elapsed times and results of the tests in previous runs, used to run recently failed and fast
+ * tests first.
+ * <p>
+ * The history file has one line per test: <code>failed seconds testName</code>, where
+ * <code>failed</code> is <code>1</code> if the test failed in its last run and <code>0</code>
+ * otherwise, and <code>testName</code> is the test's display name, e.g.
+ * <code>testFoo(p.FooTest)</code>.
+ * </p>
+ */
+public class TestRunHistory {
+
+	/**
+	 * The priority of a test or a suite of tests. Smaller priorities are run first.
+	 */
+	public static final class Priority {
+		static final int RANK_FAILED= 0;
+		static final int RANK_UNKNOWN= 1;
+		static final int RANK_PASSED= 2;
+
+		public static final Priority UNKNOWN= new Priority(RANK_UNKNOWN, 0, -1);
+
+		final int fRank;
+		final double fSeconds;
+		/**
+		 * Time until the first failed test in this test or suite is expected to have run, or -1
+		 * if no failure is expected.
+		 */
+		final double fSecondsToFirstFailure;
+
+		Priority(int rank, double seconds, double secondsToFirstFailure) {
+			fRank= rank;
+			fSeconds= seconds;
+			fSecondsToFirstFailure= secondsToFirstFailure;
+		}
+
+		/**
+		 * Combines the priorities of children in run order into the priority of their parent.
+		 *
+		 * @param children the priorities of the children, in the order in which they are run
+		 * @return the priority of the parent
+		 */
+		public static Priority combine(Priority[] children) {
+			int rank= RANK_PASSED;
+			double seconds= 0;
+			double secondsToFirstFailure= -1;
+			for (int i= 0; i < children.length; i++) {
+				Priority child= children[i];
+				rank= Math.min(rank, child.fRank);
+				if (secondsToFirstFailure < 0 && child.fSecondsToFirstFailure >= 0)
+					secondsToFirstFailure= seconds + child.fSecondsToFirstFailure;
+				seconds+= child.fSeconds;
+			}
+			return new Priority(rank, seconds, secondsToFirstFailure);
+		}
+
+		/**
+		 * Recently failed tests come first, then tests without history, then passed tests.
+		 * Within each group, faster tests come first.
+		 *
+		 * @param other the priority to compare with
+		 * @return a negative number, zero, or a positive number if this priority is smaller,
+		 *         equal, or greater than the other one
+		 */
+		public int compareTo(Priority other) {
+			if (fRank != other.fRank)
+				return fRank - other.fRank;
+			return Double.compare(fSeconds, other.fSeconds);
+		}
+
+		/**
+		 * @return the time in seconds until the first test that failed in its last run is expected
+		 *         to have run, or -1 if no such test is contained
+		 */
+		public double getSecondsToFirstFailure() {
+			return fSecondsToFirstFailure;
+		}
+	}
+
+	private final HashMap/*<String, Priority>*/ fPriorities= new HashMap();
+
+	private double fProjectedSeconds;
+	private double fProjectedSecondsToFirstFailure= -1;
+
+	/**
+	 * Reads a history file.
+	 *
+	 * @param historyFile the name of the history file
+	 * @return the history
+	 * @throws IOException if the file cannot be read
+	 */
+	public static TestRunHistory read(String historyFile) throws IOException {
+		TestRunHistory history= new TestRunHistory();
+		BufferedReader br= new BufferedReader(new InputStreamReader(new FileInputStream(new File(historyFile)), "UTF-8")); //$NON-NLS-1$
+		try {
+			String line;
+			while ((line= br.readLine()) != null) {
+				int s0= line.indexOf(' ');
+				int s1= line.indexOf(' ', s0 + 1);
+				if (s0 == -1 || s1 == -1)
+					continue;
+				try {
+					boolean failed= "1".equals(line.substring(0, s0)); //$NON-NLS-1$
+					double seconds= Double.parseDouble(line.substring(s0 + 1, s1));
+					history.add(line.substring(s1 + 1), failed, seconds);
+				} catch (NumberFormatException e) {
+					// skip malformed line
+				}
+			}
+		} finally {
+			br.close();
+		}
+		return history;
+	}
+
+	/**
+	 * Adds the result of a test.
+	 *
+	 * @param testName the display name of the test
+	 * @param failed whether the test failed in its last run
+	 * @param seconds the elapsed time of the test
+	 */
+	public void add(String testName, boolean failed, double seconds) {
+		Priority priority= failed
+				? new Priority(Priority.RANK_FAILED, seconds, seconds)
+				: new Priority(Priority.RANK_PASSED, seconds, -1);
+		fPriorities.put(testName, priority);
+	}
+
+	/**
+	 * @param testName the display name of a test
+	 * @return the priority of the test, {@link Priority#UNKNOWN} if the test is not known
+	 */
+	public Priority getPriority(String testName) {
+		Priority priority= (Priority) fPriorities.get(testName);
+		return priority == null ? Priority.UNKNOWN : priority;
+	}
+
+	/**
+	 * Records that a test or suite with the given priority is run after all previously recorded
+	 * ones.
+	 *
+	 * @param priority the priority of the test or suite
+	 */
+	public void recordRun(Priority priority) {
+		if (fProjectedSecondsToFirstFailure < 0 && priority.fSecondsToFirstFailure >= 0)
+			fProjectedSecondsToFirstFailure= fProjectedSeconds + priority.fSecondsToFirstFailure;
+		fProjectedSeconds+= priority.fSeconds;
+	}
+
+	/**
+	 * @return the time in seconds until the first test that failed in its last run is expected to
+	 *         have run, based on the tests recorded with {@link #recordRun(Priority)}, or -1 if
+	 *         no failure is expected
+	 */
+	public double getProjectedSecondsToFirstFailure() {
+		return fProjectedSecondsToFirstFailure;
+	}
+
+	public boolean isEmpty() {
+		return fPriorities.isEmpty();
+	}
+}
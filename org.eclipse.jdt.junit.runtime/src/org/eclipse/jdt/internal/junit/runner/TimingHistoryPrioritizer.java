@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import junit.extensions.TestDecorator;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory.Priority;
+
+/**
+ * Runs recently failed tests first, then tests without history, then the remaining tests, and
+ * within each group the fastest tests first.
+ * <p>
+ * Plain {@link TestSuite}s are rebuilt with their tests in the new order. Subclasses of
+ * {@link TestSuite} and {@link TestDecorator}s may depend on the order of their tests and are
+ * kept as they are.
+ * </p>
+ */
+public class TimingHistoryPrioritizer implements ITestPrioritizer {
+
+	private final TestRunHistory fHistory;
+
+	private static class PrioritizedTest {
+		final Test fTest;
+		final Priority fPriority;
+
+		PrioritizedTest(Test test, Priority priority) {
+			fTest= test;
+			fPriority= priority;
+		}
+	}
+
+	private static final Comparator PRIORITY_COMPARATOR= new Comparator() {
+		public int compare(Object o1, Object o2) {
+			return ((PrioritizedTest) o1).fPriority.compareTo(((PrioritizedTest) o2).fPriority);
+		}
+	};
+
+	public TimingHistoryPrioritizer(TestRunHistory history) {
+		fHistory= history;
+	}
+
+	public Test prioritize(Test input) {
+		PrioritizedTest result= doPrioritize(input);
+		fHistory.recordRun(result.fPriority);
+		return result.fTest;
+	}
+
+	/**
+	 * Prioritizes the tests of several top-level test classes, and sorts the classes themselves.
+	 *
+	 * @param inputs the tests of the test classes, in the order in which they were requested
+	 * @return the prioritized tests, in the order in which they should be run
+	 */
+	public Test[] prioritize(Test[] inputs) {
+		PrioritizedTest[] results= new PrioritizedTest[inputs.length];
+		for (int i= 0; i < inputs.length; i++) {
+			results[i]= doPrioritize(inputs[i]);
+		}
+		Arrays.sort(results, PRIORITY_COMPARATOR); // stable
+
+		Test[] tests= new Test[results.length];
+		for (int i= 0; i < results.length; i++) {
+			fHistory.recordRun(results[i].fPriority);
+			tests[i]= results[i].fTest;
+		}
+		return tests;
+	}
+
+	private PrioritizedTest doPrioritize(Test test) {
+		if (test instanceof TestDecorator)
+			return new PrioritizedTest(test, doPrioritize(((TestDecorator) test).getTest()).fPriority);
+		if (!(test instanceof TestSuite))
+			return new PrioritizedTest(test, fHistory.getPriority(test.toString()));
+
+		TestSuite suite= (TestSuite) test;
+		PrioritizedTest[] children= new PrioritizedTest[suite.testCount()];
+		for (int i= 0; i < children.length; i++) {
+			children[i]= doPrioritize(suite.testAt(i));
+		}
+		boolean reorder= suite.getClass() == TestSuite.class;
+		if (reorder) {
+			Arrays.sort(children, PRIORITY_COMPARATOR); // stable
+		}
+
+		Priority[] priorities= new Priority[children.length];
+		for (int i= 0; i < children.length; i++) {
+			priorities[i]= children[i].fPriority;
+		}
+		Priority priority= Priority.combine(priorities);
+		if (!reorder)
+			return new PrioritizedTest(suite, priority);
+
+		TestSuite sorted= new TestSuite(suite.getName());
+		for (int i= 0; i < children.length; i++) {
+			sorted.addTest(children[i].fTest);
+		}
+		return new PrioritizedTest(sorted, priority);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,8 @@ import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.JUnitMessages;
 import org.eclipse.jdt.internal.junit.runner.NullPrioritizer;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory;
+import org.eclipse.jdt.internal.junit.runner.TimingHistoryPrioritizer;
 
 public class JUnit3TestLoader implements ITestLoader {
 	private static final String SUITE_METHODNAME= "suite"; //$NON-NLS-1$
@@ -46,21 +48,31 @@ public class JUnit3TestLoader implements ITestLoader {
 	 */
 	public ITestReference[] loadTests(Class[] testClasses, String testName, String[] failureNames, RemoteTestRunner listener) {
 		// instantiate all tests
-		ITestReference[] suites= new ITestReference[testClasses.length];
-		ITestPrioritizer prioritizer;
+		Test[] tests= new Test[testClasses.length];
+		for (int i= 0; i < tests.length; i++) {
+			Class testClassName= testClasses[i];
+			tests[i]= getTest(testClassName, testName, listener);
+		}
 
-		if (failureNames != null)
-			prioritizer= new FailuresFirstPrioritizer(failureNames);
-		else
-			prioritizer= new NullPrioritizer();
+		TestRunHistory history= listener.getTestRunHistory();
+		if (failureNames == null && history != null) {
+			// the test classes are run in the order of their history, too
+			tests= new TimingHistoryPrioritizer(history).prioritize(tests);
+		} else {
+			ITestPrioritizer prioritizer;
+			if (failureNames != null)
+				prioritizer= new FailuresFirstPrioritizer(failureNames);
+			else
+				prioritizer= new NullPrioritizer();
+			for (int i= 0; i < tests.length; i++) {
+				tests[i]= prioritizer.prioritize(tests[i]);
+			}
+		}
 
+		ITestReference[] suites= new ITestReference[tests.length];
 		for (int i= 0; i < suites.length; i++) {
-			Class testClassName= testClasses[i];
-			Test test= getTest(testClassName, testName, listener);
-			prioritizer.prioritize(test);
-			suites[i]= new JUnit3TestReference(test);
+			suites[i]= new JUnit3TestReference(tests[i]);
 		}
-
 		return suites;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -187,7 +187,8 @@ public class FailureTrace implements IMenuListener {
 	    updateEnablement(test);
 	    if (test != null)
 	        trace= test.getTrace();
-		if (fInputTrace == trace)
+		// traces are rendered on each request, so compare the contents
+		if (trace == null ? fInputTrace == null : trace.equals(fInputTrace))
 			return;
 		fInputTrace= trace;
 		updateTable(trace);
@@ -127,6 +127,9 @@ public final class JUnitMessages extends NLS {
 	public static String JUnitLaunchConfigurationTab_label_containerTest;
 
 	public static String JUnitLaunchConfigurationTab_label_keeprunning;
+	public static String JUnitLaunchConfigurationTab_label_shardcount;
+	public static String JUnitLaunchConfigurationTab_label_prioritizebyhistory;
+	public static String JUnitLaunchConfigurationTab_label_warmrunner;
 
 	public static String JUnitLaunchConfigurationTab_label_method;
 
@@ -261,6 +264,11 @@ public final class JUnitMessages extends NLS {
 	public static String TestRunnerViewPart_ImportTestRunSessionAction_name;
 
 	public static String TestRunnerViewPart_ImportTestRunSessionAction_title;
+
+	public static String TestRunnerViewPart_ImportTestRunSessionFromDirectoryAction_message;
+
+	public static String TestRunnerViewPart_ImportTestRunSessionFromDirectoryAction_name;
+
 	public static String TestRunnerViewPart_ImportTestRunSessionFromURLAction_import_from_url;
 
 	public static String TestRunnerViewPart_ImportTestRunSessionFromURLAction_invalid_url;
@@ -274,6 +282,8 @@ public final class JUnitMessages extends NLS {
 	public static String TestRunnerViewPart_Launching;
 	public static String TestRunnerViewPart_message_finish;
 	public static String TestRunnerViewPart_message_started;
+	public static String TestRunnerViewPart_message_started_projected_failure;
+	public static String TestRunnerViewPart_message_projected_failure;
 	public static String TestRunnerViewPart_message_stopped;
 	public static String TestRunnerViewPart_message_terminated;
 	public static String TestRunnerViewPart_rerunaction_label;
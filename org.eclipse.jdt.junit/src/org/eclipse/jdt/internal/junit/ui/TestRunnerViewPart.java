@@ -64,6 +64,7 @@ import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Layout;
@@ -79,6 +80,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ILock;
@@ -170,6 +172,17 @@ public class TestRunnerViewPart extends ViewPart {
 
 	static final int REFRESH_INTERVAL= 200;
 
+	/**
+	 * Maximal delay between two updates of the view during a test run.
+	 */
+	static final int MAX_REFRESH_INTERVAL= 1000;
+
+	/**
+	 * The delay between two updates is at least this factor times the duration of the last
+	 * update, which limits the share of the UI thread used for updates while tests are running.
+	 */
+	private static final int REFRESH_DELAY_FACTOR= 4;
+
 	static final int LAYOUT_FLAT= 0;
 	static final int LAYOUT_HIERARCHICAL= 1;
 
@@ -481,6 +494,7 @@ public class TestRunnerViewPart extends ViewPart {
 		public void addMenuEntries(MenuManager manager) {
 			manager.appendToGroup(IWorkbenchActionConstants.MB_ADDITIONS, new ImportTestRunSessionAction(fParent.getShell()));
 			manager.appendToGroup(IWorkbenchActionConstants.MB_ADDITIONS, new ImportTestRunSessionFromURLAction(fParent.getShell()));
+			manager.appendToGroup(IWorkbenchActionConstants.MB_ADDITIONS, new ImportTestRunSessionFromDirectoryAction(fParent.getShell()));
 			manager.appendToGroup(IWorkbenchActionConstants.MB_ADDITIONS, fPasteAction);
 			if (fTestRunSession != null)
 				manager.appendToGroup(IWorkbenchActionConstants.MB_ADDITIONS, new ExportTestRunSessionAction(fParent.getShell(), fTestRunSession));
@@ -645,6 +659,51 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 	}
 
+	private static class ImportTestRunSessionFromDirectoryAction extends Action {
+		private final Shell fShell;
+
+		public ImportTestRunSessionFromDirectoryAction(Shell shell) {
+			super(JUnitMessages.TestRunnerViewPart_ImportTestRunSessionFromDirectoryAction_name);
+			fShell= shell;
+		}
+
+		@Override
+		public void run() {
+			DirectoryDialog importDialog= new DirectoryDialog(fShell);
+			importDialog.setText(JUnitMessages.TestRunnerViewPart_ImportTestRunSessionAction_title);
+			importDialog.setMessage(JUnitMessages.TestRunnerViewPart_ImportTestRunSessionFromDirectoryAction_message);
+			IDialogSettings dialogSettings= JUnitPlugin.getDefault().getDialogSettings();
+			String lastPath= dialogSettings.get(PREF_LAST_PATH);
+			if (lastPath != null) {
+				importDialog.setFilterPath(lastPath);
+			}
+			String path= importDialog.open();
+			if (path == null)
+				return;
+
+			final File directory= new File(path);
+			try {
+				PlatformUI.getWorkbench().getProgressService().busyCursorWhile(new IRunnableWithProgress() {
+					public void run(IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+						try {
+							JUnitModel.importTestRunSessionFromDirectory(directory, monitor);
+						} catch (CoreException e) {
+							throw new InvocationTargetException(e);
+						} catch (OperationCanceledException e) {
+							throw new InterruptedException();
+						}
+					}
+				});
+			} catch (InterruptedException e) {
+				// cancelled
+			} catch (InvocationTargetException e) {
+				CoreException ce= (CoreException) e.getCause();
+				JUnitPlugin.log(ce);
+				ErrorDialog.openError(fShell, JUnitMessages.TestRunnerViewPart_ImportTestRunSessionAction_error_title, ce.getStatus().getMessage(), ce.getStatus());
+			}
+		}
+	}
+
 	private static class ExportTestRunSessionAction extends Action {
 		private final TestRunSession fTestRunSession;
 		private final Shell fShell;
@@ -804,7 +863,12 @@ public class TestRunnerViewPart extends ViewPart {
 
 			String className= BasicElementLabels.getJavaElementName(testCaseElement.getClassName());
 			String method= BasicElementLabels.getJavaElementName(testCaseElement.getTestMethodName());
-			String status= Messages.format(JUnitMessages.TestRunnerViewPart_message_started, new String[] { className, method });
+			String projectedFailure= getProjectedFailureTime();
+			String status;
+			if (projectedFailure != null)
+				status= Messages.format(JUnitMessages.TestRunnerViewPart_message_started_projected_failure, new String[] { className, method, projectedFailure });
+			else
+				status= Messages.format(JUnitMessages.TestRunnerViewPart_message_started, new String[] { className, method });
 			registerInfoMessage(status);
 		}
 
@@ -856,10 +920,14 @@ public class TestRunnerViewPart extends ViewPart {
 		}
 		@Override
 		public IStatus runInUIThread(IProgressMonitor monitor) {
+			long delay= REFRESH_INTERVAL;
 			if (!isDisposed()) {
-				processChangesInUI();
+				long start= System.currentTimeMillis();
+				processChangesInUI(TestViewer.MAX_UPDATES_PER_INTERVAL);
+				long duration= System.currentTimeMillis() - start;
+				delay= Math.min(MAX_REFRESH_INTERVAL, Math.max(REFRESH_INTERVAL, REFRESH_DELAY_FACTOR * duration));
 			}
-			schedule(REFRESH_INTERVAL);
+			schedule(delay);
 			return Status.OK_STATUS;
 		}
 
@@ -1362,6 +1430,15 @@ public class TestRunnerViewPart extends ViewPart {
 	}
 
 	private void processChangesInUI() {
+		processChangesInUI(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Updates the view.
+	 *
+	 * @param maxUpdates the maximal number of changed test elements to update in the test viewer
+	 */
+	private void processChangesInUI(int maxUpdates) {
 		if (fSashForm.isDisposed())
 			return;
 
@@ -1377,7 +1454,7 @@ public class TestRunnerViewPart extends ViewPart {
 		fNextAction.setEnabled(hasErrorsOrFailures);
 		fPreviousAction.setEnabled(hasErrorsOrFailures);
 
-		fTestViewer.processChangesInUI();
+		fTestViewer.processChangesInUI(maxUpdates);
 	}
 
 	/**
@@ -1519,6 +1596,18 @@ public class TestRunnerViewPart extends ViewPart {
 		return NumberFormat.getInstance().format((double)runTime/1000);
 	}
 
+	/**
+	 * @return the projected time of the first failure of the running session in seconds, or
+	 *         <code>null</code> if no failure is expected or a test has already failed
+	 */
+	private String getProjectedFailureTime() {
+		TestRunSession session= fTestRunSession;
+		if (session == null || ! session.isRunning() || hasErrorsOrFailures())
+			return null;
+		long projectedTime= session.getProjectedTimeToFirstFailure();
+		return projectedTime < 0 ? null : elapsedTimeAsString(projectedTime);
+	}
+
 	private void handleStopped() {
 		postSyncRunnable(new Runnable() {
 			public void run() {
@@ -1776,6 +1865,9 @@ action enablement
 			ticksDone= startedCount - 1;
 
 		fProgressBar.reset(hasErrorsOrFailures, stopped, ticksDone, totalCount);
+
+		String projectedFailure= getProjectedFailureTime();
+		fProgressBar.setToolTipText(projectedFailure == null ? null : Messages.format(JUnitMessages.TestRunnerViewPart_message_projected_failure, projectedFailure));
 	}
 
 	protected void postShowTestResultsView() {
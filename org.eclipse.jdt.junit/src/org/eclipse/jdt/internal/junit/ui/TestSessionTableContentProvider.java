@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,41 +12,139 @@
 package org.eclipse.jdt.internal.junit.ui;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 
 import org.eclipse.jdt.junit.model.ITestElement;
 
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
 
 import org.eclipse.jdt.internal.junit.model.TestCaseElement;
 import org.eclipse.jdt.internal.junit.model.TestRoot;
 import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
 
-public class TestSessionTableContentProvider implements IStructuredContentProvider {
+/**
+ * Lazy content provider for the flat layout. The provider keeps the list of shown elements, so
+ * that added tests can be appended to the virtual table without listing all elements again.
+ * <p>
+ * Viewer filters are not supported by lazy content providers, so the filter is set on the
+ * provider.
+ * </p>
+ */
+public class TestSessionTableContentProvider implements ILazyContentProvider {
+
+	private TableViewer fViewer;
+	private TestRoot fRoot;
+	private ViewerFilter fFilter;
+
+	/**
+	 * The shown elements, in the order of the table items.
+	 */
+	private final ArrayList<Object> fElements= new ArrayList<Object>();
+
+	/**
+	 * Maps elements to their index in {@link #fElements}.
+	 */
+	private final IdentityHashMap<Object, Integer> fIndexes= new IdentityHashMap<Object, Integer>();
 
 	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		fViewer= (TableViewer) viewer;
+		fRoot= (TestRoot) newInput;
+		computeElements();
+		fViewer.setItemCount(fElements.size());
+	}
+
+	public void updateElement(int index) {
+		if (index < fElements.size())
+			fViewer.replace(fElements.get(index), index);
+	}
+
+	/**
+	 * Sets the filter for the shown elements. Takes effect when the input is set again or
+	 * {@link #refreshElements()} is called.
+	 *
+	 * @param filter the filter, or <code>null</code> to show all elements
+	 */
+	public void setFilter(ViewerFilter filter) {
+		fFilter= filter;
+	}
+
+	/**
+	 * @param element an element of the input
+	 * @return <code>true</code> if the element passes the filter
+	 */
+	public boolean select(Object element) {
+		return fFilter == null || fFilter.select(fViewer, null, element);
+	}
+
+	/**
+	 * Lists the shown elements again and refreshes the table.
+	 */
+	public void refreshElements() {
+		computeElements();
+		fViewer.setItemCount(fElements.size());
+		fViewer.refresh();
+	}
+
+	/**
+	 * Appends added test cases to the table. Only valid if no filter is set; with a filter, added
+	 * tests are shown once they fail.
+	 *
+	 * @param added the elements added to the input, parents before children
+	 */
+	public void append(Object[] added) {
+		int count= fElements.size();
+		for (Object element : added) {
+			if (element instanceof TestCaseElement && ! fIndexes.containsKey(element))
+				add(element);
+		}
+		if (fElements.size() != count)
+			fViewer.setItemCount(fElements.size());
+	}
+
+	/**
+	 * Returns the index of a shown element.
+	 *
+	 * @param element the element
+	 * @return the index, or -1 if the element is not shown
+	 */
+	public int indexOf(Object element) {
+		Integer index= fIndexes.get(element);
+		return index == null ? -1 : index.intValue();
+	}
+
+	private void computeElements() {
+		fElements.clear();
+		fIndexes.clear();
+		if (fRoot != null)
+			addAll(fRoot);
 	}
 
-	public Object[] getElements(Object inputElement) {
-		ArrayList<ITestElement> all= new ArrayList<ITestElement>();
-		addAll(all, (TestRoot) inputElement);
-		return all.toArray();
+	private void add(Object element) {
+		fIndexes.put(element, Integer.valueOf(fElements.size()));
+		fElements.add(element);
 	}
 
-	private void addAll(ArrayList<ITestElement> all, TestSuiteElement suite) {
+	private void addAll(TestSuiteElement suite) {
 		ITestElement[] children= suite.getChildren();
 		for (ITestElement element : children) {
 			if (element instanceof TestSuiteElement) {
-				if (((TestSuiteElement) element).getSuiteStatus().isErrorOrFailure())
-					all.add(element); // add failed suite to flat list too
-				addAll(all, (TestSuiteElement) element);
+				if (((TestSuiteElement) element).getSuiteStatus().isErrorOrFailure() && select(element))
+					add(element); // add failed suite to flat list too
+				addAll((TestSuiteElement) element);
 			} else if (element instanceof TestCaseElement) {
-				all.add(element);
+				if (select(element))
+					add(element);
 			}
 		}
 	}
 
 	public void dispose() {
+		fElements.clear();
+		fIndexes.clear();
+		fRoot= null;
 	}
 }
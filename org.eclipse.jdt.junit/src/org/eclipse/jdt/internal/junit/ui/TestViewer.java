@@ -16,12 +16,16 @@
 package org.eclipse.jdt.internal.junit.ui;
 
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import org.eclipse.jdt.junit.model.ITestElement;
 
@@ -32,7 +36,10 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Menu;
-import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.swt.widgets.Widget;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuListener;
@@ -99,6 +106,36 @@ public class TestViewer {
 		}
 	}
 	
+	/**
+	 * Tree viewer that adds new children of the input and of expanded suites without the linear
+	 * check for existing items of {@link AbstractTreeViewer#add(Object, Object[])}.
+	 */
+	private static final class TestTreeViewer extends TreeViewer {
+
+		public TestTreeViewer(Composite parent, int style) {
+			super(parent, style);
+		}
+
+		/**
+		 * Adds elements that have been added to the session. Must not be used while the viewer
+		 * has a filter or a comparator.
+		 *
+		 * @param parentElement the parent
+		 * @param childElements the new children of the parent, in the order of the session
+		 */
+		public void addNew(Object parentElement, Object[] childElements) {
+			Widget widget= findItem(parentElement);
+			if (widget instanceof Tree || widget instanceof TreeItem && ((TreeItem) widget).getExpanded()) {
+				for (Object child : childElements) {
+					if (findItem(child) == null)
+						createTreeItem(widget, child, -1);
+				}
+			} else {
+				add(parentElement, childElements);
+			}
+		}
+	}
+
 	private final class IgnoredOnlyFilter extends ViewerFilter {
 		@Override
 		public boolean select(Viewer viewer, Object parentElement, Object element) {
@@ -141,6 +178,12 @@ public class TestViewer {
 		}
 	}
 
+	/**
+	 * Maximal number of changed elements whose labels are updated by a bounded call to
+	 * {@link #processChangesInUI(int)}. Remaining elements are updated in the next call.
+	 */
+	static final int MAX_UPDATES_PER_INTERVAL= 2000;
+
 	private final FailuresOnlyFilter fFailuresOnlyFilter= new FailuresOnlyFilter();
 	private final IgnoredOnlyFilter fIgnoredOnlyFilter= new IgnoredOnlyFilter();
 
@@ -148,7 +191,7 @@ public class TestViewer {
 	private final Clipboard fClipboard;
 
 	private PageBook fViewerbook;
-	private TreeViewer fTreeViewer;
+	private TestTreeViewer fTreeViewer;
 	private TestSessionTreeContentProvider fTreeContentProvider;
 	private TestSessionLabelProvider fTreeLabelProvider;
 	private TableViewer fTableViewer;
@@ -164,7 +207,17 @@ public class TestViewer {
 
 	private boolean fTreeNeedsRefresh;
 	private boolean fTableNeedsRefresh;
-	private HashSet<TestElement> fNeedUpdate;
+	private LinkedHashSet<TestElement> fNeedUpdate;
+	/**
+	 * Elements added to the session that are not yet added to the tree viewer, in the order in
+	 * which they have been added.
+	 */
+	private LinkedHashSet<TestElement> fNeedAdd;
+	/**
+	 * Elements to update in the tree together with their ancestors. Only used in the UI thread,
+	 * kept to avoid allocating a new set in every update.
+	 */
+	private final HashSet<Object> fTreeUpdateBuffer= new HashSet<Object>();
 	private TestCaseElement fAutoScrollTarget;
 
 	private LinkedList<TestSuiteElement> fAutoClose;
@@ -187,14 +240,15 @@ public class TestViewer {
 	private void createTestViewers(Composite parent) {
 		fViewerbook= new PageBook(parent, SWT.NULL);
 
-		fTreeViewer= new TreeViewer(fViewerbook, SWT.V_SCROLL | SWT.SINGLE);
+		fTreeViewer= new TestTreeViewer(fViewerbook, SWT.V_SCROLL | SWT.SINGLE);
 		fTreeViewer.setUseHashlookup(true);
 		fTreeContentProvider= new TestSessionTreeContentProvider();
 		fTreeViewer.setContentProvider(fTreeContentProvider);
 		fTreeLabelProvider= new TestSessionLabelProvider(fTestRunnerPart, TestRunnerViewPart.LAYOUT_HIERARCHICAL);
 		fTreeViewer.setLabelProvider(new ColoringLabelProvider(fTreeLabelProvider));
 
-		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE);
+		// virtual: table items are only created and labeled when they become visible
+		fTableViewer= new TableViewer(fViewerbook, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE | SWT.VIRTUAL);
 		fTableViewer.setUseHashlookup(true);
 		fTableContentProvider= new TestSessionTableContentProvider();
 		fTableViewer.setContentProvider(fTableContentProvider);
@@ -380,8 +434,7 @@ public class TestViewer {
 				
 				if (getActiveViewerHasFilter()) {
 					//clear both filters (only one of them is used we remove both just for simplicity)
-					viewer.removeFilter(fFailuresOnlyFilter);
-					viewer.removeFilter(fIgnoredOnlyFilter);
+					setFilter(viewer, null);
 				} else {
 					setActiveViewerHasFilter(true);
 					viewer.setInput(null);
@@ -391,7 +444,7 @@ public class TestViewer {
 				if (ignoredOnly==true) {
 					filter= fIgnoredOnlyFilter;
 				}
-				viewer.addFilter(filter);
+				setFilter(viewer, filter);
 				setActiveViewerNeedsRefresh(true);
 
 			} else {
@@ -399,8 +452,7 @@ public class TestViewer {
 					setActiveViewerNeedsRefresh(true);
 					setActiveViewerHasFilter(false);
 					viewer.setInput(null);
-					viewer.removeFilter(fIgnoredOnlyFilter);
-					viewer.removeFilter(fFailuresOnlyFilter);
+					setFilter(viewer, null);
 				}
 			}
 			processChangesInUI();
@@ -417,6 +469,18 @@ public class TestViewer {
 		}
 	}
 
+	private void setFilter(StructuredViewer viewer, ViewerFilter filter) {
+		if (viewer == fTableViewer) {
+			// the lazy table content provider filters the elements itself
+			fTableContentProvider.setFilter(filter);
+		} else {
+			viewer.removeFilter(fFailuresOnlyFilter);
+			viewer.removeFilter(fIgnoredOnlyFilter);
+			if (filter != null)
+				viewer.addFilter(filter);
+		}
+	}
+
 	private boolean getActiveViewerHasFilter() {
 		if (fLayoutMode == TestRunnerViewPart.LAYOUT_HIERARCHICAL)
 			return fTreeHasFilter;
@@ -453,9 +517,20 @@ public class TestViewer {
 	}
 
 	/**
-	 * To be called periodically by the TestRunnerViewPart (in the UI thread).
+	 * Applies all pending changes to the viewers. To be called in the UI thread.
 	 */
 	public void processChangesInUI() {
+		processChangesInUI(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * To be called periodically by the TestRunnerViewPart (in the UI thread). Added elements are
+	 * always applied, but at most <code>maxUpdates</code> changed elements are updated, so that
+	 * the time spent in the UI thread does not depend on the rate of test events.
+	 *
+	 * @param maxUpdates the maximal number of changed elements to update
+	 */
+	public void processChangesInUI(int maxUpdates) {
 		TestRoot testRoot;
 		if (fTestRunSession == null) {
 			registerViewersRefresh();
@@ -475,39 +550,92 @@ public class TestViewer {
 			viewer.setInput(testRoot);
 
 		} else {
+			Object[] toAdd;
 			Object[] toUpdate;
 			synchronized (this) {
-				toUpdate= fNeedUpdate.toArray();
-				fNeedUpdate.clear();
+				toAdd= fNeedAdd.toArray();
+				fNeedAdd.clear();
+				toUpdate= removeFirst(fNeedUpdate, maxUpdates);
+			}
+			if (! fTreeNeedsRefresh && ! fTreeHasFilter && toAdd.length > 0) {
+				addElementsToTree(toAdd);
 			}
 			if (! fTreeNeedsRefresh && toUpdate.length > 0) {
 				if (fTreeHasFilter)
 					for (Object element : toUpdate)
 						updateElementInTree((TestElement) element);
 				else {
-					HashSet<Object> toUpdateWithParents= new HashSet<Object>();
-					toUpdateWithParents.addAll(Arrays.asList(toUpdate));
+					fTreeUpdateBuffer.clear();
 					for (Object element : toUpdate) {
+						fTreeUpdateBuffer.add(element);
 						TestElement parent= ((TestElement) element).getParent();
-						while (parent != null) {
-							toUpdateWithParents.add(parent);
+						// ancestors of an element already in the buffer are in the buffer as well
+						while (parent != null && fTreeUpdateBuffer.add(parent)) {
 							parent= parent.getParent();
 						}
 					}
-					fTreeViewer.update(toUpdateWithParents.toArray(), null);
+					fTreeViewer.update(fTreeUpdateBuffer.toArray(), null);
+					fTreeUpdateBuffer.clear();
 				}
 			}
+			if (! fTableNeedsRefresh && ! fTableHasFilter && toAdd.length > 0) {
+				fTableContentProvider.append(toAdd);
+			}
 			if (! fTableNeedsRefresh && toUpdate.length > 0) {
-				if (fTableHasFilter)
-					for (Object element : toUpdate)
-						updateElementInTable((TestElement) element);
-				else
-					fTableViewer.update(toUpdate, null);
+				updateElementsInTable(toUpdate);
 			}
 		}
 		autoScrollInUI();
 	}
 
+	private static Object[] removeFirst(LinkedHashSet<TestElement> elements, int count) {
+		if (elements.size() <= count) {
+			Object[] result= elements.toArray();
+			elements.clear();
+			return result;
+		}
+		Object[] result= new Object[count];
+		Iterator<TestElement> iter= elements.iterator();
+		for (int i= 0; i < count; i++) {
+			result[i]= iter.next();
+			iter.remove();
+		}
+		return result;
+	}
+
+	/**
+	 * Adds new elements to the tree. The elements are grouped by parent, so that every parent is
+	 * only touched once. Elements of collapsed parents are not created before the parent is
+	 * expanded.
+	 *
+	 * @param toAdd the added elements, parents before children
+	 */
+	private void addElementsToTree(Object[] toAdd) {
+		LinkedHashMap<TestSuiteElement, List<Object>> byParent= new LinkedHashMap<TestSuiteElement, List<Object>>();
+		for (Object element : toAdd) {
+			TestSuiteElement parent= ((TestElement) element).getParent();
+			if (parent == null)
+				continue;
+			List<Object> children= byParent.get(parent);
+			if (children == null) {
+				children= new ArrayList<Object>();
+				byParent.put(parent, children);
+			}
+			children.add(element);
+		}
+		for (Map.Entry<TestSuiteElement, List<Object>> entry : byParent.entrySet()) {
+			addToTree(entry.getKey(), entry.getValue().toArray());
+		}
+	}
+
+	private void addToTree(TestSuiteElement parent, Object[] children) {
+		if (! (parent instanceof TestRoot) && fTreeViewer.testFindItem(parent) == null) {
+			// parent not yet in tree, e.g. the suite for unrooted tests
+			addToTree(parent.getParent(), new Object[] { parent });
+		}
+		fTreeViewer.addNew(parent, children);
+	}
+
 	private void updateElementInTree(final TestElement testElement) {
 		if (isShown(testElement)) {
 			updateShownElementInTree(testElement);
@@ -540,23 +668,27 @@ public class TestViewer {
 		}
 	}
 
-	private void updateElementInTable(TestElement element) {
-		if (isShown(element)) {
-			if (fTableViewer.testFindItem(element) == null) {
-				TestElement previous= getNextFailure(element, false);
-				int insertionIndex= -1;
-				if (previous != null) {
-					TableItem item= (TableItem) fTableViewer.testFindItem(previous);
-					if (item != null)
-						insertionIndex= fTableViewer.getTable().indexOf(item);
-				}
-				fTableViewer.insert(element, insertionIndex);
-			} else  {
-				fTableViewer.update(element, null);
+	/**
+	 * Updates the table. The elements of the table are only listed again if an updated element
+	 * has to be shown or hidden, i.e. if it passes the filter but is not shown yet or vice versa,
+	 * or if a suite has failed. Otherwise only the labels are updated.
+	 *
+	 * @param toUpdate the changed elements
+	 */
+	private void updateElementsInTable(Object[] toUpdate) {
+		for (Object element : toUpdate) {
+			boolean shown= fTableContentProvider.indexOf(element) >= 0;
+			boolean listed;
+			if (element instanceof TestSuiteElement)
+				listed= ((TestSuiteElement) element).getSuiteStatus().isErrorOrFailure() && fTableContentProvider.select(element);
+			else
+				listed= fTableContentProvider.select(element);
+			if (shown != listed) {
+				fTableContentProvider.refreshElements();
+				return;
 			}
-		} else {
-			fTableViewer.remove(element);
 		}
+		fTableViewer.update(toUpdate, null);
 	}
 
 	private boolean isShown(TestElement current) {
@@ -572,7 +704,7 @@ public class TestViewer {
 
 		if (fLayoutMode == TestRunnerViewPart.LAYOUT_FLAT) {
 			if (fAutoScrollTarget != null)
-				fTableViewer.reveal(fAutoScrollTarget);
+				revealInTable(fAutoScrollTarget);
 			return;
 		}
 
@@ -610,6 +742,19 @@ public class TestViewer {
 			fTreeViewer.reveal(current);
 	}
 
+	private void revealInTable(TestCaseElement element) {
+		if (fTableViewer.testFindItem(element) == null) {
+			// the item of a virtual table is only created when it is accessed
+			int index= fTableContentProvider.indexOf(element);
+			Table table= fTableViewer.getTable();
+			if (index >= 0 && index < table.getItemCount()) {
+				table.showItem(table.getItem(index));
+				return;
+			}
+		}
+		fTableViewer.reveal(element);
+	}
+
 	public void selectFirstFailure() {
 		TestCaseElement firstFailure= getNextChildFailure(fTestRunSession.getTestRoot(), true);
 		if (firstFailure != null)
@@ -687,7 +832,13 @@ public class TestViewer {
 	}
 
 	private void clearUpdateAndExpansion() {
+		if (fNeedAdd != null && ! fNeedAdd.isEmpty()) {
+			// pending additions are lost, so the viewers have to be refreshed (reset if it is the viewer being refreshed)
+			fTreeNeedsRefresh= true;
+			fTableNeedsRefresh= true;
+		}
 		fNeedUpdate= new LinkedHashSet<TestElement>();
+		fNeedAdd= new LinkedHashSet<TestElement>();
 		fAutoClose= new LinkedList<TestSuiteElement>();
 		fAutoExpand= new HashSet<TestSuiteElement>();
 	}
@@ -696,9 +847,7 @@ public class TestViewer {
 	 * @param testElement the added test
 	 */
 	public synchronized void registerTestAdded(TestElement testElement) {
-		//TODO: performance: would only need to refresh parent of added element
-		fTreeNeedsRefresh= true;
-		fTableNeedsRefresh= true;
+		fNeedAdd.add(testElement);
 	}
 
 	public synchronized void registerViewerUpdate(final TestElement testElement) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,6 +32,7 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 
 import org.eclipse.core.runtime.CoreException;
@@ -133,11 +134,16 @@ import org.eclipse.jdt.internal.ui.wizards.TypedViewerFilter;
  */
 public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 
+	private static final int MAX_SHARD_COUNT= 64;
+
 	// Project UI widgets
 	private Label fProjLabel;
 	private Text fProjText;
 	private Button fProjButton;
 	private Button fKeepRunning;
+	private Spinner fShardCount;
+	private Button fPrioritizeByHistory;
+	private Button fWarmRunner;
 
 	// Test class UI widgets
 	private Text fTestText;
@@ -193,6 +199,9 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		createSpacer(comp);
 
 		createKeepAliveGroup(comp);
+		createShardGroup(comp);
+		createPrioritizeGroup(comp);
+		createWarmRunnerGroup(comp);
 		Dialog.applyDialogFont(comp);
 		PlatformUI.getWorkbench().getHelpSystem().setHelp(getControl(), IJUnitHelpContextIds.LAUNCH_CONFIGURATION_DIALOG_JUNIT_MAIN_TAB);
 		validatePage();
@@ -402,6 +411,55 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fKeepRunning.setLayoutData(gd);
 	}
 
+	private void createShardGroup(Composite comp) {
+		Composite shardComp= new Composite(comp, SWT.NONE);
+		GridLayout layout= new GridLayout(2, false);
+		layout.marginWidth= 0;
+		layout.marginHeight= 0;
+		shardComp.setLayout(layout);
+		GridData gd= new GridData();
+		gd.horizontalSpan= 3;
+		shardComp.setLayoutData(gd);
+
+		Label label= new Label(shardComp, SWT.NONE);
+		label.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_shardcount);
+
+		fShardCount= new Spinner(shardComp, SWT.BORDER);
+		fShardCount.setMinimum(1);
+		fShardCount.setMaximum(MAX_SHARD_COUNT);
+		fShardCount.addModifyListener(new ModifyListener() {
+			public void modifyText(ModifyEvent evt) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+	}
+
+	private void createPrioritizeGroup(Composite comp) {
+		fPrioritizeByHistory= new Button(comp, SWT.CHECK);
+		fPrioritizeByHistory.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+		fPrioritizeByHistory.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_prioritizebyhistory);
+		GridData gd= new GridData();
+		gd.horizontalSpan= 3;
+		fPrioritizeByHistory.setLayoutData(gd);
+	}
+
+	private void createWarmRunnerGroup(Composite comp) {
+		fWarmRunner= new Button(comp, SWT.CHECK);
+		fWarmRunner.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+		fWarmRunner.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_warmrunner);
+		GridData gd= new GridData();
+		gd.horizontalSpan= 3;
+		fWarmRunner.setLayoutData(gd);
+	}
+
 	private static Image createImage(String path) {
 		return JUnitPlugin.getImageDescriptor(path).createImage();
 	}
@@ -424,6 +482,9 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		else
 			updateTestTypeFromConfig(config);
 		updateKeepRunning(config);
+		updateShardCount(config);
+		updatePrioritizeByHistory(config);
+		updateWarmRunner(config);
 		updateTestLoaderFromConfig(config);
 
 		validatePage();
@@ -451,6 +512,33 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fKeepRunning.setSelection(running);
 	}
 
+	private void updateShardCount(ILaunchConfiguration config) {
+		int shardCount= 1;
+		try {
+			shardCount= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, 1);
+		} catch (CoreException ce) {
+		}
+		fShardCount.setSelection(Math.max(1, Math.min(shardCount, MAX_SHARD_COUNT)));
+	}
+
+	private void updatePrioritizeByHistory(ILaunchConfiguration config) {
+		boolean prioritize= false;
+		try {
+			prioritize= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, false);
+		} catch (CoreException ce) {
+		}
+		fPrioritizeByHistory.setSelection(prioritize);
+	}
+
+	private void updateWarmRunner(ILaunchConfiguration config) {
+		boolean warm= false;
+		try {
+			warm= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER, false);
+		} catch (CoreException ce) {
+		}
+		fWarmRunner.setSelection(warm);
+	}
+
 	private void updateProjectFromConfig(ILaunchConfiguration config) {
 		String projectName= ""; //$NON-NLS-1$
 		try {
@@ -516,6 +604,9 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_METHOD_NAME, fTestMethodText.getText());
 		}
 		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_KEEPRUNNING, fKeepRunning.getSelection());
+		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_SHARD_COUNT, fShardCount.getSelection());
+		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, fPrioritizeByHistory.getSelection());
+		config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER, fWarmRunner.getSelection());
 		try {
 			mapResources(config);
 		} catch (CoreException e) {
@@ -17,12 +17,17 @@ import org.junit.runner.Request;
 
 import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
 import org.eclipse.jdt.internal.junit.runner.IVisitsTestTrees;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory;
 
 public class JUnit4TestClassReference extends JUnit4TestReference {
 	protected final Class<?> fClass;
 
 	public JUnit4TestClassReference(Class<?> clazz, String[] failureNames) {
-		super(Request.aClass(clazz), failureNames);
+		this(clazz, failureNames, null);
+	}
+
+	public JUnit4TestClassReference(Class<?> clazz, String[] failureNames, TestRunHistory history) {
+		super(Request.aClass(clazz), failureNames, history);
 		fClass= clazz;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2013 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,12 +14,16 @@ package org.eclipse.jdt.internal.junit4.runner;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import junit.framework.Test;
 
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory.Priority;
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestLoader;
 import org.eclipse.jdt.internal.junit.runner.junit3.JUnit3TestReference;
 
@@ -38,14 +42,41 @@ public class JUnit4TestLoader implements ITestLoader {
 			ITestReference ref= createTest(clazz, testName, failureNames, listener);
 			refs[i]= ref;
 		}
+		TestRunHistory history= listener.getTestRunHistory();
+		if (history != null && failureNames == null && testName == null) {
+			sortByHistory(refs, history);
+		}
 		return refs;
 	}
 
+	/*
+	 * Runs the test classes in the order of their history, too.
+	 */
+	private void sortByHistory(ITestReference[] refs, TestRunHistory history) {
+		Arrays.sort(refs, new Comparator<ITestReference>() {
+			public int compare(ITestReference r1, ITestReference r2) {
+				return getHistoryPriority(r1).compareTo(getHistoryPriority(r2));
+			}
+		}); // stable
+		for (int i= 0; i < refs.length; i++) {
+			history.recordRun(getHistoryPriority(refs[i]));
+		}
+	}
+
+	private static Priority getHistoryPriority(ITestReference ref) {
+		if (ref instanceof JUnit4TestReference) {
+			Priority priority= ((JUnit4TestReference) ref).getHistoryPriority();
+			if (priority != null)
+				return priority;
+		}
+		return Priority.UNKNOWN;
+	}
+
 	private ITestReference createTest(Class<?> clazz, String testName, String[] failureNames, RemoteTestRunner listener) {
 		if (clazz == null)
 			return null;
 		if (testName == null)
-			return new JUnit4TestClassReference(clazz, failureNames);
+			return new JUnit4TestClassReference(clazz, failureNames, listener.getTestRunHistory());
 		else if (isJUnit3SetUpTest(clazz, testName)) {
 			JUnit3TestLoader jUnit3TestLoader= new JUnit3TestLoader();
 			Test test= jUnit3TestLoader.getTest(clazz, testName, listener);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,15 +22,44 @@ import org.junit.runner.notification.StoppedByUserException;
 import org.eclipse.jdt.internal.junit.runner.IStopListener;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.TestExecution;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory.Priority;
 
 public abstract class JUnit4TestReference implements ITestReference {
 	protected Runner fRunner;
 
+	private Priority fHistoryPriority;
+
 	public JUnit4TestReference(Request request, String[] failureNames) {
+		this(request, failureNames, null);
+	}
+
+	/**
+	 * @param request the request to run
+	 * @param failureNames the names of the tests to run first, or <code>null</code>
+	 * @param history the results of previous runs used to order the tests if
+	 *            <code>failureNames</code> is <code>null</code>, or <code>null</code>
+	 */
+	public JUnit4TestReference(Request request, String[] failureNames, TestRunHistory history) {
+		TimingHistorySorter historySorter= null;
 		if (failureNames != null) {
 			request= request.sortWith(new FailuresFirstSorter(failureNames));
+		} else if (history != null) {
+			historySorter= new TimingHistorySorter(history);
+			request= request.sortWith(historySorter);
 		}
 		fRunner= request.getRunner();
+		if (historySorter != null) {
+			fHistoryPriority= historySorter.getPriority(fRunner.getDescription());
+		}
+	}
+
+	/**
+	 * @return the priority of this test according to the results of previous runs, or
+	 *         <code>null</code> if the test is not ordered by its history
+	 */
+	public Priority getHistoryPriority() {
+		return fHistoryPriority;
 	}
 
 	public void run(TestExecution execution) {
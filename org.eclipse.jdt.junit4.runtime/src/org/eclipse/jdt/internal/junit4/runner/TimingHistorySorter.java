@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.runner.Description;
+
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory;
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory.Priority;
+
+/**
+ * Comparator for descriptions to sort according to the results of previous runs.
+ * Recently failed tests come first, then tests without history, then the remaining tests.
+ * Within each group, faster tests come first. The priority of a suite is computed from the
+ * priorities of its children.
+ *
+ * @since 1.1
+ */
+public class TimingHistorySorter implements Comparator<Description> {
+
+	private final TestRunHistory fHistory;
+
+	private final Map<Description, Priority> fPriorities= new IdentityHashMap<Description, Priority>();
+
+	/**
+	 * Creates a sorter.
+	 *
+	 * @param history the results of previous runs, keyed by the descriptions' display strings
+	 */
+	public TimingHistorySorter(TestRunHistory history) {
+		fHistory= history;
+	}
+
+	public int compare(Description d1, Description d2) {
+		return getPriority(d1).compareTo(getPriority(d2));
+	}
+
+	/**
+	 * Returns the priority of a description. The priority of a suite assumes that its children
+	 * are run in sorted order.
+	 *
+	 * @param description the description
+	 * @return the priority
+	 */
+	public Priority getPriority(Description description) {
+		Priority priority= fPriorities.get(description);
+		if (priority == null) {
+			if (description.isTest()) {
+				priority= fHistory.getPriority(description.getDisplayName());
+			} else {
+				List<Description> children= new ArrayList<Description>(description.getChildren());
+				Collections.sort(children, this);
+				Priority[] childPriorities= new Priority[children.size()];
+				for (int i= 0; i < childPriorities.length; i++) {
+					childPriorities[i]= getPriority(children.get(i));
+				}
+				priority= Priority.combine(childPriorities);
+			}
+			fPriorities.put(description, priority);
+		}
+		return priority;
+	}
+}
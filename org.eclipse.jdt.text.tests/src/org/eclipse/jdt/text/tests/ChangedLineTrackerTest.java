@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ChangedLineTracker;
+
+
+public class ChangedLineTrackerTest extends TestCase {
+
+	private static final String SOURCE= "class A {\n\tint a;\n\tint b;\n\tint c;\n\tint d;\n}\n"; //$NON-NLS-1$
+
+	private IDocument fDocument;
+	private ChangedLineTracker fTracker;
+
+	public static Test suite() {
+		return new TestSuite(ChangedLineTrackerTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fDocument= new Document(SOURCE);
+		fTracker= new ChangedLineTracker(fDocument, true);
+		fTracker.install();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fTracker.uninstall();
+	}
+
+	private void assertChangedLines(String[] expected) throws BadLocationException {
+		IRegion[] regions= fTracker.getChangedLineRegions();
+		assertNotNull(regions);
+		String[] actual= new String[regions.length];
+		for (int i= 0; i < regions.length; i++)
+			actual[i]= fDocument.get(regions[i].getOffset(), regions[i].getLength());
+		assertEquals(toString(expected), toString(actual));
+	}
+
+	private static String toString(String[] strings) {
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < strings.length; i++)
+			buf.append('[').append(strings[i]).append(']');
+		return buf.toString();
+	}
+
+	public void testNoChange() throws Exception {
+		assertChangedLines(new String[0]);
+	}
+
+	public void testChangedLines() throws Exception {
+		fDocument.replace(SOURCE.indexOf("a;"), 1, "x"); //$NON-NLS-1$ //$NON-NLS-2$
+		fDocument.replace(SOURCE.indexOf("d;"), 1, "y"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint x;", "\tint y;" }); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testInsertedLines() throws Exception {
+		fDocument.replace(SOURCE.indexOf("\tint b;"), 0, "\tint e;\n\tint f;\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		fDocument.replace(fDocument.get().indexOf("d;"), 1, "y"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint e;\n\tint f;", "\tint y;" }); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testDeletedLines() throws Exception {
+		int offset= SOURCE.indexOf("\tint b;"); //$NON-NLS-1$
+		fDocument.replace(offset, SOURCE.indexOf("\tint d;") - offset, ""); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[0]);
+		fDocument.replace(fDocument.get().indexOf("a;"), 1, "x"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint x;" }); //$NON-NLS-1$
+	}
+
+	public void testMergedChanges() throws Exception {
+		fDocument.replace(SOURCE.indexOf("a;"), 1, "x"); //$NON-NLS-1$ //$NON-NLS-2$
+		fDocument.replace(SOURCE.indexOf("c;"), 1, "z"); //$NON-NLS-1$ //$NON-NLS-2$
+		// joins the lines between the changed lines
+		fDocument.replace(fDocument.get().indexOf("\n\tint b;"), 1, " "); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint x; \tint b;\n\tint z;" }); //$NON-NLS-1$
+		fDocument.replace(fDocument.get().indexOf("x"), 1, "a"); //$NON-NLS-1$ //$NON-NLS-2$
+		fDocument.replace(fDocument.get().indexOf(" \tint b;"), 1, "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint z;" }); //$NON-NLS-1$
+	}
+
+	public void testTypingInsideChangedLines() throws Exception {
+		fDocument.replace(SOURCE.indexOf("b;"), 1, "x"); //$NON-NLS-1$ //$NON-NLS-2$
+		int offset= fDocument.get().indexOf("x;"); //$NON-NLS-1$
+		String typed= "yz\n\tint w"; //$NON-NLS-1$
+		for (int i= 0; i < typed.length(); i++)
+			fDocument.replace(offset + 1 + i, 0, typed.substring(i, i + 1));
+		assertChangedLines(new String[] { "\tint xyz\n\tint w;" }); //$NON-NLS-1$
+		fDocument.replace(fDocument.get().indexOf("d;"), 1, "v"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint xyz\n\tint w;", "\tint v;" }); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the original text of the changed lines is kept while typing
+		for (int i= typed.length(); i > 0; i--)
+			fDocument.replace(offset + i, 1, ""); //$NON-NLS-1$
+		fDocument.replace(offset, 1, "b"); //$NON-NLS-1$
+		assertChangedLines(new String[] { "\tint v;" }); //$NON-NLS-1$
+	}
+
+	public void testRevertedChange() throws Exception {
+		int offset= SOURCE.indexOf("b;"); //$NON-NLS-1$
+		fDocument.replace(offset, 1, "\n\n"); //$NON-NLS-1$
+		fDocument.replace(offset, 2, ""); //$NON-NLS-1$
+		fDocument.replace(offset, 0, "b"); //$NON-NLS-1$
+		assertEquals(SOURCE, fDocument.get());
+		assertChangedLines(new String[0]);
+	}
+
+	public void testLastLine() throws Exception {
+		fDocument.replace(fDocument.getLength(), 0, "class B {}"); //$NON-NLS-1$
+		assertChangedLines(new String[] { "class B {}" }); //$NON-NLS-1$
+		fDocument.set("class C {}\n"); //$NON-NLS-1$
+		assertChangedLines(new String[] { "class C {}" }); //$NON-NLS-1$
+	}
+
+	public void testReset() throws Exception {
+		fDocument.replace(SOURCE.indexOf("a;"), 1, "x"); //$NON-NLS-1$ //$NON-NLS-2$
+		fTracker.reset();
+		assertChangedLines(new String[0]);
+		fDocument.replace(fDocument.get().indexOf("x;"), 1, "a"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertChangedLines(new String[] { "\tint a;" }); //$NON-NLS-1$
+	}
+
+	public void testNotInSync() throws Exception {
+		ChangedLineTracker tracker= new ChangedLineTracker(fDocument, false);
+		tracker.install();
+		try {
+			fDocument.replace(0, 0, "x"); //$NON-NLS-1$
+			assertNull(tracker.getChangedLineRegions());
+			tracker.reset();
+			assertNotNull(tracker.getChangedLineRegions());
+		} finally {
+			tracker.uninstall();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.SourceViewer;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.text.folding.IJavaFoldingStructureProvider;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+
+/**
+ * Tests that the folding structure that is updated incrementally while a Java editor is edited is
+ * the same as the one computed from scratch.
+ */
+public class FoldingTest extends TestCase {
+
+	private static final String SOURCE=
+		"package p;\n" +
+		"\n" +
+		"import java.util.List;\n" +
+		"\n" +
+		"/**\n" +
+		" * Type comment.\n" +
+		" */\n" +
+		"public class A {\n" +
+		"\n" +
+		"    /**\n" +
+		"     * Field comment.\n" +
+		"     */\n" +
+		"    int fField;\n" +
+		"\n" +
+		"    /**\n" +
+		"     * First comment.\n" +
+		"     */\n" +
+		"    void first(List l) {\n" +
+		"        l.clear();\n" +
+		"    }\n" +
+		"\n" +
+		"    void second() {\n" +
+		"        fField++;\n" +
+		"    }\n" +
+		"\n" +
+		"    class Inner {\n" +
+		"        void third() {\n" +
+		"            fField--;\n" +
+		"        }\n" +
+		"    }\n" +
+		"}\n";
+
+	public static Test suite() {
+		return new TestSuite(FoldingTest.class);
+	}
+
+	private IJavaProject fJavaProject;
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private boolean fWasFoldingEnabled;
+
+	protected void setUp() throws Exception {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		fWasFoldingEnabled= store.getBoolean(PreferenceConstants.EDITOR_FOLDING_ENABLED);
+		store.setValue(PreferenceConstants.EDITOR_FOLDING_ENABLED, true);
+
+		fJavaProject= JavaProjectHelper.createJavaProject("FoldingTest", "bin");
+		JavaProjectHelper.addRTJar(fJavaProject);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJavaProject, "src");
+		IPackageFragment pack= root.createPackageFragment("p", true, null);
+		ICompilationUnit cu= pack.createCompilationUnit("A.java", SOURCE, true, null);
+
+		fEditor= (JavaEditor) EditorTestHelper.openInEditor((IFile) cu.getResource(), true);
+		fDocument= EditorTestHelper.getDocument(fEditor);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+	}
+
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeAllEditors();
+		JavaProjectHelper.delete(fJavaProject);
+		JavaPlugin.getDefault().getPreferenceStore().setValue(PreferenceConstants.EDITOR_FOLDING_ENABLED, fWasFoldingEnabled);
+	}
+
+	private List<String> getFoldingPositions() {
+		ProjectionAnnotationModel model= (ProjectionAnnotationModel) fEditor.getAdapter(ProjectionAnnotationModel.class);
+		assertNotNull(model);
+		List<String> positions= new ArrayList<String>();
+		for (Iterator<?> iter= model.getAnnotationIterator(); iter.hasNext();) {
+			Object annotation= iter.next();
+			if (annotation instanceof ProjectionAnnotation) {
+				Position position= model.getPosition((ProjectionAnnotation) annotation);
+				positions.add(position.getOffset() + ":" + position.getLength());
+			}
+		}
+		Collections.sort(positions);
+		return positions;
+	}
+
+	/**
+	 * Replaces text in the editor, waits for the reconciler and compares the incrementally
+	 * updated folding structure with the one computed from scratch.
+	 *
+	 * @param offset the offset of the replaced text
+	 * @param length the length of the replaced text
+	 * @param text the new text
+	 * @return the number of folding regions
+	 * @throws Exception if the document cannot be modified
+	 */
+	private int replaceAndCompare(int offset, int length, String text) throws Exception {
+		fDocument.replace(offset, length, text);
+		SourceViewer viewer= EditorTestHelper.getSourceViewer(fEditor);
+		EditorTestHelper.forceReconcile(viewer);
+		assertTrue(EditorTestHelper.joinReconciler(viewer, 100, 10 * 1000, 100));
+
+		List<String> incremental= getFoldingPositions();
+		IJavaFoldingStructureProvider provider= (IJavaFoldingStructureProvider) fEditor.getAdapter(IJavaFoldingStructureProvider.class);
+		assertNotNull(provider);
+		provider.initialize();
+		assertEquals(getFoldingPositions(), incremental);
+		return incremental.size();
+	}
+
+	private int offsetAfter(String text) {
+		int offset= fDocument.get().indexOf(text);
+		assertTrue(text, offset != -1);
+		return offset + text.length();
+	}
+
+	public void testEditInsideMember() throws Exception {
+		int count= getFoldingPositions().size();
+		assertEquals(count, replaceAndCompare(offsetAfter("l.clear();\n"), 0, "        l.add(null);\n        l.clear();\n"));
+		assertEquals(count, replaceAndCompare(offsetAfter("fField--;\n"), 0, "            fField= 0;\n"));
+	}
+
+	public void testEditMemberComment() throws Exception {
+		int count= getFoldingPositions().size();
+		assertEquals(count, replaceAndCompare(offsetAfter("First comment.\n"), 0, "     * More.\n     * Even more.\n"));
+	}
+
+	public void testEditBetweenMembers() throws Exception {
+		int count= getFoldingPositions().size();
+		int offset= offsetAfter("    }\n\n");
+		assertEquals(count, replaceAndCompare(offset, 0, "\n\n// line comment\n\n"));
+		offset= offsetAfter("// line comment\n");
+		assertEquals(count + 1, replaceAndCompare(offset, 0, "    /*\n     * Block comment.\n     */\n"));
+	}
+
+	public void testAddAndRemoveMember() throws Exception {
+		int count= getFoldingPositions().size();
+		String member= "    void added() {\n        fField= 1;\n    }\n\n";
+		int offset= offsetAfter("fField++;\n    }\n\n");
+		assertEquals(count + 1, replaceAndCompare(offset, 0, member));
+		assertEquals(count, replaceAndCompare(offset, member.length(), ""));
+
+		int start= fDocument.get().indexOf("    void second()");
+		int end= offsetAfter("fField++;\n    }\n\n");
+		assertEquals(count - 1, replaceAndCompare(start, end - start, ""));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,6 +28,7 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
 import org.eclipse.jdt.internal.ui.text.FastJavaPartitionScanner;
 import org.eclipse.jdt.internal.ui.text.JavaHeuristicScanner;
 import org.eclipse.jdt.internal.ui.text.JavaIndenter;
+import org.eclipse.jdt.internal.ui.text.Symbols;
 
 /**
  * SmartSemicolonAutoEditStrategyTest
@@ -1140,4 +1141,39 @@ public class JavaHeuristicScannerTest extends TestCase {
 		String indent= fScanner.computeIndentation(offset).toString();
 		assertEquals("\t", indent);
 	}
+
+	public void testScanAcrossBlocks() {
+		StringBuffer buf= new StringBuffer();
+		buf.append("class A {\n");
+		buf.append("\tvoid foo() {\n");
+		for (int i= 0; i < 300; i++)
+			buf.append("\t\tbar(\"}\"); // }\n");
+		buf.append("\t\tif (true)\n");
+		buf.append("\t}\n");
+		buf.append("}\n");
+		fDocument.set(buf.toString());
+
+		int open= buf.indexOf("{", buf.indexOf("foo"));
+		int close= buf.lastIndexOf("\t}");
+		assertEquals(close + 1, fHeuristicScanner.findClosingPeer(open + 1, '{', '}'));
+		assertEquals(open, fHeuristicScanner.findOpeningPeer(close, '{', '}'));
+
+		int ifOffset= buf.indexOf("if (true)");
+		assertEquals(Symbols.TokenIF, fHeuristicScanner.nextToken(ifOffset, JavaHeuristicScanner.UNBOUND));
+		assertEquals(Symbols.TokenSEMICOLON, fHeuristicScanner.previousToken(ifOffset - 1, JavaHeuristicScanner.UNBOUND));
+		assertEquals(Symbols.TokenLBRACE, fHeuristicScanner.previousToken(buf.indexOf("bar") - 1, JavaHeuristicScanner.UNBOUND));
+	}
+
+	public void testModifiedDocument() throws Exception {
+		fDocument.set("class A {\n\tint a;\n}\n");
+		assertEquals(Symbols.TokenCLASS, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals(Symbols.TokenIDENT, fHeuristicScanner.nextToken(11, JavaHeuristicScanner.UNBOUND));
+
+		fDocument.replace(0, 5, "interface");
+		assertEquals(Symbols.TokenINTERFACE, fHeuristicScanner.nextToken(0, JavaHeuristicScanner.UNBOUND));
+		assertEquals('i', fHeuristicScanner.getChar(0));
+
+		fDocument.replace(15, 3, "for");
+		assertEquals(Symbols.TokenFOR, fHeuristicScanner.nextToken(15, JavaHeuristicScanner.UNBOUND));
+	}
 }
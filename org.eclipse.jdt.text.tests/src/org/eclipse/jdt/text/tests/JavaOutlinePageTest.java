@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeItem;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.part.IPage;
+import org.eclipse.ui.part.PageBookView;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaOutlinePage;
+
+/**
+ * Tests that the Java outline shows the members of the edited compilation unit after the
+ * member tree has been computed in the background.
+ */
+public class JavaOutlinePageTest extends TestCase {
+
+	private static final String TOP_LEVEL_TYPE_ONLY_KEY= "GoIntoTopLevelTypeAction.isChecked";
+
+	private static final String LEXICAL_SORTING_KEY= "LexicalSortingAction.isChecked";
+
+	private static final String SOURCE=
+		"package p;\n" +
+		"\n" +
+		"public class A {\n" +
+		"    int fField;\n" +
+		"\n" +
+		"    void first() {\n" +
+		"    }\n" +
+		"\n" +
+		"    class Inner {\n" +
+		"        void second() {\n" +
+		"        }\n" +
+		"    }\n" +
+		"}\n";
+
+	public static Test suite() {
+		return new TestSuite(JavaOutlinePageTest.class);
+	}
+
+	private IJavaProject fJavaProject;
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private boolean fWasOutlineShown;
+	private boolean fWasTopLevelTypeOnly;
+	private boolean fWasLexicalSorting;
+
+	protected void setUp() throws Exception {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		fWasTopLevelTypeOnly= store.getBoolean(TOP_LEVEL_TYPE_ONLY_KEY);
+		store.setValue(TOP_LEVEL_TYPE_ONLY_KEY, false);
+		fWasLexicalSorting= store.getBoolean(LEXICAL_SORTING_KEY);
+		store.setValue(LEXICAL_SORTING_KEY, false);
+
+		fJavaProject= JavaProjectHelper.createJavaProject("JavaOutlinePageTest", "bin");
+		JavaProjectHelper.addRTJar(fJavaProject);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fJavaProject, "src");
+		IPackageFragment pack= root.createPackageFragment("p", true, null);
+		pack.createCompilationUnit("A.java", SOURCE, true, null);
+
+		fWasOutlineShown= EditorTestHelper.isViewShown(EditorTestHelper.OUTLINE_VIEW_ID);
+	}
+
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeAllEditors();
+		EditorTestHelper.showView(EditorTestHelper.OUTLINE_VIEW_ID, fWasOutlineShown);
+		JavaProjectHelper.delete(fJavaProject);
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		store.setValue(TOP_LEVEL_TYPE_ONLY_KEY, fWasTopLevelTypeOnly);
+		store.setValue(LEXICAL_SORTING_KEY, fWasLexicalSorting);
+	}
+
+	private Tree openOutline() throws Exception {
+		IFile file= (IFile) fJavaProject.findType("p.A").getCompilationUnit().getResource();
+		EditorTestHelper.showView(EditorTestHelper.OUTLINE_VIEW_ID, false);
+		fEditor= (JavaEditor) EditorTestHelper.openInEditor(file, true);
+		fDocument= EditorTestHelper.getDocument(fEditor);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+
+		EditorTestHelper.showView(EditorTestHelper.OUTLINE_VIEW_ID, true);
+		EditorTestHelper.getActivePage().activate(fEditor);
+		PageBookView outline= (PageBookView) EditorTestHelper.getActivePage().findView(EditorTestHelper.OUTLINE_VIEW_ID);
+		assertNotNull(outline);
+		IPage page= outline.getCurrentPage();
+		assertTrue(page instanceof JavaOutlinePage);
+		return (Tree) page.getControl();
+	}
+
+	private static List<String> getNames(TreeItem[] items) {
+		List<String> names= new ArrayList<String>();
+		for (int i= 0; i < items.length; i++) {
+			Object data= items[i].getData();
+			names.add(data instanceof IJavaElement ? ((IJavaElement) data).getElementName() : String.valueOf(data));
+		}
+		return names;
+	}
+
+	private void replace(String oldText, String newText) throws Exception {
+		int offset= fDocument.get().indexOf(oldText);
+		assertTrue(oldText, offset != -1);
+		fDocument.replace(offset, oldText.length(), newText);
+		SourceViewer viewer= EditorTestHelper.getSourceViewer(fEditor);
+		EditorTestHelper.forceReconcile(viewer);
+		assertTrue(EditorTestHelper.joinReconciler(viewer, 100, 10 * 1000, 100));
+	}
+
+	/**
+	 * Waits until the given items show the expected elements.
+	 *
+	 * @param expected the names of the expected elements
+	 * @param tree the outline tree
+	 * @param path the names of the parents of the items, starting at a root item
+	 */
+	private void assertShown(String[] expected, Tree tree, String[] path) {
+		List<String> expectedNames= Arrays.asList(expected);
+		List<String> actual= null;
+		long timeout= System.currentTimeMillis() + 10 * 1000;
+		do {
+			EditorTestHelper.runEventQueue(50);
+			TreeItem[] items= tree.getItems();
+			for (int i= 0; items != null && i < path.length; i++) {
+				int index= getNames(items).indexOf(path[i]);
+				items= index != -1 ? items[index].getItems() : null;
+			}
+			actual= items != null ? getNames(items) : null;
+		} while (!expectedNames.equals(actual) && System.currentTimeMillis() < timeout);
+		assertEquals(expectedNames, actual);
+	}
+
+	private static boolean isPlaceholderShown(Tree tree) {
+		return tree.getItemCount() == 1 && !(tree.getItem(0).getData() instanceof IJavaElement);
+	}
+
+	public void testAddAndRemoveMembers() throws Exception {
+		Tree tree= openOutline();
+		assertShown(new String[] { "p", "A" }, tree, new String[0]);
+		assertShown(new String[] { "fField", "first", "Inner" }, tree, new String[] { "A" });
+
+		replace("    void first() {\n    }\n", "    void first() {\n    }\n\n    void added() {\n    }\n");
+		assertShown(new String[] { "fField", "first", "added", "Inner" }, tree, new String[] { "A" });
+
+		replace("    class Inner {", "    interface Other {\n    }\n\n    class Inner {");
+		assertShown(new String[] { "fField", "first", "added", "Other", "Inner" }, tree, new String[] { "A" });
+
+		replace("    int fField;\n", "");
+		assertShown(new String[] { "first", "added", "Other", "Inner" }, tree, new String[] { "A" });
+	}
+
+	public void testTopLevelTypeOnly() throws Exception {
+		JavaPlugin.getDefault().getPreferenceStore().setValue(TOP_LEVEL_TYPE_ONLY_KEY, true);
+		Tree tree= openOutline();
+		assertShown(new String[] { "fField", "first", "Inner" }, tree, new String[0]);
+
+		replace("    int fField;\n", "    int fField;\n    int fOther;\n");
+		assertShown(new String[] { "fField", "fOther", "first", "Inner" }, tree, new String[0]);
+
+		// without a primary type the outline shows a placeholder
+		replace("public class A {", "public class B {");
+		long timeout= System.currentTimeMillis() + 10 * 1000;
+		while (!isPlaceholderShown(tree) && System.currentTimeMillis() < timeout)
+			EditorTestHelper.runEventQueue(50);
+		assertTrue(isPlaceholderShown(tree));
+
+		replace("public class B {", "public class A {");
+		assertShown(new String[] { "fField", "fOther", "first", "Inner" }, tree, new String[0]);
+	}
+}
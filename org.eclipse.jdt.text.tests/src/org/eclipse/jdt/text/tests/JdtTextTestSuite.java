@@ -45,6 +45,7 @@ public class JdtTextTestSuite {
 //		suite.addTest(PartitionTokenScannerTest.suite());
 		suite.addTest(MarkOccurrenceTest.suite());
 		suite.addTest(MarkOccurrenceTest17.suite());
+		suite.addTest(OccurrencesFinderIndexTest.suite());
 		suite.addTest(PluginsNotLoadedTest.suite());
 		PluginsNotLoadedTest.addLoadedPlugIns(
 				new String[] {
@@ -67,6 +68,10 @@ public class JdtTextTestSuite {
 		suite.addTest(IndentActionTest.suite());
 		suite.addTest(TemplatesTestSuite.suite());
 		suite.addTest(JavaElementPrefixPatternMatcherTest.suite());
+		suite.addTest(ReconcileASTPipelineTest.suite());
+		suite.addTest(ChangedLineTrackerTest.suite());
+		suite.addTest(FoldingTest.suite());
+		suite.addTest(JavaOutlinePageTest.suite());
 		//$JUnit-END$
 
 		return suite;
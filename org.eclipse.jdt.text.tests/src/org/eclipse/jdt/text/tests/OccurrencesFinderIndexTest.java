@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.NodeFinder;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import org.eclipse.jdt.ui.tests.core.Java17ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder;
+import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder.OccurrenceLocation;
+import org.eclipse.jdt.internal.ui.search.OccurrencesFinder;
+
+/**
+ * Tests that the occurrences of variables that the {@link OccurrencesFinder} looks up in the
+ * binding index of the AST are the same as the ones found by walking the AST.
+ */
+public class OccurrencesFinderIndexTest extends TestCase {
+
+	private static final Class THIS= OccurrencesFinderIndexTest.class;
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new Java17ProjectTestSetup(test);
+	}
+
+	private IJavaProject fJProject1;
+
+	private IPackageFragmentRoot fSourceFolder;
+
+	protected void setUp() throws Exception {
+		fJProject1= Java17ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, Java17ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private CompilationUnit createAST(String source) throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu= pack1.createCompilationUnit("E.java", source, false, null);
+		ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+		parser.setSource(cu);
+		parser.setResolveBindings(true);
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	private static List<SimpleName> getVariableNames(CompilationUnit root) {
+		final List<SimpleName> names= new ArrayList<SimpleName>();
+		root.accept(new ASTVisitor(true) {
+			public boolean visit(SimpleName node) {
+				IBinding binding= node.resolveBinding();
+				if (binding != null && binding.getKind() == IBinding.VARIABLE)
+					names.add(node);
+				return true;
+			}
+		});
+		return names;
+	}
+
+	private static OccurrenceLocation[] getOccurrences(CompilationUnit root, SimpleName name, boolean useIndex) {
+		IOccurrencesFinder finder= new OccurrencesFinder(useIndex);
+		String error= finder.initialize(root, name);
+		assertNull(error, error);
+		OccurrenceLocation[] occurrences= finder.getOccurrences();
+		assertNotNull(occurrences);
+		Arrays.sort(occurrences, new Comparator<OccurrenceLocation>() {
+			public int compare(OccurrenceLocation o1, OccurrenceLocation o2) {
+				return o1.getOffset() - o2.getOffset();
+			}
+		});
+		return occurrences;
+	}
+
+	/**
+	 * Compares the occurrences of the variables of all names in the given source.
+	 *
+	 * @param source the source of E.java in package test1
+	 * @return the number of compared names
+	 * @throws Exception if the AST cannot be created
+	 */
+	private int assertSameOccurrences(String source) throws Exception {
+		CompilationUnit root= createAST(source);
+		List<SimpleName> names= getVariableNames(root);
+		for (int i= 0; i < names.size(); i++) {
+			SimpleName name= names.get(i);
+			String message= name.getIdentifier() + " at " + name.getStartPosition();
+			OccurrenceLocation[] expected= getOccurrences(root, name, false);
+			OccurrenceLocation[] actual= getOccurrences(root, name, true);
+			assertEquals(message, expected.length, actual.length);
+			for (int k= 0; k < expected.length; k++) {
+				assertEquals(message, expected[k].getOffset(), actual[k].getOffset());
+				assertEquals(message, expected[k].getLength(), actual[k].getLength());
+				assertEquals(message, expected[k].getFlags(), actual[k].getFlags());
+				assertEquals(message, expected[k].getDescription(), actual[k].getDescription());
+			}
+		}
+		return names.size();
+	}
+
+	private static int countWrites(OccurrenceLocation[] occurrences) {
+		int writes= 0;
+		for (int i= 0; i < occurrences.length; i++) {
+			if ((occurrences[i].getFlags() & IOccurrencesFinder.F_WRITE_OCCURRENCE) != 0)
+				writes++;
+		}
+		return writes;
+	}
+
+	public void testLocalsAndParameters() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("import java.io.*;\n");
+		buf.append("import java.util.List;\n");
+		buf.append("public class E {\n");
+		buf.append("    int foo(int p, List<String> list) throws IOException {\n");
+		buf.append("        int a;\n");
+		buf.append("        int b= p;\n");
+		buf.append("        a= b;\n");
+		buf.append("        a+= b++;\n");
+		buf.append("        --b;\n");
+		buf.append("        b= -a + ~p;\n");
+		buf.append("        a= !(b > 0) ? a : b;\n");
+		buf.append("        for (int i= 0, j; i < p; i++) {\n");
+		buf.append("            j= i;\n");
+		buf.append("            p-= j;\n");
+		buf.append("        }\n");
+		buf.append("        for (String s : list)\n");
+		buf.append("            a+= s.length();\n");
+		buf.append("        try (Reader r= new StringReader(\"\")) {\n");
+		buf.append("            a= r.read();\n");
+		buf.append("        } catch (IOException | RuntimeException e) {\n");
+		buf.append("            throw e;\n");
+		buf.append("        }\n");
+		buf.append("        final int c= a;\n");
+		buf.append("        Runnable run= new Runnable() {\n");
+		buf.append("            int a= c;\n");
+		buf.append("            public void run() { a++; }\n");
+		buf.append("        };\n");
+		buf.append("        run.run();\n");
+		buf.append("        return a;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		assertTrue(assertSameOccurrences(buf.toString()) > 0);
+	}
+
+	public void testFields() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("import static java.lang.Math.PI;\n");
+		buf.append("public class E {\n");
+		buf.append("    static int count;\n");
+		buf.append("    E next;\n");
+		buf.append("    double value= PI;\n");
+		buf.append("    int[] values= new int[2];\n");
+		buf.append("    /**\n");
+		buf.append("     * Uses {@link #next} and {@link E#count}.\n");
+		buf.append("     */\n");
+		buf.append("    void foo(E other) {\n");
+		buf.append("        count++;\n");
+		buf.append("        E.count= other.next.next.values[1];\n");
+		buf.append("        this.next= other;\n");
+		buf.append("        next.next= this.next.next;\n");
+		buf.append("        other.next.value+= Math.PI * value;\n");
+		buf.append("        ++this.next.value;\n");
+		buf.append("        values[count]= values[0]--;\n");
+		buf.append("        new Object() {\n");
+		buf.append("            E next= E.this.next;\n");
+		buf.append("            int get() { return count + next.values[0]; }\n");
+		buf.append("        }.get();\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		assertTrue(assertSameOccurrences(buf.toString()) > 0);
+	}
+
+	public void testEnumConstants() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    enum Color { RED, GREEN; static Color DEFAULT= RED; }\n");
+		buf.append("    int foo(Color color) {\n");
+		buf.append("        switch (color) {\n");
+		buf.append("            case RED: return 1;\n");
+		buf.append("            case GREEN: return 2;\n");
+		buf.append("        }\n");
+		buf.append("        return color == Color.RED || Color.DEFAULT == Color.GREEN ? 0 : -1;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		assertTrue(assertSameOccurrences(buf.toString()) > 0);
+	}
+
+	public void testQualifiedSelfReference() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    E next;\n");
+		buf.append("    void foo() {\n");
+		buf.append("        next.next= next;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		String source= buf.toString();
+		CompilationUnit root= createAST(source);
+		SimpleName declaration= (SimpleName) NodeFinder.perform(root, source.indexOf("next;"), 4);
+		for (int i= 0; i < 2; i++) {
+			OccurrenceLocation[] occurrences= getOccurrences(root, declaration, i == 0);
+			assertEquals(4, occurrences.length);
+			assertEquals(2, countWrites(occurrences));
+		}
+		assertSameOccurrences(source);
+	}
+}
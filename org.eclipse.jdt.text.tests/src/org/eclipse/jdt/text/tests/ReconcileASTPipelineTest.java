@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+import org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline;
+
+
+public class ReconcileASTPipelineTest extends TestCase {
+
+	private static final String SOURCE= "class A {\n\tvoid foo() { int x= 1; }\n\tclass B {\n\t\tvoid bar() { }\n\t}\n}\n"; //$NON-NLS-1$
+
+	public static Test suite() {
+		return new TestSuite(ReconcileASTPipelineTest.class);
+	}
+
+	private static class RecordingStage implements ReconcileASTPipeline.IStage {
+		private final int[] fNodeTypes;
+		private final int fSkippedType;
+		private final boolean fTakePart;
+		final List<String> fVisited= new ArrayList<String>();
+		int fWalked;
+
+		RecordingStage(int[] nodeTypes, int skippedType, boolean takePart) {
+			fNodeTypes= nodeTypes;
+			fSkippedType= skippedType;
+			fTakePart= takePart;
+		}
+
+		public void aboutToBeReconciled() {
+		}
+
+		public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+			fail();
+		}
+
+		public boolean aboutToWalk(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+			return fTakePart;
+		}
+
+		public int[] getNodeTypes() {
+			return fNodeTypes;
+		}
+
+		public boolean visit(ASTNode node) {
+			if (node instanceof SimpleName)
+				fVisited.add(((SimpleName) node).getIdentifier());
+			else if (node instanceof MethodDeclaration)
+				fVisited.add(((MethodDeclaration) node).getName().getIdentifier() + "()"); //$NON-NLS-1$
+			return node.getNodeType() != fSkippedType;
+		}
+
+		public void walked(IProgressMonitor progressMonitor) {
+			fWalked++;
+		}
+	}
+
+	private static CompilationUnit createAST() {
+		ASTParser parser= ASTParser.newParser(AST.JLS8);
+		parser.setSource(SOURCE.toCharArray());
+		return (CompilationUnit) parser.createAST(null);
+	}
+
+	private static List<RecordingStage> run(RecordingStage[] stages) {
+		List<ReconcileASTPipeline.IStage> list= new ArrayList<ReconcileASTPipeline.IStage>();
+		list.addAll(Arrays.asList(stages));
+		ReconcileASTPipeline.run(list, createAST(), false, new NullProgressMonitor());
+		return Arrays.asList(stages);
+	}
+
+	public void testSubscribedNodeTypes() {
+		RecordingStage names= new RecordingStage(new int[] { ASTNode.SIMPLE_NAME }, -1, true);
+		RecordingStage methods= new RecordingStage(new int[] { ASTNode.METHOD_DECLARATION }, -1, true);
+		run(new RecordingStage[] { names, methods });
+
+		assertEquals(Arrays.asList(new String[] { "A", "foo", "x", "B", "bar" }), names.fVisited); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		assertEquals(Arrays.asList(new String[] { "foo()", "bar()" }), methods.fVisited); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(1, names.fWalked);
+		assertEquals(1, methods.fWalked);
+	}
+
+	public void testSkippedChildren() {
+		RecordingStage skipping= new RecordingStage(null, ASTNode.METHOD_DECLARATION, true);
+		RecordingStage names= new RecordingStage(new int[] { ASTNode.SIMPLE_NAME }, -1, true);
+		run(new RecordingStage[] { skipping, names });
+
+		assertEquals(Arrays.asList(new String[] { "A", "foo()", "B", "bar()" }), skipping.fVisited); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		assertEquals(Arrays.asList(new String[] { "A", "foo", "x", "B", "bar" }), names.fVisited); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+
+	public void testNotTakingPart() {
+		RecordingStage absent= new RecordingStage(null, -1, false);
+		RecordingStage names= new RecordingStage(new int[] { ASTNode.SIMPLE_NAME }, -1, true);
+		run(new RecordingStage[] { absent, names });
+
+		assertTrue(absent.fVisited.isEmpty());
+		assertEquals(0, absent.fWalked);
+		assertEquals(5, names.fVisited.size());
+	}
+}
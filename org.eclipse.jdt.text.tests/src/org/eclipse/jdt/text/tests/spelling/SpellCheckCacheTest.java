@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckCache;
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckIterator;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckIterator;
+
+
+public class SpellCheckCacheTest extends TestCase {
+
+	private static final String COMMENT= "/**\n * This is a commment. it has <code>tags</code> and a link to http://www.eclipse.org\n * @param value the vaule\n */"; //$NON-NLS-1$
+
+	public static Test suite() {
+		return new TestSuite(SpellCheckCacheTest.class);
+	}
+
+	private static List<String> getWords(ISpellCheckIterator iterator) {
+		List<String> words= new ArrayList<String>();
+		while (iterator.hasNext()) {
+			String word= iterator.next();
+			if (word != null)
+				words.add(word + "@" + iterator.getBegin() + "-" + iterator.getEnd() + (iterator.startsSentence() ? "!" : "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+		return words;
+	}
+
+	public void testSameWordsAsIterator() throws BadLocationException {
+		IDocument document= new Document("class A {}\n" + COMMENT); //$NON-NLS-1$
+		IRegion partition= new Region(11, COMMENT.length());
+
+		SpellCheckCache cache= new SpellCheckCache();
+		cache.beginCheck(document, Locale.US, false);
+		List<String> expected= getWords(new SpellCheckIterator(document, partition, Locale.US));
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, getWords(cache.getIterator(document, partition)));
+
+		// cached
+		cache.beginCheck(document, Locale.US, false);
+		assertEquals(expected, getWords(cache.getIterator(document, partition)));
+	}
+
+	public void testMovedPartition() throws BadLocationException {
+		IDocument document= new Document("class A {}\n" + COMMENT); //$NON-NLS-1$
+		SpellCheckCache cache= new SpellCheckCache();
+		cache.beginCheck(document, Locale.US, false);
+		getWords(cache.getIterator(document, new Region(11, COMMENT.length())));
+
+		document.replace(0, 0, "package p;\n"); //$NON-NLS-1$
+		IRegion moved= new Region(22, COMMENT.length());
+		cache.beginCheck(document, Locale.US, false);
+		assertEquals(getWords(new SpellCheckIterator(document, moved, Locale.US)), getWords(cache.getIterator(document, moved)));
+	}
+
+	public void testChangedSettings() throws BadLocationException {
+		IDocument document= new Document("/* a b c */"); //$NON-NLS-1$
+		IRegion partition= new Region(0, document.getLength());
+		SpellCheckCache cache= new SpellCheckCache();
+		cache.beginCheck(document, Locale.US, false);
+		List<String> withLetters= getWords(cache.getIterator(document, partition));
+
+		cache.beginCheck(document, Locale.US, true);
+		List<String> withoutLetters= getWords(cache.getIterator(document, partition));
+		assertTrue(withoutLetters.size() < withLetters.size());
+	}
+}
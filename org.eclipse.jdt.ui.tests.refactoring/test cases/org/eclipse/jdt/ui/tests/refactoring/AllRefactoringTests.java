@@ -29,6 +29,7 @@ public class AllRefactoringTests {
 		suite.addTest(ExtractMethodTests.suite());
 		suite.addTest(ExtractMethodTests17.suite());
 		suite.addTest(ExtractMethodTests18.suite());
+		suite.addTest(FlowAccessModesTests.suite());
 		suite.addTest(InlineMethodTests.suite());
 		suite.addTest(InlineMethodTests18.suite());
 		suite.addTest(ReplaceInvocationsTests.suite());
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.corext.refactoring.code.flow.AccessModes;
+import org.eclipse.jdt.internal.corext.refactoring.code.flow.FlowInfo;
+
+/**
+ * Compares the merges of {@link AccessModes} with the merge tables that the flow analysis used
+ * before the access modes have been stored in bit sets.
+ */
+public class FlowAccessModesTests extends TestCase {
+
+	private static final Class clazz= FlowAccessModesTests.class;
+
+	private static final int[] MODES= { FlowInfo.UNUSED, FlowInfo.READ, FlowInfo.READ_POTENTIAL, FlowInfo.WRITE, FlowInfo.WRITE_POTENTIAL, FlowInfo.UNKNOWN };
+
+	private static final int UNUSED= FlowInfo.UNUSED;
+	private static final int READ= FlowInfo.READ;
+	private static final int READ_POTENTIAL= FlowInfo.READ_POTENTIAL;
+	private static final int WRITE= FlowInfo.WRITE;
+	private static final int WRITE_POTENTIAL= FlowInfo.WRITE_POTENTIAL;
+	private static final int UNKNOWN= FlowInfo.UNKNOWN;
+
+	private static final int[][] ACCESS_MODE_CONDITIONAL_TABLE= {
+	/*	  					  UNUSED		   READ			    READ_POTENTIAL   WRTIE			  WRITE_POTENTIAL  UNKNOWN */
+	/* UNUSED */			{ UNUSED,		   READ_POTENTIAL,  READ_POTENTIAL,  WRITE_POTENTIAL, WRITE_POTENTIAL, UNKNOWN },
+	/* READ */				{ READ_POTENTIAL,  READ,			READ_POTENTIAL,  UNKNOWN,		  UNKNOWN,         UNKNOWN },
+	/* READ_POTENTIAL */	{ READ_POTENTIAL,  READ_POTENTIAL,  READ_POTENTIAL,  UNKNOWN,		  UNKNOWN,         UNKNOWN },
+	/* WRITE */				{ WRITE_POTENTIAL, UNKNOWN,			UNKNOWN,		 WRITE,			  WRITE_POTENTIAL, UNKNOWN },
+	/* WRITE_POTENTIAL */   { WRITE_POTENTIAL, UNKNOWN,			UNKNOWN,		 WRITE_POTENTIAL, WRITE_POTENTIAL, UNKNOWN },
+	/* UNKNOWN */ 			{ UNKNOWN, 		   UNKNOWN,			UNKNOWN,		 UNKNOWN, 		  UNKNOWN,		   UNKNOWN }
+	};
+
+	private static final int[] ACCESS_MODE_OPEN_BRANCH_TABLE= {
+	/*	UNUSED	READ			READ_POTENTIAL  WRTIE				WRITE_POTENTIAL  UNKNOWN */
+		UNUSED,	READ_POTENTIAL,	READ_POTENTIAL,	WRITE_POTENTIAL,	WRITE_POTENTIAL, UNKNOWN
+	};
+
+	public FlowAccessModesTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(clazz);
+	}
+
+	//---- reference implementation ----------------------------------------------------
+
+	private static int getIndex(int accessMode) {
+		for (int i= 0; i < MODES.length; i++) {
+			if (MODES[i] == accessMode)
+				return i;
+		}
+		fail("unknown access mode " + accessMode);
+		return -1;
+	}
+
+	private static int mergeConditional(int mode, int other) {
+		return ACCESS_MODE_CONDITIONAL_TABLE[getIndex(mode)][getIndex(other)];
+	}
+
+	private static int mergeArguments(int accessMode, int otherMode) {
+		if (accessMode == UNUSED) {
+			return otherMode;
+		} else if (accessMode == WRITE_POTENTIAL && (otherMode == READ || otherMode == READ_POTENTIAL)) {
+			return otherMode;
+		} else if (accessMode == WRITE_POTENTIAL && otherMode == WRITE) {
+			return WRITE;
+		}
+		return accessMode;
+	}
+
+	private static int mergeReturnValues(int accessMode, int otherMode) {
+		if (accessMode == WRITE)
+			return accessMode;
+		if (accessMode == WRITE_POTENTIAL) {
+			if (otherMode == WRITE)
+				return WRITE;
+			return accessMode;
+		}
+		if (otherMode != UNUSED)
+			return otherMode;
+		return accessMode;
+	}
+
+	//---- helpers ------------------------------------------------------------------------
+
+	private static AccessModes create(int[] modes) {
+		AccessModes result= new AccessModes(modes.length);
+		for (int i= 0; i < modes.length; i++)
+			result.set(i, modes[i]);
+		return result;
+	}
+
+	private static void assertModes(int[] expected, AccessModes actual) {
+		assertEquals(expected.length, actual.length());
+		for (int i= 0; i < expected.length; i++)
+			assertEquals("local " + i, expected[i], actual.get(i));
+	}
+
+	/*
+	 * Returns all pairs of modes, as the locals of two access modes.
+	 */
+	private static int[][] allPairs() {
+		int[] modes= new int[MODES.length * MODES.length];
+		int[] others= new int[modes.length];
+		for (int i= 0; i < MODES.length; i++) {
+			for (int k= 0; k < MODES.length; k++) {
+				modes[i * MODES.length + k]= MODES[i];
+				others[i * MODES.length + k]= MODES[k];
+			}
+		}
+		return new int[][] { modes, others };
+	}
+
+	private static int[][] randomPairs(long seed, int length) {
+		Random random= new Random(seed);
+		int[] modes= new int[length];
+		int[] others= new int[length];
+		for (int i= 0; i < length; i++) {
+			modes[i]= MODES[random.nextInt(MODES.length)];
+			others[i]= MODES[random.nextInt(MODES.length)];
+		}
+		return new int[][] { modes, others };
+	}
+
+	//---- tests ------------------------------------------------------------------------
+
+	public void testSetGet() throws Exception {
+		int[][] pairs= randomPairs(1, 200);
+		AccessModes modes= create(pairs[0]);
+		assertModes(pairs[0], modes);
+		for (int i= 0; i < pairs[1].length; i++)
+			modes.set(i, pairs[1][i]);
+		assertModes(pairs[1], modes);
+
+		int[] unused= new int[70];
+		for (int i= 0; i < unused.length; i++)
+			unused[i]= UNUSED;
+		assertModes(unused, new AccessModes(unused.length));
+	}
+
+	public void testOpenBranch() throws Exception {
+		int[][] pairs= allPairs();
+		AccessModes modes= create(pairs[0]);
+		modes.openBranch();
+		int[] expected= new int[pairs[0].length];
+		for (int i= 0; i < expected.length; i++)
+			expected[i]= ACCESS_MODE_OPEN_BRANCH_TABLE[getIndex(pairs[0][i])];
+		assertModes(expected, modes);
+	}
+
+	public void testMergeConditional() throws Exception {
+		int[][][] inputs= { allPairs(), randomPairs(2, 64), randomPairs(3, 129), randomPairs(4, 400) };
+		for (int n= 0; n < inputs.length; n++) {
+			int[][] pairs= inputs[n];
+			AccessModes modes= create(pairs[0]);
+			modes.mergeConditional(create(pairs[1]));
+			int[] expected= new int[pairs[0].length];
+			for (int i= 0; i < expected.length; i++)
+				expected[i]= mergeConditional(pairs[0][i], pairs[1][i]);
+			assertModes(expected, modes);
+		}
+	}
+
+	public void testMergeConditionalUnused() throws Exception {
+		int[][] pairs= randomPairs(5, 100);
+		AccessModes modes= create(pairs[0]);
+		modes.mergeConditional(null);
+		int[] expected= new int[pairs[0].length];
+		for (int i= 0; i < expected.length; i++)
+			expected[i]= mergeConditional(pairs[0][i], UNUSED);
+		assertModes(expected, modes);
+	}
+
+	public void testMergeArguments() throws Exception {
+		int[][][] inputs= { allPairs(), randomPairs(6, 64), randomPairs(7, 129), randomPairs(8, 400) };
+		for (int n= 0; n < inputs.length; n++) {
+			int[][] pairs= inputs[n];
+			AccessModes modes= create(pairs[0]);
+			modes.mergeArguments(create(pairs[1]));
+			int[] expected= new int[pairs[0].length];
+			for (int i= 0; i < expected.length; i++)
+				expected[i]= mergeArguments(pairs[0][i], pairs[1][i]);
+			assertModes(expected, modes);
+		}
+	}
+
+	public void testMergeReturnValues() throws Exception {
+		int[][][] inputs= { allPairs(), randomPairs(9, 64), randomPairs(10, 129), randomPairs(11, 400) };
+		for (int n= 0; n < inputs.length; n++) {
+			int[][] pairs= inputs[n];
+			AccessModes modes= create(pairs[0]);
+			modes.mergeReturnValues(create(pairs[1]));
+			int[] expected= new int[pairs[0].length];
+			for (int i= 0; i < expected.length; i++)
+				expected[i]= mergeReturnValues(pairs[0][i], pairs[1][i]);
+			assertModes(expected, modes);
+		}
+	}
+
+	public void testMergeSequence() throws Exception {
+		// a chain of merges as done along the statements of a method
+		Random random= new Random(12);
+		int length= 150;
+		int[] expected= new int[length];
+		for (int i= 0; i < length; i++)
+			expected[i]= UNUSED;
+		AccessModes modes= new AccessModes(length);
+		for (int step= 0; step < 200; step++) {
+			int[] other= randomPairs(random.nextLong(), length)[0];
+			int operation= random.nextInt(4);
+			switch (operation) {
+				case 0:
+					modes.mergeConditional(create(other));
+					break;
+				case 1:
+					modes.mergeArguments(create(other));
+					break;
+				case 2:
+					modes.mergeReturnValues(create(other));
+					break;
+				default:
+					modes.openBranch();
+			}
+			for (int i= 0; i < length; i++) {
+				switch (operation) {
+					case 0:
+						expected[i]= mergeConditional(expected[i], other[i]);
+						break;
+					case 1:
+						expected[i]= mergeArguments(expected[i], other[i]);
+						break;
+					case 2:
+						expected[i]= mergeReturnValues(expected[i], other[i]);
+						break;
+					default:
+						expected[i]= ACCESS_MODE_OPEN_BRANCH_TABLE[getIndex(expected[i])];
+				}
+			}
+			assertModes(expected, modes);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -54,6 +54,7 @@ public class InferTypeArgumentsTests extends RefactoringTest {
 
 	private boolean fAssumeCloneReturnsSameType= true;
 	private boolean fLeaveUnconstrainedRaw= true;
+	private int fBatchSize= 0;
 
 	public static Test suite() {
 		return setUpTest(new TestSuite(clazz));
@@ -105,6 +106,8 @@ public class InferTypeArgumentsTests extends RefactoringTest {
 
 		refactoring.setAssumeCloneReturnsSameType(fAssumeCloneReturnsSameType);
 		refactoring.setLeaveUnconstrainedRaw(fLeaveUnconstrainedRaw);
+		if (fBatchSize > 0)
+			refactoring.setBatchSize(fBatchSize);
 
 		PerformRefactoringOperation op= new PerformRefactoringOperation(
 				refactoring, CheckConditionsOperation.FINAL_CONDITIONS);
@@ -257,6 +260,12 @@ public class InferTypeArgumentsTests extends RefactoringTest {
 
 	}
 
+	public void testJUnitInSmallBatches() throws Exception {
+		// the constraints of many small batches are created in parallel, the result must be the same as for one batch
+		fBatchSize= 7;
+		testJUnit();
+	}
+
 	public void testJUnitWithCloneNotRaw() throws Exception {
 		fAssumeCloneReturnsSameType= true;
 		fLeaveUnconstrainedRaw= false;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import junit.framework.TestSuite;
 
 import org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner.TextMatch;
+import org.eclipse.jdt.internal.corext.refactoring.util.MultiStringMatcher;
 
 import org.eclipse.jdt.ui.tests.refactoring.infra.TextRangeUtil;
 
@@ -111,5 +112,36 @@ public class RefactoringScannerTests extends RefactoringTest{
 				new Position(38, 20),
 		});
 	}
+
+	public void testSeveralNames() throws Exception{
+		RefactoringScanner scanner= new RefactoringScanner(new String[] { "field", "fieldName", "field" }, new String[] { "p.A", "p.A", "p.B" });
+		scanner.scan("/* p.A.field p.A#fieldName p.B.field field fields */");
+		int[] counts= new int[3];
+		int qualified= 0;
+		for (Iterator iter= scanner.getMatches().iterator(); iter.hasNext();) {
+			TextMatch match= (TextMatch) iter.next();
+			counts[match.getNameIndex()]++;
+			if (match.isQualified())
+				qualified++;
+		}
+		// "p.B.field" is not a match for p.A.field, the unqualified "field" is a match for both
+		assertEquals(2, counts[0]);
+		assertEquals(1, counts[1]);
+		assertEquals(2, counts[2]);
+		assertEquals(3, qualified);
+	}
+
+	public void testMultiStringMatcher() throws Exception{
+		final String text= "ushers she hers his";
+		final String[] patterns= new String[] { "he", "she", "his", "hers", "" };
+		final StringBuffer found= new StringBuffer();
+		new MultiStringMatcher(patterns).match(text, new MultiStringMatcher.Requestor() {
+			public void acceptMatch(int offset, int patternIndex) {
+				assertTrue(text.startsWith(patterns[patternIndex], offset));
+				found.append(patterns[patternIndex]).append('@').append(offset).append(' ');
+			}
+		});
+		assertEquals("she@1 he@2 hers@2 she@7 he@8 he@11 hers@11 his@16 ", found.toString());
+	}
 }
 
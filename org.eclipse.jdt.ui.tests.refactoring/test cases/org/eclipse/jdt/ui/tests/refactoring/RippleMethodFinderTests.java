@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.eclipse.jdt.ui.tests.refactoring;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Test;
@@ -128,4 +129,28 @@ public class RippleMethodFinderTests extends AbstractCUTestCase {
 		perform();
 	}
 
+	public void testHierarchyChange() throws Exception {
+		IPackageFragment pack= RefactoringTestSetup.getPackageP();
+		ICompilationUnit i= pack.createCompilationUnit("ICache.java", "package p;\npublic interface ICache {\n\tvoid m();\n}\n", true, null);
+		ICompilationUnit j= pack.createCompilationUnit("JCache.java", "package p;\npublic interface JCache {\n\tvoid m();\n}\n", true, null);
+		ICompilationUnit a= pack.createCompilationUnit("ACache.java", "package p;\npublic class ACache implements ICache {\n\tpublic void m() {}\n}\n", true, null);
+		ICompilationUnit b= null;
+		try {
+			IMethod target= i.getType("ICache").getMethod("m", new String[0]);
+			assertEquals(2, RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null).length);
+
+			// the cached hierarchies must not hide the new subtype that marries ICache.m() and JCache.m()
+			b= pack.createCompilationUnit("BCache.java", "package p;\npublic class BCache extends ACache implements JCache {\n}\n", true, null);
+			IMethod[] result= RippleMethodFinder2.getRelatedMethods(target, new NullProgressMonitor(), null);
+			assertEquals(3, result.length);
+			assertTrue(Arrays.asList(result).contains(j.getType("JCache").getMethod("m", new String[0])));
+		} finally {
+			if (b != null)
+				b.delete(true, null);
+			a.delete(true, null);
+			j.delete(true, null);
+			i.delete(true, null);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -91,7 +91,7 @@ public class AbstractTestRunListenerTest extends TestCase {
 		JavaProjectHelper.delete(fProject);
 	}
 
-	private static class TestJUnitLaunchShortcut extends JUnitLaunchShortcut {
+	protected static class TestJUnitLaunchShortcut extends JUnitLaunchShortcut {
 		public static ILaunchConfigurationWorkingCopy createConfiguration(IJavaElement element) throws CoreException {
 			ILaunchConfigurationWorkingCopy copy= new TestJUnitLaunchShortcut().createLaunchConfiguration(element);
 			return copy;
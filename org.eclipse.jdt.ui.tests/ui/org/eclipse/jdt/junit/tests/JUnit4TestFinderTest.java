@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 
 import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -438,6 +439,110 @@ public class JUnit4TestFinderTest extends TestCase {
 		assertTestFound(validTest1.getCompilationUnit(), new String[] { "p.Test1" });
 	}
 
+	public void testIndexUpdate() throws Exception {
+		IPackageFragment p= fRoot.createPackageFragment("p", true, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public class Base {\n");
+		buf.append("        public void testFoo() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		ICompilationUnit base= p.createCompilationUnit("Base.java", buf.toString(), false, null);
+
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("public class Sub extends Base {\n");
+		buf.append("}\n");
+		p.createCompilationUnit("Sub.java", buf.toString(), false, null);
+
+		assertTestFound(fProject, new String[] { });
+
+		// adding a test method to the superclass makes both classes tests
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("\n");
+		buf.append("public class Base {\n");
+		buf.append("        @Test public void testFoo() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		base.getBuffer().setContents(buf.toString());
+		base.save(null, true);
+		assertTestFound(fProject, new String[] { "p.Base", "p.Sub" });
+		assertTestFound(p, new String[] { "p.Base", "p.Sub" });
+
+		// an abstract superclass is no test, but its subclass still is
+		buf= new StringBuffer();
+		buf.append("package p;\n");
+		buf.append("\n");
+		buf.append("import org.junit.Test;\n");
+		buf.append("\n");
+		buf.append("public abstract class Base {\n");
+		buf.append("        @Test public void testFoo() {\n");
+		buf.append("        }\n");
+		buf.append("}\n");
+		base.getBuffer().setContents(buf.toString());
+		base.save(null, true);
+		assertTestFound(fProject, new String[] { "p.Sub" });
+
+		p.getCompilationUnit("Sub.java").delete(true, null);
+		assertTestFound(fProject, new String[] { });
+	}
+
+	public void testIndexUpdateInRequiringProject() throws Exception {
+		IJavaProject requiring= JavaProjectHelper.createJavaProject("TestProject2", "bin");
+		try {
+			JavaProjectHelper.addRTJar(requiring);
+			JavaProjectHelper.addToClasspath(requiring, JavaCore.newContainerEntry(JUnitCore.JUNIT4_CONTAINER_PATH));
+			JavaProjectHelper.set15CompilerOptions(requiring);
+			JavaProjectHelper.addRequiredProject(requiring, fProject);
+			IPackageFragmentRoot requiringRoot= JavaProjectHelper.addSourceContainer(requiring, "src");
+
+			IPackageFragment p= fRoot.createPackageFragment("p", true, null);
+			StringBuffer buf= new StringBuffer();
+			buf.append("package p;\n");
+			buf.append("\n");
+			buf.append("public class Base {\n");
+			buf.append("        public void testFoo() {\n");
+			buf.append("        }\n");
+			buf.append("}\n");
+			ICompilationUnit base= p.createCompilationUnit("Base.java", buf.toString(), false, null);
+
+			IPackageFragment q= requiringRoot.createPackageFragment("q", true, null);
+			buf= new StringBuffer();
+			buf.append("package q;\n");
+			buf.append("\n");
+			buf.append("public class Sub extends p.Base {\n");
+			buf.append("}\n");
+			q.createCompilationUnit("Sub.java", buf.toString(), false, null);
+
+			assertTestFound(requiring, new String[] { });
+
+			// a test method in the superclass of the required project makes the subclass a test
+			buf= new StringBuffer();
+			buf.append("package p;\n");
+			buf.append("\n");
+			buf.append("import org.junit.Test;\n");
+			buf.append("\n");
+			buf.append("public abstract class Base {\n");
+			buf.append("        @Test public void testFoo() {\n");
+			buf.append("        }\n");
+			buf.append("}\n");
+			base.getBuffer().setContents(buf.toString());
+			base.save(null, true);
+			assertTestFound(requiring, new String[] { "q.Sub" });
+
+			// removing the superclass discards the index of the requiring project
+			base.delete(true, null);
+			assertTestFound(requiring, new String[] { });
+		} finally {
+			JavaProjectHelper.delete(requiring);
+		}
+	}
+
 
 	private void assertTestFound(IJavaElement container, String[] expectedTypes) throws CoreException {
 		ITestKind testKind= TestKindRegistry.getContainerTestKind(container);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -31,12 +31,18 @@ public class JUnitJUnitTests {
 		addDeprecatedTests(suite);
 
 		suite.addTestSuite(TestRunListenerTest.class);
+		suite.addTestSuite(WarmTestRunnerTest.class);
 
 		suite.addTest(TestRunSessionSerializationTests3.suite());
 		suite.addTest(TestRunSessionSerializationTests4.suite());
 
 		suite.addTestSuite(JUnit3TestFinderTest.class);
 		suite.addTestSuite(JUnit4TestFinderTest.class);
+
+		suite.addTestSuite(TestShardPartitionerTest.class);
+		suite.addTestSuite(TimingHistoryPrioritizerTest.class);
+		suite.addTestSuite(TestFailureProjectionTest.class);
+		suite.addTestSuite(TraceStoreTest.class);
 		//$JUnit-END$
 		return suite;
 	}
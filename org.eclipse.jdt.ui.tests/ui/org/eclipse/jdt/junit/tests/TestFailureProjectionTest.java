@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import org.eclipse.jdt.junit.JUnitCore;
+import org.eclipse.jdt.junit.TestRunListener;
+import org.eclipse.jdt.junit.model.ITestRunSession;
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+
+/**
+ * Tests that the test runner sends the projected time to the first failure of launches with
+ * {@link JUnitLaunchConfigurationConstants#ATTR_PRIORITIZE_BY_HISTORY} to the test run session.
+ */
+public class TestFailureProjectionTest extends AbstractTestRunListenerTest {
+
+	private static final String SOURCE=
+		"package pack;\n" +
+		"import junit.framework.TestCase;\n" +
+		"public class ATestCase extends TestCase {\n" +
+		"    public void testSucceed() { }\n" +
+		"    public void testFail() { fail(); }\n" +
+		"}";
+
+	private ILaunchConfigurationWorkingCopy fConfiguration;
+
+	protected void tearDown() throws Exception {
+		ILaunchManager lm= DebugPlugin.getDefault().getLaunchManager();
+		lm.removeLaunches(lm.getLaunches());
+		TestRunSession[] sessions= (TestRunSession[]) JUnitCorePlugin.getModel().getTestRunSessions().toArray(new TestRunSession[0]);
+		for (int i= 0; i < sessions.length; i++) {
+			if ("ATestCase".equals(sessions[i].getTestRunName()))
+				JUnitCorePlugin.getModel().removeTestRunSession(sessions[i]);
+		}
+		if (fConfiguration != null)
+			fConfiguration.delete();
+		super.tearDown();
+	}
+
+	private TestRunSession launch() throws CoreException {
+		ResourcesPlugin.getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+		final ITestRunSession[] finished= { null };
+		TestRunListener testRunListener= new TestRunListener() {
+			public void sessionFinished(ITestRunSession session) {
+				finished[0]= session;
+			}
+		};
+		JUnitCore.addTestRunListener(testRunListener);
+		try {
+			fConfiguration.launch(ILaunchManager.RUN_MODE, null);
+			new DisplayHelper() {
+				protected boolean condition() {
+					return finished[0] != null;
+				}
+			}.waitForCondition(Display.getCurrent(), 30 * 1000, 100);
+		} finally {
+			JUnitCore.removeTestRunListener(testRunListener);
+		}
+		assertNotNull("test run has not finished", finished[0]);
+		return (TestRunSession) finished[0];
+	}
+
+	public void testProjectedFailure() throws Exception {
+		IType aTestCase= createType(SOURCE, "pack", "ATestCase.java");
+		fConfiguration= TestJUnitLaunchShortcut.createConfiguration(aTestCase);
+		fConfiguration.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PRIORITIZE_BY_HISTORY, true);
+
+		// without a history, no failure is expected
+		TestRunSession first= launch();
+		assertEquals(1, first.getFailureCount());
+		assertEquals(-1, first.getProjectedTimeToFirstFailure());
+
+		// the failed test is run first
+		TestRunSession second= launch();
+		assertEquals(1, second.getFailureCount());
+		assertTrue("no failure projected", second.getProjectedTimeToFirstFailure() >= 0);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@
 package org.eclipse.jdt.junit.tests;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -26,12 +28,21 @@ import org.eclipse.jdt.junit.model.ITestElement.Result;
 import org.eclipse.jdt.junit.tests.AbstractTestRunListenerTest.TestRunLog;
 import org.eclipse.jdt.testplugin.JavaTestPlugin;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 
 import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.ITestRunSessionListener;
+import org.eclipse.jdt.internal.junit.model.ITestSessionListener;
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRoot;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
 
 import org.eclipse.jdt.launching.IVMInstall;
 import org.eclipse.jdt.launching.IVMInstall2;
@@ -122,4 +133,93 @@ public class TestRunSessionSerializationTests4 extends AbstractTestRunSessionSer
 		JUnitModel.importTestRunSession(testsFile); // no contents check for now...
 	}
 
+	public void testImportAntResultDirectory() throws Exception {
+		Path resultPath= new Path(JUnitWorkspaceTestSetup.getProjectPath() + "ant/result");
+		File resultDirectory= JavaTestPlugin.getDefault().getFileInPlugin(resultPath);
+		TestRunSession session= JUnitModel.importTestRunSessionFromDirectory(resultDirectory, new NullProgressMonitor());
+		try {
+			// one top-level suite per TEST-*.xml file, TESTS-TestSuites.xml is not a single report
+			assertEquals(4, session.getTestRoot().getChildren().length);
+			assertEquals(18, session.getTotalCount());
+		} finally {
+			JUnitCorePlugin.getModel().removeTestRunSession(session);
+		}
+	}
+
+	public void testImportAntResultDirectoryProgressively() throws Exception {
+		final ArrayList/*<String>*/ log= new ArrayList();
+		final ITestSessionListener sessionListener= new ITestSessionListener() {
+			public void sessionStarted() {
+				log.add("sessionStarted");
+			}
+			public void sessionEnded(long elapsedTime) {
+				log.add("sessionEnded");
+			}
+			public void sessionStopped(long elapsedTime) {
+				log.add("sessionStopped");
+			}
+			public void sessionTerminated() {
+				log.add("sessionTerminated");
+			}
+			public void testAdded(TestElement testElement) {
+				// a suite is added before its children, but after the suites of the previous reports
+				if (testElement.getParent() instanceof TestRoot)
+					log.add("suiteAdded " + testElement.getParent().getChildren().length);
+			}
+			public void runningBegins() {
+			}
+			public void testStarted(TestCaseElement testCaseElement) {
+			}
+			public void testEnded(TestCaseElement testCaseElement) {
+				log.add("testEnded");
+			}
+			public void testFailed(TestElement testElement, Status status, String trace, String expected, String actual) {
+			}
+			public void testReran(TestCaseElement testCaseElement, Status status, String trace, String expectedResult, String actualResult) {
+			}
+			public boolean acceptsSwapToDisk() {
+				return false;
+			}
+		};
+		final boolean[] runningWhenAdded= { false };
+		ITestRunSessionListener modelListener= new ITestRunSessionListener() {
+			public void sessionAdded(TestRunSession testRunSession) {
+				runningWhenAdded[0]= testRunSession.isRunning();
+				testRunSession.addTestSessionListener(sessionListener);
+			}
+			public void sessionRemoved(TestRunSession testRunSession) {
+			}
+		};
+
+		Path resultPath= new Path(JUnitWorkspaceTestSetup.getProjectPath() + "ant/result");
+		File resultDirectory= JavaTestPlugin.getDefault().getFileInPlugin(resultPath);
+		JUnitCorePlugin.getModel().addTestRunSessionListener(modelListener);
+		TestRunSession session;
+		try {
+			session= JUnitModel.importTestRunSessionFromDirectory(resultDirectory, new NullProgressMonitor());
+		} finally {
+			JUnitCorePlugin.getModel().removeTestRunSessionListener(modelListener);
+		}
+		try {
+			assertTrue("session not running when added", runningWhenAdded[0]);
+			assertFalse(session.isRunning());
+			assertFalse(session.isStopped());
+
+			ArrayList/*<String>*/ suitesAdded= new ArrayList();
+			int testsEnded= 0;
+			for (int i= 0; i < log.size(); i++) {
+				String entry= (String) log.get(i);
+				if (entry.startsWith("suiteAdded"))
+					suitesAdded.add(entry);
+				else if (entry.equals("testEnded"))
+					testsEnded++;
+			}
+			assertEquals(Arrays.asList(new String[] { "suiteAdded 1", "suiteAdded 2", "suiteAdded 3", "suiteAdded 4" }), suitesAdded);
+			assertEquals(18, testsEnded);
+			assertEquals("sessionEnded", log.get(log.size() - 1));
+		} finally {
+			JUnitCorePlugin.getModel().removeTestRunSession(session);
+		}
+	}
+
 }
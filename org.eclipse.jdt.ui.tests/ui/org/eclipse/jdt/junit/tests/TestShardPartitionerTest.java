@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.launcher.TestShardPartitioner;
+
+public class TestShardPartitionerTest extends TestCase {
+
+	private static double[] loads(double[] weights, int[] assignment, int shardCount) {
+		double[] loads= new double[shardCount];
+		for (int i= 0; i < weights.length; i++) {
+			loads[assignment[i]]+= weights[i];
+		}
+		return loads;
+	}
+
+	public void testBalanced() throws Exception {
+		double[] weights= { 1, 2, 3, 4, 5, 6, 7, 8 };
+		int[] assignment= TestShardPartitioner.assignShards(weights, 2);
+		double[] loads= loads(weights, assignment, 2);
+		assertEquals(18.0, loads[0], 0.0);
+		assertEquals(18.0, loads[1], 0.0);
+	}
+
+	public void testLongRunningClassAlone() throws Exception {
+		double[] weights= { 1, 100, 1, 1, 1 };
+		int[] assignment= TestShardPartitioner.assignShards(weights, 2);
+		for (int i= 0; i < weights.length; i++) {
+			if (i != 1)
+				assertTrue(assignment[i] != assignment[1]);
+		}
+	}
+
+	public void testEveryShardUsed() throws Exception {
+		double[] weights= { 0, 0, 0, 0, 0 };
+		int[] assignment= TestShardPartitioner.assignShards(weights, 3);
+		boolean[] used= new boolean[3];
+		for (int i= 0; i < assignment.length; i++) {
+			used[assignment[i]]= true;
+		}
+		assertTrue(used[0] && used[1] && used[2]);
+	}
+
+	public void testMoreShardsThanItems() throws Exception {
+		double[] weights= { 3, 2 };
+		int[] assignment= TestShardPartitioner.assignShards(weights, 8);
+		assertEquals(0, assignment[0]);
+		assertEquals(1, assignment[1]);
+	}
+}
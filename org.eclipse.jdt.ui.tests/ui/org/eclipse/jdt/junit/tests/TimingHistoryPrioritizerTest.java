@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.junit.runner.TestRunHistory;
+import org.eclipse.jdt.internal.junit.runner.TimingHistoryPrioritizer;
+
+public class TimingHistoryPrioritizerTest extends TestCase {
+
+	private static final String SUITE2= "(org.eclipse.jdt.junit.tests.TestPriorizationSuite2)";
+
+	private static TestSuite createSuiteDEF() {
+		TestSuite suite= new TestSuite();
+		suite.addTest(new TestPriorizationSuite2("testD"));
+		suite.addTest(new TestPriorizationSuite2("testE"));
+		suite.addTest(new TestPriorizationSuite2("testF"));
+		return suite;
+	}
+
+	private static List collectOrder(Test test) {
+		List order= new ArrayList();
+		collectOrder(test, order);
+		return order;
+	}
+
+	private static void collectOrder(Test test, List order) {
+		if (test instanceof TestCase) {
+			order.add(((TestCase) test).getName());
+		} else {
+			TestSuite suite= (TestSuite) test;
+			for (int i= 0; i < suite.testCount(); i++) {
+				collectOrder(suite.testAt(i), order);
+			}
+		}
+	}
+
+	public void testFailedAndFastFirst() throws Exception {
+		TestRunHistory history= new TestRunHistory();
+		history.add("testD" + SUITE2, false, 2.0);
+		history.add("testE" + SUITE2, false, 1.0);
+		history.add("testF" + SUITE2, true, 3.0);
+
+		Test prioritized= new TimingHistoryPrioritizer(history).prioritize(createSuiteDEF());
+		assertEquals("[testF, testE, testD]", collectOrder(prioritized).toString());
+		assertEquals(3.0, history.getProjectedSecondsToFirstFailure(), 0.0);
+	}
+
+	public void testUnknownBeforePassed() throws Exception {
+		TestRunHistory history= new TestRunHistory();
+		history.add("testD" + SUITE2, false, 0.5);
+
+		Test prioritized= new TimingHistoryPrioritizer(history).prioritize(createSuiteDEF());
+		assertEquals("[testE, testF, testD]", collectOrder(prioritized).toString());
+		assertEquals(-1.0, history.getProjectedSecondsToFirstFailure(), 0.0);
+	}
+
+	public void testCustomSuiteKeepsOrder() throws Exception {
+		TestSuite suite= new TestSuite() {};
+		suite.addTest(new TestPriorizationSuite2("testD"));
+		suite.addTest(new TestPriorizationSuite2("testE"));
+		suite.addTest(new TestPriorizationSuite2("testF"));
+		TestRunHistory history= new TestRunHistory();
+		history.add("testD" + SUITE2, false, 1.0);
+		history.add("testF" + SUITE2, true, 1.0);
+
+		Test prioritized= new TimingHistoryPrioritizer(history).prioritize(suite);
+		assertSame(suite, prioritized);
+		assertEquals("[testD, testE, testF]", collectOrder(prioritized).toString());
+		assertEquals(2.0, history.getProjectedSecondsToFirstFailure(), 0.0);
+	}
+
+	public void testTopLevelTestsSorted() throws Exception {
+		TestSuite slow= new TestSuite("slow");
+		slow.addTest(new TestPriorizationSuite2("testD"));
+		TestSuite failing= new TestSuite("failing");
+		failing.addTest(new TestPriorizationSuite2("testE"));
+		failing.addTest(new TestPriorizationSuite2("testF"));
+		TestRunHistory history= new TestRunHistory();
+		history.add("testD" + SUITE2, false, 10.0);
+		history.add("testE" + SUITE2, false, 1.0);
+		history.add("testF" + SUITE2, true, 2.0);
+
+		Test[] prioritized= new TimingHistoryPrioritizer(history).prioritize(new Test[] { slow, failing });
+		assertEquals(2, prioritized.length);
+		assertEquals("[testF, testE]", collectOrder(prioritized[0]).toString());
+		assertEquals("[testD]", collectOrder(prioritized[1]).toString());
+		assertEquals(2.0, history.getProjectedSecondsToFirstFailure(), 0.0);
+	}
+
+	public void testNestedSuites() throws Exception {
+		TestSuite slow= new TestSuite("slow");
+		slow.addTest(new TestPriorizationSuite2("testD"));
+		TestSuite failing= new TestSuite("failing");
+		failing.addTest(new TestPriorizationSuite2("testE"));
+		failing.addTest(new TestPriorizationSuite2("testF"));
+		TestSuite root= new TestSuite("root");
+		root.addTest(slow);
+		root.addTest(failing);
+		TestRunHistory history= new TestRunHistory();
+		history.add("testD" + SUITE2, false, 10.0);
+		history.add("testE" + SUITE2, false, 1.0);
+		history.add("testF" + SUITE2, true, 2.0);
+
+		Test prioritized= new TimingHistoryPrioritizer(history).prioritize(root);
+		assertEquals("[testF, testE, testD]", collectOrder(prioritized).toString());
+		assertEquals(2.0, history.getProjectedSecondsToFirstFailure(), 0.0);
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.lang.ref.WeakReference;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.model.TraceStore;
+import org.eclipse.jdt.internal.junit.model.TraceStore.Trace;
+
+public class TraceStoreTest extends TestCase {
+
+	private static final String FRAMES=
+			"\tat junit.framework.Assert.fail(Assert.java:47)\n" +
+			"\tat junit.framework.Assert.assertTrue(Assert.java:20)\n" +
+			"\tat junit.framework.TestCase.runTest(TestCase.java:154)\n";
+
+	private void assertRoundTrip(TraceStore store, String trace) {
+		assertEquals(trace, store.intern(trace).toString());
+	}
+
+	public void testRoundTrip() throws Exception {
+		TraceStore store= new TraceStore();
+		assertNull(store.intern(null));
+		assertRoundTrip(store, "");
+		assertRoundTrip(store, "java.lang.AssertionError");
+		assertRoundTrip(store, "java.lang.AssertionError\n" + FRAMES);
+		assertRoundTrip(store, "java.lang.AssertionError\r\n\tat p.A.test(A.java:3)\r\n");
+		assertRoundTrip(store, "java.lang.AssertionError: multi\nline\n\nmessage\n" + FRAMES + "\t... 23 more");
+	}
+
+	public void testEqualTracesAreShared() throws Exception {
+		TraceStore store= new TraceStore();
+		Trace first= store.intern("java.lang.AssertionError: 1\n" + FRAMES);
+		Trace second= store.intern("java.lang.AssertionError: 1\n" + FRAMES);
+		Trace other= store.intern("java.lang.AssertionError: 2\n" + FRAMES);
+		assertSame(first, second);
+		assertNotSame(first, other);
+		assertEquals("java.lang.AssertionError: 2\n" + FRAMES, other.toString());
+	}
+
+	public void testInternText() throws Exception {
+		TraceStore store= new TraceStore();
+		String expected= store.internText(new String("expected"));
+		assertSame(expected, store.internText(new String("expected")));
+		assertNull(store.internText(null));
+	}
+
+	public void testUnusedTracesAreReleased() throws Exception {
+		TraceStore store= new TraceStore();
+		Trace kept= store.intern("java.lang.AssertionError: kept\n" + FRAMES);
+		WeakReference released= new WeakReference(store.intern("java.lang.AssertionError: released\n" + FRAMES));
+		WeakReference releasedText= new WeakReference(store.internText(new String("released")));
+		for (int i= 0; i < 20 && (released.get() != null || releasedText.get() != null); i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertNull("unused trace is still referenced", released.get());
+		assertNull("unused text is still referenced", releasedText.get());
+
+		assertSame(kept, store.intern("java.lang.AssertionError: kept\n" + FRAMES));
+		assertRoundTrip(store, "java.lang.AssertionError: released\n" + FRAMES);
+	}
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import org.eclipse.jdt.junit.JUnitCore;
+import org.eclipse.jdt.junit.TestRunListener;
+import org.eclipse.jdt.junit.model.ITestElement.FailureTrace;
+import org.eclipse.jdt.junit.model.ITestElement.ProgressState;
+import org.eclipse.jdt.junit.model.ITestElement.Result;
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
+
+import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
+import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+
+/**
+ * Tests launches with {@link JUnitLaunchConfigurationConstants#ATTR_WARM_RUNNER}.
+ */
+public class WarmTestRunnerTest extends AbstractTestRunListenerTest {
+
+	private static final String SUCCEED_SOURCE=
+		"package pack;\n" +
+		"import junit.framework.TestCase;\n" +
+		"public class ATestCase extends TestCase {\n" +
+		"    public void testRun() { }\n" +
+		"}";
+
+	private static final String FAIL_SOURCE=
+		"package pack;\n" +
+		"import junit.framework.TestCase;\n" +
+		"public class ATestCase extends TestCase {\n" +
+		"    public void testRun() { fail(); }\n" +
+		"}";
+
+	private static final String JUNIT4_SOURCE=
+		"package pack;\n" +
+		"import org.junit.Assert;\n" +
+		"import org.junit.Test;\n" +
+		"public class ATest {\n" +
+		"    @Test public void testRun() {\n" +
+		"        Assert.assertNotSame(Assert.class.getClassLoader(), getClass().getClassLoader());\n" +
+		"    }\n" +
+		"}";
+
+	private static final String[] SUCCEED_SEQUENCE= new String[] {
+		"sessionStarted-" + TestRunListeners.sessionAsString("ATestCase", ProgressState.RUNNING, Result.UNDEFINED, 0),
+		"testCaseStarted-" + TestRunListeners.testCaseAsString("testRun", "pack.ATestCase", ProgressState.RUNNING, Result.UNDEFINED, null, 0),
+		"testCaseFinished-" + TestRunListeners.testCaseAsString("testRun", "pack.ATestCase", ProgressState.COMPLETED, Result.OK, null, 0),
+		"sessionFinished-" + TestRunListeners.sessionAsString("ATestCase", ProgressState.COMPLETED, Result.OK, 0)
+	};
+
+	private static final String[] FAIL_SEQUENCE= new String[] {
+		"sessionStarted-" + TestRunListeners.sessionAsString("ATestCase", ProgressState.RUNNING, Result.UNDEFINED, 0),
+		"testCaseStarted-" + TestRunListeners.testCaseAsString("testRun", "pack.ATestCase", ProgressState.RUNNING, Result.UNDEFINED, null, 0),
+		"testCaseFinished-" + TestRunListeners.testCaseAsString("testRun", "pack.ATestCase", ProgressState.COMPLETED, Result.FAILURE, new FailureTrace("junit.framework.AssertionFailedError", null, null), 0),
+		"sessionFinished-" + TestRunListeners.sessionAsString("ATestCase", ProgressState.COMPLETED, Result.FAILURE, 0)
+	};
+
+	private static final String[] JUNIT4_SEQUENCE= new String[] {
+		"sessionStarted-" + TestRunListeners.sessionAsString("ATest", ProgressState.RUNNING, Result.UNDEFINED, 0),
+		"testCaseStarted-" + TestRunListeners.testCaseAsString("testRun", "pack.ATest", ProgressState.RUNNING, Result.UNDEFINED, null, 0),
+		"testCaseFinished-" + TestRunListeners.testCaseAsString("testRun", "pack.ATest", ProgressState.COMPLETED, Result.OK, null, 0),
+		"sessionFinished-" + TestRunListeners.sessionAsString("ATest", ProgressState.COMPLETED, Result.OK, 0)
+	};
+
+	private ILaunchConfigurationWorkingCopy fConfiguration;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ILaunchManager lm= DebugPlugin.getDefault().getLaunchManager();
+		lm.removeLaunches(lm.getLaunches());
+	}
+
+	protected void tearDown() throws Exception {
+		ILaunchManager lm= DebugPlugin.getDefault().getLaunchManager();
+		ILaunch[] launches= lm.getLaunches();
+		for (int i= 0; i < launches.length; i++) {
+			if (launches[i].canTerminate())
+				launches[i].terminate();
+		}
+		lm.removeLaunches(lm.getLaunches());
+		if (fConfiguration != null)
+			fConfiguration.delete();
+		super.tearDown();
+	}
+
+	private IType createWarmTestCase() throws CoreException {
+		return createWarmTest(SUCCEED_SOURCE, "ATestCase.java");
+	}
+
+	private IType createWarmTest(String source, String fileName) throws CoreException {
+		IType test= createType(source, "pack", fileName);
+		fConfiguration= TestJUnitLaunchShortcut.createConfiguration(test);
+		fConfiguration.setAttribute(JUnitLaunchConfigurationConstants.ATTR_WARM_RUNNER, true);
+		return test;
+	}
+
+	private ILaunch launchWarm(String[] expectedSequence) throws CoreException {
+		ResourcesPlugin.getWorkspace().build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+		final TestRunLog log= new TestRunLog();
+		TestRunListener testRunListener= new TestRunListeners.SequenceTest(log);
+		JUnitCore.addTestRunListener(testRunListener);
+		ILaunch launch;
+		try {
+			launch= fConfiguration.launch(ILaunchManager.RUN_MODE, null);
+			boolean success= new DisplayHelper() {
+				protected boolean condition() {
+					return log.isDone();
+				}
+			}.waitForCondition(Display.getCurrent(), 30 * 1000, 100);
+			if (! success)
+				log.add("WarmTestRunnerTest#launchWarm(String[]) timed out");
+		} finally {
+			JUnitCore.removeTestRunListener(testRunListener);
+		}
+		assertEqualLog(expectedSequence, log.getLog());
+		return launch;
+	}
+
+	private static void setContents(IType type, String source) throws CoreException {
+		ICompilationUnit cu= type.getCompilationUnit();
+		cu.getBuffer().setContents(source);
+		cu.save(null, true);
+	}
+
+	public void testJUnit3RunsWarmTwice() throws Exception {
+		createWarmTestCase();
+
+		ILaunch first= launchWarm(SUCCEED_SEQUENCE);
+		assertEquals(1, first.getProcesses().length);
+		ILaunch second= launchWarm(SUCCEED_SEQUENCE);
+		assertEquals("tests not run by the warm runner", 0, second.getProcesses().length);
+		assertFalse("warm runner has terminated", first.isTerminated());
+	}
+
+	public void testJUnit4RunsWarmTwice() throws Exception {
+		JavaProjectHelper.clear(fProject, new IClasspathEntry[] { JavaCore.newContainerEntry(JUnitCore.JUNIT4_CONTAINER_PATH) });
+		JavaProjectHelper.addRTJar15(fProject);
+		createWarmTest(JUNIT4_SOURCE, "ATest.java");
+		assertEquals(TestKindRegistry.JUNIT4_TEST_KIND_ID, fConfiguration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, (String) null));
+
+		// the test checks that JUnit is not loaded by the class loader of the test class
+		ILaunch first= launchWarm(JUNIT4_SEQUENCE);
+		assertEquals(1, first.getProcesses().length);
+		ILaunch second= launchWarm(JUNIT4_SEQUENCE);
+		assertEquals("tests not run by the warm runner", 0, second.getProcesses().length);
+		assertFalse("warm runner has terminated", first.isTerminated());
+	}
+
+	public void testRunRequestReloadsClasses() throws Exception {
+		IType aTestCase= createWarmTestCase();
+
+		ILaunch first= launchWarm(SUCCEED_SEQUENCE);
+		assertEquals(1, first.getProcesses().length);
+		assertFalse("warm runner has terminated", first.isTerminated());
+
+		setContents(aTestCase, FAIL_SOURCE);
+		ILaunch second= launchWarm(FAIL_SEQUENCE);
+		assertEquals("tests not run by the warm runner", 0, second.getProcesses().length);
+		assertFalse("warm runner has terminated", first.isTerminated());
+
+		setContents(aTestCase, SUCCEED_SOURCE);
+		ILaunch third= launchWarm(SUCCEED_SEQUENCE);
+		assertEquals("tests not run by the warm runner", 0, third.getProcesses().length);
+	}
+
+	public void testOtherVMSettingsStartNewRunner() throws Exception {
+		createWarmTestCase();
+
+		final ILaunch first= launchWarm(SUCCEED_SEQUENCE);
+		assertEquals(1, first.getProcesses().length);
+
+		fConfiguration.setAttribute(IJavaLaunchConfigurationConstants.ATTR_VM_ARGUMENTS, "-Dwarm.test=true");
+		ILaunch second= launchWarm(SUCCEED_SEQUENCE);
+		assertEquals("tests run by a runner with other VM settings", 1, second.getProcesses().length);
+
+		boolean terminated= new DisplayHelper() {
+			protected boolean condition() {
+				return first.isTerminated();
+			}
+		}.waitForCondition(Display.getCurrent(), 30 * 1000, 100);
+		assertTrue("replaced warm runner has not terminated", terminated);
+		assertFalse("warm runner has terminated", second.isTerminated());
+	}
+}
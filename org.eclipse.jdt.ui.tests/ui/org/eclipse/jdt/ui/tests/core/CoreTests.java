@@ -57,6 +57,7 @@ public class CoreTests extends TestCase {
 		suite.addTest(ScopeAnalyzerTest.suite());
 		suite.addTest(TemplateStoreTest.suite());
 		suite.addTest(TypeHierarchyTest.suite());
+		suite.addTest(TypeHierarchySnapshotStoreTest.suite());
 		suite.addTest(TypeRulesTest.suite());
 		suite.addTest(TypeInfoTest.suite());
 		suite.addTest(StringsTest.suite());
@@ -64,6 +65,8 @@ public class CoreTests extends TestCase {
 		suite.addTest(SelectionHistoryTest.suite());
 		suite.addTest(ASTProviderTest.suite());
 		suite.addTest(JDTFlagsTest18.suite());
+		suite.addTest(JavaCompareCacheTest.suite());
+		suite.addTest(JavaElementImageCacheTest.suite());
 
 		return new ProjectTestSetup(suite);
 	}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.swt.graphics.Image;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jface.text.Position;
+
+import org.eclipse.compare.IEncodedStreamContentAccessor;
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.structuremergeviewer.DocumentRangeNode;
+import org.eclipse.compare.structuremergeviewer.IStructureComparator;
+
+import org.eclipse.jdt.internal.ui.compare.JavaStructureCreator;
+import org.eclipse.jdt.internal.ui.compare.JavaTokenComparator;
+
+/**
+ * Tests that the structures and tokens that the Java compare caches for contents that have been
+ * compared before are the same as the ones computed from scratch.
+ *
+ * @since 3.10
+ */
+public class JavaCompareCacheTest extends TestCase {
+
+	private static final Class THIS= JavaCompareCacheTest.class;
+
+	public JavaCompareCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	private static class JavaSource implements ITypedElement, IEncodedStreamContentAccessor {
+
+		private final String fContents;
+
+		JavaSource(String contents) {
+			fContents= contents;
+		}
+
+		public String getName() {
+			return "A.java";
+		}
+
+		public Image getImage() {
+			return null;
+		}
+
+		public String getType() {
+			return "java";
+		}
+
+		public InputStream getContents() throws CoreException {
+			try {
+				return new ByteArrayInputStream(fContents.getBytes("UTF-8"));
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		public String getCharset() throws CoreException {
+			return "UTF-8";
+		}
+	}
+
+	/**
+	 * Returns source that has not been compared before, so that its structure and tokens are not
+	 * cached yet.
+	 *
+	 * @param typeName the name of the top level type
+	 * @return the source
+	 */
+	private String createSource(String typeName) {
+		StringBuffer buf= new StringBuffer();
+		buf.append("// ").append(getName()).append(' ').append(System.nanoTime()).append('\n');
+		buf.append("package test1;\n");
+		buf.append("import java.util.List;\n");
+		buf.append("public class ").append(typeName).append(" {\n");
+		buf.append("    private int fField= 1;\n");
+		buf.append("    static {\n");
+		buf.append("    }\n");
+		buf.append("    public ").append(typeName).append("(int i) {\n");
+		buf.append("        fField= i;\n");
+		buf.append("    }\n");
+		buf.append("    void foo(List<String> list) {\n");
+		buf.append("        String s= \"a string\"; // a comment\n");
+		buf.append("    }\n");
+		buf.append("    class Inner {\n");
+		buf.append("        int bar() { return fField; }\n");
+		buf.append("    }\n");
+		buf.append("    enum Color { RED, GREEN }\n");
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	private static void appendStructure(DocumentRangeNode node, String indent, StringBuffer buf) throws Exception {
+		Position range= node.getRange();
+		buf.append(indent).append(node.getTypeCode()).append(' ').append(node.getId());
+		buf.append(' ').append(range.getOffset()).append(':').append(range.getLength());
+		Position appendPosition= node.getAppendPosition();
+		if (appendPosition != null)
+			buf.append(" +").append(appendPosition.getOffset());
+		buf.append(" <").append(node.getDocument().get(range.getOffset(), range.getLength())).append(">\n");
+		Object[] children= node.getChildren();
+		if (children != null) {
+			for (int i= 0; i < children.length; i++)
+				appendStructure((DocumentRangeNode) children[i], indent + "  ", buf);
+		}
+	}
+
+	private static String getStructure(String source) throws Exception {
+		IStructureComparator structure= new JavaStructureCreator().getStructure(new JavaSource(source));
+		assertTrue(structure instanceof DocumentRangeNode);
+		StringBuffer buf= new StringBuffer();
+		appendStructure((DocumentRangeNode) structure, "", buf);
+		return buf.toString();
+	}
+
+	private static String getTokens(String text) {
+		JavaTokenComparator comparator= new JavaTokenComparator(text);
+		StringBuffer buf= new StringBuffer();
+		for (int i= 0; i < comparator.getRangeCount(); i++) {
+			int start= comparator.getTokenStart(i);
+			buf.append(start).append(' ').append(text.substring(start, start + comparator.getTokenLength(i))).append('\n');
+		}
+		return buf.toString();
+	}
+
+	public void testReplayedStructure() throws Exception {
+		String source= createSource("A");
+		String parsed= getStructure(source);
+		assertTrue(parsed, parsed.indexOf("Inner") != -1);
+		assertTrue(parsed, parsed.indexOf("RED") != -1);
+
+		// the second structure is replayed on a new document
+		assertEquals(parsed, getStructure(source));
+		assertEquals(parsed, getStructure(new String(source)));
+	}
+
+	public void testStructureOfOtherContents() throws Exception {
+		String source= createSource("A");
+		String parsed= getStructure(source);
+		String other= getStructure(source.replaceAll("\\bA\\b", "B"));
+		assertFalse(parsed.equals(other));
+		assertEquals(parsed, getStructure(source));
+	}
+
+	public void testReplayedTokens() throws Exception {
+		String source= createSource("A");
+		String tokens= getTokens(source);
+		assertTrue(tokens, tokens.indexOf("fField") != -1);
+		assertEquals(tokens, getTokens(source));
+		assertEquals(tokens, getTokens(new String(source)));
+	}
+
+	public void testTokensOfLongText() throws Exception {
+		// a text that is too long to be cached
+		StringBuffer buf= new StringBuffer();
+		String source= createSource("A");
+		while (buf.length() <= 1000000)
+			buf.append(source);
+		String text= buf.toString();
+		String tokens= getTokens(text);
+		assertEquals(tokens, getTokens(text));
+
+		source= createSource("B");
+		assertEquals(getTokens(source), getTokens(source));
+	}
+}
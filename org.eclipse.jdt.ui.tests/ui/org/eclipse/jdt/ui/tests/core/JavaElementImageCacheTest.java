@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.JavaPluginImages;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementImageCache;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementImageProvider;
+
+/**
+ * Tests the cache of the image descriptors of Java elements.
+ *
+ * @since 3.10
+ */
+public class JavaElementImageCacheTest extends TestCase {
+
+	private static final Class THIS= JavaElementImageCacheTest.class;
+
+	/**
+	 * Image flags that the label providers do not use, so that the cached entries of the tests
+	 * are not replaced by other viewers.
+	 */
+	private static final int TEST_FLAGS= 0x40000000;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack1;
+
+	public JavaElementImageCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack1= sourceFolder.createPackageFragment("test1", false, null);
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private IType createType(String name) throws Exception {
+		ICompilationUnit cu= fPack1.createCompilationUnit(name + ".java", "package test1;\npublic class " + name + " {\n}\n", false, null);
+		return cu.getType(name);
+	}
+
+	public void testPutAfterJavaModelChange() throws Exception {
+		IType type= createType("A");
+		JavaElementImageCache cache= JavaElementImageCache.getDefault();
+		ImageDescriptor descriptor= JavaPluginImages.DESC_OBJS_CLASS;
+
+		// a descriptor computed before a change must not be cached after the change
+		int generation= cache.getGeneration();
+		createType("B");
+		assertTrue(generation != cache.getGeneration());
+		cache.put(type, TEST_FLAGS, descriptor, generation);
+		assertNull(cache.get(type, TEST_FLAGS));
+
+		cache.put(type, TEST_FLAGS, descriptor, cache.getGeneration());
+		assertSame(descriptor, cache.get(type, TEST_FLAGS));
+	}
+
+	public void testFlushedOnJavaModelChange() throws Exception {
+		IType type= createType("A");
+		JavaElementImageCache cache= JavaElementImageCache.getDefault();
+		ImageDescriptor descriptor= JavaPluginImages.DESC_OBJS_CLASS;
+		cache.put(type, TEST_FLAGS, descriptor, cache.getGeneration());
+		assertSame(descriptor, cache.get(type, TEST_FLAGS));
+
+		createType("B");
+		assertNull(cache.get(type, TEST_FLAGS));
+	}
+
+	public void testImageProviderUsesCache() throws Exception {
+		IType type= createType("A");
+		JavaElementImageProvider provider= new JavaElementImageProvider();
+		try {
+			ImageDescriptor descriptor= provider.getJavaImageDescriptor(type, JavaElementImageProvider.SMALL_ICONS);
+			assertSame(descriptor, JavaElementImageCache.getDefault().get(type, JavaElementImageProvider.SMALL_ICONS));
+			assertSame(descriptor, provider.getJavaImageDescriptor(type, JavaElementImageProvider.SMALL_ICONS));
+
+			// the descriptor is computed again after a change
+			type.getCompilationUnit().getBuffer().setContents("package test1;\npublic interface A {\n}\n");
+			type.getCompilationUnit().save(null, true);
+			assertFalse(descriptor.equals(provider.getJavaImageDescriptor(type, JavaElementImageProvider.SMALL_ICONS)));
+		} finally {
+			provider.dispose();
+		}
+	}
+}
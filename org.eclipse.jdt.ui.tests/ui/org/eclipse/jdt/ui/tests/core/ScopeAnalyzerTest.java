@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -463,6 +463,55 @@ public class ScopeAnalyzerTest extends CoreTests {
 		}
 	}
 
+	public void testVariableDeclarationsSameAnalyzer() throws Exception {
+
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1.ae", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1.ae;\n");
+		buf.append("public class E {\n");
+		buf.append("    int fField;\n");
+		buf.append("    public void goo(int param) {\n");
+		buf.append("        int a= 1;\n");
+		buf.append("        {\n");
+		buf.append("            int b= 2;\n");
+		buf.append("            b++;\n");
+		buf.append("        }\n");
+		buf.append("        for (int i= 0; i < 3; i++) {\n");
+		buf.append("            int c= i;\n");
+		buf.append("            c++;\n");
+		buf.append("        }\n");
+		buf.append("        try {\n");
+		buf.append("        } catch (Exception x) {\n");
+		buf.append("            x= null;\n");
+		buf.append("        }\n");
+		buf.append("        a++;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit compilationUnit= pack1.createCompilationUnit("E.java", buf.toString(), false, null);
+
+		CompilationUnit astRoot= createAST(compilationUnit);
+		assertNoProblems(astRoot);
+
+		// the queries share the scopes of the AST
+		ScopeAnalyzer analyzer= new ScopeAnalyzer(astRoot);
+		int flags= ScopeAnalyzer.VARIABLES;
+
+		IBinding[] res= analyzer.getDeclarationsInScope(buf.toString().indexOf("b++;"), flags);
+		assertVariables(res, new String[] { "param", "a", "b", "fField" });
+
+		res= analyzer.getDeclarationsInScope(buf.toString().indexOf("c++;"), flags);
+		assertVariables(res, new String[] { "param", "a", "i", "c", "fField" });
+
+		res= analyzer.getDeclarationsInScope(buf.toString().indexOf("x= null;"), flags);
+		assertVariables(res, new String[] { "param", "a", "x", "fField" });
+
+		res= new ScopeAnalyzer(astRoot).getDeclarationsInScope(buf.toString().indexOf("a++;"), flags);
+		assertVariables(res, new String[] { "param", "a", "fField" });
+
+		res= analyzer.getDeclarationsInScope(buf.toString().indexOf("int a= 1;"), flags);
+		assertVariables(res, new String[] { "param", "fField" });
+	}
+
 	public void testSwitchOnEnum() throws Exception {
 		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1.ae", false, null);
 		StringBuffer buf= new StringBuffer();
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchySnapshotStore;
+
+
+public class TypeHierarchySnapshotStoreTest extends TestCase {
+
+	private static final Class THIS= TypeHierarchySnapshotStoreTest.class;
+
+	private IJavaProject fJavaProject1;
+	private IJavaProject fJavaProject2;
+	private IPackageFragment fPack1;
+
+	public TypeHierarchySnapshotStoreTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJavaProject1= ProjectTestSetup.getProject();
+		fJavaProject2= JavaProjectHelper.createJavaProject("TestProject2", "bin");
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		fPack1= root1.createPackageFragment("pack1", true, null);
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJavaProject1, ProjectTestSetup.getDefaultClasspath());
+		JavaProjectHelper.delete(fJavaProject2);
+	}
+
+	private IType createType(IPackageFragment pack, String name, String source) throws Exception {
+		ICompilationUnit cu= pack.getCompilationUnit(name + ".java");
+		return cu.createType(source, null, true, null);
+	}
+
+	private static List<IType> getSubtypes(ITypeHierarchy hierarchy, IType type) {
+		return Arrays.asList(hierarchy.getSubtypes(type));
+	}
+
+	public void testStoreAndLoad() throws Exception {
+		IType typeA= createType(fPack1, "A", "public class A {\n}\n");
+		IType typeB= createType(fPack1, "B", "public class B extends A {\n}\n");
+
+		TypeHierarchySnapshotStore store= new TypeHierarchySnapshotStore(false);
+		store.store(typeA, typeA.newTypeHierarchy(null), null);
+
+		ITypeHierarchy snapshot= store.load(typeA, null);
+		assertNotNull(snapshot);
+		assertEquals(Arrays.asList(new IType[] { typeB }), getSubtypes(snapshot, typeA));
+	}
+
+	public void testStaleAfterSubtypeAddedInOtherUnit() throws Exception {
+		IType typeA= createType(fPack1, "A", "public class A {\n}\n");
+		createType(fPack1, "B", "public class B extends A {\n}\n");
+
+		TypeHierarchySnapshotStore store= new TypeHierarchySnapshotStore(false);
+		store.store(typeA, typeA.newTypeHierarchy(null), null);
+
+		createType(fPack1, "C", "public class C extends A {\n}\n");
+		assertNull(store.load(typeA, null));
+	}
+
+	public void testStaleAfterSubtypeChangedInOtherUnit() throws Exception {
+		IType typeA= createType(fPack1, "A", "public class A {\n}\n");
+		IType typeB= createType(fPack1, "B", "public class B extends A {\n}\n");
+
+		TypeHierarchySnapshotStore store= new TypeHierarchySnapshotStore(false);
+		store.store(typeA, typeA.newTypeHierarchy(null), null);
+
+		ICompilationUnit cu= typeB.getCompilationUnit();
+		cu.getBuffer().setContents("package pack1;\npublic class B {\n}\n");
+		cu.save(null, true);
+		assertNull(store.load(typeA, null));
+	}
+
+	public void testStaleAfterSubtypeAddedInRequiringProject() throws Exception {
+		IType typeA= createType(fPack1, "A", "public class A {\n}\n");
+
+		JavaProjectHelper.addRTJar(fJavaProject2);
+		JavaProjectHelper.addRequiredProject(fJavaProject2, fJavaProject1);
+		IPackageFragmentRoot root2= JavaProjectHelper.addSourceContainer(fJavaProject2, "src");
+		IPackageFragment pack2= root2.createPackageFragment("pack2", true, null);
+
+		TypeHierarchySnapshotStore store= new TypeHierarchySnapshotStore(false);
+		store.store(typeA, typeA.newTypeHierarchy(null), null);
+		assertNotNull(store.load(typeA, null));
+
+		createType(pack2, "D", "public class D extends pack1.A {\n}\n");
+		assertNull(store.load(typeA, null));
+	}
+
+	public void testSuperTypesOnlyIgnoresOtherProjects() throws Exception {
+		IType typeB= createType(fPack1, "B", "public class B {\n}\n");
+
+		JavaProjectHelper.addRTJar(fJavaProject2);
+		IPackageFragmentRoot root2= JavaProjectHelper.addSourceContainer(fJavaProject2, "src");
+		IPackageFragment pack2= root2.createPackageFragment("pack2", true, null);
+
+		TypeHierarchySnapshotStore store= new TypeHierarchySnapshotStore(true);
+		store.store(typeB, typeB.newSupertypeHierarchy(null), null);
+
+		createType(pack2, "E", "public class E {\n}\n");
+		assertNotNull(store.load(typeB, null));
+	}
+
+	public void testPrune() throws Exception {
+		IType typeA= createType(fPack1, "A", "public class A {\n}\n");
+		IType typeB= createType(fPack1, "B", "public class B {\n}\n");
+		IType typeC= createType(fPack1, "C", "public class C {\n}\n");
+
+		TypeHierarchySnapshotStore store= new TypeHierarchySnapshotStore(false, 2);
+		IType[] types= { typeA, typeB, typeC };
+		for (int i= 0; i < types.length; i++) {
+			store.store(types[i], types[i].newTypeHierarchy(null), null);
+		}
+
+		assertNotNull(store.load(typeC, null));
+		int loaded= 0;
+		for (int i= 0; i < types.length; i++) {
+			if (store.load(types[i], null) != null)
+				loaded++;
+		}
+		assertTrue("Should keep at most 2 snapshots, kept: " + loaded, loaded <= 2);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,9 +12,11 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.quickfix;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import junit.framework.Test;
@@ -23,6 +25,8 @@ import junit.framework.TestSuite;
 import org.eclipse.jdt.testplugin.JavaProjectHelper;
 import org.eclipse.jdt.testplugin.TestOptions;
 
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 
 import org.eclipse.core.resources.IncrementalProjectBuilder;
@@ -30,6 +34,8 @@ import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.RefactoringStatusEntry;
 
+import org.eclipse.text.edits.InsertEdit;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -40,12 +46,18 @@ import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
+import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.cleanup.CleanUpContext;
 import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
+import org.eclipse.jdt.ui.cleanup.CleanUpRequirements;
+import org.eclipse.jdt.ui.cleanup.ICleanUp;
+import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
@@ -8851,4 +8863,92 @@ public class CleanUpTest extends CleanUpTestCase {
 		assertRefactoringResultAsExpected(new ICompilationUnit[] { cu1, cu2 }, new String[] { expected1, expected2 });
 	}
 
+	/**
+	 * A clean up that records the AST it has been given and that optionally inserts a comment at
+	 * the beginning of the compilation unit.
+	 */
+	private static class RecordingCleanUp implements ICleanUp {
+
+		private final boolean fRequiresFreshAST;
+		private final boolean fChange;
+		CompilationUnit fAST;
+
+		public RecordingCleanUp(boolean requiresFreshAST, boolean change) {
+			fRequiresFreshAST= requiresFreshAST;
+			fChange= change;
+		}
+
+		public void setOptions(CleanUpOptions options) {
+		}
+
+		public String[] getStepDescriptions() {
+			return new String[0];
+		}
+
+		public CleanUpRequirements getRequirements() {
+			return new CleanUpRequirements(true, fRequiresFreshAST, false, null);
+		}
+
+		public RefactoringStatus checkPreConditions(IJavaProject project, ICompilationUnit[] compilationUnits, IProgressMonitor monitor) throws CoreException {
+			return new RefactoringStatus();
+		}
+
+		public ICleanUpFix createFix(final CleanUpContext context) throws CoreException {
+			fAST= context.getAST();
+			if (!fChange)
+				return null;
+			return new ICleanUpFix() {
+				public CompilationUnitChange createChange(IProgressMonitor progressMonitor) throws CoreException {
+					CompilationUnitChange change= new CompilationUnitChange("", context.getCompilationUnit());
+					change.setEdit(new InsertEdit(0, "//comment\n"));
+					return change;
+				}
+			};
+		}
+
+		public RefactoringStatus checkPostConditions(IProgressMonitor monitor) throws CoreException {
+			return new RefactoringStatus();
+		}
+	}
+
+	private CleanUpContext createCleanUpContext() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		ASTParser parser= CleanUpRefactoring.createCleanUpASTParser();
+		parser.setSource(cu1);
+		return new CleanUpContext(cu1, (CompilationUnit) parser.createAST(null));
+	}
+
+	public void testFreshASTWithoutPreviousChange() throws Exception {
+		CleanUpContext context= createCleanUpContext();
+		RecordingCleanUp first= new RecordingCleanUp(false, false);
+		RecordingCleanUp second= new RecordingCleanUp(true, true);
+
+		List<ICleanUp> undone= new ArrayList<ICleanUp>();
+		assertNotNull(CleanUpRefactoring.calculateChange(context, new ICleanUp[] { first, second }, undone, null));
+
+		// the AST is still fresh, so no second pass is needed
+		assertTrue(undone.isEmpty());
+		assertSame(context.getAST(), first.fAST);
+		assertSame(context.getAST(), second.fAST);
+	}
+
+	public void testFreshASTAfterPreviousChange() throws Exception {
+		CleanUpContext context= createCleanUpContext();
+		RecordingCleanUp first= new RecordingCleanUp(false, true);
+		RecordingCleanUp second= new RecordingCleanUp(true, true);
+
+		List<ICleanUp> undone= new ArrayList<ICleanUp>();
+		assertNotNull(CleanUpRefactoring.calculateChange(context, new ICleanUp[] { first, second }, undone, null));
+
+		assertEquals(1, undone.size());
+		assertSame(second, undone.get(0));
+		assertNull(second.fAST);
+	}
+
 }
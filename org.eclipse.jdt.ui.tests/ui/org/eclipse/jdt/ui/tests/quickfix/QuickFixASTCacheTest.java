@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.quickfix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+
+import org.eclipse.ui.IMarkerResolution;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaModelMarker;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+import org.eclipse.jdt.internal.ui.text.correction.ASTResolving;
+import org.eclipse.jdt.internal.ui.text.correction.CorrectionMarkerResolutionGenerator;
+import org.eclipse.jdt.internal.ui.text.correction.QuickFixASTCache;
+
+public class QuickFixASTCacheTest extends TestCase {
+
+	private static final Class THIS= QuickFixASTCacheTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack1;
+
+	public QuickFixASTCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack1= sourceFolder.createPackageFragment("test1", false, null);
+	}
+
+	protected void tearDown() throws Exception {
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private ICompilationUnit createCU(String name, String source) throws Exception {
+		return fPack1.createCompilationUnit(name, source, false, null);
+	}
+
+	private IMarker[] buildErrors(ICompilationUnit cu) throws Exception {
+		fJProject1.getProject().build(IncrementalProjectBuilder.FULL_BUILD, null);
+		IMarker[] markers= cu.getResource().findMarkers(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, true, IResource.DEPTH_INFINITE);
+		List<IMarker> errors= new ArrayList<IMarker>();
+		for (int i= 0; i < markers.length; i++) {
+			if (markers[i].getAttribute(IMarker.SEVERITY, -1) == IMarker.SEVERITY_ERROR)
+				errors.add(markers[i]);
+		}
+		return errors.toArray(new IMarker[errors.size()]);
+	}
+
+	public void testReleasedOnJavaModelChange() throws Exception {
+		ICompilationUnit cuA= createCU("A.java", "package test1;\npublic class A {\n}\n");
+		QuickFixASTCache cache= new QuickFixASTCache(60 * 1000);
+		CompilationUnit astRoot= ASTResolving.createQuickFixAST(cuA, null);
+		cache.put(cuA, astRoot);
+		assertSame(astRoot, cache.get(cuA));
+
+		createCU("B.java", "package test1;\npublic class B extends A {\n}\n");
+		assertNull(cache.get(cuA));
+	}
+
+	public void testReleasedAfterDelay() throws Exception {
+		ICompilationUnit cuA= createCU("A.java", "package test1;\npublic class A {\n}\n");
+		QuickFixASTCache cache= new QuickFixASTCache(10);
+		cache.put(cuA, ASTResolving.createQuickFixAST(cuA, null));
+
+		long timeout= System.currentTimeMillis() + 10 * 1000;
+		while (cache.get(cuA) != null && System.currentTimeMillis() < timeout) {
+			Thread.sleep(100);
+		}
+		assertNull(cache.get(cuA));
+	}
+
+	public void testResolutionsOfMarkersInSameFile() throws Exception {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    void foo() {\n");
+		buf.append("        int i= \"1\";\n");
+		buf.append("        int j= \"2\";\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit cu= createCU("E.java", buf.toString());
+
+		IMarker[] markers= buildErrors(cu);
+		assertEquals(2, markers.length);
+		CorrectionMarkerResolutionGenerator generator= new CorrectionMarkerResolutionGenerator();
+		for (int i= 0; i < markers.length; i++) {
+			IMarkerResolution[] resolutions= generator.getResolutions(markers[i]);
+			assertTrue(resolutions.length > 0);
+		}
+
+		// the shared AST must not be used after the file has changed
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E {\n");
+		buf.append("    void foo() {\n");
+		buf.append("        int k= 0;\n");
+		buf.append("        String s= 3;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		cu.getBuffer().setContents(buf.toString());
+		cu.save(null, true);
+
+		markers= buildErrors(cu);
+		assertEquals(1, markers.length);
+		IMarkerResolution[] resolutions= generator.getResolutions(markers[0]);
+		assertTrue(resolutions.length > 0);
+	}
+}
@@ -91,6 +91,7 @@ public class QuickFixTest extends TestCase {
 		suite.addTest(AssistQuickFixTest18.suite());
 		suite.addTest(ChangeNonStaticToStaticTest.suite());
 		suite.addTest(MarkerResolutionTest.suite());
+		suite.addTest(QuickFixASTCacheTest.suite());
 		suite.addTest(JavadocQuickFixTest.suite());
 		suite.addTest(ConvertForLoopQuickFixTest.suite());
 		suite.addTest(ConvertIterableLoopQuickFixTest.suite());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,9 +27,12 @@ import org.eclipse.jdt.internal.corext.fix.CleanUpPostSaveListener;
 import org.eclipse.jdt.internal.corext.fix.CleanUpPreferenceUtil;
 
 import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.SharedASTProvider;
 import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
 import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
 
@@ -65,6 +68,57 @@ public class SaveParticipantTest extends CleanUpTestCase {
 		editor.doSave(null);
 	}
 
+	public void testOutdatedSharedAST() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    int f;\n");
+		buf.append("    public void foo() {\n");
+		buf.append("        f= 1;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+
+		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS);
+		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS_ALWAYS);
+
+		JavaEditor editor= (JavaEditor) EditorUtility.openInEditor(cu1);
+		ASTProvider provider= JavaPlugin.getDefault().getASTProvider();
+		assertNotNull(provider.getAST(cu1, SharedASTProvider.WAIT_YES, null));
+		assertNotNull(provider.getCurrentAST(cu1));
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    int f;\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        f= 2;\n");
+		buf.append("    }\n");
+		buf.append("    public void foo() {\n");
+		buf.append("        this.f= 1;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		cu1.getBuffer().setContents(buf.toString());
+
+		// the shared AST has not been reconciled with the new content and must not be used on save
+		assertNull(provider.getCurrentAST(cu1));
+		editor.doSave(null);
+
+		buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    int f;\n");
+		buf.append("    public void bar() {\n");
+		buf.append("        this.f= 2;\n");
+		buf.append("    }\n");
+		buf.append("    public void foo() {\n");
+		buf.append("        this.f= 1;\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		assertEquals(buf.toString(), cu1.getBuffer().getContents());
+	}
+
 	public void testFormatAll01() throws Exception {
 		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
 		StringBuffer buf= new StringBuffer();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.ui.tests.search;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -632,4 +633,89 @@ public class NLSSearchTest extends TestCase {
 		NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 1);
 	}
 
+	private ICompilationUnit createAccessor(IPackageFragment pack, String key) throws CoreException {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package " + pack.getElementName() + ";\n");
+		buf.append("import org.eclipse.osgi.util.NLS;\n");
+		buf.append("public class Accessor extends NLS {\n");
+		buf.append("\n");
+		buf.append("    public static String " + key + ";\n");
+		buf.append("\n");
+		buf.append("    private Accessor() {}\n");
+		buf.append("    private static final String BUNDLE_NAME = \"" + pack.getElementName() + ".Accessor\"; //$NON-NLS-1$\n");
+		buf.append("    static {NLS.initializeMessages(BUNDLE_NAME, Accessor.class);}\n");
+		buf.append("}\n");
+		return pack.createCompilationUnit("Accessor.java", buf.toString(), false, null);
+	}
+
+	public void testSeveralAccessors() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit accessor1= createAccessor(pack1, "Client_s1");
+		IFile propertiesFile1= write((IFolder)pack1.getCorrespondingResource(), "", "Accessor.properties");
+
+		IPackageFragment pack2= fSourceFolder.createPackageFragment("test2", false, null);
+		ICompilationUnit accessor2= createAccessor(pack2, "Client_s2");
+		IFile propertiesFile2= write((IFolder)pack2.getCorrespondingResource(), "Client_s2=s2\n", "Accessor.properties");
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class Client {\n");
+		buf.append("    public String s1= Accessor.Client_s1;\n");
+		buf.append("    public String s2= test2.Accessor.Client_s2;\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("Client.java", buf.toString(), false, null);
+
+		// undefined key Client_s1 in the accessor and in the client, nothing for test2.Accessor
+		NLSSearchTestHelper.assertNumberOfProblems(new ICompilationUnit[] { accessor1, accessor2 }, new IFile[] { propertiesFile1, propertiesFile2 }, 2);
+	}
+
+	public void testChangedPropertiesFile() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test", false, null);
+		ICompilationUnit accessor= createAccessor(pack1, "Client_s1");
+		IFile propertiesFile= write((IFolder)pack1.getCorrespondingResource(), "Client_s1=s1\nClient_s2=s2\n", "Accessor.properties");
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test;\n");
+		buf.append("public class Client {\n");
+		buf.append("    public String s1= Accessor.Client_s1;\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("Client.java", buf.toString(), false, null);
+
+		// unused key Client_s2
+		NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 1);
+
+		propertiesFile.setContents(new ByteArrayInputStream("Client_s1=s1\n".getBytes()), true, false, null);
+		NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 0);
+	}
+
+	public void testDirtyPropertiesFile() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test", false, null);
+		ICompilationUnit accessor= createAccessor(pack1, "Client_s1");
+		IFile propertiesFile= write((IFolder)pack1.getCorrespondingResource(), "Client_s1=s1\n", "Accessor.properties");
+
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test;\n");
+		buf.append("public class Client {\n");
+		buf.append("    public String s1= Accessor.Client_s1;\n");
+		buf.append("}\n");
+		pack1.createCompilationUnit("Client.java", buf.toString(), false, null);
+
+		// the clean file is indexed
+		NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 0);
+
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		try {
+			manager.connect(propertiesFile.getFullPath(), LocationKind.IFILE, new NullProgressMonitor());
+			ITextFileBuffer buffer= manager.getTextFileBuffer(propertiesFile.getFullPath(), LocationKind.IFILE);
+			buffer.getDocument().replace(8, 1, "2");
+
+			// undefined key Client_s1 in the accessor and in the client, unused key Client_s2
+			NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 3);
+		} finally {
+			manager.disconnect(propertiesFile.getFullPath(), LocationKind.IFILE, new NullProgressMonitor());
+		}
+
+		// the changes have been discarded
+		NLSSearchTestHelper.assertNumberOfProblems(accessor, propertiesFile, 0);
+	}
 }
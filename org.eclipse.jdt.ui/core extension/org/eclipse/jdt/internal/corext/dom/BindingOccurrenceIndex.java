@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.dom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+
+
+/**
+ * Index of the simple names of an AST by the binding they refer to.
+ * <p>
+ * The index is built with one walk over the AST when it is first requested, and is attached to
+ * the AST, so that consecutive searches for the occurrences of a binding in the same AST (e.g.
+ * mark occurrences while the caret moves through the editor) are lookups.
+ * </p>
+ * <p>
+ * Names are grouped by the key of their {@link #getDeclaration(IBinding) declaration binding}.
+ * Bindings with equal keys are not necessarily the same binding, so clients must check the
+ * candidates that are returned by the index.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class BindingOccurrenceIndex {
+
+	private static final String PROPERTY= BindingOccurrenceIndex.class.getName();
+
+	/** Map from declaration binding key to the names, in source order */
+	private final Map<String, List<SimpleName>> fNames= new HashMap<String, List<SimpleName>>();
+
+	/** Map from method name to the keys of the declarations of the methods with this name */
+	private final Map<String, List<String>> fMethodKeys= new HashMap<String, List<String>>();
+
+	/** The modification count of the AST when the index has been built */
+	private long fModificationCount;
+
+	/**
+	 * Returns the index of the given AST. The index is built if the AST does not have one yet, or
+	 * if the AST has been modified since the index has been built.
+	 *
+	 * @param root the AST
+	 * @return the index
+	 */
+	public static BindingOccurrenceIndex get(CompilationUnit root) {
+		synchronized (root) {
+			BindingOccurrenceIndex index= (BindingOccurrenceIndex) root.getProperty(PROPERTY);
+			if (index == null || index.fModificationCount != root.getAST().modificationCount()) {
+				index= new BindingOccurrenceIndex(root);
+				root.setProperty(PROPERTY, index);
+				index.fModificationCount= root.getAST().modificationCount();
+			}
+			return index;
+		}
+	}
+
+	private BindingOccurrenceIndex(CompilationUnit root) {
+		root.accept(new ASTVisitor(true) {
+			@Override
+			public boolean visit(SimpleName node) {
+				IBinding binding= node.resolveBinding();
+				if (binding != null)
+					add(node, getDeclaration(binding));
+				return false;
+			}
+		});
+	}
+
+	private void add(SimpleName name, IBinding declaration) {
+		String key= declaration.getKey();
+		if (key == null)
+			return;
+		List<SimpleName> names= fNames.get(key);
+		if (names == null) {
+			names= new ArrayList<SimpleName>(2);
+			fNames.put(key, names);
+			if (declaration.getKind() == IBinding.METHOD) {
+				List<String> keys= fMethodKeys.get(declaration.getName());
+				if (keys == null) {
+					keys= new ArrayList<String>(1);
+					fMethodKeys.put(declaration.getName(), keys);
+				}
+				keys.add(key);
+			}
+		}
+		names.add(name);
+	}
+
+	/**
+	 * Returns the names that may refer to the given declaration binding.
+	 *
+	 * @param declaration the declaration binding, see {@link #getDeclaration(IBinding)}
+	 * @return the candidate names in source order, or <code>null</code> if the binding has no key
+	 *         and the index cannot be used
+	 */
+	public List<SimpleName> getNames(IBinding declaration) {
+		String key= declaration.getKey();
+		if (key == null)
+			return null;
+		List<SimpleName> names= fNames.get(key);
+		if (names == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Returns the names that may refer to methods that override or are overridden by the given
+	 * method. Overriding methods have the same name, so only the methods with the name of the
+	 * given method are considered.
+	 *
+	 * @param method the method declaration binding
+	 * @return the candidate names of all methods with the same name, in no particular order
+	 */
+	public List<SimpleName> getMethodNames(IMethodBinding method) {
+		List<String> keys= fMethodKeys.get(method.getName());
+		if (keys == null)
+			return Collections.emptyList();
+		List<SimpleName> result= new ArrayList<SimpleName>();
+		for (int i= 0; i < keys.size(); i++) {
+			result.addAll(fNames.get(keys.get(i)));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the binding that the names of the index are grouped by: the type declaration for
+	 * types and constructors, the method declaration for methods and the variable declaration for
+	 * variables.
+	 *
+	 * @param binding the binding
+	 * @return the declaration binding
+	 */
+	public static IBinding getDeclaration(IBinding binding) {
+		if (binding instanceof ITypeBinding) {
+			return ((ITypeBinding) binding).getTypeDeclaration();
+		} else if (binding instanceof IMethodBinding) {
+			IMethodBinding methodBinding= (IMethodBinding) binding;
+			if (methodBinding.isConstructor()) { // link all constructors with their type
+				return methodBinding.getDeclaringClass().getTypeDeclaration();
+			} else {
+				return methodBinding.getMethodDeclaration();
+			}
+		} else if (binding instanceof IVariableBinding) {
+			return ((IVariableBinding) binding).getVariableDeclaration();
+		}
+		return binding;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,9 @@
 package org.eclipse.jdt.internal.corext.dom;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -50,10 +53,34 @@ public class LinkedNodeFinder  {
 	public static SimpleName[] findByBinding(ASTNode root, IBinding binding) {
 		ArrayList<SimpleName> res= new ArrayList<SimpleName>();
 		BindingFinder nodeFinder= new BindingFinder(binding, res);
+		if (root instanceof CompilationUnit) {
+			List<SimpleName> candidates= getCandidates(BindingOccurrenceIndex.get((CompilationUnit) root), nodeFinder.fBinding);
+			if (candidates != null) {
+				for (int i= 0; i < candidates.size(); i++) {
+					nodeFinder.visit(candidates.get(i));
+				}
+				return res.toArray(new SimpleName[res.size()]);
+			}
+		}
 		root.accept(nodeFinder);
 		return res.toArray(new SimpleName[res.size()]);
 	}
 
+	private static List<SimpleName> getCandidates(BindingOccurrenceIndex index, IBinding declaration) {
+		if (declaration.getKind() != IBinding.METHOD)
+			return index.getNames(declaration);
+		if (declaration.getKey() == null)
+			return null;
+		// overriding and overridden methods are linked as well
+		List<SimpleName> candidates= index.getMethodNames((IMethodBinding) declaration);
+		Collections.sort(candidates, new Comparator<SimpleName>() {
+			public int compare(SimpleName name1, SimpleName name2) {
+				return name1.getStartPosition() - name2.getStartPosition();
+			}
+		});
+		return candidates;
+	}
+
 	/**
 	 * Find all nodes connected to the given name node. If the node has a binding then all nodes connected
 	 * to this binding are returned. If the node has no binding, then all nodes that also miss a binding and have
@@ -216,7 +243,7 @@ public class LinkedNodeFinder  {
 
 		public BindingFinder(IBinding binding, ArrayList<SimpleName> result) {
 			super(true);
-			fBinding= getDeclaration(binding);
+			fBinding= BindingOccurrenceIndex.getDeclaration(binding);
 			fResult= result;
 		}
 
@@ -226,7 +253,7 @@ public class LinkedNodeFinder  {
 			if (binding == null) {
 				return false;
 			}
-			binding= getDeclaration(binding);
+			binding= BindingOccurrenceIndex.getDeclaration(binding);
 
 			if (fBinding == binding) {
 				fResult.add(node);
@@ -241,21 +268,5 @@ public class LinkedNodeFinder  {
 			}
 			return false;
 		}
-
-		private static IBinding getDeclaration(IBinding binding) {
-			if (binding instanceof ITypeBinding) {
-				return ((ITypeBinding) binding).getTypeDeclaration();
-			} else if (binding instanceof IMethodBinding) {
-				IMethodBinding methodBinding= (IMethodBinding) binding;
-				if (methodBinding.isConstructor()) { // link all constructors with their type
-					return methodBinding.getDeclaringClass().getTypeDeclaration();
-				} else {
-					return methodBinding.getMethodDeclaration();
-				}
-			} else if (binding instanceof IVariableBinding) {
-				return ((IVariableBinding) binding).getVariableDeclaration();
-			}
-			return binding;
-		}
 	}
 }
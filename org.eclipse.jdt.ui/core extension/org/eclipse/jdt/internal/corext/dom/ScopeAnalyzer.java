@@ -20,13 +20,11 @@ import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.BodyDeclaration;
-import org.eclipse.jdt.core.dom.CatchClause;
 import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.FieldAccess;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
-import org.eclipse.jdt.core.dom.ForStatement;
 import org.eclipse.jdt.core.dom.IBinding;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
@@ -44,10 +42,7 @@ import org.eclipse.jdt.core.dom.SwitchCase;
 import org.eclipse.jdt.core.dom.SwitchStatement;
 import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
-import org.eclipse.jdt.core.dom.TypeParameter;
 import org.eclipse.jdt.core.dom.VariableDeclaration;
-import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
-import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 
 import org.eclipse.jdt.internal.ui.text.correction.ASTResolving;
 
@@ -133,9 +128,12 @@ public class ScopeAnalyzer {
 
 	private final CompilationUnit fRoot;
 
+	private final ScopeTree fScopeTree;
+
 	public ScopeAnalyzer(CompilationUnit root) {
 		fTypesVisited= new HashSet<ITypeBinding>();
 		fRoot= root;
+		fScopeTree= ScopeTree.get(root);
 	}
 
 	private void clearLists() {
@@ -172,6 +170,18 @@ public class ScopeAnalyzer {
 		return (flags & property) != 0;
 	}
 
+	private static boolean hasKindFlag(IBinding binding, int flags) {
+		switch (binding.getKind()) {
+			case IBinding.METHOD:
+				return hasFlag(METHODS, flags);
+			case IBinding.VARIABLE:
+				return hasFlag(VARIABLES, flags);
+			case IBinding.TYPE:
+				return hasFlag(TYPES, flags);
+		}
+		return false;
+	}
+
 	/**
 	 * Collects all elements available in a type and its hierarchy
 	 * @param binding The type binding
@@ -183,47 +193,10 @@ public class ScopeAnalyzer {
 		if (!fTypesVisited.add(binding)) {
 			return false;
 		}
-		if (hasFlag(VARIABLES, flags)) {
-			IVariableBinding[] variableBindings= binding.getDeclaredFields();
-			for (int i= 0; i < variableBindings.length; i++) {
-				if (requestor.acceptBinding(variableBindings[i]))
-					return true;
-			}
-		}
-
-		if (hasFlag(METHODS, flags)) {
-			IMethodBinding[] methodBindings= binding.getDeclaredMethods();
-			for (int i= 0; i < methodBindings.length; i++) {
-				IMethodBinding curr= methodBindings[i];
-				if (!curr.isSynthetic() && !curr.isConstructor()) {
-					if (requestor.acceptBinding(curr))
-						return true;
-				}
-			}
-		}
-
-		if (hasFlag(TYPES, flags)) {
-			ITypeBinding[] typeBindings= binding.getDeclaredTypes();
-			for (int i= 0; i < typeBindings.length; i++) {
-				ITypeBinding curr= typeBindings[i];
-				if (requestor.acceptBinding(curr))
-					return true;
-			}
-		}
-
-
-		ITypeBinding superClass= binding.getSuperclass();
-		if (superClass != null) {
-			if (addInherited(superClass, flags, requestor)) // recursive
-				return true;
-		} else if (binding.isArray()) {
-			if (addInherited(fRoot.getAST().resolveWellKnownType("java.lang.Object"), flags, requestor)) //$NON-NLS-1$
-				return true;
-		}
-
-		ITypeBinding[] interfaces= binding.getInterfaces(); // includes looking for methods: abstract, unimplemented methods
-		for (int i= 0; i < interfaces.length; i++) {
-			if (addInherited(interfaces[i], flags, requestor)) // recursive
+		IBinding[] members= fScopeTree.getInheritedMembers(binding);
+		for (int i= 0; i < members.length; i++) {
+			IBinding curr= members[i];
+			if (hasKindFlag(curr, flags) && requestor.acceptBinding(curr))
 				return true;
 		}
 		return false;
@@ -623,166 +596,6 @@ public class ScopeAnalyzer {
 	}
 
 
-	private class ScopeAnalyzerVisitor extends HierarchicalASTVisitor {
-
-		private final int fPosition;
-		private final int fFlags;
-		private final IBindingRequestor fRequestor;
-		private boolean fBreak;
-
-		public ScopeAnalyzerVisitor(int position, int flags, IBindingRequestor requestor) {
-			fPosition= position;
-			fFlags= flags;
-			fRequestor= requestor;
-			fBreak= false;
-		}
-
-		private boolean isInside(ASTNode node) {
-			int start= node.getStartPosition();
-			int end= start + node.getLength();
-
-			return start <= fPosition && fPosition < end;
-		}
-
-		@Override
-		public boolean visit(MethodDeclaration node) {
-			if (isInside(node)) {
-				Block body= node.getBody();
-				if (body != null) {
-					body.accept(this);
-				}
-				visitBackwards(node.parameters());
-				visitBackwards(node.typeParameters());
-			}
-			return false;
-		}
-
-
-		/* (non-Javadoc)
-		 * @see org.eclipse.jdt.internal.corext.dom.HierarchicalASTVisitor#visit(org.eclipse.jdt.core.dom.TypeParameter)
-		 */
-		@Override
-		public boolean visit(TypeParameter node) {
-			if (hasFlag(TYPES, fFlags) && node.getStartPosition() < fPosition) {
-				fBreak= fRequestor.acceptBinding(node.getName().resolveBinding());
-			}
-			return !fBreak;
-		}
-
-		@Override
-		public boolean visit(SwitchCase node) {
-			// switch on enum allows to use enum constants without qualification
-			if (hasFlag(VARIABLES, fFlags) && !node.isDefault() && isInside(node.getExpression())) {
-				SwitchStatement switchStatement= (SwitchStatement) node.getParent();
-				ITypeBinding binding= switchStatement.getExpression().resolveTypeBinding();
-				if (binding != null && binding.isEnum()) {
-					IVariableBinding[] declaredFields= binding.getDeclaredFields();
-					for (int i= 0; i < declaredFields.length; i++) {
-						IVariableBinding curr= declaredFields[i];
-						if (curr.isEnumConstant()) {
-							fBreak= fRequestor.acceptBinding(curr);
-							if (fBreak)
-								return false;
-						}
-					}
-				}
-			}
-			return false;
-		}
-
-		@Override
-		public boolean visit(Initializer node) {
-			return !fBreak && isInside(node);
-		}
-
-		@Override
-		public boolean visit(FieldDeclaration node) {
-			return !fBreak && isInside(node);
-		}
-		
-		@Override
-		public boolean visit(Expression node) {
-			return !fBreak && isInside(node);
-		}
-
-		@Override
-		public boolean visit(Statement node) {
-			return !fBreak && isInside(node);
-		}
-
-		@Override
-		public boolean visit(ASTNode node) {
-			return false;
-		}
-
-		@Override
-		public boolean visit(Block node) {
-			if (isInside(node)) {
-				visitBackwards(node.statements());
-			}
-			return false;
-		}
-
-		@Override
-		public boolean visit(VariableDeclaration node) {
-			if (hasFlag(VARIABLES, fFlags) && node.getStartPosition() < fPosition) {
-				fBreak= fRequestor.acceptBinding(node.resolveBinding());
-			}
-			return !fBreak;
-		}
-
-		@Override
-		public boolean visit(VariableDeclarationStatement node) {
-			visitBackwards(node.fragments());
-			return false;
-		}
-
-		@Override
-		public boolean visit(VariableDeclarationExpression node) {
-			visitBackwards(node.fragments());
-			return false;
-		}
-
-		@Override
-		public boolean visit(CatchClause node) {
-			if (isInside(node)) {
-				node.getBody().accept(this);
-				node.getException().accept(this);
-			}
-			return false;
-		}
-
-		@Override
-		public boolean visit(ForStatement node) {
-			if (isInside(node)) {
-				node.getBody().accept(this);
-				visitBackwards(node.initializers());
-			}
-			return false;
-		}
-
-		@Override
-		public boolean visit(TypeDeclarationStatement node) {
-			if (hasFlag(TYPES, fFlags) && node.getStartPosition() + node.getLength() < fPosition) {
-				fBreak= fRequestor.acceptBinding(node.resolveBinding());
-				return false;
-			}
-			return !fBreak && isInside(node);
-		}
-
-		private void visitBackwards(List<? extends ASTNode> list) {
-			if (fBreak)
-				return;
-
-			for (int i= list.size() - 1; i >= 0; i--) {
-				ASTNode curr= list.get(i);
-				if (curr.getStartPosition() <  fPosition) {
-					curr.accept(this);
-				}
-			}
-		}
-	}
-
 	private class DeclarationsAfterVisitor extends HierarchicalASTVisitor {
 		private final int fPosition;
 		private final int fFlags;
@@ -832,9 +645,12 @@ public class ScopeAnalyzer {
 		if (hasFlag(VARIABLES, flags) || hasFlag(TYPES, flags)) {
 			BodyDeclaration declaration= ASTResolving.findParentBodyDeclaration(node);
 			if (declaration instanceof MethodDeclaration || declaration instanceof Initializer || declaration instanceof FieldDeclaration) {
-				ScopeAnalyzerVisitor visitor= new ScopeAnalyzerVisitor(offset, flags, requestor);
-				declaration.accept(visitor);
-				return visitor.fBreak;
+				IBinding[] bindings= fScopeTree.getLocalDeclarations(declaration, offset);
+				for (int i= 0; i < bindings.length; i++) {
+					IBinding curr= bindings[i];
+					if (hasKindFlag(curr, flags) && requestor.acceptBinding(curr))
+						return true;
+				}
 			}
 		}
 		return false;
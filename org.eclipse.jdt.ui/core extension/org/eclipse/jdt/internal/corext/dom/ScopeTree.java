@@ -0,0 +1,456 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.dom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CatchClause;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.ForStatement;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.Statement;
+import org.eclipse.jdt.core.dom.SwitchCase;
+import org.eclipse.jdt.core.dom.SwitchStatement;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+import org.eclipse.jdt.core.dom.TypeParameter;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+
+
+/**
+ * The scopes of an AST, as needed by {@link ScopeAnalyzer}.
+ * <p>
+ * For every body declaration that is queried, the tree holds the nested ranges in which local
+ * declarations are visible, together with the local variables and types declared in each range.
+ * A query for the local declarations at an offset descends the ranges that contain the offset,
+ * instead of walking the body declaration again. For every type binding that is queried, the
+ * tree holds the members of the type and its super types.
+ * </p>
+ * <p>
+ * The tree is built lazily and is attached to the AST, so that the many scope queries of a quick
+ * fix or refactoring on the same AST share it.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class ScopeTree {
+
+	private static final String PROPERTY= ScopeTree.class.getName();
+
+	private static final IBinding[] NO_BINDING= new IBinding[0];
+
+	/**
+	 * A local declaration of a scope.
+	 */
+	private static final class Entry {
+		final int fKey;
+		final IBinding fBinding;
+
+		Entry(int key, IBinding binding) {
+			fKey= key;
+			fBinding= binding;
+		}
+	}
+
+	/**
+	 * A range in which local declarations are visible.
+	 */
+	private static final class Scope {
+		final int fStart;
+		final int fEnd;
+		/** The nested scopes, sorted by start offset after the scope is complete */
+		Scope[] fChildren;
+		/**
+		 * The declarations of the scope, sorted by key. A declaration is visible at an offset
+		 * inside the scope if its key is smaller than the offset.
+		 */
+		int[] fKeys;
+		IBinding[] fBindings;
+
+		private List<Scope> fChildList= new ArrayList<Scope>(2);
+		private List<Entry> fEntryList= new ArrayList<Entry>(2);
+
+		Scope(int start, int end) {
+			fStart= start;
+			fEnd= end;
+		}
+
+		boolean contains(int offset) {
+			return fStart <= offset && offset < fEnd;
+		}
+
+		boolean isEmpty() {
+			return fChildList.isEmpty() && fEntryList.isEmpty();
+		}
+
+		void add(int key, IBinding binding) {
+			if (binding != null)
+				fEntryList.add(new Entry(key, binding));
+		}
+
+		void complete() {
+			fChildren= fChildList.toArray(new Scope[fChildList.size()]);
+			Arrays.sort(fChildren, new Comparator<Scope>() {
+				public int compare(Scope s1, Scope s2) {
+					return s1.fStart < s2.fStart ? -1 : s1.fStart == s2.fStart ? 0 : 1;
+				}
+			});
+			Collections.sort(fEntryList, new Comparator<Entry>() {
+				public int compare(Entry e1, Entry e2) {
+					return e1.fKey < e2.fKey ? -1 : e1.fKey == e2.fKey ? 0 : 1;
+				}
+			});
+			int size= fEntryList.size();
+			fKeys= new int[size];
+			fBindings= new IBinding[size];
+			for (int i= 0; i < size; i++) {
+				Entry entry= fEntryList.get(i);
+				fKeys[i]= entry.fKey;
+				fBindings[i]= entry.fBinding;
+			}
+			fChildList= null;
+			fEntryList= null;
+		}
+
+		/**
+		 * @param offset the offset
+		 * @return the nested scope that contains the offset, or <code>null</code>
+		 */
+		Scope findChild(int offset) {
+			int low= 0;
+			int high= fChildren.length - 1;
+			while (low <= high) {
+				int mid= (low + high) >>> 1;
+				if (fChildren[mid].fStart <= offset)
+					low= mid + 1;
+				else
+					high= mid - 1;
+			}
+			if (high >= 0 && fChildren[high].contains(offset))
+				return fChildren[high];
+			return null;
+		}
+
+		/**
+		 * @param offset the offset
+		 * @return the number of declarations that are visible at the offset
+		 */
+		int countVisible(int offset) {
+			int low= 0;
+			int high= fKeys.length - 1;
+			while (low <= high) {
+				int mid= (low + high) >>> 1;
+				if (fKeys[mid] < offset)
+					low= mid + 1;
+				else
+					high= mid - 1;
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * Builds the scopes of a body declaration. The traversal follows the visibility rules of
+	 * {@link ScopeAnalyzer}: a node whose range has to contain the offset for its declarations to
+	 * be visible opens a new scope.
+	 */
+	private static class ScopeBuilder extends HierarchicalASTVisitor {
+
+		private final List<Scope> fStack= new ArrayList<Scope>();
+		private final List<ASTNode> fScopeNodes= new ArrayList<ASTNode>();
+
+		ScopeBuilder() {
+			fStack.add(new Scope(Integer.MIN_VALUE, Integer.MAX_VALUE));
+			fScopeNodes.add(null);
+		}
+
+		Scope getRoot() {
+			Scope root= fStack.get(0);
+			root.complete();
+			return root;
+		}
+
+		private Scope current() {
+			return fStack.get(fStack.size() - 1);
+		}
+
+		private void enterScope(ASTNode node) {
+			Scope parent= current();
+			int start= Math.max(parent.fStart, node.getStartPosition());
+			int end= Math.min(parent.fEnd, node.getStartPosition() + node.getLength());
+			fStack.add(new Scope(start, end));
+			fScopeNodes.add(node);
+		}
+
+		private void leaveScope() {
+			int last= fStack.size() - 1;
+			Scope scope= fStack.remove(last);
+			fScopeNodes.remove(last);
+			if (!scope.isEmpty()) {
+				scope.complete();
+				current().fChildList.add(scope);
+			}
+		}
+
+		@Override
+		public void postVisit(ASTNode node) {
+			if (fScopeNodes.get(fScopeNodes.size() - 1) == node) {
+				leaveScope();
+			}
+		}
+
+		@Override
+		public boolean visit(MethodDeclaration node) {
+			enterScope(node);
+			Block body= node.getBody();
+			if (body != null) {
+				body.accept(this);
+			}
+			acceptAll(node.parameters());
+			acceptAll(node.typeParameters());
+			return false;
+		}
+
+		@Override
+		public boolean visit(TypeParameter node) {
+			current().add(node.getStartPosition(), node.getName().resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(SwitchCase node) {
+			// switch on enum allows to use enum constants without qualification
+			Expression expression= node.getExpression();
+			if (expression != null) {
+				SwitchStatement switchStatement= (SwitchStatement) node.getParent();
+				ITypeBinding binding= switchStatement.getExpression().resolveTypeBinding();
+				if (binding != null && binding.isEnum()) {
+					enterScope(expression);
+					IVariableBinding[] declaredFields= binding.getDeclaredFields();
+					for (int i= 0; i < declaredFields.length; i++) {
+						IVariableBinding curr= declaredFields[i];
+						if (curr.isEnumConstant()) {
+							current().add(Integer.MIN_VALUE, curr);
+						}
+					}
+					leaveScope();
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean visit(Initializer node) {
+			enterScope(node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(FieldDeclaration node) {
+			enterScope(node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(Expression node) {
+			enterScope(node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(Statement node) {
+			enterScope(node);
+			return true;
+		}
+
+		@Override
+		public boolean visit(ASTNode node) {
+			return false;
+		}
+
+		@Override
+		public boolean visit(VariableDeclaration node) {
+			current().add(node.getStartPosition(), node.resolveBinding());
+			return true;
+		}
+
+		@Override
+		public boolean visit(VariableDeclarationStatement node) {
+			acceptAll(node.fragments());
+			return false;
+		}
+
+		@Override
+		public boolean visit(VariableDeclarationExpression node) {
+			acceptAll(node.fragments());
+			return false;
+		}
+
+		@Override
+		public boolean visit(CatchClause node) {
+			enterScope(node);
+			node.getBody().accept(this);
+			node.getException().accept(this);
+			return false;
+		}
+
+		@Override
+		public boolean visit(ForStatement node) {
+			enterScope(node);
+			node.getBody().accept(this);
+			acceptAll(node.initializers());
+			return false;
+		}
+
+		@Override
+		public boolean visit(TypeDeclarationStatement node) {
+			// a local type is visible after its declaration
+			current().add(node.getStartPosition() + node.getLength(), node.resolveBinding());
+			return false;
+		}
+
+		private void acceptAll(List<? extends ASTNode> list) {
+			for (int i= 0; i < list.size(); i++) {
+				list.get(i).accept(this);
+			}
+		}
+	}
+
+	private final CompilationUnit fRoot;
+
+	/** Map from body declaration to the root of its scopes */
+	private final Map<BodyDeclaration, Scope> fScopes= new HashMap<BodyDeclaration, Scope>();
+
+	/** Map from type binding to the members of the type and its super types */
+	private final Map<ITypeBinding, IBinding[]> fInheritedMembers= new HashMap<ITypeBinding, IBinding[]>();
+
+	/** The modification count of the AST when the tree has been created */
+	private long fModificationCount;
+
+	/**
+	 * Returns the scope tree of the given AST. A new tree is created if the AST does not have one
+	 * yet, or if the AST has been modified since the tree has been created.
+	 *
+	 * @param root the AST
+	 * @return the scope tree
+	 */
+	public static ScopeTree get(CompilationUnit root) {
+		synchronized (root) {
+			ScopeTree tree= (ScopeTree) root.getProperty(PROPERTY);
+			if (tree == null || tree.fModificationCount != root.getAST().modificationCount()) {
+				tree= new ScopeTree(root);
+				root.setProperty(PROPERTY, tree);
+				tree.fModificationCount= root.getAST().modificationCount();
+			}
+			return tree;
+		}
+	}
+
+	private ScopeTree(CompilationUnit root) {
+		fRoot= root;
+	}
+
+	/**
+	 * Returns the local variables and types that are declared in the given body declaration and
+	 * are visible at the given offset, innermost first.
+	 *
+	 * @param declaration a method declaration, initializer or field declaration
+	 * @param offset the offset
+	 * @return the bindings of the visible local declarations
+	 */
+	public synchronized IBinding[] getLocalDeclarations(BodyDeclaration declaration, int offset) {
+		Scope scope= fScopes.get(declaration);
+		if (scope == null) {
+			ScopeBuilder builder= new ScopeBuilder();
+			declaration.accept(builder);
+			scope= builder.getRoot();
+			fScopes.put(declaration, scope);
+		}
+
+		List<Scope> path= new ArrayList<Scope>();
+		while (scope != null) {
+			path.add(scope);
+			scope= scope.findChild(offset);
+		}
+		List<IBinding> result= new ArrayList<IBinding>();
+		for (int i= path.size() - 1; i >= 0; i--) {
+			Scope curr= path.get(i);
+			for (int k= curr.countVisible(offset) - 1; k >= 0; k--) {
+				result.add(curr.fBindings[k]);
+			}
+		}
+		return result.isEmpty() ? NO_BINDING : result.toArray(new IBinding[result.size()]);
+	}
+
+	/**
+	 * Returns the fields, methods and member types of the given type and its super types, in the
+	 * order of the type hierarchy. Synthetic methods and constructors are not included.
+	 *
+	 * @param binding the type binding
+	 * @return the bindings of the members
+	 */
+	public synchronized IBinding[] getInheritedMembers(ITypeBinding binding) {
+		IBinding[] members= fInheritedMembers.get(binding);
+		if (members == null) {
+			List<IBinding> result= new ArrayList<IBinding>();
+			collectInheritedMembers(binding, new HashSet<ITypeBinding>(), result);
+			members= result.toArray(new IBinding[result.size()]);
+			fInheritedMembers.put(binding, members);
+		}
+		return members;
+	}
+
+	private void collectInheritedMembers(ITypeBinding binding, Set<ITypeBinding> visited, List<IBinding> result) {
+		if (!visited.add(binding)) {
+			return;
+		}
+		result.addAll(Arrays.asList(binding.getDeclaredFields()));
+		IMethodBinding[] methodBindings= binding.getDeclaredMethods();
+		for (int i= 0; i < methodBindings.length; i++) {
+			IMethodBinding curr= methodBindings[i];
+			if (!curr.isSynthetic() && !curr.isConstructor()) {
+				result.add(curr);
+			}
+		}
+		result.addAll(Arrays.asList(binding.getDeclaredTypes()));
+
+		ITypeBinding superClass= binding.getSuperclass();
+		if (superClass != null) {
+			collectInheritedMembers(superClass, visited, result);
+		} else if (binding.isArray()) {
+			collectInheritedMembers(fRoot.getAST().resolveWellKnownType("java.lang.Object"), visited, result); //$NON-NLS-1$
+		}
+
+		ITypeBinding[] interfaces= binding.getInterfaces();
+		for (int i= 0; i < interfaces.length; i++) {
+			collectInheritedMembers(interfaces[i], visited, result);
+		}
+	}
+}
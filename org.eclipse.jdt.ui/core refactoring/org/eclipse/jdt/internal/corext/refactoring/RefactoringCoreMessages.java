@@ -1558,10 +1558,14 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String QualifiedNameFinder_qualifiedNames_name;
 
+	public static String QualifiedNameFinder_scanning_job;
+
 	public static String QualifiedNameFinder_update_name;
 
 	public static String QualifiedNameSearchResult_change_name;
 
+	public static String QualifiedNameSearchResult_unreadable_file;
+
 	public static String ReadOnlyResourceFinder_0;
 
 	public static String ReadOnlyResourceFinder_1;
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.code.flow;
+
+
+/**
+ * The access modes of the locals of a flow context.
+ * <p>
+ * The modes are stored in three bit sets with one bit per local, so that a merge of two flow
+ * infos processes 64 locals per step and does not allocate:
+ * </p>
+ * <pre>
+ *                    read  write  definite
+ *  UNUSED             0     0       0
+ *  READ               1     0       1
+ *  READ_POTENTIAL     1     0       0
+ *  WRITE              0     1       1
+ *  WRITE_POTENTIAL    0     1       0
+ *  UNKNOWN            1     1       0
+ * </pre>
+ * <p>
+ * With this encoding, the conditional merge of two modes is the union of the read and write bits
+ * and the intersection of the definite bits, where a local that is both read and written is never
+ * definite.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class AccessModes {
+
+	private final int fLength;
+	private final long[] fRead;
+	private final long[] fWrite;
+	private final long[] fDefinite;
+
+	/**
+	 * Creates access modes for the given number of locals, which are all {@link FlowInfo#UNUSED}.
+	 *
+	 * @param length the number of locals
+	 */
+	public AccessModes(int length) {
+		fLength= length;
+		int words= (length + 63) >>> 6;
+		fRead= new long[words];
+		fWrite= new long[words];
+		fDefinite= new long[words];
+	}
+
+	/**
+	 * @return the number of locals
+	 */
+	public int length() {
+		return fLength;
+	}
+
+	/**
+	 * Returns the access mode of a local.
+	 *
+	 * @param index the index of the local
+	 * @return one of the access mode constants of {@link FlowInfo}
+	 */
+	public int get(int index) {
+		checkIndex(index);
+		int word= index >>> 6;
+		long bit= 1L << index;
+		boolean read= (fRead[word] & bit) != 0;
+		boolean write= (fWrite[word] & bit) != 0;
+		if (read && write)
+			return FlowInfo.UNKNOWN;
+		boolean definite= (fDefinite[word] & bit) != 0;
+		if (read)
+			return definite ? FlowInfo.READ : FlowInfo.READ_POTENTIAL;
+		if (write)
+			return definite ? FlowInfo.WRITE : FlowInfo.WRITE_POTENTIAL;
+		return FlowInfo.UNUSED;
+	}
+
+	/**
+	 * Sets the access mode of a local.
+	 *
+	 * @param index the index of the local
+	 * @param mode one of the access mode constants of {@link FlowInfo}
+	 */
+	public void set(int index, int mode) {
+		checkIndex(index);
+		int word= index >>> 6;
+		long bit= 1L << index;
+		boolean read= (mode & (FlowInfo.READ | FlowInfo.READ_POTENTIAL | FlowInfo.UNKNOWN)) != 0;
+		boolean write= (mode & (FlowInfo.WRITE | FlowInfo.WRITE_POTENTIAL | FlowInfo.UNKNOWN)) != 0;
+		boolean definite= (mode & (FlowInfo.READ | FlowInfo.WRITE)) != 0;
+		fRead[word]= read ? fRead[word] | bit : fRead[word] & ~bit;
+		fWrite[word]= write ? fWrite[word] | bit : fWrite[word] & ~bit;
+		fDefinite[word]= definite ? fDefinite[word] | bit : fDefinite[word] & ~bit;
+	}
+
+	/**
+	 * Weakens the modes for an open branch statement: {@link FlowInfo#READ} becomes
+	 * {@link FlowInfo#READ_POTENTIAL} and {@link FlowInfo#WRITE} becomes
+	 * {@link FlowInfo#WRITE_POTENTIAL}.
+	 */
+	public void openBranch() {
+		for (int i= 0; i < fDefinite.length; i++)
+			fDefinite[i]= 0;
+	}
+
+	/**
+	 * Merges the modes of a conditional statement, e.g. <code>branch[x] || branch[y]</code>.
+	 *
+	 * @param other the modes of the other branch, or <code>null</code> if all locals are
+	 *            {@link FlowInfo#UNUSED} in the other branch
+	 */
+	public void mergeConditional(AccessModes other) {
+		if (other == null) {
+			openBranch();
+			return;
+		}
+		for (int i= 0; i < fRead.length; i++) {
+			long read= fRead[i] | other.fRead[i];
+			long write= fWrite[i] | other.fWrite[i];
+			fRead[i]= read;
+			fWrite[i]= write;
+			fDefinite[i]= fDefinite[i] & other.fDefinite[i] & ~(read & write);
+		}
+	}
+
+	/**
+	 * Merges the modes of a statement that is executed after the statements of these modes, when
+	 * computing the arguments of an extracted method.
+	 *
+	 * @param other the modes of the statement that is executed next
+	 */
+	public void mergeArguments(AccessModes other) {
+		for (int i= 0; i < fRead.length; i++) {
+			long read= fRead[i];
+			long write= fWrite[i];
+			long definite= fDefinite[i];
+			long otherRead= other.fRead[i];
+			long otherWrite= other.fWrite[i];
+			long otherDefinite= other.fDefinite[i];
+
+			long unused= ~read & ~write;
+			long writePotential= ~read & write & ~definite;
+			long otherReadOnly= otherRead & ~otherWrite;
+			long otherWriteDefinite= ~otherRead & otherWrite & otherDefinite;
+			// a read supersedes a potential write even if the read is potential as well
+			long replace= unused | (writePotential & (otherReadOnly | otherWriteDefinite));
+			replace(i, replace, otherRead, otherWrite, otherDefinite);
+		}
+	}
+
+	/**
+	 * Merges the modes of a statement that is executed after the statements of these modes, when
+	 * computing the return values of an extracted method.
+	 *
+	 * @param other the modes of the statement that is executed next
+	 */
+	public void mergeReturnValues(AccessModes other) {
+		for (int i= 0; i < fRead.length; i++) {
+			long read= fRead[i];
+			long write= fWrite[i];
+			long definite= fDefinite[i];
+			long otherRead= other.fRead[i];
+			long otherWrite= other.fWrite[i];
+			long otherDefinite= other.fDefinite[i];
+
+			long writeOnly= ~read & write;
+			long writePotential= writeOnly & ~definite;
+			long otherWriteDefinite= ~otherRead & otherWrite & otherDefinite;
+			long otherUsed= otherRead | otherWrite;
+			long replace= (writePotential & otherWriteDefinite) | (~writeOnly & otherUsed);
+			replace(i, replace, otherRead, otherWrite, otherDefinite);
+		}
+	}
+
+	private void replace(int word, long mask, long read, long write, long definite) {
+		fRead[word]= (fRead[word] & ~mask) | (read & mask);
+		fWrite[word]= (fWrite[word] & ~mask) | (write & mask);
+		fDefinite[word]= (fDefinite[word] & ~mask) | (definite & mask);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= fLength)
+			throw new ArrayIndexOutOfBoundsException(index);
+	}
+}
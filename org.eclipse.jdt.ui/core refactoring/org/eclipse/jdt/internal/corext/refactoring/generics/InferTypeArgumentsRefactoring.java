@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,14 +20,17 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IFile;
 
@@ -100,12 +103,18 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 
 	private static final String REWRITTEN= "InferTypeArgumentsRefactoring.rewritten"; //$NON-NLS-1$
 
+	/**
+	 * The default number of compilation units whose ASTs are held in memory at the same time.
+	 */
+	private static final int BATCH_SIZE= 150;
+
 	private TextChangeManager fChangeManager;
 	private IJavaElement[] fElements;
 	private InferTypeArgumentsTCModel fTCModel;
 
 	private boolean fAssumeCloneReturnsSameType;
 	private boolean fLeaveUnconstrainedRaw;
+	private int fBatchSize= BATCH_SIZE;
 
 	/**
 	 * Creates a new infer type arguments refactoring.
@@ -145,6 +154,18 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 		return fLeaveUnconstrainedRaw;
 	}
 
+	/**
+	 * Sets the number of compilation units whose ASTs are held in memory at the same time while
+	 * the type constraints are created.
+	 *
+	 * @param batchSize the number of compilation units, must be positive
+	 * @since 3.10
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0);
+		fBatchSize= batchSize;
+	}
+
 	/*
 	 * @see org.eclipse.ltk.core.refactoring.Refactoring#checkInitialConditions(org.eclipse.core.runtime.IProgressMonitor)
 	 */
@@ -174,56 +195,16 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 				IJavaElement[] javaElements= javaElementsList.toArray(new IJavaElement[javaElementsList.size()]);
 				List<ICompilationUnit> cus= Arrays.asList(JavaModelUtil.getAllCompilationUnits(javaElements));
 
-				int batchSize= 150;
-				int batches= ((cus.size()-1) / batchSize) + 1;
+				List<ICompilationUnit[]> batches= new ArrayList<ICompilationUnit[]>();
+				for (int i= 0; i < cus.size(); i+= fBatchSize) {
+					List<ICompilationUnit> batch= cus.subList(i, Math.min(cus.size(), i + fBatchSize));
+					batches.add(batch.toArray(new ICompilationUnit[batch.size()]));
+				}
 				SubProgressMonitor projectMonitor= new SubProgressMonitor(pm, 1);
-				projectMonitor.beginTask("", batches); //$NON-NLS-1$
+				projectMonitor.beginTask("", batches.size()); //$NON-NLS-1$
 				projectMonitor.setTaskName(RefactoringCoreMessages.InferTypeArgumentsRefactoring_building);
-				for (int i= 0; i < batches; i++) {
-					List<ICompilationUnit> batch= cus.subList(i * batchSize, Math.min(cus.size(), (i + 1) * batchSize));
-					ICompilationUnit[] batchCus= batch.toArray(new ICompilationUnit[batch.size()]);
-					final SubProgressMonitor batchMonitor= new SubProgressMonitor(projectMonitor, 1);
-					batchMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
-
-					ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
-					parser.setProject(project);
-					parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(project));
-					parser.setResolveBindings(true);
-					parser.createASTs(batchCus, new String[0], new ASTRequestor() {
-						@Override
-						public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
-							batchMonitor.subTask(BasicElementLabels.getFileName(source));
-
-							SafeRunner.run(new ISafeRunnable() {
-								public void run() throws Exception {
-									IProblem[] problems= ast.getProblems();
-									for (int p= 0; p < problems.length; p++) {
-										if (problems[p].isError()) {
-											String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
-											String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_in_cu_skipped, new Object[] {cuName});
-											result.addError(msg, JavaStatusContext.create(source, SourceRangeFactory.create(problems[p])));
-											return;
-										}
-									}
-									ast.accept(unitCollector);
-								}
-								public void handleException(Throwable exception) {
-									String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
-									String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_internal_error, new Object[] {cuName});
-									JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, msg, null));
-									String msg2= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_skipped, new Object[] {cuName});
-									result.addError(msg2, JavaStatusContext.create(source));
-								}
-							});
-
-							fTCModel.newCu();
-						}
-						@Override
-						public void acceptBinding(String bindingKey, IBinding binding) {
-							//do nothing
-						}
-					}, batchMonitor);
-				}
+				projectMonitor.subTask(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
+				new ConstraintCreation(project, unitCollector, result).run(batches, projectMonitor);
 
 				projectMonitor.done();
 				fTCModel.newCu();
@@ -252,6 +233,235 @@ public class InferTypeArgumentsRefactoring extends Refactoring {
 		}
 	}
 
+	/**
+	 * Creates the type constraints of the compilation units of a project. Every batch of
+	 * compilation units is split into interleaved slices, which are parsed by jobs in parallel, so
+	 * that no more ASTs are held in memory than for a sequential creation of the batch. The
+	 * constraints are created while the ASTs are reported, so that the bindings are still valid.
+	 * Constraint creation is serialized in the order of the compilation units, because the type
+	 * constraints model is not thread safe and its result must not depend on the scheduling of
+	 * the jobs, but it overlaps with the binding resolution of the following units.
+	 */
+	private class ConstraintCreation {
+
+		private static final int MAX_JOBS= 4;
+
+		private class SliceJob extends Job {
+			private final ICompilationUnit[] fSlice;
+			private final int fSliceIndex;
+
+			public SliceJob(ICompilationUnit[] slice, int sliceIndex) {
+				super(RefactoringCoreMessages.InferTypeArgumentsRefactoring_calculating_dependencies);
+				fSlice= slice;
+				fSliceIndex= sliceIndex;
+				setSystem(true);
+			}
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					parse(fSlice, fSliceIndex);
+				} catch (Throwable e) {
+					setException(e);
+				} finally {
+					sliceDone(fSliceIndex);
+				}
+				return Status.OK_STATUS;
+			}
+		}
+
+		private final IJavaProject fProject;
+		private final InferTypeArgumentsConstraintCreator fUnitCollector;
+		private final RefactoringStatus fResult;
+
+		/** Forwards cancellation to the parsers, all other progress is reported by the calling thread */
+		private final IProgressMonitor fCancelMonitor= new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return isStopped();
+			}
+		};
+
+		/*
+		 * The n-th unit of slice s is at position n * fSliceCount + s of the current batch.
+		 */
+		private int fSliceCount;
+		private int fBatchLength;
+		/** The position of the next unit whose constraints are created */
+		private int fNextPosition;
+		/** For each slice, the number of units whose constraints have been created */
+		private int[] fCreatedCounts;
+		private boolean[] fSliceDone;
+		private int fRunningJobs;
+
+		private boolean fStopped;
+		private Throwable fException;
+		private String fCurrentFile;
+
+		ConstraintCreation(IJavaProject project, InferTypeArgumentsConstraintCreator unitCollector, RefactoringStatus result) {
+			fProject= project;
+			fUnitCollector= unitCollector;
+			fResult= result;
+		}
+
+		void run(List<ICompilationUnit[]> batches, IProgressMonitor monitor) throws CoreException {
+			for (Iterator<ICompilationUnit[]> iter= batches.iterator(); iter.hasNext();) {
+				run(iter.next(), monitor);
+				monitor.worked(1);
+			}
+		}
+
+		private void run(ICompilationUnit[] batch, IProgressMonitor monitor) throws CoreException {
+			int sliceCount= Math.min(batch.length, Math.min(MAX_JOBS, Runtime.getRuntime().availableProcessors()));
+			synchronized (this) {
+				fSliceCount= sliceCount;
+				fBatchLength= batch.length;
+				fNextPosition= 0;
+				fCreatedCounts= new int[sliceCount];
+				fSliceDone= new boolean[sliceCount];
+				fRunningJobs= sliceCount;
+			}
+			for (int s= 0; s < sliceCount; s++) {
+				ICompilationUnit[] slice= new ICompilationUnit[(batch.length - s + sliceCount - 1) / sliceCount];
+				for (int n= 0; n < slice.length; n++) {
+					slice[n]= batch[n * sliceCount + s];
+				}
+				new SliceJob(slice, s).schedule();
+			}
+
+			String reportedFile= null;
+			synchronized (this) {
+				while (fRunningJobs > 0) {
+					if (monitor.isCanceled()) {
+						fStopped= true;
+						notifyAll();
+					}
+					try {
+						wait(100);
+					} catch (InterruptedException e) {
+						// check for cancellation
+					}
+					if (fCurrentFile != null && !fCurrentFile.equals(reportedFile)) {
+						reportedFile= fCurrentFile;
+						monitor.subTask(reportedFile);
+					}
+				}
+			}
+
+			if (fException instanceof OperationCanceledException || monitor.isCanceled())
+				throw new OperationCanceledException();
+			if (fException instanceof CoreException)
+				throw (CoreException) fException;
+			if (fException instanceof RuntimeException)
+				throw (RuntimeException) fException;
+			if (fException instanceof Error)
+				throw (Error) fException;
+		}
+
+		private void parse(ICompilationUnit[] slice, final int sliceIndex) {
+			ASTParser parser= ASTParser.newParser(ASTProvider.SHARED_AST_LEVEL);
+			parser.setProject(fProject);
+			parser.setCompilerOptions(RefactoringASTParser.getCompilerOptions(fProject));
+			parser.setResolveBindings(true);
+			parser.createASTs(slice, new String[0], new ASTRequestor() {
+				@Override
+				public void acceptAST(final ICompilationUnit source, final CompilationUnit ast) {
+					waitForTurn(sliceIndex);
+					setCurrentFile(BasicElementLabels.getFileName(source));
+
+					SafeRunner.run(new ISafeRunnable() {
+						public void run() throws Exception {
+							IProblem[] problems= ast.getProblems();
+							for (int p= 0; p < problems.length; p++) {
+								if (problems[p].isError()) {
+									String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
+									String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_in_cu_skipped, new Object[] {cuName});
+									fResult.addError(msg, JavaStatusContext.create(source, SourceRangeFactory.create(problems[p])));
+									return;
+								}
+							}
+							ast.accept(fUnitCollector);
+						}
+						public void handleException(Throwable exception) {
+							String cuName= JavaElementLabels.getElementLabel(source, JavaElementLabels.CU_QUALIFIED);
+							String msg= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_internal_error, new Object[] {cuName});
+							JavaPlugin.log(new Status(IStatus.ERROR, JavaPlugin.getPluginId(), IJavaStatusConstants.INTERNAL_ERROR, msg, null));
+							String msg2= Messages.format(RefactoringCoreMessages.InferTypeArgumentsRefactoring_error_skipped, new Object[] {cuName});
+							fResult.addError(msg2, JavaStatusContext.create(source));
+						}
+					});
+
+					fTCModel.newCu();
+					created(sliceIndex);
+				}
+				@Override
+				public void acceptBinding(String bindingKey, IBinding binding) {
+					//do nothing
+				}
+			}, fCancelMonitor);
+		}
+
+		/**
+		 * Waits until the constraints of all units before the next unit of the given slice have
+		 * been created.
+		 *
+		 * @param sliceIndex the slice
+		 */
+		private synchronized void waitForTurn(int sliceIndex) {
+			int position= fCreatedCounts[sliceIndex] * fSliceCount + sliceIndex;
+			while (fNextPosition != position) {
+				if (fStopped)
+					throw new OperationCanceledException();
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					// check again
+				}
+			}
+		}
+
+		private synchronized void created(int sliceIndex) {
+			fCreatedCounts[sliceIndex]++;
+			fNextPosition++;
+			skipUnreported();
+			notifyAll();
+		}
+
+		private synchronized void sliceDone(int sliceIndex) {
+			fSliceDone[sliceIndex]= true;
+			fRunningJobs--;
+			skipUnreported();
+			notifyAll();
+		}
+
+		/**
+		 * Skips the units of finished slices that have not been reported by the parser.
+		 */
+		private void skipUnreported() {
+			while (fNextPosition < fBatchLength) {
+				int sliceIndex= fNextPosition % fSliceCount;
+				if (!fSliceDone[sliceIndex] || fNextPosition / fSliceCount < fCreatedCounts[sliceIndex])
+					return;
+				fNextPosition++;
+			}
+		}
+
+		private synchronized boolean isStopped() {
+			return fStopped;
+		}
+
+		private synchronized void setCurrentFile(String fileName) {
+			fCurrentFile= fileName;
+		}
+
+		private synchronized void setException(Throwable exception) {
+			if (fException == null)
+				fException= exception;
+			fStopped= true;
+			notifyAll();
+		}
+	}
+
 	private void clearGlobalState() {
 		TypeSet.resetCount();
 		EnumeratedTypeSet.resetCount();
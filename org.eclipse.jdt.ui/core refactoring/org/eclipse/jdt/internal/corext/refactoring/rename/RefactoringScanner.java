@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,8 @@ import org.eclipse.jdt.core.compiler.IScanner;
 import org.eclipse.jdt.core.compiler.ITerminalSymbols;
 import org.eclipse.jdt.core.compiler.InvalidInputException;
 
+import org.eclipse.jdt.internal.corext.refactoring.util.MultiStringMatcher;
+
 
 public class RefactoringScanner {
 
@@ -33,10 +35,12 @@ public class RefactoringScanner {
 
 		private int fStartPosition;
 		private boolean fQualified;
+		private int fNameIndex;
 
-		private TextMatch(int startPosition, boolean qualified) {
+		private TextMatch(int startPosition, boolean qualified, int nameIndex) {
 			fStartPosition= startPosition;
 			fQualified= qualified;
+			fNameIndex= nameIndex;
 		}
 
 		/**
@@ -49,20 +53,43 @@ public class RefactoringScanner {
 		public boolean isQualified() {
 			return fQualified;
 		}
+
+		/**
+		 * @return the index of the name that has been found, <code>0</code> if the scanner
+		 *         searches for a single name
+		 */
+		public int getNameIndex() {
+			return fNameIndex;
+		}
 	}
 
-	private final String fName;
-	private final String fQualifier;
+	private final String[] fNames;
+	private final String[] fQualifiers;
+	private final MultiStringMatcher fMatcher;
 
 	private IScanner fScanner;
 	private Set<TextMatch> fMatches; //Set<TextMatch>
 
 
 	public RefactoringScanner(String name, String qualifier) {
-		Assert.isNotNull(name);
-		Assert.isNotNull(qualifier);
-		fName= name;
-		fQualifier= qualifier;
+		this(new String[] { name }, new String[] { qualifier });
+	}
+
+	/**
+	 * Creates a scanner that finds several names in one pass over the text.
+	 *
+	 * @param names the names to find
+	 * @param qualifiers the qualifiers of the names, in the same order
+	 */
+	public RefactoringScanner(String[] names, String[] qualifiers) {
+		Assert.isTrue(names.length == qualifiers.length);
+		for (int i= 0; i < names.length; i++) {
+			Assert.isNotNull(names[i]);
+			Assert.isNotNull(qualifiers[i]);
+		}
+		fNames= names;
+		fQualifiers= qualifiers;
+		fMatcher= new MultiStringMatcher(names);
 	}
 
 	public void scan(ICompilationUnit cu)	throws JavaModelException {
@@ -134,20 +161,20 @@ public class RefactoringScanner {
 
 	private void parseCurrentToken() {
 		// only works for references without whitespace
-		String value = new String(fScanner.getRawTokenSource());
-		int start= fScanner.getCurrentTokenStartPosition();
-		int index= value.indexOf(fName);
-		while (index != -1) {
-			if (isWholeWord(value, index, index + fName.length())) {
-				int ok= isQualifierOK(value, index);
-				if (ok > NO_MATCH)
-					addMatch(start + index, ok);
+		final String value = new String(fScanner.getRawTokenSource());
+		final int start= fScanner.getCurrentTokenStartPosition();
+		fMatcher.match(value, new MultiStringMatcher.Requestor() {
+			public void acceptMatch(int index, int nameIndex) {
+				if (isWholeWord(value, index, index + fNames[nameIndex].length())) {
+					int ok= isQualifierOK(value, index, fQualifiers[nameIndex]);
+					if (ok > NO_MATCH)
+						addMatch(start + index, ok, nameIndex);
+				}
 			}
-			index= value.indexOf(fName, index + 1);
-		}
+		});
 	}
 
-	private int isQualifierOK(String value, int nameStart) {
+	private int isQualifierOK(String value, int nameStart, String qualifier) {
 		// only works for references without whitespace
 		int qualifierAfter= nameStart - 1;
 		if (qualifierAfter < 0)
@@ -161,21 +188,21 @@ public class RefactoringScanner {
 
 		boolean canFinish= charBeforeName == '#';
 		// work through the qualifier from back to front
-		for (int i= 0; i < fQualifier.length() ; i++) {
+		for (int i= 0; i < qualifier.length() ; i++) {
 			int qualifierCharPos= qualifierAfter - 1 - i;
 			if (qualifierCharPos < 0)
 				// the position does not exist, return OK if last read char was a non-separator
 				return canFinish ? MATCH_UNQUALIFIED : NO_MATCH;
 
 			char qualifierChar= value.charAt(qualifierCharPos);
-			char goalQualifierChar= fQualifier.charAt(fQualifier.length() - 1 - i);
+			char goalQualifierChar= qualifier.charAt(qualifier.length() - 1 - i);
 			if (qualifierChar != goalQualifierChar)
 				// the chars do not match. return OK if last read char was a non-separator and the current one a non-qualifier
 				return (canFinish && !isQualifierPart(qualifierChar)) ? MATCH_UNQUALIFIED : NO_MATCH;
 
 			canFinish= ! isQualifierSeparator(qualifierChar);
 		}
-		int beforeQualifierPos= qualifierAfter - fQualifier.length() - 1;
+		int beforeQualifierPos= qualifierAfter - qualifier.length() - 1;
 		if (beforeQualifierPos >= 0) {
 			char beforeQualifierChar= value.charAt(beforeQualifierPos);
 			if (Character.isJavaIdentifierPart(beforeQualifierChar)) {
@@ -208,8 +235,8 @@ public class RefactoringScanner {
 		return ".#".indexOf(c) != -1; //$NON-NLS-1$
 	}
 
-	private void addMatch(int matchStart, int matchCode) {
-		fMatches.add(new TextMatch(matchStart, matchCode == MATCH_QUALIFIED));
+	private void addMatch(int matchStart, int matchCode, int nameIndex) {
+		fMatches.add(new TextMatch(matchStart, matchCode == MATCH_QUALIFIED, nameIndex));
 	}
 
 	/**
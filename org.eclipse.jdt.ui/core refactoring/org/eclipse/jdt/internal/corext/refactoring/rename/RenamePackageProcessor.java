@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -428,8 +428,10 @@ public class RenamePackageProcessor extends JavaRenameProcessor implements
 				TextMatchUpdater.perform(new SubProgressMonitor(pm, 10), RefactoringScopeFactory.create(fPackage), this, fChangeManager, new SearchResultGroup[0]);
 			}
 
-			if (fUpdateQualifiedNames)
+			if (fUpdateQualifiedNames) {
 				computeQualifiedNameMatches(new SubProgressMonitor(pm, 10));
+				result.merge(fQualifiedNameSearchResult.getStatus());
+			}
 
 			return result;
 		} finally{
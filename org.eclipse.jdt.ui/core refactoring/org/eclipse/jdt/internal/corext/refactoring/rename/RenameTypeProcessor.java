@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -558,8 +558,10 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 
 			createChanges(new SubProgressMonitor(pm, createChangeTicks));
 
-			if (fUpdateQualifiedNames)
+			if (fUpdateQualifiedNames) {
 				computeQualifiedNameMatches(new SubProgressMonitor(pm, qualifiedNamesTicks));
+				result.merge(fQualifiedNameSearchResult.getStatus());
+			}
 
 			return result;
 		} finally {
@@ -1700,15 +1702,28 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 			}
 		}
 
+		// all fields are updated in one pass over the compilation units
+		final List<IField> fields= new ArrayList<IField>();
 		for (Iterator<IJavaElement> iter= fFinalSimilarElementToName.keySet().iterator(); iter.hasNext();) {
 			final IJavaElement element= iter.next();
-			if (element instanceof IField) {
-				final IField field= (IField) element;
-				final String newName= fFinalSimilarElementToName.get(field);
-				TextMatchUpdater.perform(monitor, RefactoringScopeFactory.create(field), field.getElementName(), field.getDeclaringType().getFullyQualifiedName(), newName, manager,
-						new SearchResultGroup[0], forbiddenSimpleNames.contains(field.getElementName()));
-			}
+			if (element instanceof IField)
+				fields.add((IField) element);
+		}
+		final int count= fields.size();
+		final IJavaSearchScope[] scopes= new IJavaSearchScope[count];
+		final String[] currentNames= new String[count];
+		final String[] currentQualifiers= new String[count];
+		final String[] newNames= new String[count];
+		final boolean[] onlyQualified= new boolean[count];
+		for (int i= 0; i < count; i++) {
+			final IField field= fields.get(i);
+			scopes[i]= RefactoringScopeFactory.create(field);
+			currentNames[i]= field.getElementName();
+			currentQualifiers[i]= field.getDeclaringType().getFullyQualifiedName();
+			newNames[i]= fFinalSimilarElementToName.get(field);
+			onlyQualified[i]= forbiddenSimpleNames.contains(field.getElementName());
 		}
+		TextMatchUpdater.perform(monitor, scopes, currentNames, currentQualifiers, newNames, manager, onlyQualified);
 	}
 
 	// ------ UI interaction
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,6 +58,9 @@ public class RippleMethodFinder2 {
 	private Map<IType, ITypeHierarchy> fRootHierarchies;
 	private UnionFind fUnionFind;
 
+	/** Hierarchies of related and alien types that are not covered by the root hierarchies */
+	private List<ITypeHierarchy> fOtherHierarchies;
+
 	private final boolean fExcludeBinaries;
 	private final ReferencesInBinaryContext fBinaryRefs;
 	private Map<IMethod, SearchMatch> fDeclarationToMatch;
@@ -256,9 +259,7 @@ public class RippleMethodFinder2 {
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
 				IType relatedType= iter.next();
-				ITypeHierarchy hierarchy= getCachedHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
-				if (hierarchy == null)
-					hierarchy= relatedType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+				ITypeHierarchy hierarchy= getSubtypeHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
 				IType[] allSubTypes= hierarchy.getAllSubtypes(relatedType);
 				for (int i= 0; i < allSubTypes.length; i++)
 					relatedSubTypes.add(allSubTypes[i]);
@@ -271,9 +272,7 @@ public class RippleMethodFinder2 {
 					throw new OperationCanceledException();
 				IType alienType= iter.next();
 				IMethod alienMethod= fTypeToMethod.get(alienType);
-				ITypeHierarchy hierarchy= getCachedHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
-				if (hierarchy == null)
-					hierarchy= alienType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+				ITypeHierarchy hierarchy= getSubtypeHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
 				IType[] allSubtypes= hierarchy.getAllSubtypes(alienType);
 				for (int i= 0; i < allSubtypes.length; i++) {
 					IType subtype= allSubtypes[i];
@@ -304,6 +303,7 @@ public class RippleMethodFinder2 {
 
 		fRootReps= null;
 		fRootHierarchies= null;
+		fOtherHierarchies= null;
 		fTypeToMethod= null;
 		fUnionFind= null;
 
@@ -318,7 +318,7 @@ public class RippleMethodFinder2 {
 				IType root= iter.next();
 				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
 				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+					hierarchy= newTypeHierarchy(root, owner, new SubProgressMonitor(monitor, 1));
 					fRootHierarchies.put(root, hierarchy);
 				}
 				if (hierarchy.contains(type))
@@ -328,6 +328,39 @@ public class RippleMethodFinder2 {
 		return null;
 	}
 
+	/**
+	 * Returns a hierarchy that contains all subtypes of the given type. Hierarchies are only
+	 * created if none of the hierarchies that have already been computed contains the subtypes.
+	 *
+	 * @param type the type
+	 * @param owner the working copy owner
+	 * @param monitor the progress monitor
+	 * @return the hierarchy
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	private ITypeHierarchy getSubtypeHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+		ITypeHierarchy hierarchy= getCachedHierarchy(type, owner, monitor);
+		if (hierarchy != null)
+			return hierarchy;
+		for (Iterator<ITypeHierarchy> iter= fOtherHierarchies.iterator(); iter.hasNext();) {
+			ITypeHierarchy other= iter.next();
+			if (TypeHierarchyCache.containsSubtypes(other, type))
+				return other;
+		}
+		if (owner == null)
+			hierarchy= TypeHierarchyCache.getDefault().getSubtypeHierarchy(type);
+		if (hierarchy == null)
+			hierarchy= newTypeHierarchy(type, owner, monitor);
+		fOtherHierarchies.add(hierarchy);
+		return hierarchy;
+	}
+
+	private static ITypeHierarchy newTypeHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+		if (owner == null)
+			return TypeHierarchyCache.getDefault().getTypeHierarchy(type, monitor);
+		return type.newTypeHierarchy(owner, monitor);
+	}
+
 	private void findAllDeclarations(IProgressMonitor monitor, WorkingCopyOwner owner) throws CoreException {
 		fDeclarations= new ArrayList<IMethod>();
 
@@ -357,6 +390,13 @@ public class RippleMethodFinder2 {
 	}
 
 	private void createHierarchyOfDeclarations(IProgressMonitor pm, WorkingCopyOwner owner) throws JavaModelException {
+		if (owner == null) {
+			Set<IType> declaringTypes= new HashSet<IType>();
+			for (Iterator<IMethod> iter= fDeclarations.iterator(); iter.hasNext();)
+				declaringTypes.add(iter.next().getDeclaringType());
+			fHierarchy= TypeHierarchyCache.getDefault().getRegionHierarchy(declaringTypes, pm);
+			return;
+		}
 		IRegion region= JavaCore.newRegion();
 		for (Iterator<IMethod> iter= fDeclarations.iterator(); iter.hasNext();) {
 			IType declaringType= iter.next().getDeclaringType();
@@ -392,6 +432,7 @@ public class RippleMethodFinder2 {
 				fRootReps.put(rep, type);
 		}
 		fRootHierarchies= new HashMap<IType, ITypeHierarchy>();
+		fOtherHierarchies= new ArrayList<ITypeHierarchy>();
 	}
 
 	private void uniteWithSupertypes(IType anchor, IType type) throws JavaModelException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,35 +58,60 @@ class TextMatchUpdater {
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_name,
 			RefactoringCoreMessages.TextMatchUpdater_textualMatches_description));
 
-	private final IJavaSearchScope fScope;
+	/** The scopes of the names, in the same order as the names */
+	private final IJavaSearchScope[] fScopes;
 	private final TextChangeManager fManager;
 	private final SearchResultGroup[] fReferences;
-	private final boolean fOnlyQualified;
+	private final boolean[] fOnlyQualified;
 
 	private final RefactoringScanner fScanner;
-	private final String fNewName;
-	private final int fCurrentNameLength;
+	private final String[] fNewNames;
+	private final String[] fCurrentNames;
 
-	private TextMatchUpdater(TextChangeManager manager, IJavaSearchScope scope, String currentName, String currentQualifier, String newName, SearchResultGroup[] references, boolean onlyQualified){
+	private TextMatchUpdater(TextChangeManager manager, IJavaSearchScope[] scopes, String[] currentNames, String[] currentQualifiers, String[] newNames, SearchResultGroup[] references, boolean[] onlyQualified){
 		Assert.isNotNull(manager);
-		Assert.isNotNull(scope);
 		Assert.isNotNull(references);
+		Assert.isTrue(scopes.length == currentNames.length && newNames.length == currentNames.length && onlyQualified.length == currentNames.length);
+		for (int i= 0; i < scopes.length; i++)
+			Assert.isNotNull(scopes[i]);
 		fManager= manager;
-		fScope= scope;
+		fScopes= scopes;
 		fReferences= references;
 		fOnlyQualified= onlyQualified;
 
-		fNewName= newName;
-		fCurrentNameLength= currentName.length();
-		fScanner= new RefactoringScanner(currentName, currentQualifier);
+		fNewNames= newNames;
+		fCurrentNames= currentNames;
+		fScanner= new RefactoringScanner(currentNames, currentQualifiers);
 	}
 
 	static void perform(IProgressMonitor pm, IJavaSearchScope scope, String currentName, String currentQualifier, String newName, TextChangeManager manager, SearchResultGroup[] references, boolean onlyQualified) throws JavaModelException{
-		new TextMatchUpdater(manager, scope, currentName, currentQualifier, newName, references, onlyQualified).updateTextMatches(pm);
+		new TextMatchUpdater(manager, new IJavaSearchScope[] { scope }, new String[] { currentName }, new String[] { currentQualifier }, new String[] { newName }, references, new boolean[] { onlyQualified }).updateTextMatches(pm);
 	}
 
 	static void perform(IProgressMonitor pm, IJavaSearchScope scope, ITextUpdating processor, TextChangeManager manager, SearchResultGroup[] references) throws JavaModelException{
-		new TextMatchUpdater(manager, scope, processor.getCurrentElementName(), processor.getCurrentElementQualifier(), processor.getNewElementName(), references, false).updateTextMatches(pm);
+		perform(pm, scope, processor.getCurrentElementName(), processor.getCurrentElementQualifier(), processor.getNewElementName(), manager, references, false);
+	}
+
+	/**
+	 * Updates the textual matches of several elements. Each compilation unit is scanned once for
+	 * all names, a match of a name is only updated if the compilation unit is in the scope of the
+	 * name.
+	 *
+	 * @param pm the progress monitor
+	 * @param scopes the scopes of the names
+	 * @param currentNames the current names
+	 * @param currentQualifiers the qualifiers of the current names
+	 * @param newNames the new names
+	 * @param manager the text change manager to add the updates to
+	 * @param onlyQualified for each name, whether only qualified matches are updated
+	 * @throws JavaModelException if a compilation unit could not be read
+	 */
+	static void perform(IProgressMonitor pm, IJavaSearchScope[] scopes, String[] currentNames, String[] currentQualifiers, String[] newNames, TextChangeManager manager, boolean[] onlyQualified) throws JavaModelException{
+		if (currentNames.length == 0) {
+			pm.done();
+			return;
+		}
+		new TextMatchUpdater(manager, scopes, currentNames, currentQualifiers, newNames, new SearchResultGroup[0], onlyQualified).updateTextMatches(pm);
 	}
 
 	private void updateTextMatches(IProgressMonitor pm) throws JavaModelException {
@@ -106,9 +131,9 @@ class TextMatchUpdater {
 	}
 
 	private IProject[] getProjectsInScope() {
-		IPath[] enclosingProjects= fScope.enclosingProjectsAndJars();
 		Set<IPath> enclosingProjectSet= new HashSet<IPath>();
-		enclosingProjectSet.addAll(Arrays.asList(enclosingProjects));
+		for (int i= 0; i < fScopes.length; i++)
+			enclosingProjectSet.addAll(Arrays.asList(fScopes[i].enclosingProjectsAndJars()));
 
 		ArrayList<IProject> projectsInScope= new ArrayList<IProject>();
 		IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
@@ -130,9 +155,10 @@ class TextMatchUpdater {
 					return;
 				if (! element.exists())
 					return;
-				if (! fScope.encloses(element))
+				boolean[] enclosed= getEnclosingScopes(element);
+				if (enclosed == null)
 					return;
-				addCuTextMatches((ICompilationUnit) element);
+				addCuTextMatches((ICompilationUnit) element, enclosed);
 
 			} else if (resource instanceof IContainer){
 				IResource[] members= ((IContainer) resource).members();
@@ -154,9 +180,28 @@ class TextMatchUpdater {
 		}
 	}
 
-	private void addCuTextMatches(ICompilationUnit cu) throws JavaModelException{
+	/**
+	 * @param element the element
+	 * @return for each name, whether its scope encloses the element, or <code>null</code> if no
+	 *         scope encloses the element
+	 */
+	private boolean[] getEnclosingScopes(IJavaElement element) {
+		boolean[] enclosed= new boolean[fScopes.length];
+		boolean any= false;
+		for (int i= 0; i < fScopes.length; i++) {
+			enclosed[i]= fScopes[i].encloses(element);
+			any|= enclosed[i];
+		}
+		return any ? enclosed : null;
+	}
+
+	private void addCuTextMatches(ICompilationUnit cu, boolean[] enclosed) throws JavaModelException{
 		fScanner.scan(cu);
 		Set<TextMatch> matches= fScanner.getMatches(); //Set of TextMatch
+		for (Iterator<TextMatch> iter= matches.iterator(); iter.hasNext();) {
+			if (!enclosed[iter.next().getNameIndex()])
+				iter.remove();
+		}
 		if (matches.size() == 0)
 			return;
 
@@ -178,10 +223,10 @@ class TextMatchUpdater {
 		SearchMatch[] searchResults= group.getSearchResults();
 		for (int r= 0; r < searchResults.length; r++) {
 			//int start= searchResults[r].getStart(); // doesn't work for pack.ReferencedType
-			int unqualifiedStart= searchResults[r].getOffset() + searchResults[r].getLength() - fCurrentNameLength;
+			int end= searchResults[r].getOffset() + searchResults[r].getLength();
 			for (Iterator<TextMatch> iter= matches.iterator(); iter.hasNext();) {
 				TextMatch element= iter.next();
-				if (element.getStartPosition() == unqualifiedStart)
+				if (element.getStartPosition() == end - fCurrentNames[element.getNameIndex()].length())
 					iter.remove();
 			}
 		}
@@ -190,10 +235,11 @@ class TextMatchUpdater {
 	private void addTextUpdates(ICompilationUnit cu, Set<TextMatch> matches) {
 		for (Iterator<TextMatch> resultIter= matches.iterator(); resultIter.hasNext();){
 			TextMatch match= resultIter.next();
-			if (!match.isQualified() && fOnlyQualified)
+			int nameIndex= match.getNameIndex();
+			if (!match.isQualified() && fOnlyQualified[nameIndex])
 				continue;
 			int matchStart= match.getStartPosition();
-			ReplaceEdit edit= new ReplaceEdit(matchStart, fCurrentNameLength, fNewName);
+			ReplaceEdit edit= new ReplaceEdit(matchStart, fCurrentNames[nameIndex].length(), fNewNames[nameIndex]);
 			try {
 				TextChangeCompatibility.addTextEdit(fManager.get(cu), TEXT_EDIT_LABEL, edit, TEXTUAL_MATCHES);
 			} catch (MalformedTreeException e) {
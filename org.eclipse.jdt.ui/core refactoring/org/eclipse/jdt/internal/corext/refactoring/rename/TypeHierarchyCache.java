@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.rename;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IRegion;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+
+/**
+ * Caches the type hierarchies that {@link RippleMethodFinder2} computes for the primary working
+ * copy owner, so that consecutive ripple computations (e.g. for the similarly named methods of a
+ * type rename, or for the initial and final condition checks of a method refactoring) share them.
+ * <p>
+ * The cache keeps the most recently used hierarchies only, and is flushed on every change of the
+ * Java model, including changes of working copies.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class TypeHierarchyCache {
+
+	private static final int MAX_SIZE= 10;
+
+	private static TypeHierarchyCache fgDefault;
+
+	/**
+	 * Incremented on every change, so that hierarchies that have been computed before a change
+	 * are not cached after the change.
+	 */
+	private int fGeneration;
+
+	private final IElementChangedListener fListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			clear();
+		}
+	};
+
+	/**
+	 * Map from focus type or set of region types to the hierarchy, in access order.
+	 */
+	private final Map<Object, ITypeHierarchy> fHierarchies= new LinkedHashMap<Object, ITypeHierarchy>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, ITypeHierarchy> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	/**
+	 * @return the cache, which starts to track the Java model when it is first requested
+	 */
+	public static synchronized TypeHierarchyCache getDefault() {
+		if (fgDefault == null) {
+			fgDefault= new TypeHierarchyCache();
+			JavaCore.addElementChangedListener(fgDefault.fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Stops tracking the Java model and drops the cached hierarchies.
+	 */
+	public static synchronized void shutdown() {
+		if (fgDefault != null) {
+			JavaCore.removeElementChangedListener(fgDefault.fListener);
+			fgDefault= null;
+		}
+	}
+
+	private TypeHierarchyCache() {
+	}
+
+	private synchronized void clear() {
+		fHierarchies.clear();
+		fGeneration++;
+	}
+
+	/**
+	 * Returns the hierarchy of the given type.
+	 *
+	 * @param type the focus type
+	 * @param pm the progress monitor
+	 * @return the hierarchy of the type
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor pm) throws JavaModelException {
+		ITypeHierarchy hierarchy= get(type);
+		if (hierarchy == null) {
+			int generation= getGeneration();
+			hierarchy= type.newTypeHierarchy(pm);
+			put(type, hierarchy, generation);
+		}
+		return hierarchy;
+	}
+
+	/**
+	 * Returns a cached hierarchy that contains all subtypes of the given type.
+	 *
+	 * @param type the type
+	 * @return a hierarchy that contains the type and all its subtypes, or <code>null</code> if no
+	 *         such hierarchy is cached
+	 */
+	public synchronized ITypeHierarchy getSubtypeHierarchy(IType type) {
+		ITypeHierarchy hierarchy= fHierarchies.get(type);
+		if (hierarchy != null)
+			return hierarchy;
+		for (Iterator<ITypeHierarchy> iter= fHierarchies.values().iterator(); iter.hasNext();) {
+			hierarchy= iter.next();
+			if (containsSubtypes(hierarchy, type))
+				return hierarchy;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the hierarchy of the region that consists of the given types.
+	 *
+	 * @param types the types of the region
+	 * @param pm the progress monitor
+	 * @return the hierarchy of the region
+	 * @throws JavaModelException if the hierarchy could not be computed
+	 */
+	public ITypeHierarchy getRegionHierarchy(Set<IType> types, IProgressMonitor pm) throws JavaModelException {
+		Set<IType> key= new HashSet<IType>(types);
+		ITypeHierarchy hierarchy= get(key);
+		if (hierarchy == null) {
+			int generation= getGeneration();
+			IRegion region= JavaCore.newRegion();
+			for (Iterator<IType> iter= types.iterator(); iter.hasNext();)
+				region.add(iter.next());
+			hierarchy= JavaCore.newTypeHierarchy(region, null, pm);
+			put(key, hierarchy, generation);
+		}
+		return hierarchy;
+	}
+
+	/**
+	 * Tells whether the given hierarchy contains all subtypes of the given type. This is the case
+	 * if the type is the focus type of the hierarchy or one of its subtypes.
+	 *
+	 * @param hierarchy the hierarchy
+	 * @param type the type
+	 * @return <code>true</code> if the hierarchy contains all subtypes of the type
+	 */
+	static boolean containsSubtypes(ITypeHierarchy hierarchy, IType type) {
+		IType focus= hierarchy.getType();
+		if (focus == null || !hierarchy.contains(type))
+			return false;
+		if (focus.equals(type))
+			return true;
+		IType[] subtypes= hierarchy.getAllSubtypes(focus);
+		for (int i= 0; i < subtypes.length; i++) {
+			if (subtypes[i].equals(type))
+				return true;
+		}
+		return false;
+	}
+
+	private synchronized ITypeHierarchy get(Object key) {
+		return fHierarchies.get(key);
+	}
+
+	private synchronized int getGeneration() {
+		return fGeneration;
+	}
+
+	private synchronized void put(Object key, ITypeHierarchy hierarchy, int generation) {
+		if (generation == fGeneration)
+			fHierarchies.put(key, hierarchy);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -1282,8 +1283,10 @@ public final class ReorgPolicyFactory {
 				RefactoringStatus result= new RefactoringStatus();
 				confirmMovingReadOnly(reorgQueries);
 				fChangeManager= createChangeManager(new SubProgressMonitor(pm, 2), result);
-				if (fUpdateQualifiedNames)
+				if (fUpdateQualifiedNames) {
 					computeQualifiedNameMatches(new SubProgressMonitor(pm, 4));
+					result.merge(fQualifiedNameSearchResult.getStatus());
+				}
 				result.merge(super.checkFinalConditions(new SubProgressMonitor(pm, 1), context, reorgQueries));
 				return result;
 			} catch (JavaModelException e) {
@@ -1314,20 +1317,36 @@ public final class ReorgPolicyFactory {
 				return;
 			IPackageFragment destination= getDestinationAsPackageFragment();
 			if (destination != null) {
+				// collect the names per project, so that the files of each project are scanned once
+				Map<IProject, List<String[]>> namesByProject= new LinkedHashMap<IProject, List<String[]>>();
 				ICompilationUnit[] cus= getCus();
-				pm.beginTask("", cus.length); //$NON-NLS-1$
-				pm.subTask(RefactoringCoreMessages.MoveRefactoring_scanning_qualified_names);
 				for (int i= 0; i < cus.length; i++) {
-					ICompilationUnit cu= cus[i];
-					IType[] types= cu.getTypes();
-					IProgressMonitor typesMonitor= new SubProgressMonitor(pm, 1);
-					typesMonitor.beginTask("", types.length); //$NON-NLS-1$
+					IType[] types= cus[i].getTypes();
 					for (int j= 0; j < types.length; j++) {
-						handleType(types[j], destination, new SubProgressMonitor(typesMonitor, 1));
-						if (typesMonitor.isCanceled())
-							throw new OperationCanceledException();
+						IType type= types[j];
+						IProject project= type.getJavaProject().getProject();
+						List<String[]> names= namesByProject.get(project);
+						if (names == null) {
+							names= new ArrayList<String[]>();
+							namesByProject.put(project, names);
+						}
+						names.add(new String[] { type.getFullyQualifiedName(), destination.getElementName() + "." + type.getTypeQualifiedName() }); //$NON-NLS-1$
+					}
+				}
+				pm.beginTask("", namesByProject.size()); //$NON-NLS-1$
+				pm.subTask(RefactoringCoreMessages.MoveRefactoring_scanning_qualified_names);
+				for (Iterator<Map.Entry<IProject, List<String[]>>> iter= namesByProject.entrySet().iterator(); iter.hasNext();) {
+					Map.Entry<IProject, List<String[]>> entry= iter.next();
+					List<String[]> names= entry.getValue();
+					String[] patterns= new String[names.size()];
+					String[] newValues= new String[names.size()];
+					for (int i= 0; i < patterns.length; i++) {
+						patterns[i]= names.get(i)[0];
+						newValues[i]= names.get(i)[1];
 					}
-					typesMonitor.done();
+					QualifiedNameFinder.process(fQualifiedNameSearchResult, patterns, newValues, fFilePatterns, entry.getKey(), new SubProgressMonitor(pm, 1));
+					if (pm.isCanceled())
+						throw new OperationCanceledException();
 				}
 			}
 			pm.done();
@@ -1575,11 +1594,6 @@ public final class ReorgPolicyFactory {
 			return fUpdateReferences;
 		}
 
-		private void handleType(IType type, IPackageFragment destination, IProgressMonitor pm) {
-			QualifiedNameFinder.process(fQualifiedNameSearchResult, type.getFullyQualifiedName(), destination.getElementName() + "." + type.getTypeQualifiedName(), //$NON-NLS-1$
-					fFilePatterns, type.getJavaProject().getProject(), pm);
-		}
-
 		public boolean hasAllInputSet() {
 			if (getResourceDestination() == null && getJavaElementDestination() == null)
 				return false;
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.refactoring.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.Assert;
+
+
+/**
+ * Finds all occurrences of a set of strings in a text in a single pass over the text
+ * (Aho-Corasick).
+ * <p>
+ * A matcher can be used by several threads at the same time.
+ * </p>
+ */
+public class MultiStringMatcher {
+
+	/**
+	 * Receives the occurrences found by {@link MultiStringMatcher#match(CharSequence, Requestor)}.
+	 */
+	public interface Requestor {
+		/**
+		 * Called for each occurrence, in the order of the end offsets of the occurrences.
+		 *
+		 * @param offset the offset of the occurrence in the text
+		 * @param patternIndex the index of the string that has been found
+		 */
+		void acceptMatch(int offset, int patternIndex);
+	}
+
+	private static class Node {
+		private static final int[] NO_OUTPUTS= new int[0];
+
+		char[] fChars= new char[0];
+		Node[] fChildren= new Node[0];
+		Node fFailure;
+
+		/** The patterns that end at this node, including the ones of the failure nodes */
+		int[] fOutputs= NO_OUTPUTS;
+
+		Node getChild(char ch) {
+			char[] chars= fChars;
+			for (int i= 0; i < chars.length; i++) {
+				if (chars[i] == ch)
+					return fChildren[i];
+			}
+			return null;
+		}
+
+		Node addChild(char ch) {
+			Node child= getChild(ch);
+			if (child == null) {
+				int length= fChars.length;
+				char[] chars= new char[length + 1];
+				System.arraycopy(fChars, 0, chars, 0, length);
+				chars[length]= ch;
+				Node[] children= new Node[length + 1];
+				System.arraycopy(fChildren, 0, children, 0, length);
+				child= new Node();
+				children[length]= child;
+				fChars= chars;
+				fChildren= children;
+			}
+			return child;
+		}
+
+		void addOutputs(int[] outputs) {
+			if (outputs.length == 0)
+				return;
+			int[] merged= new int[fOutputs.length + outputs.length];
+			System.arraycopy(fOutputs, 0, merged, 0, fOutputs.length);
+			System.arraycopy(outputs, 0, merged, fOutputs.length, outputs.length);
+			fOutputs= merged;
+		}
+	}
+
+	private final String[] fPatterns;
+	private final Node fRoot= new Node();
+
+	/**
+	 * Creates a matcher for the given strings. Empty strings are never found.
+	 *
+	 * @param patterns the strings to find
+	 */
+	public MultiStringMatcher(String[] patterns) {
+		Assert.isNotNull(patterns);
+		fPatterns= patterns;
+		for (int i= 0; i < patterns.length; i++) {
+			String pattern= patterns[i];
+			if (pattern.length() == 0)
+				continue;
+			Node node= fRoot;
+			for (int j= 0; j < pattern.length(); j++)
+				node= node.addChild(pattern.charAt(j));
+			node.addOutputs(new int[] { i });
+		}
+		computeFailures();
+	}
+
+	private void computeFailures() {
+		List<Node> queue= new ArrayList<Node>();
+		for (int i= 0; i < fRoot.fChildren.length; i++) {
+			Node child= fRoot.fChildren[i];
+			child.fFailure= fRoot;
+			queue.add(child);
+		}
+		// breadth first, so that the failure nodes are complete when they are used
+		for (int head= 0; head < queue.size(); head++) {
+			Node node= queue.get(head);
+			for (int i= 0; i < node.fChildren.length; i++) {
+				char ch= node.fChars[i];
+				Node child= node.fChildren[i];
+				Node failure= node.fFailure;
+				while (failure != null && failure.getChild(ch) == null)
+					failure= failure.fFailure;
+				child.fFailure= failure == null ? fRoot : failure.getChild(ch);
+				child.addOutputs(child.fFailure.fOutputs);
+				queue.add(child);
+			}
+		}
+	}
+
+	/**
+	 * @return the strings to find
+	 */
+	public String[] getPatterns() {
+		return fPatterns;
+	}
+
+	/**
+	 * Reports all occurrences of the strings in the given text, including overlapping ones.
+	 *
+	 * @param text the text to search
+	 * @param requestor the requestor to report the occurrences to
+	 */
+	public void match(CharSequence text, Requestor requestor) {
+		Node node= fRoot;
+		for (int i= 0, length= text.length(); i < length; i++) {
+			char ch= text.charAt(i);
+			Node next= node.getChild(ch);
+			while (next == null && node != fRoot) {
+				node= node.fFailure;
+				next= node.getChild(ch);
+			}
+			node= next == null ? fRoot : next;
+
+			int[] outputs= node.fOutputs;
+			for (int j= 0; j < outputs.length; j++) {
+				int patternIndex= outputs[j];
+				requestor.acceptMatch(i - fPatterns[patternIndex].length() + 1, patternIndex);
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -19,21 +25,24 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
 
 import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
 
 import org.eclipse.text.edits.ReplaceEdit;
 
-import org.eclipse.search.core.text.TextSearchEngine;
-import org.eclipse.search.core.text.TextSearchMatchAccess;
-import org.eclipse.search.core.text.TextSearchRequestor;
-import org.eclipse.search.core.text.TextSearchScope;
-
 import org.eclipse.ltk.core.refactoring.GroupCategory;
 import org.eclipse.ltk.core.refactoring.GroupCategorySet;
 import org.eclipse.ltk.core.refactoring.TextChange;
@@ -44,8 +53,17 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.util.PatternConstructor;
 
+/**
+ * Finds qualified names in non-Java text files, e.g. in XML files or properties files.
+ * <p>
+ * All qualified names of a refactoring are searched in one pass over each candidate file. The
+ * files are read and searched in parallel by system jobs, which stop when the search is canceled.
+ * Files that cannot be read are reported in the status of the search result.
+ * </p>
+ */
 public class QualifiedNameFinder {
 
 	private static final GroupCategorySet QUALIFIED_NAMES= new GroupCategorySet(
@@ -53,61 +71,152 @@ public class QualifiedNameFinder {
 			RefactoringCoreMessages.QualifiedNameFinder_qualifiedNames_name,
 			RefactoringCoreMessages.QualifiedNameFinder_qualifiedNames_description));
 
-	private static class ResultCollector extends TextSearchRequestor {
+	/**
+	 * Reads the candidate files and finds the qualified names in them.
+	 */
+	private static class FileScanner {
 
-		private String fNewValue;
-		private QualifiedNameSearchResult fResult;
+		private class ScannerJob extends Job {
+			public ScannerJob() {
+				super(RefactoringCoreMessages.QualifiedNameFinder_scanning_job);
+				setSystem(true);
+			}
 
-		public ResultCollector(QualifiedNameSearchResult result, String newValue) {
-			fResult= result;
-			fNewValue= newValue;
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				int index;
+				while (!monitor.isCanceled() && (index= nextFile()) != -1) {
+					Object result;
+					try {
+						String contents= fContents[index];
+						if (contents == null)
+							contents= readContents(fFiles[index]);
+						result= findMatches(contents);
+					} catch (Exception e) {
+						result= e;
+					}
+					setResult(index, result);
+				}
+				return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+			}
 		}
 
-		@Override
-		public boolean acceptFile(IFile file) throws CoreException {
-			IJavaElement element= JavaCore.create(file);
-			if ((element != null && element.exists()))
-				return false;
+		private final IFile[] fFiles;
+
+		/** The contents of the files with an open buffer, <code>null</code> for the other files */
+		private final String[] fContents;
+
+		private final MultiStringMatcher fMatcher;
+
+		/**
+		 * For each file, the offsets and pattern indices of the matches in an <code>int[]</code>,
+		 * the exception that occurred while reading the file, or <code>null</code> if the file
+		 * has not been read yet.
+		 */
+		private final Object[] fResults;
+		private final IProgressMonitor fMonitor;
+		private final List<Job> fJobs= new ArrayList<Job>();
+		private int fNextFile;
+		private boolean fCanceled;
+
+		FileScanner(IFile[] files, MultiStringMatcher matcher, IProgressMonitor monitor) {
+			fFiles= files;
+			fMatcher= matcher;
+			fMonitor= monitor;
+			fResults= new Object[files.length];
+			fContents= new String[files.length];
+			for (int i= 0; i < files.length; i++) {
+				ITextFileBuffer buffer= FileBuffers.getTextFileBufferManager().getTextFileBuffer(files[i].getFullPath(), LocationKind.IFILE);
+				if (buffer != null)
+					fContents[i]= buffer.getDocument().get();
+			}
+		}
 
-			// Only touch text files (see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=114153 ):
-			if (! FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), false))
-				return false;
+		void start() {
+			int jobCount= Math.min(fFiles.length, Runtime.getRuntime().availableProcessors());
+			for (int i= 0; i < jobCount; i++) {
+				Job job= new ScannerJob();
+				fJobs.add(job);
+				job.schedule();
+			}
+		}
 
-			IPath path= file.getProjectRelativePath();
-			String segment= path.segment(0);
-			if (segment != null && (segment.startsWith(".refactorings") || segment.startsWith(".deprecations"))) //$NON-NLS-1$ //$NON-NLS-2$
-				return false;
+		private int[] findMatches(final String contents) {
+			final int[][] matches= { new int[16] };
+			final int[] count= { 0 };
+			fMatcher.match(contents, new MultiStringMatcher.Requestor() {
+				public void acceptMatch(int offset, int patternIndex) {
+					// skip embedded FQNs (bug 130764):
+					if (offset > 0) {
+						char before= contents.charAt(offset - 1);
+						if (before == '.' || Character.isJavaIdentifierPart(before))
+							return;
+					}
+					int end= offset + fMatcher.getPatterns()[patternIndex].length();
+					if (end < contents.length()) {
+						char after= contents.charAt(end);
+						if (Character.isJavaIdentifierPart(after))
+							return;
+					}
+					// matches are reported by end offset, drop the ones that overlap the previous match
+					int n= count[0];
+					if (n > 0) {
+						int previousOffset= matches[0][n - 2];
+						int previousEnd= previousOffset + fMatcher.getPatterns()[matches[0][n - 1]].length();
+						if (offset < previousEnd) {
+							if (offset > previousOffset)
+								return;
+							n-= 2; // the longer match replaces the previous one
+						}
+					}
+					if (n + 2 > matches[0].length) {
+						int[] grown= new int[matches[0].length * 2];
+						System.arraycopy(matches[0], 0, grown, 0, n);
+						matches[0]= grown;
+					}
+					matches[0][n]= offset;
+					matches[0][n + 1]= patternIndex;
+					count[0]= n + 2;
+				}
+			});
+			int[] result= new int[count[0]];
+			System.arraycopy(matches[0], 0, result, 0, count[0]);
+			return result;
+		}
 
-			return true;
+		private synchronized int nextFile() {
+			if (fCanceled || fMonitor.isCanceled() || fNextFile == fFiles.length)
+				return -1;
+			return fNextFile++;
 		}
 
-		@Override
-		public boolean acceptPatternMatch(TextSearchMatchAccess matchAccess) throws CoreException {
-			int start= matchAccess.getMatchOffset();
-			int length= matchAccess.getMatchLength();
+		private synchronized void setResult(int index, Object result) {
+			fResults[index]= result;
+			notifyAll();
+		}
 
-			// skip embedded FQNs (bug 130764):
-			if (start > 0) {
-				char before= matchAccess.getFileContentChar(start - 1);
-				if (before == '.' || Character.isJavaIdentifierPart(before))
-					return true;
-			}
-			int fileContentLength= matchAccess.getFileContentLength();
-			int end= start + length;
-			if (end < fileContentLength) {
-				char after= matchAccess.getFileContentChar(end);
-				if (Character.isJavaIdentifierPart(after))
-					return true;
+		synchronized Object waitForResult(int index) {
+			while (fResults[index] == null) {
+				if (fMonitor.isCanceled())
+					throw new OperationCanceledException();
+				try {
+					wait(100);
+				} catch (InterruptedException e) {
+					// check for cancellation
+				}
 			}
+			Object result= fResults[index];
+			fResults[index]= null;
+			return result;
+		}
 
-			IFile file= matchAccess.getFile();
-			TextChange change= fResult.getChange(file);
-			TextChangeCompatibility.addTextEdit(
-				change,
-				RefactoringCoreMessages.QualifiedNameFinder_update_name,
-				new ReplaceEdit(start, length, fNewValue), QUALIFIED_NAMES);
-
-			return true;
+		void cancel() {
+			synchronized (this) {
+				fCanceled= true;
+			}
+			for (int i= 0; i < fJobs.size(); i++) {
+				fJobs.get(i).cancel();
+			}
 		}
 	}
 
@@ -117,33 +226,138 @@ public class QualifiedNameFinder {
 	public static void process(QualifiedNameSearchResult result, String pattern, String newValue, String filePatterns, IProject root, IProgressMonitor monitor) {
 		Assert.isNotNull(pattern);
 		Assert.isNotNull(newValue);
+		process(result, new String[] { pattern }, new String[] { newValue }, filePatterns, root, monitor);
+	}
+
+	/**
+	 * Finds the given qualified names in the text files of the given project and the projects
+	 * that reference it, and adds edits to replace them with the new values to the result. Files
+	 * that cannot be read are added as warnings to the status of the result.
+	 *
+	 * @param result the result to add the edits to
+	 * @param patterns the qualified names to find
+	 * @param newValues the new values of the qualified names, in the same order
+	 * @param filePatterns the comma separated patterns of the names of the files to search
+	 * @param root the project that declares the elements with the qualified names
+	 * @param monitor the progress monitor, can be <code>null</code>
+	 */
+	public static void process(QualifiedNameSearchResult result, String[] patterns, String[] newValues, String filePatterns, IProject root, IProgressMonitor monitor) {
+		Assert.isNotNull(patterns);
+		Assert.isNotNull(newValues);
+		Assert.isTrue(patterns.length == newValues.length);
 		Assert.isNotNull(root);
 
 		if (monitor == null)
 			monitor= new NullProgressMonitor();
 
-		if (filePatterns == null || filePatterns.length() == 0) {
+		if (filePatterns == null || filePatterns.length() == 0 || patterns.length == 0) {
 			// Eat progress.
 			monitor.beginTask("", 1); //$NON-NLS-1$
 			monitor.worked(1);
 			return;
 		}
 
-		ResultCollector collector= new ResultCollector(result, newValue);
-		TextSearchEngine engine= TextSearchEngine.create();
-		Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
+		IFile[] files= getCandidateFiles(filePatterns, root);
+		monitor.beginTask("", files.length); //$NON-NLS-1$
+		FileScanner scanner= new FileScanner(files, new MultiStringMatcher(patterns), monitor);
+		scanner.start();
+		try {
+			for (int i= 0; i < files.length; i++) {
+				Object matches= scanner.waitForResult(i);
+				if (matches instanceof int[]) {
+					addEdits(result, files[i], (int[]) matches, patterns, newValues);
+				} else {
+					// the file could not be read, e.g. because it has been deleted in the meantime
+					Exception e= (Exception) matches;
+					if (!(e instanceof IOException) && !(e instanceof CoreException))
+						JavaPlugin.log(e);
+					result.addUnreadableFile(files[i], e);
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			scanner.cancel();
+			monitor.done();
+		}
+	}
+
+	private static void addEdits(QualifiedNameSearchResult result, IFile file, int[] matches, String[] patterns, String[] newValues) {
+		if (matches.length == 0)
+			return;
+		TextChange change= result.getChange(file);
+		for (int i= 0; i < matches.length; i+= 2) {
+			int patternIndex= matches[i + 1];
+			TextChangeCompatibility.addTextEdit(
+				change,
+				RefactoringCoreMessages.QualifiedNameFinder_update_name,
+				new ReplaceEdit(matches[i], patterns[patternIndex].length(), newValues[patternIndex]), QUALIFIED_NAMES);
+		}
+	}
 
-		engine.search(createScope(filePatterns, root), collector, searchPattern, monitor);
+	private static IFile[] getCandidateFiles(String filePatterns, IProject root) {
+		HashSet<IProject> projects= new HashSet<IProject>();
+		projects.add(root);
+		addReferencingProjects(root, projects);
+		final Pattern filePattern= getFilePattern(filePatterns);
+
+		final List<IFile> files= new ArrayList<IFile>();
+		for (IProject project : projects) {
+			if (!project.isAccessible())
+				continue;
+			try {
+				project.accept(new IResourceProxyVisitor() {
+					public boolean visit(IResourceProxy proxy) throws CoreException {
+						if (proxy.isDerived())
+							return false;
+						if (proxy.getType() == IResource.FILE && filePattern.matcher(proxy.getName()).matches()) {
+							IFile file= (IFile) proxy.requestResource();
+							if (acceptFile(file))
+								files.add(file);
+						}
+						return true;
+					}
+				}, IResource.NONE);
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+			}
+		}
+		return files.toArray(new IFile[files.size()]);
 	}
 
-	private static TextSearchScope createScope(String filePatterns, IProject root) {
-		HashSet<IProject> res= new HashSet<IProject>();
-		res.add(root);
-		addReferencingProjects(root, res);
-		IResource[] resArr= res.toArray(new IResource[res.size()]);
-		Pattern filePattern= getFilePattern(filePatterns);
+	private static boolean acceptFile(IFile file) {
+		IJavaElement element= JavaCore.create(file);
+		if ((element != null && element.exists()))
+			return false;
+
+		// Only touch text files (see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=114153 ):
+		if (! FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), false))
+			return false;
+
+		IPath path= file.getProjectRelativePath();
+		String segment= path.segment(0);
+		if (segment != null && (segment.startsWith(".refactorings") || segment.startsWith(".deprecations"))) //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
 
-		return TextSearchScope.newSearchScope(resArr, filePattern, false);
+		return true;
+	}
+
+	private static String readContents(IFile file) throws CoreException, IOException {
+		InputStream stream= file.getContents();
+		try {
+			Reader reader= new InputStreamReader(stream, file.getCharset());
+			StringBuffer buf= new StringBuffer();
+			char[] chars= new char[8192];
+			int read;
+			while ((read= reader.read(chars)) != -1) {
+				buf.append(chars, 0, read);
+			}
+			// the offsets of the edits do not include the byte order mark
+			if (buf.length() > 0 && buf.charAt(0) == '\uFEFF')
+				buf.deleteCharAt(0);
+			return buf.toString();
+		} finally {
+			stream.close();
+		}
 	}
 
 	private static Pattern getFilePattern(String filePatterns) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,17 +22,44 @@ import org.eclipse.core.resources.IFile;
 
 import org.eclipse.ltk.core.refactoring.Change;
 import org.eclipse.ltk.core.refactoring.CompositeChange;
+import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 import org.eclipse.ltk.core.refactoring.TextChange;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
 
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
+import org.eclipse.jdt.internal.corext.util.Messages;
+
+import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 
 public class QualifiedNameSearchResult {
 
 	private Map<IFile, TextChange> fChanges;
+	private RefactoringStatus fStatus;
 
 	public QualifiedNameSearchResult() {
 		fChanges= new HashMap<IFile, TextChange>();
+		fStatus= new RefactoringStatus();
+	}
+
+	/**
+	 * Records that the given file could not be searched for qualified names.
+	 *
+	 * @param file the file
+	 * @param exception the exception that occurred while reading the file
+	 * @since 3.10
+	 */
+	public void addUnreadableFile(IFile file, Exception exception) {
+		String message= exception.getLocalizedMessage();
+		fStatus.addWarning(Messages.format(RefactoringCoreMessages.QualifiedNameSearchResult_unreadable_file,
+				new String[] { BasicElementLabels.getPathLabel(file.getFullPath(), false), message != null ? message : exception.getClass().getName() }));
+	}
+
+	/**
+	 * @return the status of the search, with a warning for every file that could not be read
+	 * @since 3.10
+	 */
+	public RefactoringStatus getStatus() {
+		return fStatus;
 	}
 
 	public TextChange getChange(IFile file) {
@@ -0,0 +1,534 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.refactoring.nls.search;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.jface.text.Position;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.JavaUIStatus;
+
+
+/**
+ * Workspace index for the search for broken externalized strings.
+ * <p>
+ * The index keeps, for each properties file, the loaded properties and the offsets of the keys
+ * in the file, and for each compilation unit, the keys that are used at the references to
+ * accessor classes. Entries are dropped when their file changes, so a search over many message
+ * bundles only reads the files that have changed since the last search. Files with unsaved
+ * changes are not indexed. The index keeps the most recently used files only.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class NLSIndex {
+
+	/**
+	 * The contents of a properties file.
+	 */
+	static class PropertiesFileEntry {
+
+		private final Properties fProperties;
+		private final Set<Object> fDuplicateKeys;
+
+		/** Map from escaped key to the offset of its first definition */
+		private final Map<String, Integer> fKeyOffsets;
+
+		PropertiesFileEntry(Properties properties, Set<Object> duplicateKeys, Map<String, Integer> keyOffsets) {
+			fProperties= properties;
+			fDuplicateKeys= duplicateKeys;
+			fKeyOffsets= keyOffsets;
+		}
+
+		/**
+		 * @return the properties, must not be modified
+		 */
+		public Properties getProperties() {
+			return fProperties;
+		}
+
+		/**
+		 * @return the keys that are defined more than once, must not be modified
+		 */
+		public Set<Object> getDuplicateKeys() {
+			return fDuplicateKeys;
+		}
+
+		/**
+		 * Returns the start position of the given key in the properties file. The key is
+		 * assumed to be the first token on its line.
+		 *
+		 * @param escapedKey the key as it appears in the file
+		 * @return the start position of the key, or -1 if not found
+		 */
+		public int getKeyOffset(String escapedKey) {
+			Integer offset= fKeyOffsets.get(escapedKey);
+			return offset != null ? offset.intValue() : -1;
+		}
+	}
+
+	/**
+	 * The key used at a reference to an accessor class.
+	 */
+	private static class KeyReference {
+		final String fKey;
+		final int fOffset;
+		final int fLength;
+
+		KeyReference(String key, int offset, int length) {
+			fKey= key;
+			fOffset= offset;
+			fLength= length;
+		}
+	}
+
+	/**
+	 * Object to indicate that no key has been found.
+	 * @see #findKey(Position, IJavaElement)
+	 */
+	static final String NO_KEY= new String();
+
+	private static final int MAX_PROPERTIES_FILES= 200;
+	private static final int MAX_COMPILATION_UNITS= 2000;
+
+	private static NLSIndex fgDefault;
+	private static boolean fgShutdown;
+
+	private final IResourceChangeListener fResourceListener= new IResourceChangeListener() {
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta= event.getDelta();
+			if (delta == null)
+				return;
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+					public boolean visit(IResourceDelta child) {
+						IResource resource= child.getResource();
+						if (resource.getType() == IResource.FILE && (child.getKind() != IResourceDelta.CHANGED || (child.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0))
+							fileChanged((IFile) resource);
+						return true;
+					}
+				});
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+				clear();
+			}
+		}
+	};
+
+	/** Map from properties file to its contents, in access order */
+	private final Map<IFile, PropertiesFileEntry> fPropertiesFiles= new LinkedHashMap<IFile, PropertiesFileEntry>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IFile, PropertiesFileEntry> eldest) {
+			return size() > MAX_PROPERTIES_FILES;
+		}
+	};
+
+	/** Map from compilation unit file to the keys by offset of the accessor reference, in access order */
+	private final Map<IFile, Map<Integer, KeyReference>> fKeyReferences= new LinkedHashMap<IFile, Map<Integer, KeyReference>>(16, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IFile, Map<Integer, KeyReference>> eldest) {
+			return size() > MAX_COMPILATION_UNITS;
+		}
+	};
+
+	/**
+	 * <code>false</code> for an index that is requested after {@link #shutdown()}. Such an index
+	 * does not track the workspace and therefore does not keep any entries.
+	 */
+	private final boolean fTracking;
+
+	/**
+	 * The compilation unit that has been scanned last. Matches are reported per compilation unit,
+	 * so its scanner is kept for the next match.
+	 */
+	private ICompilationUnit fScannedUnit;
+	private String fScannedSource;
+	private IScanner fScanner;
+
+	/**
+	 * @return the index, which starts to track the workspace when it is first requested. After
+	 *         {@link #shutdown()}, a new index that does not keep any entries is returned.
+	 */
+	public static synchronized NLSIndex getDefault() {
+		if (fgShutdown)
+			return new NLSIndex(false);
+		if (fgDefault == null) {
+			fgDefault= new NLSIndex(true);
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(fgDefault.fResourceListener, IResourceChangeEvent.POST_CHANGE);
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Stops tracking the workspace and drops the index.
+	 */
+	public static synchronized void shutdown() {
+		fgShutdown= true;
+		if (fgDefault != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(fgDefault.fResourceListener);
+			fgDefault.clear();
+			fgDefault= null;
+		}
+	}
+
+	private NLSIndex(boolean tracking) {
+		fTracking= tracking;
+	}
+
+	private synchronized void fileChanged(IFile file) {
+		fPropertiesFiles.remove(file);
+		fKeyReferences.remove(file);
+		if (fScannedUnit != null && file.equals(fScannedUnit.getResource()))
+			fScannedUnit= null;
+	}
+
+	private synchronized void clear() {
+		fPropertiesFiles.clear();
+		fKeyReferences.clear();
+		fScannedUnit= null;
+	}
+
+	/**
+	 * Returns the contents of the given properties file. If the file has unsaved changes in an
+	 * editor, the contents of the editor are returned.
+	 *
+	 * @param propertiesFile the properties file
+	 * @return the contents, empty if the file could not be read
+	 */
+	public synchronized PropertiesFileEntry getPropertiesFile(IFile propertiesFile) {
+		if (!fTracking || isDirty(propertiesFile)) {
+			// the entry is read again once the changes have been saved or reverted
+			fPropertiesFiles.remove(propertiesFile);
+			return readPropertiesFile(propertiesFile);
+		}
+		PropertiesFileEntry entry= fPropertiesFiles.get(propertiesFile);
+		if (entry == null) {
+			entry= readPropertiesFile(propertiesFile);
+			fPropertiesFiles.put(propertiesFile, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Finds the key used at a reference to an accessor class.
+	 *
+	 * @param keyPositionResult reference parameter: the position of the reference, will be filled
+	 *            with the position of the found key
+	 * @param enclosingElement enclosing java element of the reference
+	 * @return a string denoting the key, {@link #NO_KEY} if no key can be found and
+	 *         <code>null</code> otherwise
+	 * @throws CoreException if a problem occurs while accessing the <code>enclosingElement</code>
+	 */
+	public synchronized String getKey(Position keyPositionResult, IJavaElement enclosingElement) throws CoreException {
+		ICompilationUnit unit= (ICompilationUnit)enclosingElement.getAncestor(IJavaElement.COMPILATION_UNIT);
+		if (unit == null)
+			return null;
+
+		IResource resource= unit.getResource();
+		if (!fTracking || !(resource instanceof IFile) || unit.hasUnsavedChanges())
+			return findKey(keyPositionResult, enclosingElement, unit);
+
+		Map<Integer, KeyReference> references= fKeyReferences.get(resource);
+		if (references == null) {
+			references= new HashMap<Integer, KeyReference>();
+			fKeyReferences.put((IFile) resource, references);
+		}
+		Integer referenceOffset= new Integer(keyPositionResult.getOffset());
+		KeyReference reference= references.get(referenceOffset);
+		if (reference == null) {
+			String key= findKey(keyPositionResult, enclosingElement, unit);
+			reference= new KeyReference(key, keyPositionResult.getOffset(), keyPositionResult.getLength());
+			references.put(referenceOffset, reference);
+		} else {
+			keyPositionResult.setOffset(reference.fOffset);
+			keyPositionResult.setLength(reference.fLength);
+		}
+		return reference.fKey;
+	}
+
+	/**
+	 * Finds the key defined by the given match. The assumption is that the key is the only argument
+	 * and it is a string literal i.e. quoted ("...") or a string constant i.e. 'static final
+	 * String' defined in the same class.
+	 *
+	 * @param keyPositionResult reference parameter: will be filled with the position of the found
+	 *            key
+	 * @param enclosingElement enclosing java element
+	 * @param unit the compilation unit of the enclosing element
+	 * @return a string denoting the key, {@link #NO_KEY} if no key can be found and
+	 *         <code>null</code> otherwise
+	 * @throws CoreException if a problem occurs while accessing the <code>enclosingElement</code>
+	 */
+	private String findKey(Position keyPositionResult, IJavaElement enclosingElement, ICompilationUnit unit) throws CoreException {
+		IScanner scanner= getScanner(unit);
+		if (scanner == null)
+			return null;
+		String source= fScannedSource;
+		scanner.resetTo(keyPositionResult.getOffset() + keyPositionResult.getLength(), source.length());
+
+		try {
+			if (scanner.getNextToken() != ITerminalSymbols.TokenNameDOT)
+				return null;
+
+			if (scanner.getNextToken() != ITerminalSymbols.TokenNameIdentifier)
+				return null;
+
+			String src= new String(scanner.getCurrentTokenSource());
+			int tokenStart= scanner.getCurrentTokenStartPosition();
+			int tokenEnd= scanner.getCurrentTokenEndPosition();
+
+			if (scanner.getNextToken() == ITerminalSymbols.TokenNameLPAREN) {
+				// Old school
+				// next must be key string. Ignore methods which do not take a single String parameter (Bug 295040).
+				int nextToken= scanner.getNextToken();
+				if (nextToken != ITerminalSymbols.TokenNameStringLiteral && nextToken != ITerminalSymbols.TokenNameIdentifier)
+					return null;
+
+				tokenStart= scanner.getCurrentTokenStartPosition();
+				tokenEnd= scanner.getCurrentTokenEndPosition();
+				int token;
+				while ((token= scanner.getNextToken()) == ITerminalSymbols.TokenNameDOT) {
+					if ((nextToken= scanner.getNextToken()) != ITerminalSymbols.TokenNameIdentifier) {
+							return null;
+					}
+					tokenStart= scanner.getCurrentTokenStartPosition();
+					tokenEnd= scanner.getCurrentTokenEndPosition();
+				}
+				if (token != ITerminalSymbols.TokenNameRPAREN)
+					return null;
+
+				if (nextToken == ITerminalSymbols.TokenNameStringLiteral) {
+					keyPositionResult.setOffset(tokenStart + 1);
+					keyPositionResult.setLength(tokenEnd - tokenStart - 1);
+					return source.substring(tokenStart + 1, tokenEnd);
+				} else if (nextToken == ITerminalSymbols.TokenNameIdentifier) {
+					keyPositionResult.setOffset(tokenStart);
+					keyPositionResult.setLength(tokenEnd - tokenStart + 1);
+					IType parentClass= (IType)enclosingElement.getAncestor(IJavaElement.TYPE);
+					IField[] fields= parentClass.getFields();
+					String identifier= source.substring(tokenStart, tokenEnd + 1);
+					for (int i= 0; i < fields.length; i++) {
+						if (fields[i].getElementName().equals(identifier)) {
+							if (!Signature.getSignatureSimpleName(fields[i].getTypeSignature()).equals("String")) //$NON-NLS-1$
+								return null;
+							Object obj= fields[i].getConstant();
+							return obj instanceof String ? ((String)obj).substring(1, ((String)obj).length() - 1) : NO_KEY;
+						}
+					}
+				}
+				return NO_KEY;
+			} else {
+				IJavaElement[] keys= unit.codeSelect(tokenStart, tokenEnd - tokenStart + 1);
+
+				// an interface can't be a key
+				if (keys.length == 1 && keys[0].getElementType() == IJavaElement.TYPE && ((IType) keys[0]).isInterface())
+					return null;
+
+				keyPositionResult.setOffset(tokenStart);
+				keyPositionResult.setLength(tokenEnd - tokenStart + 1);
+				return src;
+			}
+		} catch (InvalidInputException e) {
+			throw new CoreException(JavaUIStatus.createError(IStatus.ERROR, e));
+		}
+	}
+
+	/**
+	 * Returns a scanner on the source of the given compilation unit. The scanner of the last unit
+	 * is reused as long as the source of the unit has not changed.
+	 *
+	 * @param unit the compilation unit
+	 * @return the scanner or <code>null</code> if the unit has no source
+	 * @throws JavaModelException if the source could not be read
+	 */
+	private IScanner getScanner(ICompilationUnit unit) throws JavaModelException {
+		String source= unit.getSource();
+		if (source == null)
+			return null;
+		if (unit.equals(fScannedUnit) && source.equals(fScannedSource))
+			return fScanner;
+
+		IJavaProject javaProject= unit.getJavaProject();
+		IScanner scanner= null;
+		if (javaProject != null) {
+			String complianceLevel= javaProject.getOption(JavaCore.COMPILER_COMPLIANCE, true);
+			String sourceLevel= javaProject.getOption(JavaCore.COMPILER_SOURCE, true);
+			scanner= ToolFactory.createScanner(false, false, false, sourceLevel, complianceLevel);
+		} else {
+			scanner= ToolFactory.createScanner(false, false, false, false);
+		}
+		scanner.setSource(source.toCharArray());
+		fScannedUnit= unit;
+		fScannedSource= source;
+		fScanner= scanner;
+		return scanner;
+	}
+
+	private static boolean isDirty(IFile file) {
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		if (manager != null) {
+			ITextFileBuffer buffer= manager.getTextFileBuffer(file.getFullPath(), LocationKind.IFILE);
+			if (buffer != null)
+				return buffer.isDirty();
+		}
+		return false;
+	}
+
+	private static PropertiesFileEntry readPropertiesFile(IFile propertiesFile) {
+		Set<Object> duplicateKeys= new HashSet<Object>();
+		Properties properties= new Properties(duplicateKeys);
+		InputStream stream;
+		try {
+			stream= new BufferedInputStream(createInputStream(propertiesFile));
+		} catch (CoreException ex) {
+			return new PropertiesFileEntry(new Properties(), duplicateKeys, new HashMap<String, Integer>());
+		}
+		try {
+			properties.load(stream);
+		} catch (IOException ex) {
+			properties= new Properties();
+		} finally {
+			try {
+				stream.close();
+			} catch (IOException ex) {
+			}
+		}
+		return new PropertiesFileEntry(properties, duplicateKeys, readKeyOffsets(propertiesFile));
+	}
+
+	/**
+	 * Reads the start positions of the keys in the property file. We assume that the key is the
+	 * first token on a line.
+	 *
+	 * @param propertiesFile the properties file
+	 * @return the map from escaped key to the start position of its first occurrence
+	 */
+	private static Map<String, Integer> readKeyOffsets(IFile propertiesFile) {
+		// Fix for http://dev.eclipse.org/bugs/show_bug.cgi?id=19319
+		Map<String, Integer> keyOffsets= new HashMap<String, Integer>();
+		InputStream stream= null;
+		LineReader lineReader= null;
+		String encoding;
+		try {
+			encoding= propertiesFile.getCharset();
+		} catch (CoreException e1) {
+			encoding= "ISO-8859-1";  //$NON-NLS-1$
+		}
+		try {
+			stream= createInputStream(propertiesFile);
+			lineReader= new LineReader(stream, encoding);
+		} catch (CoreException cex) {
+			// failed to get input stream
+			JavaPlugin.log(cex);
+			return keyOffsets;
+		} catch (IOException e) {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException ce) {
+					JavaPlugin.log(ce);
+				}
+			}
+			return keyOffsets;
+		}
+		int start= 0;
+		try {
+			StringBuffer buf= new StringBuffer(80);
+			int eols= lineReader.readLine(buf);
+			while (eols > 0) {
+				String line= buf.toString();
+				int keyStart= 0;
+				while (keyStart < line.length() && line.charAt(keyStart) <= ' ')
+					keyStart++;
+				int keyEnd= keyStart;
+				while (keyEnd < line.length()) {
+					char ch= line.charAt(keyEnd);
+					if (ch == '\\') {
+						keyEnd+= 2; // escaped character
+						continue;
+					}
+					if (Character.isWhitespace(ch) || ch == '=')
+						break;
+					keyEnd++;
+				}
+				String key= line.substring(keyStart, Math.min(keyEnd, line.length()));
+				if (!keyOffsets.containsKey(key))
+					keyOffsets.put(key, new Integer(start + keyStart));
+
+				start += line.length() + eols;
+				eols= lineReader.readLine(buf);
+			}
+		} catch (IOException ex) {
+			JavaPlugin.log(ex);
+		} finally {
+			try {
+				lineReader.close();
+			} catch (IOException ex) {
+				JavaPlugin.log(ex);
+			}
+		}
+		return keyOffsets;
+	}
+
+	private static InputStream createInputStream(IFile propertiesFile) throws CoreException {
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		if (manager != null) {
+			ITextFileBuffer buffer= manager.getTextFileBuffer(propertiesFile.getFullPath(), LocationKind.IFILE);
+			if (buffer != null) {
+				return new ByteArrayInputStream(buffer.getDocument().get().getBytes());
+			}
+		}
+
+		return propertiesFile.getContents();
+	}
+}
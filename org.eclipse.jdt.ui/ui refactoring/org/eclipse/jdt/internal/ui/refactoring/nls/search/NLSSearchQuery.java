@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,14 @@
 
 package org.eclipse.jdt.internal.ui.refactoring.nls.search;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -25,6 +33,7 @@ import org.eclipse.search.ui.text.AbstractTextSearchResult;
 import org.eclipse.search.ui.text.Match;
 
 import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
@@ -34,8 +43,10 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.search.IJavaSearchConstants;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
 import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
 import org.eclipse.jdt.core.search.SearchParticipant;
 import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
 
 import org.eclipse.jdt.internal.corext.refactoring.nls.NLSRefactoring;
 import org.eclipse.jdt.internal.corext.util.Messages;
@@ -63,6 +74,54 @@ public class NLSSearchQuery implements ISearchQuery {
 		fScopeDescription= scopeDescription;
 	}
 
+	/**
+	 * Dispatches the matches of a search for several accessor classes with different simple
+	 * names to the requestors of the accessor classes.
+	 */
+	private static class AccessorRequestor extends SearchRequestor {
+
+		private final Map<String, NLSSearchResultRequestor> fRequestors;
+
+		/**
+		 * @param requestors map from simple name of an accessor class to its requestor
+		 */
+		AccessorRequestor(Map<String, NLSSearchResultRequestor> requestors) {
+			fRequestors= requestors;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.search.SearchRequestor#beginReporting()
+		 */
+		@Override
+		public void beginReporting() {
+			for (Iterator<NLSSearchResultRequestor> iter= fRequestors.values().iterator(); iter.hasNext();)
+				iter.next().beginReporting();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.search.SearchRequestor#acceptSearchMatch(org.eclipse.jdt.core.search.SearchMatch)
+		 */
+		@Override
+		public void acceptSearchMatch(SearchMatch match) throws CoreException {
+			if (match.getOffset() == -1 || match.getLength() == -1 || !(match.getElement() instanceof IJavaElement))
+				return;
+
+			// matches outside of compilation units are ignored by the requestors
+			ICompilationUnit unit= (ICompilationUnit) ((IJavaElement) match.getElement()).getAncestor(IJavaElement.COMPILATION_UNIT);
+			if (unit == null)
+				return;
+			IBuffer buffer= unit.getBuffer();
+			if (buffer == null)
+				return;
+
+			String reference= buffer.getText(match.getOffset(), match.getLength());
+			String simpleName= reference.substring(reference.lastIndexOf('.') + 1).trim();
+			NLSSearchResultRequestor requestor= fRequestors.get(simpleName);
+			if (requestor != null)
+				requestor.acceptSearchMatch(match);
+		}
+	}
+
 	/*
 	 * @see org.eclipse.search.ui.ISearchQuery#run(org.eclipse.core.runtime.IProgressMonitor)
 	 */
@@ -80,21 +139,31 @@ public class NLSSearchQuery implements ISearchQuery {
 					return JavaUIStatus.createError(0, Messages.format(NLSSearchMessages.NLSSearchQuery_wrapperNotExists, JavaElementLabels.getElementLabel(wrapperClass, JavaElementLabels.ALL_DEFAULT)), null);
 				if (! propertieFile.exists())
 					return JavaUIStatus.createError(0, Messages.format(NLSSearchMessages.NLSSearchQuery_propertiesNotExists, BasicElementLabels.getResourceName(propertieFile)), null);
+			}
+
+			NLSIndex index= NLSIndex.getDefault();
+			NLSSearchResultRequestor[] requestors= new NLSSearchResultRequestor[fWrapperClass.length];
+			for (int i= 0; i < fWrapperClass.length; i++)
+				requestors[i]= new NLSSearchResultRequestor(fPropertiesFile[i], fResult, index);
 
-				SearchPattern pattern= SearchPattern.createPattern(wrapperClass, IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
-				SearchParticipant[] participants= new SearchParticipant[] {SearchEngine.getDefaultSearchParticipant()};
+			try {
+				// one search for all accessor classes with different simple names
+				List<List<Integer>> rounds= groupBySimpleName();
+				for (Iterator<List<Integer>> iter= rounds.iterator(); iter.hasNext();) {
+					List<Integer> round= iter.next();
+					search(round, requestors, new SubProgressMonitor(monitor, 4 * round.size()));
+				}
 
-				NLSSearchResultRequestor requestor= new NLSSearchResultRequestor(propertieFile, fResult);
-				try {
-					SearchEngine engine= new SearchEngine();
-					engine.search(pattern, participants, fScope, requestor, new SubProgressMonitor(monitor, 4));
+				for (int i= 0; i < fWrapperClass.length; i++) {
+					IType wrapperClass= (IType) fWrapperClass[i];
+					NLSSearchResultRequestor requestor= requestors[i];
 					requestor.reportUnusedPropertyNames(new SubProgressMonitor(monitor, 1));
 
-					ICompilationUnit compilationUnit= ((IType)wrapperClass).getCompilationUnit();
+					ICompilationUnit compilationUnit= wrapperClass.getCompilationUnit();
 					CompilationUnitEntry groupElement= new CompilationUnitEntry(NLSSearchMessages.NLSSearchResultCollector_unusedKeys, compilationUnit);
 
 					boolean hasUnusedPropertie= false;
-					IField[] fields= ((IType)wrapperClass).getFields();
+					IField[] fields= wrapperClass.getFields();
 					for (int j= 0; j < fields.length; j++) {
 						IField field= fields[j];
 						if (isNLSField(field)) {
@@ -113,10 +182,9 @@ public class NLSSearchQuery implements ISearchQuery {
 					}
 					if (hasUnusedPropertie)
 						fResult.addCompilationUnitGroup(groupElement);
-
-				} catch (CoreException e) {
-					return new Status(e.getStatus().getSeverity(), JavaPlugin.getPluginId(), IStatus.OK, NLSSearchMessages.NLSSearchQuery_error, e);
 				}
+			} catch (CoreException e) {
+				return new Status(e.getStatus().getSeverity(), JavaPlugin.getPluginId(), IStatus.OK, NLSSearchMessages.NLSSearchQuery_error, e);
 			}
 		} finally {
 			monitor.done();
@@ -124,6 +192,45 @@ public class NLSSearchQuery implements ISearchQuery {
 		return 	Status.OK_STATUS;
 	}
 
+	/**
+	 * Groups the accessor classes so that the classes of a group have different simple names.
+	 *
+	 * @return the groups of indices into the accessor classes
+	 */
+	private List<List<Integer>> groupBySimpleName() {
+		List<List<Integer>> groups= new ArrayList<List<Integer>>();
+		List<Set<String>> groupNames= new ArrayList<Set<String>>();
+		for (int i= 0; i < fWrapperClass.length; i++) {
+			String name= fWrapperClass[i].getElementName();
+			int group= 0;
+			while (group < groups.size() && groupNames.get(group).contains(name))
+				group++;
+			if (group == groups.size()) {
+				groups.add(new ArrayList<Integer>());
+				groupNames.add(new HashSet<String>());
+			}
+			groups.get(group).add(new Integer(i));
+			groupNames.get(group).add(name);
+		}
+		return groups;
+	}
+
+	private void search(List<Integer> accessors, NLSSearchResultRequestor[] requestors, IProgressMonitor monitor) throws CoreException {
+		SearchPattern pattern= null;
+		Map<String, NLSSearchResultRequestor> requestorsByName= new HashMap<String, NLSSearchResultRequestor>();
+		for (Iterator<Integer> iter= accessors.iterator(); iter.hasNext();) {
+			int index= iter.next().intValue();
+			SearchPattern accessorPattern= SearchPattern.createPattern(fWrapperClass[index], IJavaSearchConstants.REFERENCES, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+			pattern= pattern == null ? accessorPattern : SearchPattern.createOrPattern(pattern, accessorPattern);
+			requestorsByName.put(fWrapperClass[index].getElementName(), requestors[index]);
+		}
+		SearchRequestor requestor= accessors.size() == 1 ? (SearchRequestor) requestorsByName.values().iterator().next() : new AccessorRequestor(requestorsByName);
+
+		SearchParticipant[] participants= new SearchParticipant[] {SearchEngine.getDefaultSearchParticipant()};
+		SearchEngine engine= new SearchEngine();
+		engine.search(pattern, participants, fScope, requestor, monitor);
+	}
+
 	private boolean isNLSField(IField field) throws JavaModelException {
 		int flags= field.getFlags();
 		if (!Flags.isPublic(flags))
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,21 +37,31 @@ class JavaParseTreeBuilder extends ASTVisitor {
     private Stack<JavaNode> fStack= new Stack<JavaNode>();
     private JavaNode fImportContainer;
     private boolean fShowCU;
+    private JavaStructureCache.Recorder fRecorder;
 
     /*
      * Parsing is performed on the given buffer and the resulting tree (if any)
      * hangs below the given root.
      */
     JavaParseTreeBuilder(JavaNode root, char[] buffer, boolean showCU) {
+        this(root, buffer, showCU, null);
+    }
+
+    /*
+     * Like above, and reports the created nodes to the given recorder (if any).
+     * @since 3.10
+     */
+    JavaParseTreeBuilder(JavaNode root, char[] buffer, boolean showCU, JavaStructureCache.Recorder recorder) {
         fBuffer= buffer;
         fShowCU= showCU;
+        fRecorder= recorder;
         fStack.clear();
         fStack.push(root);
     }
 
     @Override
 	public boolean visit(PackageDeclaration node) {
-        new JavaNode(getCurrentContainer(), JavaNode.PACKAGE, null, node.getStartPosition(), node.getLength());
+        createNode(getCurrentContainer(), JavaNode.PACKAGE, null, node.getStartPosition(), node.getLength());
         return false;
     }
 
@@ -141,13 +151,13 @@ class JavaParseTreeBuilder extends ASTVisitor {
         int l= node.getLength();
         int declarationEnd= s + l;
         if (fImportContainer == null)
-            fImportContainer= new JavaNode(getCurrentContainer(), JavaNode.IMPORT_CONTAINER, null, s, l);
+            fImportContainer= createNode(getCurrentContainer(), JavaNode.IMPORT_CONTAINER, null, s, l);
         String nm= node.getName().toString();
         if (node.isOnDemand())
             nm+= ".*"; //$NON-NLS-1$
-        new JavaNode(fImportContainer, JavaNode.IMPORT, nm, s, l);
+        createNode(fImportContainer, JavaNode.IMPORT, nm, s, l);
         fImportContainer.setLength(declarationEnd - fImportContainer.getRange().getOffset() + 1);
-        fImportContainer.setAppendPosition(declarationEnd + 2); // FIXME
+        setAppendPosition(fImportContainer, declarationEnd + 2); // FIXME
         return false;
     }
 
@@ -191,15 +201,28 @@ class JavaParseTreeBuilder extends ASTVisitor {
             length++;
         }
 
-        JavaNode node= new JavaNode(getCurrentContainer(), type, name, declarationStart, length);
+        JavaNode node= createNode(getCurrentContainer(), type, name, declarationStart, length);
         if (type == JavaNode.CU)
-            node.setAppendPosition(declarationStart + length + 1);
+            setAppendPosition(node, declarationStart + length + 1);
         else
-            node.setAppendPosition(declarationStart + length);
+            setAppendPosition(node, declarationStart + length);
 
         fStack.push(node);
     }
 
+    private JavaNode createNode(JavaNode parent, int type, String name, int start, int length) {
+        JavaNode node= new JavaNode(parent, type, name, start, length);
+        if (fRecorder != null)
+            fRecorder.nodeCreated(node, parent, type, name);
+        return node;
+    }
+
+    private void setAppendPosition(JavaNode node, int position) {
+        node.setAppendPosition(position);
+        if (fRecorder != null)
+            fRecorder.appendPositionSet(node, position);
+    }
+
     /**
      * Closes the current Java node by setting its end position and pops it off
      * the stack.
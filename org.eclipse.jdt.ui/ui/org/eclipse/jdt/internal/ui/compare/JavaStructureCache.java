@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.compare;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Caches the structure of the Java sources that {@link JavaStructureCreator} has parsed, so that
+ * comparing the same contents again (e.g. the current file against several entries of the local
+ * history, or the ancestor of a three-way compare) does not parse them again.
+ * <p>
+ * A {@link Structure} does not reference the document it has been built on. It is keyed by the
+ * contents and the compiler options, and is replayed on the root node of every new document with
+ * the same contents.
+ * </p>
+ * <p>
+ * The keys hold the whole contents, so the cache is bounded by the total number of characters of
+ * the cached contents as well as by the number of entries.
+ * </p>
+ *
+ * @since 3.10
+ */
+final class JavaStructureCache {
+
+	private static final int MAX_SIZE= 20;
+
+	private static final int MAX_CHARACTERS= 2000000;
+
+	/**
+	 * Map from {@link Key} to {@link Structure}, in access order.
+	 */
+	private static final Map<Key, Structure> fgStructures= new LinkedHashMap<Key, Structure>(16, 0.75f, true);
+
+	/**
+	 * The total length of the contents of the keys in {@link #fgStructures}.
+	 */
+	private static int fgCharacters;
+
+	private static final class Key {
+		private final String fContents;
+		private final Map<String, String> fCompilerOptions;
+
+		Key(String contents, Map<String, String> compilerOptions) {
+			fContents= contents;
+			fCompilerOptions= compilerOptions;
+		}
+
+		@Override
+		public int hashCode() {
+			return fContents.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			if (!fContents.equals(other.fContents))
+				return false;
+			return fCompilerOptions == null ? other.fCompilerOptions == null : fCompilerOptions.equals(other.fCompilerOptions);
+		}
+	}
+
+	/**
+	 * The nodes that {@link JavaParseTreeBuilder} has created below the root node, in creation
+	 * order.
+	 */
+	static final class Structure {
+		/** Per node: the index of the parent node, or -1 for the root node */
+		private final int[] fParents;
+		private final int[] fTypes;
+		private final String[] fNames;
+		private final int[] fStarts;
+		private final int[] fLengths;
+		/** Per node: the append position, or -1 if the node has none */
+		private final int[] fAppendPositions;
+
+		private Structure(int size) {
+			fParents= new int[size];
+			fTypes= new int[size];
+			fNames= new String[size];
+			fStarts= new int[size];
+			fLengths= new int[size];
+			fAppendPositions= new int[size];
+		}
+
+		/**
+		 * Creates the nodes of this structure below the given root node.
+		 *
+		 * @param root the root node, whose document has the contents of this structure
+		 */
+		void build(JavaNode root) {
+			JavaNode[] nodes= new JavaNode[fParents.length];
+			for (int i= 0; i < nodes.length; i++) {
+				JavaNode parent= fParents[i] == -1 ? root : nodes[fParents[i]];
+				nodes[i]= new JavaNode(parent, fTypes[i], fNames[i], fStarts[i], fLengths[i]);
+				if (fAppendPositions[i] != -1)
+					nodes[i].setAppendPosition(fAppendPositions[i]);
+			}
+		}
+	}
+
+	/**
+	 * Records the nodes that {@link JavaParseTreeBuilder} creates.
+	 */
+	static final class Recorder {
+
+		private static final class Record {
+			final JavaNode fNode;
+			final int fParent;
+			final int fType;
+			final String fName;
+			int fAppendPosition= -1;
+
+			Record(JavaNode node, int parent, int type, String name) {
+				fNode= node;
+				fParent= parent;
+				fType= type;
+				fName= name;
+			}
+		}
+
+		private final List<Record> fRecords= new ArrayList<Record>();
+		/** Map from recorded node to the index of its record */
+		private final Map<JavaNode, Integer> fIndices= new IdentityHashMap<JavaNode, Integer>();
+
+		void nodeCreated(JavaNode node, JavaNode parent, int type, String name) {
+			Integer parentIndex= fIndices.get(parent);
+			fIndices.put(node, Integer.valueOf(fRecords.size()));
+			fRecords.add(new Record(node, parentIndex == null ? -1 : parentIndex.intValue(), type, name));
+		}
+
+		void appendPositionSet(JavaNode node, int position) {
+			Integer index= fIndices.get(node);
+			if (index != null)
+				fRecords.get(index.intValue()).fAppendPosition= position;
+		}
+
+		/**
+		 * @return the structure of the recorded nodes, with the ranges that the nodes have now
+		 */
+		Structure getStructure() {
+			int size= fRecords.size();
+			Structure structure= new Structure(size);
+			for (int i= 0; i < size; i++) {
+				Record record= fRecords.get(i);
+				structure.fParents[i]= record.fParent;
+				structure.fTypes[i]= record.fType;
+				structure.fNames[i]= record.fName;
+				structure.fStarts[i]= record.fNode.getRange().getOffset();
+				structure.fLengths[i]= record.fNode.getRange().getLength();
+				structure.fAppendPositions[i]= record.fAppendPosition;
+			}
+			return structure;
+		}
+	}
+
+	private JavaStructureCache() {
+	}
+
+	/**
+	 * Returns the cached structure of the given contents.
+	 *
+	 * @param contents the Java source
+	 * @param compilerOptions the compiler options used to parse the source, or <code>null</code>
+	 * @return the structure, or <code>null</code> if the contents have not been parsed with these
+	 *         options recently
+	 */
+	static Structure get(String contents, Map<String, String> compilerOptions) {
+		synchronized (fgStructures) {
+			return fgStructures.get(new Key(contents, compilerOptions));
+		}
+	}
+
+	/**
+	 * Caches the structure of the given contents.
+	 *
+	 * @param contents the Java source
+	 * @param compilerOptions the compiler options used to parse the source, or <code>null</code>
+	 * @param structure the structure
+	 */
+	static void put(String contents, Map<String, String> compilerOptions, Structure structure) {
+		if (contents.length() > MAX_CHARACTERS)
+			return;
+		synchronized (fgStructures) {
+			if (fgStructures.put(new Key(contents, compilerOptions), structure) == null)
+				fgCharacters+= contents.length();
+			for (Iterator<Key> iter= fgStructures.keySet().iterator(); fgStructures.size() > MAX_SIZE || fgCharacters > MAX_CHARACTERS;) {
+				fgCharacters-= iter.next().fContents.length();
+				iter.remove();
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -286,8 +286,15 @@ public class JavaStructureCreator extends StructureCreator {
 			// we hook into the root node to intercept all node changes
 			JavaNode root= new RootJavaNode(doc, isEditable, input, adapter);
 
+			// the same contents are often compared several times, e.g. against the entries of the local history
+			contents= doc.get();
+			JavaStructureCache.Structure structure= JavaStructureCache.get(contents, compilerOptions);
+			if (structure != null) {
+				structure.build(root);
+				return root;
+			}
+
 			if (buffer == null) {
-				contents= doc.get();
 				int n= contents.length();
 				buffer= new char[n];
 				contents.getChars(0, n, buffer, 0);
@@ -299,7 +306,10 @@ public class JavaStructureCreator extends StructureCreator {
 			parser.setSource(buffer);
 			parser.setFocalPosition(0);
 			CompilationUnit cu= (CompilationUnit) parser.createAST(monitor);
-			cu.accept(new JavaParseTreeBuilder(root, buffer, true));
+			JavaStructureCache.Recorder recorder= new JavaStructureCache.Recorder();
+			cu.accept(new JavaParseTreeBuilder(root, buffer, true, recorder));
+			if (monitor == null || !monitor.isCanceled())
+				JavaStructureCache.put(contents, compilerOptions, recorder.getStructure());
 
 			return root;
 		}
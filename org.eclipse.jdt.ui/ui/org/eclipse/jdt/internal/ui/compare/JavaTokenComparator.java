@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.compare;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.compare.contentmergeviewer.ITokenComparator;
@@ -31,6 +35,27 @@ public class JavaTokenComparator implements ITokenComparator {
 
 	private static final boolean DEBUG= false;
 
+	private static final int MAX_CACHE_SIZE= 50;
+
+	private static final int MAX_CACHE_CHARACTERS= 1000000;
+
+	/**
+	 * Map from text to the token starts and lengths of the text, in access order. The same texts
+	 * are tokenized repeatedly when the fine-grained differences of a compare are recomputed
+	 * (e.g. after every edit in the compare editor), or when the same contents are compared again.
+	 * The cache is bounded by the number of texts and by their total length.
+	 *
+	 * @since 3.10
+	 */
+	private static final Map<String, int[][]> fgTokenCache= new LinkedHashMap<String, int[][]>(16, 0.75f, true);
+
+	/**
+	 * The total length of the texts in {@link #fgTokenCache}.
+	 *
+	 * @since 3.10
+	 */
+	private static int fgCachedCharacters;
+
 	private final String fText;
 	private int fCount;
 	private int[] fStarts;
@@ -42,10 +67,60 @@ public class JavaTokenComparator implements ITokenComparator {
 	 * @param text the text to be tokenized
 	 */
 	public JavaTokenComparator(String text) {
+		this(text, true);
+	}
+
+	/**
+	 * Creates a token comparator for the given string.
+	 *
+	 * @param text the text to be tokenized
+	 * @param useCache <code>true</code> to look up and store the tokens in the token cache
+	 * @since 3.10
+	 */
+	private JavaTokenComparator(String text, boolean useCache) {
 		Assert.isLegal(text != null);
 
 		fText= text;
 
+		// very long texts are not cached, so that they do not evict all other texts
+		boolean cache= useCache && text.length() <= MAX_CACHE_CHARACTERS;
+
+		if (cache) {
+			int[][] tokens;
+			synchronized (fgTokenCache) {
+				tokens= fgTokenCache.get(text);
+			}
+			if (tokens != null) {
+				fStarts= tokens[0];
+				fLengths= tokens[1];
+				fCount= fStarts.length;
+				return;
+			}
+		}
+
+		tokenize();
+
+		if (cache) {
+			// the arrays are shared with other comparators for the same text and must not be modified anymore
+			int[] starts= new int[fCount];
+			int[] lengths= new int[fCount];
+			System.arraycopy(fStarts, 0, starts, 0, fCount);
+			System.arraycopy(fLengths, 0, lengths, 0, fCount);
+			fStarts= starts;
+			fLengths= lengths;
+			synchronized (fgTokenCache) {
+				if (fgTokenCache.put(text, new int[][] { starts, lengths }) == null)
+					fgCachedCharacters+= text.length();
+				for (Iterator<String> iter= fgTokenCache.keySet().iterator(); fgTokenCache.size() > MAX_CACHE_SIZE || fgCachedCharacters > MAX_CACHE_CHARACTERS;) {
+					fgCachedCharacters-= iter.next().length();
+					iter.remove();
+				}
+			}
+		}
+	}
+
+	private void tokenize() {
+		String text= fText;
 		int length= fText.length();
 		fStarts= new int[length];
 		fLengths= new int[length];
@@ -100,7 +175,7 @@ public class JavaTokenComparator implements ITokenComparator {
 		if (DEBUG)
 			System.out.println("parsingText>" + text + "<(" + start + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
-		ITokenComparator subTokenizer= javaCode ? new JavaTokenComparator(text) : new TokenComparator(text);
+		ITokenComparator subTokenizer= javaCode ? new JavaTokenComparator(text, false) : new TokenComparator(text);
 		int count= subTokenizer.getRangeCount();
 		for (int i= 0; i < count; i++) {
 			int subStart= subTokenizer.getTokenStart(i);
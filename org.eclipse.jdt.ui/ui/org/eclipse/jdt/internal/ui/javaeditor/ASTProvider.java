@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,9 @@ import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
 import org.eclipse.ui.IPartListener2;
 import org.eclipse.ui.IWindowListener;
 import org.eclipse.ui.IWorkbenchPart;
@@ -27,6 +30,7 @@ import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
@@ -212,6 +216,16 @@ public final class ASTProvider {
 	private volatile ITypeRoot fReconcilingJavaElement;
 	private ITypeRoot fActiveJavaElement;
 	private CompilationUnit fAST;
+	/**
+	 * The modification stamp of the document from which {@link #fAST} has been created.
+	 * @since 3.10
+	 */
+	private long fASTModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	/**
+	 * The modification stamp of the document when reconciling has been started.
+	 * @since 3.10
+	 */
+	private long fReconcilingModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 	private ActivationListener fActivationListener;
 	private Object fReconcileLock= new Object();
 	private Object fWaitLock= new Object();
@@ -259,7 +273,7 @@ public final class ASTProvider {
 		synchronized (this) {
 			fActiveEditor= editor;
 			fActiveJavaElement= javaElement;
-			cache(null, javaElement);
+			cache(null, javaElement, IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP);
 		}
 
 		if (DEBUG)
@@ -315,9 +329,10 @@ public final class ASTProvider {
 
 		synchronized (fReconcileLock) {
 			fReconcilingJavaElement= javaElement;
+			fReconcilingModificationStamp= getModificationStamp(javaElement);
 			fIsReconciling= true;
 		}
-		cache(null, javaElement);
+		cache(null, javaElement, IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP);
 	}
 
 	/**
@@ -333,7 +348,7 @@ public final class ASTProvider {
 
 		fAST= null;
 
-		cache(null, null);
+		cache(null, null, IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP);
 	}
 
 	/**
@@ -372,8 +387,10 @@ public final class ASTProvider {
 	 *
 	 * @param ast the ast
 	 * @param javaElement the java element
+	 * @param modificationStamp the modification stamp of the document from which the AST has been
+	 *            created, or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP}
 	 */
-	private synchronized void cache(CompilationUnit ast, ITypeRoot javaElement) {
+	private synchronized void cache(CompilationUnit ast, ITypeRoot javaElement, long modificationStamp) {
 
 		if (fActiveJavaElement != null && !fActiveJavaElement.equals(javaElement)) {
 			if (DEBUG && javaElement != null) // don't report call from disposeAST()
@@ -388,6 +405,7 @@ public final class ASTProvider {
 			disposeAST();
 
 		fAST= ast;
+		fASTModificationStamp= modificationStamp;
 
 		// Signal AST change
 		synchronized (fWaitLock) {
@@ -621,8 +639,56 @@ public final class ASTProvider {
 
 				return;
 			}
-			cache(ast, javaElement);
+			cache(ast, javaElement, fReconcilingModificationStamp);
+		}
+	}
+
+	/**
+	 * Returns the cached AST of the given Java element if it has been created from the current
+	 * content of the element's document. Unlike {@link #getAST(ITypeRoot, WAIT_FLAG, IProgressMonitor)}
+	 * with {@link SharedASTProvider#WAIT_NO}, this does not return an AST that is outdated because
+	 * the document has been modified and the modification has not been reconciled yet.
+	 *
+	 * @param input the Java element
+	 * @return the AST or <code>null</code> if no AST for the current content is cached
+	 * @since 3.10
+	 */
+	public CompilationUnit getCurrentAST(ITypeRoot input) {
+		CompilationUnit ast;
+		long modificationStamp;
+		synchronized (this) {
+			if (!input.equals(fActiveJavaElement))
+				return null;
+			ast= fAST;
+			modificationStamp= fASTModificationStamp;
+		}
+		if (ast == null || modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+			return null;
+		return modificationStamp == getModificationStamp(input) ? ast : null;
+	}
+
+	/**
+	 * Returns the modification stamp of the document of the given Java element.
+	 *
+	 * @param javaElement the Java element
+	 * @return the modification stamp or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP} if
+	 *         the element is not a compilation unit that is open in a document
+	 * @since 3.10
+	 */
+	private static long getModificationStamp(ITypeRoot javaElement) {
+		if (javaElement instanceof ICompilationUnit && javaElement.isOpen()) {
+			try {
+				IBuffer buffer= ((ICompilationUnit) javaElement).getBuffer();
+				if (buffer instanceof DocumentAdapter) {
+					IDocument document= ((DocumentAdapter) buffer).getDocument();
+					if (document instanceof IDocumentExtension4)
+						return ((IDocumentExtension4) document).getModificationStamp();
+				}
+			} catch (JavaModelException e) {
+				// no stamp
+			}
 		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 	}
 
 	private static String getThreadName() {
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * Tracks the lines of a document that have changed since the document has been in sync with its
+ * file, so that the changed line regions can be computed on save without reading the file and
+ * comparing it to the document (see {@link EditorUtility#calculateChangedLineRegions(org.eclipse.core.filebuffers.ITextFileBuffer, org.eclipse.core.runtime.IProgressMonitor)}).
+ * <p>
+ * The tracker keeps the original text of the changed line ranges. When the regions are requested,
+ * the original lines are compared to the current lines, so that lines which have been changed
+ * back (e.g. by undo) are not reported.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class ChangedLineTracker implements IDocumentListener {
+
+	/**
+	 * A range of changed lines.
+	 */
+	private static class Hunk {
+		/** The first line of the range in the current document */
+		int fStart;
+		/** The line after the last line of the range in the current document */
+		int fEnd;
+		/** The original text of the range, including line delimiters */
+		String fOriginalText;
+		/** The number of lines of the original text */
+		int fOriginalLines;
+	}
+
+	private final IDocument fDocument;
+
+	/** The changed line ranges, sorted and neither overlapping nor adjacent */
+	private final List<Hunk> fHunks= new ArrayList<Hunk>();
+
+	/** <code>false</code> if the original text of the changed lines is unknown */
+	private boolean fValid;
+
+	/** The hunk that contains the lines of the current document change, or <code>null</code> */
+	private Hunk fPending;
+	private int fPendingIndex;
+	private int fPendingNumberOfLines;
+
+	/**
+	 * Creates a new tracker.
+	 *
+	 * @param document the document to track
+	 * @param inSync <code>true</code> if the document is in sync with its file, <code>false</code>
+	 *            if the tracker is not valid until it is {@link #reset()}
+	 */
+	public ChangedLineTracker(IDocument document, boolean inSync) {
+		fDocument= document;
+		fValid= inSync;
+	}
+
+	/**
+	 * Starts tracking the changes of the document.
+	 */
+	public void install() {
+		fDocument.addDocumentListener(this);
+	}
+
+	/**
+	 * Stops tracking the changes of the document.
+	 */
+	public void uninstall() {
+		fDocument.removeDocumentListener(this);
+	}
+
+	/**
+	 * Tells the tracker that the document is in sync with its file, e.g. after it has been saved
+	 * or reverted.
+	 */
+	public synchronized void reset() {
+		fHunks.clear();
+		fPending= null;
+		fValid= true;
+	}
+
+	/**
+	 * Returns the regions of all lines that have changed since the document has been in sync with
+	 * its file. See {@link EditorUtility#calculateChangedLineRegions(org.eclipse.core.filebuffers.ITextFileBuffer, org.eclipse.core.runtime.IProgressMonitor)}
+	 * for the format of the regions.
+	 *
+	 * @return the regions of the changed lines, or <code>null</code> if they are not known and
+	 *         have to be computed by comparing the document with its file
+	 */
+	public synchronized IRegion[] getChangedLineRegions() {
+		if (!fValid)
+			return null;
+
+		try {
+			List<IRegion> regions= new ArrayList<IRegion>(fHunks.size());
+			for (int i= 0, size= fHunks.size(); i < size; i++) {
+				Hunk hunk= fHunks.get(i);
+				IDocument original= new Document(hunk.fOriginalText);
+
+				// lines that are the same as before are not reported
+				int start= hunk.fStart;
+				int end= hunk.fEnd;
+				int originalStart= 0;
+				int originalEnd= hunk.fOriginalLines;
+				while (start < end && originalStart < originalEnd && getLine(fDocument, start).equals(getLine(original, originalStart))) {
+					start++;
+					originalStart++;
+				}
+				while (start < end && originalStart < originalEnd && getLine(fDocument, end - 1).equals(getLine(original, originalEnd - 1))) {
+					end--;
+					originalEnd--;
+				}
+				if (start == end)
+					continue;
+
+				IRegion startLineRegion= fDocument.getLineInformation(start);
+				if (start == end - 1) {
+					regions.add(startLineRegion);
+				} else {
+					IRegion endLineRegion= fDocument.getLineInformation(end - 1);
+					int startOffset= startLineRegion.getOffset();
+					int endOffset= endLineRegion.getOffset() + endLineRegion.getLength();
+					regions.add(new Region(startOffset, endOffset - startOffset));
+				}
+			}
+			return regions.toArray(new IRegion[regions.size()]);
+		} catch (BadLocationException e) {
+			JavaPlugin.log(e);
+			invalidate();
+			return null;
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public synchronized void documentAboutToBeChanged(DocumentEvent event) {
+		if (!fValid)
+			return;
+
+		try {
+			int start= fDocument.getLineOfOffset(event.getOffset());
+			int end= fDocument.getLineOfOffset(event.getOffset() + event.getLength()) + 1;
+
+			int first= 0;
+			int size= fHunks.size();
+			while (first < size && fHunks.get(first).fEnd < start)
+				first++;
+			int last= first;
+			while (last < size && fHunks.get(last).fStart <= end) {
+				Hunk hunk= fHunks.get(last);
+				start= Math.min(start, hunk.fStart);
+				end= Math.max(end, hunk.fEnd);
+				last++;
+			}
+
+			if (last == first + 1) {
+				Hunk hunk= fHunks.get(first);
+				if (hunk.fStart == start && hunk.fEnd == end) {
+					// the change lies inside a changed range whose original text is known
+					fPending= hunk;
+					fPendingIndex= first;
+					fPendingNumberOfLines= fDocument.getNumberOfLines();
+					return;
+				}
+			}
+
+			// the original text of the merged range consists of the original text of the merged
+			// hunks and of the unchanged lines between them
+			StringBuffer originalText= new StringBuffer();
+			int originalLines= 0;
+			int line= start;
+			for (int i= first; i < last; i++) {
+				Hunk hunk= fHunks.get(i);
+				originalText.append(getText(line, hunk.fStart));
+				originalText.append(hunk.fOriginalText);
+				originalLines+= hunk.fStart - line + hunk.fOriginalLines;
+				line= hunk.fEnd;
+			}
+			originalText.append(getText(line, end));
+			originalLines+= end - line;
+
+			Hunk merged= new Hunk();
+			merged.fStart= start;
+			merged.fEnd= end;
+			merged.fOriginalText= originalText.toString();
+			merged.fOriginalLines= originalLines;
+
+			fHunks.subList(first, last).clear();
+			fHunks.add(first, merged);
+			fPending= merged;
+			fPendingIndex= first;
+			fPendingNumberOfLines= fDocument.getNumberOfLines();
+		} catch (BadLocationException e) {
+			JavaPlugin.log(e);
+			invalidate();
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+	 */
+	public synchronized void documentChanged(DocumentEvent event) {
+		if (!fValid || fPending == null)
+			return;
+
+		int delta= fDocument.getNumberOfLines() - fPendingNumberOfLines;
+		fPending.fEnd+= delta;
+		for (int i= fPendingIndex + 1, size= fHunks.size(); i < size; i++) {
+			Hunk hunk= fHunks.get(i);
+			hunk.fStart+= delta;
+			hunk.fEnd+= delta;
+		}
+		fPending= null;
+	}
+
+	private void invalidate() {
+		fHunks.clear();
+		fPending= null;
+		fValid= false;
+	}
+
+	/**
+	 * Returns the text of the given lines of the document, including the line delimiters.
+	 *
+	 * @param startLine the first line
+	 * @param endLine the line after the last line
+	 * @return the text of the lines
+	 * @throws BadLocationException if the lines are not valid
+	 */
+	private String getText(int startLine, int endLine) throws BadLocationException {
+		if (startLine == endLine)
+			return ""; //$NON-NLS-1$
+		int offset= fDocument.getLineOffset(startLine);
+		int endOffset= endLine < fDocument.getNumberOfLines() ? fDocument.getLineOffset(endLine) : fDocument.getLength();
+		return fDocument.get(offset, endOffset - offset);
+	}
+
+	private static String getLine(IDocument document, int line) throws BadLocationException {
+		IRegion region= document.getLineInformation(line);
+		return document.get(region.getOffset(), region.getLength());
+	}
+}
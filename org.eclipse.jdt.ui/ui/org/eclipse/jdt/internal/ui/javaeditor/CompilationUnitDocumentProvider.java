@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -137,6 +137,11 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 	 */
 	static protected class CompilationUnitInfo extends FileInfo {
 		public ICompilationUnit fCopy;
+		/**
+		 * The tracker of the lines that have changed since the last save.
+		 * @since 3.10
+		 */
+		public ChangedLineTracker fChangedLineTracker;
 	}
 
 	/**
@@ -1009,6 +1014,9 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 		if (cuInfo.fModel != null)
 			cuInfo.fModel.addAnnotationModelListener(fGlobalAnnotationModelListener);
 
+		cuInfo.fChangedLineTracker= new ChangedLineTracker(cuInfo.fTextFileBuffer.getDocument(), !cuInfo.fTextFileBuffer.isDirty());
+		cuInfo.fChangedLineTracker.install();
+
 		return cuInfo;
 	}
 
@@ -1231,10 +1239,52 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 
 			if (cuInfo.fModel != null)
 				cuInfo.fModel.removeAnnotationModelListener(fGlobalAnnotationModelListener);
+
+			if (cuInfo.fChangedLineTracker != null) {
+				cuInfo.fChangedLineTracker.uninstall();
+				cuInfo.fChangedLineTracker= null;
+			}
 		}
 		super.disposeFileInfo(element, info);
 	}
 
+	/*
+	 * @see org.eclipse.ui.editors.text.TextFileDocumentProvider#fireElementDirtyStateChanged(java.lang.Object, boolean)
+	 * @since 3.10
+	 */
+	@Override
+	protected void fireElementDirtyStateChanged(Object element, boolean isDirty) {
+		if (!isDirty) // the document has been saved or reverted
+			resetChangedLineTracker(element);
+		super.fireElementDirtyStateChanged(element, isDirty);
+	}
+
+	/*
+	 * @see org.eclipse.ui.editors.text.TextFileDocumentProvider#fireElementContentReplaced(java.lang.Object)
+	 * @since 3.10
+	 */
+	@Override
+	protected void fireElementContentReplaced(Object element) {
+		// the document has been reloaded from its file, e.g. after an external modification
+		FileInfo info= getFileInfo(element);
+		if (info != null && !info.fTextFileBuffer.isDirty())
+			resetChangedLineTracker(element);
+		super.fireElementContentReplaced(element);
+	}
+
+	/**
+	 * Tells the changed line tracker of the given element that its document is in sync with the
+	 * file.
+	 *
+	 * @param element the element
+	 * @since 3.10
+	 */
+	private void resetChangedLineTracker(Object element) {
+		FileInfo info= getFileInfo(element);
+		if (info instanceof CompilationUnitInfo && ((CompilationUnitInfo) info).fChangedLineTracker != null)
+			((CompilationUnitInfo) info).fChangedLineTracker.reset();
+	}
+
 	/*
 	 * @see org.eclipse.ui.editors.text.TextFileDocumentProvider#connect(java.lang.Object)
 	 * @since 3.2
@@ -1366,7 +1416,12 @@ public class CompilationUnitDocumentProvider extends TextFileDocumentProvider im
 				IRegion[] changedRegions= null;
 				if (needsChangedRegions) {
 					try {
-						changedRegions= EditorUtility.calculateChangedLineRegions(info.fTextFileBuffer, getSubProgressMonitor(monitor, 20));
+						if (info.fChangedLineTracker != null)
+							changedRegions= info.fChangedLineTracker.getChangedLineRegions();
+						if (changedRegions == null)
+							changedRegions= EditorUtility.calculateChangedLineRegions(info.fTextFileBuffer, getSubProgressMonitor(monitor, 20));
+						else
+							monitor.worked(20);
 					} catch (CoreException ex) {
 						changedRegionException= ex;
 					} finally {
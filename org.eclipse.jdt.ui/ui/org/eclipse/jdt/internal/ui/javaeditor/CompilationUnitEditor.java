@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,9 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.javaeditor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
@@ -1658,10 +1660,16 @@ public class CompilationUnitEditor extends JavaEditor implements IJavaReconcilin
 		// Always notify AST provider
 		javaPlugin.getASTProvider().reconciled(ast, getInputJavaElement(), progressMonitor);
 
-		// Notify listeners
+		// Notify listeners, the ones that visit the AST share one walk
 		Object[] listeners = fReconcilingListeners.getListeners();
-		for (int i = 0, length= listeners.length; i < length; ++i)
-			((IJavaReconcilingListener)listeners[i]).reconciled(ast, forced, progressMonitor);
+		List<ReconcileASTPipeline.IStage> stages= new ArrayList<ReconcileASTPipeline.IStage>(listeners.length);
+		for (int i = 0, length= listeners.length; i < length; ++i) {
+			if (listeners[i] instanceof ReconcileASTPipeline.IStage)
+				stages.add((ReconcileASTPipeline.IStage) listeners[i]);
+			else
+				((IJavaReconcilingListener)listeners[i]).reconciled(ast, forced, progressMonitor);
+		}
+		ReconcileASTPipeline.run(stages, ast, forced, progressMonitor);
 
 		// Update Java Outline page selection
 		if (!forced && !progressMonitor.isCanceled()) {
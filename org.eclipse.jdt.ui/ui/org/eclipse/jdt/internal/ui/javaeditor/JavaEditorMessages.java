@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -83,6 +83,7 @@ final class JavaEditorMessages extends NLS {
 	public static String JavaOutlinePage_GoIntoTopLevelType_tooltip;
 	public static String JavaOutlinePage_GoIntoTopLevelType_description;
 	public static String JavaOutlinePage_error_NoTopLevelType;
+	public static String JavaOutlinePage_updateJob;
 	public static String ToggleComment_error_title;
 	public static String ToggleComment_error_message;
 	public static String ContentAssistProposal_label;
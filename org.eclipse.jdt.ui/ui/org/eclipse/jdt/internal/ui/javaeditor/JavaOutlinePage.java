@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,20 +12,22 @@ package org.eclipse.jdt.internal.ui.javaeditor;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Item;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Tree;
@@ -34,7 +36,11 @@ import org.eclipse.swt.widgets.Widget;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.ListenerList;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IResource;
 
@@ -166,27 +172,16 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 					if (getControl() == null)
 						return;
 
-					Display d= getControl().getDisplay();
-					if (d != null) {
-						d.asyncExec(new Runnable() {
-							public void run() {
-								ICompilationUnit cu= (ICompilationUnit) fInput;
-								IJavaElement base= cu;
-								if (fTopLevelTypeOnly) {
-									base= cu.findPrimaryType();
-									if (base == null) {
-										if (fOutlineViewer != null)
-											fOutlineViewer.refresh(true);
-										return;
-									}
-								}
-								IJavaElementDelta delta= findElement(base, e.getDelta());
-								if (delta != null && fOutlineViewer != null) {
-									fOutlineViewer.reconcile(delta);
-								}
-							}
-						});
-					}
+					// the delta is examined and the new member tree is computed outside of the UI thread
+					IJavaElement input= fInput;
+					OutlineModelJob job= fOutlineModelJob;
+					if (!(input instanceof ICompilationUnit) || job == null)
+						return;
+
+					ICompilationUnit cu= (ICompilationUnit) input;
+					IJavaElementDelta delta= findElement(cu, e.getDelta());
+					if (delta != null)
+						job.update(cu, delta);
 				}
 
 				private boolean isPossibleStructuralChange(IJavaElementDelta cuDelta) {
@@ -232,6 +227,121 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 				}
 			}
 
+			/**
+			 * Computes the member tree of a compilation unit input outside of the UI thread when
+			 * the structure of the input changes, and applies the differences to the tree that is
+			 * shown to the outline viewer. Consecutive changes are coalesced.
+			 *
+			 * @since 3.10
+			 */
+			private class OutlineModelJob extends Job {
+
+				private final ChildrenProvider fProvider;
+				private ICompilationUnit fUnit;
+				/** The elements whose labels may have changed since the last update of the viewer */
+				private Set<IJavaElement> fChangedElements= new HashSet<IJavaElement>();
+
+				OutlineModelJob(ChildrenProvider provider) {
+					super(JavaEditorMessages.JavaOutlinePage_updateJob);
+					fProvider= provider;
+					setSystem(true);
+					setPriority(Job.DECORATE);
+				}
+
+				/**
+				 * Schedules the computation of the member tree after a structural change.
+				 *
+				 * @param unit the compilation unit input
+				 * @param delta the delta of the changed element
+				 */
+				void update(ICompilationUnit unit, IJavaElementDelta delta) {
+					synchronized (this) {
+						fUnit= unit;
+						collectChangedElements(delta, fChangedElements);
+					}
+					cancel();
+					schedule();
+				}
+
+				private void collectChangedElements(IJavaElementDelta delta, Set<IJavaElement> result) {
+					IJavaElement element= delta.getElement();
+					int flags= delta.getFlags();
+					if (element.getElementType() == IJavaElement.COMPILATION_UNIT) {
+						// a change without fine grained children requires a full refresh
+						if (delta.getKind() != IJavaElementDelta.CHANGED || (flags & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED)) == IJavaElementDelta.F_CONTENT)
+							result.add(element);
+					} else if (delta.getKind() == IJavaElementDelta.CHANGED && (flags & ~IJavaElementDelta.F_CHILDREN) != 0) {
+						result.add(element);
+					}
+					IJavaElementDelta[] children= delta.getAffectedChildren();
+					for (int i= 0; i < children.length; i++)
+						collectChangedElements(children[i], result);
+				}
+
+				private synchronized Set<IJavaElement> takeChangedElements() {
+					Set<IJavaElement> changed= fChangedElements;
+					fChangedElements= new HashSet<IJavaElement>();
+					return changed;
+				}
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					final ICompilationUnit unit;
+					synchronized (this) {
+						unit= fUnit;
+					}
+					if (unit == null)
+						return Status.OK_STATUS;
+
+					final Map<IJavaElement, IJavaElement[]> model= new HashMap<IJavaElement, IJavaElement[]>();
+					final IType primaryType;
+					try {
+						computeModel(unit, model, monitor);
+						primaryType= unit.findPrimaryType();
+					} catch (JavaModelException x) {
+						// see ChildrenProvider#getChildren(Object)
+						if (JavaPlugin.isDebug() || !x.isDoesNotExist())
+							JavaPlugin.log(x);
+						return Status.OK_STATUS;
+					}
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+
+					Control control= getControl();
+					if (control == null || control.isDisposed())
+						return Status.CANCEL_STATUS;
+
+					final OutlineModelJob job= this;
+					control.getDisplay().asyncExec(new Runnable() {
+						public void run() {
+							if (fOutlineModelJob != job || fOutlineViewer == null || !unit.equals(fInput))
+								return;
+							Map<IJavaElement, IJavaElement[]> oldModel= fOutlineModel;
+							IType oldPrimaryType= fOutlinePrimaryType;
+							fOutlineModel= model;
+							fOutlinePrimaryType= primaryType;
+							Set<IJavaElement> changedElements= takeChangedElements();
+							// the root elements of the top level type only mode belong to another type
+							if (fTopLevelTypeOnly && (primaryType == null ? oldPrimaryType != null : !primaryType.equals(oldPrimaryType)))
+								changedElements.add(unit);
+							fOutlineViewer.reconcile(oldModel, model, changedElements);
+						}
+					});
+					return Status.OK_STATUS;
+				}
+
+				private void computeModel(IParent parent, Map<IJavaElement, IJavaElement[]> model, IProgressMonitor monitor) throws JavaModelException {
+					if (monitor.isCanceled())
+						return;
+					IJavaElement[] children= fProvider.filter(parent.getChildren());
+					model.put((IJavaElement) parent, children);
+					for (int i= 0; i < children.length; i++) {
+						if (children[i] instanceof IParent)
+							computeModel((IParent) children[i], model, monitor);
+					}
+				}
+			}
+
 			static class NoClassElement extends WorkbenchAdapter implements IAdaptable {
 				/*
 				 * @see java.lang.Object#toString()
@@ -294,6 +404,11 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 				}
 
 				public Object[] getChildren(Object parent) {
+					if (fOutlineModel != null) {
+						IJavaElement[] children= fOutlineModel.get(parent);
+						if (children != null)
+							return children;
+					}
 					if (parent instanceof IParent) {
 						IParent c= (IParent) parent;
 						try {
@@ -312,13 +427,11 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 
 				public Object[] getElements(Object parent) {
 					if (fTopLevelTypeOnly) {
+						if (fOutlineModel != null && parent.equals(fInput))
+							return fOutlinePrimaryType != null ? getChildren(fOutlinePrimaryType) : NO_CLASS;
 						if (parent instanceof ITypeRoot) {
-							try {
-								IType type= ((ITypeRoot) parent).findPrimaryType();
-								return type != null ? type.getChildren() : NO_CLASS;
-							} catch (JavaModelException e) {
-								JavaPlugin.log(e);
-							}
+							IType type= ((ITypeRoot) parent).findPrimaryType();
+							return type != null ? getChildren(type) : NO_CLASS;
 						}
 					}
 					return getChildren(parent);
@@ -333,6 +446,11 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 				}
 
 				public boolean hasChildren(Object parent) {
+					if (fOutlineModel != null) {
+						IJavaElement[] children= fOutlineModel.get(parent);
+						if (children != null)
+							return children.length > 0;
+					}
 					if (parent instanceof IParent) {
 						IParent c= (IParent) parent;
 						try {
@@ -355,6 +473,7 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 						JavaCore.removeElementChangedListener(fListener);
 						fListener= null;
 					}
+					disposeOutlineModel();
 				}
 
 				/*
@@ -363,6 +482,10 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 				public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
 					boolean isCU= (newInput instanceof ICompilationUnit);
 
+					disposeOutlineModel();
+					if (isCU)
+						fOutlineModelJob= new OutlineModelJob(this);
+
 					if (isCU && fListener == null) {
 						fListener= new ElementChangedListener();
 						JavaCore.addElementChangedListener(fListener);
@@ -371,6 +494,15 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 						fListener= null;
 					}
 				}
+
+				private void disposeOutlineModel() {
+					if (fOutlineModelJob != null) {
+						fOutlineModelJob.cancel();
+						fOutlineModelJob= null;
+					}
+					fOutlineModel= null;
+					fOutlinePrimaryType= null;
+				}
 			}
 
 			/**
@@ -387,13 +519,55 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 				}
 
 				/**
-				 * Investigates the given element change event and if affected
-				 * incrementally updates the Java outline.
+				 * Updates the Java outline with the differences between two member trees of the
+				 * input. Only the parents whose children differ are refreshed, and only the given
+				 * elements are relabeled.
 				 *
-				 * @param delta the Java element delta used to reconcile the Java outline
+				 * @param oldModel the member tree that is shown, or <code>null</code> if unknown
+				 * @param newModel the member tree to show
+				 * @param changedElements the elements whose labels may have changed; if the input is
+				 *            contained, all labels are updated
+				 * @since 3.10
 				 */
-				public void reconcile(IJavaElementDelta delta) {
-					refresh(true);
+				void reconcile(Map<IJavaElement, IJavaElement[]> oldModel, Map<IJavaElement, IJavaElement[]> newModel, Set<IJavaElement> changedElements) {
+					Object input= getInput();
+					if (oldModel == null || changedElements.contains(input)) {
+						refresh(true);
+						return;
+					}
+
+					Set<Object> changedParents= new HashSet<Object>();
+					for (Iterator<Map.Entry<IJavaElement, IJavaElement[]>> iter= newModel.entrySet().iterator(); iter.hasNext();) {
+						Map.Entry<IJavaElement, IJavaElement[]> entry= iter.next();
+						if (!Arrays.equals(oldModel.get(entry.getKey()), entry.getValue())) {
+							IJavaElement parent= entry.getKey();
+							if (fTopLevelTypeOnly && parent.equals(fOutlinePrimaryType))
+								changedParents.add(input); // the children of the primary type are the root elements
+							else
+								changedParents.add(parent);
+						}
+					}
+					if (changedParents.contains(input)) {
+						refresh(input, false);
+					} else {
+						for (Iterator<Object> iter= changedParents.iterator(); iter.hasNext();) {
+							Object parent= iter.next();
+							if (!hasChangedAncestor(parent, changedParents))
+								refresh(parent, false);
+						}
+					}
+					if (!changedElements.isEmpty())
+						update(changedElements.toArray(), null);
+				}
+
+				private boolean hasChangedAncestor(Object element, Set<Object> changedParents) {
+					IJavaElement ancestor= ((IJavaElement) element).getParent();
+					while (ancestor != null) {
+						if (changedParents.contains(ancestor))
+							return true;
+						ancestor= ancestor.getParent();
+					}
+					return false;
 				}
 
 				/*
@@ -753,6 +927,28 @@ public class JavaOutlinePage extends Page implements IContentOutlinePage, IAdapt
 	private boolean fTopLevelTypeOnly;
 
 	private IJavaElement fInput;
+
+	/**
+	 * The filtered children of the input and its members, as computed by the
+	 * {@link OutlineModelJob}, or <code>null</code> if the outline has not been updated by the job
+	 * yet. Only accessed in the UI thread.
+	 * @since 3.10
+	 */
+	private Map<IJavaElement, IJavaElement[]> fOutlineModel;
+
+	/**
+	 * The primary type of the input, as computed by the {@link OutlineModelJob} together with
+	 * {@link #fOutlineModel}. Only accessed in the UI thread.
+	 * @since 3.10
+	 */
+	private IType fOutlinePrimaryType;
+
+	/**
+	 * The job that computes the member tree of a compilation unit input, or <code>null</code>.
+	 * @since 3.10
+	 */
+	private volatile OutlineModelJob fOutlineModelJob;
+
 	private String fContextMenuID;
 	private Menu fMenu;
 	private JavaOutlineViewer fOutlineViewer;
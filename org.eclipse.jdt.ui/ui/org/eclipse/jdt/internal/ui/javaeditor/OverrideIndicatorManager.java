@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,7 +47,6 @@ import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
-import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 import org.eclipse.jdt.internal.ui.util.ExceptionHandler;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 
@@ -57,7 +56,7 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
  *
  * @since 3.0
  */
-class OverrideIndicatorManager implements IJavaReconcilingListener {
+class OverrideIndicatorManager implements ReconcileASTPipeline.IStage {
 
 	/**
 	 * Overwrite and override indicator annotation.
@@ -129,6 +128,12 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	private Object fAnnotationModelLockObject;
 	private Annotation[] fOverrideAnnotations;
 	private ITypeRoot fJavaElement;
+	/**
+	 * The annotations found by the current walk of the {@link ReconcileASTPipeline}, or
+	 * <code>null</code> if no walk is running.
+	 * @since 3.10
+	 */
+	private Map<Annotation, Position> fStageAnnotations;
 
 
 	public OverrideIndicatorManager(IAnnotationModel annotationModel, ITypeRoot javaElement, CompilationUnit ast) {
@@ -179,30 +184,7 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 			 */
 			@Override
 			public boolean visit(MethodDeclaration node) {
-				IMethodBinding binding= node.resolveBinding();
-				if (binding != null) {
-					IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
-					if (definingMethod != null) {
-
-						ITypeBinding definingType= definingMethod.getDeclaringClass();
-						String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
-
-						boolean isImplements= JdtFlags.isAbstract(definingMethod);
-						String text;
-						if (isImplements)
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-						else
-							text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
-
-						SimpleName name= node.getName();
-						Position position= new Position(name.getStartPosition(), name.getLength());
-
-						annotationMap.put(
-								new OverrideIndicator(isImplements, text, binding.getKey()),
-								position);
-
-					}
-				}
+				addAnnotation(node, annotationMap);
 				return true;
 			}
 		});
@@ -210,6 +192,51 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 		if (progressMonitor.isCanceled())
 			return;
 
+		replaceAnnotations(annotationMap);
+	}
+
+	/**
+	 * Adds the override or implements annotation of the given method declaration to the given map,
+	 * if the method overrides or implements another method.
+	 *
+	 * @param node the method declaration
+	 * @param annotationMap the map from annotation to position
+	 * @since 3.10
+	 */
+	private void addAnnotation(MethodDeclaration node, Map<Annotation, Position> annotationMap) {
+		IMethodBinding binding= node.resolveBinding();
+		if (binding != null) {
+			IMethodBinding definingMethod= Bindings.findOverriddenMethod(binding, true);
+			if (definingMethod != null) {
+
+				ITypeBinding definingType= definingMethod.getDeclaringClass();
+				String qualifiedMethodName= definingType.getQualifiedName() + "." + binding.getName(); //$NON-NLS-1$
+
+				boolean isImplements= JdtFlags.isAbstract(definingMethod);
+				String text;
+				if (isImplements)
+					text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_implements, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+				else
+					text= Messages.format(JavaEditorMessages.OverrideIndicatorManager_overrides, BasicElementLabels.getJavaElementName(qualifiedMethodName));
+
+				SimpleName name= node.getName();
+				Position position= new Position(name.getStartPosition(), name.getLength());
+
+				annotationMap.put(
+						new OverrideIndicator(isImplements, text, binding.getKey()),
+						position);
+
+			}
+		}
+	}
+
+	/**
+	 * Replaces the override indicators in this manager's annotation model.
+	 *
+	 * @param annotationMap the map from new annotation to position
+	 * @since 3.10
+	 */
+	private void replaceAnnotations(Map<Annotation, Position> annotationMap) {
 		synchronized (fAnnotationModelLockObject) {
 			if (fAnnotationModel instanceof IAnnotationModelExtension) {
 				((IAnnotationModelExtension)fAnnotationModel).replaceAnnotations(fOverrideAnnotations, annotationMap);
@@ -255,5 +282,44 @@ class OverrideIndicatorManager implements IJavaReconcilingListener {
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
 		updateAnnotations(ast, progressMonitor);
 	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#aboutToWalk(org.eclipse.jdt.core.dom.CompilationUnit, boolean, org.eclipse.core.runtime.IProgressMonitor)
+	 * @since 3.10
+	 */
+	public boolean aboutToWalk(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		if (ast == null || progressMonitor.isCanceled())
+			return false;
+		fStageAnnotations= new HashMap<Annotation, Position>(50);
+		return true;
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#getNodeTypes()
+	 * @since 3.10
+	 */
+	public int[] getNodeTypes() {
+		return new int[] { ASTNode.METHOD_DECLARATION };
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#visit(org.eclipse.jdt.core.dom.ASTNode)
+	 * @since 3.10
+	 */
+	public boolean visit(ASTNode node) {
+		addAnnotation((MethodDeclaration) node, fStageAnnotations);
+		return true;
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#walked(org.eclipse.core.runtime.IProgressMonitor)
+	 * @since 3.10
+	 */
+	public void walked(IProgressMonitor progressMonitor) {
+		Map<Annotation, Position> annotationMap= fStageAnnotations;
+		fStageAnnotations= null;
+		if (!progressMonitor.isCanceled())
+			replaceAnnotations(annotationMap);
+	}
 }
 
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
+
+
+/**
+ * Walks the AST of a reconcile once for all reconciling listeners that need to visit it.
+ * <p>
+ * Each {@link IStage stage} subscribes to the node types it is interested in and only receives
+ * these nodes. A stage that returns <code>false</code> from {@link IStage#visit(ASTNode)} does not
+ * receive the descendants of the node, while the walk continues for the other stages.
+ * </p>
+ * <p>
+ * The time spent in each stage is printed if the <code>org.eclipse.jdt.ui/debug/ReconcileASTPipeline</code>
+ * tracing option is enabled.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class ReconcileASTPipeline {
+
+	/**
+	 * A reconciling listener that visits the AST of the reconcile as a stage of the shared walk
+	 * instead of walking the AST itself. {@link IJavaReconcilingListener#reconciled(CompilationUnit, boolean, IProgressMonitor)}
+	 * is not called for listeners that are run by the pipeline.
+	 */
+	public interface IStage extends IJavaReconcilingListener {
+
+		/**
+		 * Called before the walk.
+		 *
+		 * @param ast the compilation unit AST or <code>null</code> if the working copy was
+		 *            consistent or reconciliation has been cancelled
+		 * @param forced <code>true</code> iff this reconciliation was forced
+		 * @param progressMonitor the progress monitor
+		 * @return <code>true</code> if the stage takes part in the walk; if <code>false</code>,
+		 *         neither {@link #visit(ASTNode)} nor {@link #walked(IProgressMonitor)} are called
+		 */
+		boolean aboutToWalk(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor);
+
+		/**
+		 * @return the node types (see {@link ASTNode#getNodeType()}) that this stage visits, or
+		 *         <code>null</code> to visit all nodes
+		 */
+		int[] getNodeTypes();
+
+		/**
+		 * Visits a node of one of the subscribed types.
+		 *
+		 * @param node the node
+		 * @return <code>true</code> if the stage wants to visit the descendants of the node
+		 */
+		boolean visit(ASTNode node);
+
+		/**
+		 * Called after the walk, also if the walk has been interrupted by an exception, if
+		 * {@link #aboutToWalk(CompilationUnit, boolean, IProgressMonitor)} returned
+		 * <code>true</code>.
+		 *
+		 * @param progressMonitor the progress monitor
+		 */
+		void walked(IProgressMonitor progressMonitor);
+	}
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/ReconcileASTPipeline"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	private static final String DEBUG_PREFIX= "ReconcileASTPipeline > "; //$NON-NLS-1$
+
+	/**
+	 * Dispatches the nodes of one walk to the stages.
+	 */
+	private static class Walker extends ASTVisitor {
+
+		private final IStage[] fStages;
+		/** Per stage: the subscribed node types indexed by node type, or <code>null</code> for all */
+		private final boolean[][] fNodeTypes;
+		/** Per stage: the node whose descendants the stage does not visit, or <code>null</code> */
+		private final ASTNode[] fSkipped;
+		/** Per stage: the nanoseconds spent in the stage, only if {@link ReconcileASTPipeline#DEBUG} */
+		private final long[] fTimes;
+		private int fActive;
+
+		Walker(IStage[] stages) {
+			fStages= stages;
+			fNodeTypes= new boolean[stages.length][];
+			fSkipped= new ASTNode[stages.length];
+			fTimes= new long[stages.length];
+			for (int i= 0; i < stages.length; i++) {
+				int[] types= stages[i].getNodeTypes();
+				if (types != null) {
+					int max= 0;
+					for (int j= 0; j < types.length; j++)
+						max= Math.max(max, types[j]);
+					boolean[] subscribed= new boolean[max + 1];
+					for (int j= 0; j < types.length; j++)
+						subscribed[types[j]]= true;
+					fNodeTypes[i]= subscribed;
+				}
+			}
+		}
+
+		@Override
+		public boolean preVisit2(ASTNode node) {
+			int type= node.getNodeType();
+			for (int i= 0; i < fStages.length; i++) {
+				if (fSkipped[i] != null)
+					continue;
+				boolean[] subscribed= fNodeTypes[i];
+				if (subscribed != null && (type >= subscribed.length || !subscribed[type]))
+					continue;
+				boolean visitChildren;
+				if (DEBUG) {
+					long start= System.nanoTime();
+					visitChildren= fStages[i].visit(node);
+					fTimes[i]+= System.nanoTime() - start;
+				} else {
+					visitChildren= fStages[i].visit(node);
+				}
+				if (!visitChildren) {
+					fSkipped[i]= node;
+					fActive--;
+				}
+			}
+			return fActive > 0;
+		}
+
+		@Override
+		public void postVisit(ASTNode node) {
+			for (int i= 0; i < fStages.length; i++) {
+				if (fSkipped[i] == node) {
+					fSkipped[i]= null;
+					fActive++;
+				}
+			}
+		}
+
+		void walk(ASTNode root) {
+			fActive= fStages.length;
+			root.accept(this);
+		}
+	}
+
+	private ReconcileASTPipeline() {
+	}
+
+	/**
+	 * Runs the given stages on the given AST with one walk.
+	 *
+	 * @param stages the stages to run
+	 * @param ast the compilation unit AST or <code>null</code> if the working copy was consistent
+	 *            or reconciliation has been cancelled
+	 * @param forced <code>true</code> iff this reconciliation was forced
+	 * @param progressMonitor the progress monitor
+	 */
+	public static void run(List<IStage> stages, CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		List<IStage> active= new ArrayList<IStage>(stages.size());
+		long[] times= DEBUG ? new long[stages.size()] : null;
+		for (int i= 0, size= stages.size(); i < size; i++) {
+			IStage stage= stages.get(i);
+			long start= DEBUG ? System.nanoTime() : 0;
+			if (stage.aboutToWalk(ast, forced, progressMonitor)) {
+				if (DEBUG)
+					times[active.size()]= System.nanoTime() - start;
+				active.add(stage);
+			}
+		}
+		if (active.isEmpty())
+			return;
+
+		Walker walker= new Walker(active.toArray(new IStage[active.size()]));
+		try {
+			if (ast != null && !progressMonitor.isCanceled())
+				walker.walk(ast);
+		} finally {
+			for (int i= 0, size= active.size(); i < size; i++) {
+				long start= DEBUG ? System.nanoTime() : 0;
+				try {
+					active.get(i).walked(progressMonitor);
+				} finally {
+					if (DEBUG)
+						times[i]+= System.nanoTime() - start + walker.fTimes[i];
+				}
+			}
+		}
+
+		if (DEBUG) {
+			for (int i= 0, size= active.size(); i < size; i++)
+				System.out.println(DEBUG_PREFIX + active.get(i).getClass().getName() + ": " + (times[i] / 1000) + " us"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
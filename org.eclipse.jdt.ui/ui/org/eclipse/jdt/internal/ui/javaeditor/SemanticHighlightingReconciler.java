@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,6 +38,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.Javadoc;
 import org.eclipse.jdt.core.dom.NumberLiteral;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
@@ -50,7 +51,6 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingManager.HighlightedPosition;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingManager.Highlighting;
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings.DeprecatedMemberHighlighting;
-import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 
 
 /**
@@ -58,7 +58,7 @@ import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
  *
  * @since 3.0
  */
-public class SemanticHighlightingReconciler implements IJavaReconcilingListener, ITextInputListener {
+public class SemanticHighlightingReconciler implements ReconcileASTPipeline.IStage, ITextInputListener {
 
 	/**
 	 * Collects positions from the AST.
@@ -80,6 +80,33 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			return true;
 		}
 
+		/**
+		 * Visits the given node like {@link ASTNode#accept(org.eclipse.jdt.core.dom.ASTVisitor)}
+		 * does, without visiting its children.
+		 *
+		 * @param node the node
+		 * @return <code>true</code> if the children of the node should be visited
+		 * @since 3.10
+		 */
+		public boolean dispatch(ASTNode node) {
+			switch (node.getNodeType()) {
+				case ASTNode.BOOLEAN_LITERAL:
+				case ASTNode.CHARACTER_LITERAL:
+				case ASTNode.NUMBER_LITERAL:
+					return visitLiteral((Expression) node);
+				case ASTNode.CONSTRUCTOR_INVOCATION:
+					return visit((ConstructorInvocation) node);
+				case ASTNode.SUPER_CONSTRUCTOR_INVOCATION:
+					return visit((SuperConstructorInvocation) node);
+				case ASTNode.SIMPLE_NAME:
+					return visit((SimpleName) node);
+				case ASTNode.JAVADOC:
+					return visit((Javadoc) node);
+				default:
+					return visitNode(node);
+			}
+		}
+
 		/*
 		 * @see org.eclipse.jdt.core.dom.ASTVisitor#visit(org.eclipse.jdt.core.dom.BooleanLiteral)
 		 */
@@ -283,10 +310,26 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#reconciled(CompilationUnit, boolean, IProgressMonitor)
 	 */
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		if (!aboutToWalk(ast, forced, progressMonitor))
+			return;
+		try {
+			ASTNode[] subtrees= getAffectedSubtrees(ast);
+			if (!fJobPresenter.isCanceled())
+				reconcilePositions(subtrees);
+		} finally {
+			walked(progressMonitor);
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#aboutToWalk(org.eclipse.jdt.core.dom.CompilationUnit, boolean, org.eclipse.core.runtime.IProgressMonitor)
+	 * @since 3.10
+	 */
+	public boolean aboutToWalk(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
 		// ensure at most one thread can be reconciling at any time
 		synchronized (fReconcileLock) {
 			if (fIsReconciling)
-				return;
+				return false;
 			else
 				fIsReconciling= true;
 		}
@@ -294,32 +337,58 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fJobSemanticHighlightings= fSemanticHighlightings;
 		fJobHighlightings= fHighlightings;
 
+		boolean walk= false;
 		try {
 			if (fJobPresenter == null || fJobSemanticHighlightings == null || fJobHighlightings == null)
-				return;
+				return false;
 
 			fJobPresenter.setCanceled(progressMonitor.isCanceled());
 
 			if (ast == null || fJobPresenter.isCanceled())
-				return;
-
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
-			if (subtrees.length == 0)
-				return;
+				return false;
 
 			startReconcilingPositions();
 
-			if (!fJobPresenter.isCanceled()) {
-				fJobDeprecatedMemberHighlighting= null;
-				for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
-					SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
-					if (fJobHighlightings[i].isEnabled() && semanticHighlighting instanceof DeprecatedMemberHighlighting) {
-						fJobDeprecatedMemberHighlighting= fJobHighlightings[i];
-						break;
-					}
+			fJobDeprecatedMemberHighlighting= null;
+			for (int i= 0, n= fJobSemanticHighlightings.length; i < n; i++) {
+				SemanticHighlighting semanticHighlighting= fJobSemanticHighlightings[i];
+				if (fJobHighlightings[i].isEnabled() && semanticHighlighting instanceof DeprecatedMemberHighlighting) {
+					fJobDeprecatedMemberHighlighting= fJobHighlightings[i];
+					break;
 				}
-				reconcilePositions(subtrees);
 			}
+			walk= true;
+			return true;
+		} finally {
+			if (!walk)
+				endReconciling();
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#getNodeTypes()
+	 * @since 3.10
+	 */
+	public int[] getNodeTypes() {
+		return null;
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#visit(org.eclipse.jdt.core.dom.ASTNode)
+	 * @since 3.10
+	 */
+	public boolean visit(ASTNode node) {
+		return fCollector.dispatch(node);
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.javaeditor.ReconcileASTPipeline.IStage#walked(org.eclipse.core.runtime.IProgressMonitor)
+	 * @since 3.10
+	 */
+	public void walked(IProgressMonitor progressMonitor) {
+		try {
+			if (!fJobPresenter.isCanceled())
+				compactRemovedPositions();
 
 			TextPresentation textPresentation= null;
 			if (!fJobPresenter.isCanceled())
@@ -330,13 +399,22 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 
 			stopReconcilingPositions();
 		} finally {
-			fJobPresenter= null;
-			fJobSemanticHighlightings= null;
-			fJobHighlightings= null;
-			fJobDeprecatedMemberHighlighting= null;
-			synchronized (fReconcileLock) {
-				fIsReconciling= false;
-			}
+			endReconciling();
+		}
+	}
+
+	/**
+	 * Releases the state of the reconcile, so that the next reconcile can start.
+	 *
+	 * @since 3.10
+	 */
+	private void endReconciling() {
+		fJobPresenter= null;
+		fJobSemanticHighlightings= null;
+		fJobHighlightings= null;
+		fJobDeprecatedMemberHighlighting= null;
+		synchronized (fReconcileLock) {
+			fIsReconciling= false;
 		}
 	}
 
@@ -369,6 +447,14 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 
 		for (int i= 0, n= subtrees.length; i < n; i++)
 			subtrees[i].accept(fCollector);
+	}
+
+	/**
+	 * Removes the positions that have been found again from the removed positions.
+	 *
+	 * @since 3.10
+	 */
+	private void compactRemovedPositions() {
 		List<Position> oldPositions= fRemovedPositions;
 		List<Position> newPositions= new ArrayList<Position>(fNOfRemovedPositions);
 		for (int i= 0, n= oldPositions.size(); i < n; i ++) {
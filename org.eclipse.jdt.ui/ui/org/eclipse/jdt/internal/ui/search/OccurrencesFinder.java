@@ -41,10 +41,12 @@ import org.eclipse.jdt.core.dom.QualifiedName;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
 import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 
 import org.eclipse.jdt.internal.corext.dom.ASTNodes;
+import org.eclipse.jdt.internal.corext.dom.BindingOccurrenceIndex;
 import org.eclipse.jdt.internal.corext.dom.Bindings;
 import org.eclipse.jdt.internal.corext.util.Messages;
 
@@ -66,11 +68,26 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 
 	private boolean fTargetIsStaticMethodImport;
 
+	private final boolean fUseIndex;
+
 	private String fReadDescription;
 	private String fWriteDescription;
 
 	public OccurrencesFinder() {
+		this(true);
+	}
+
+	/**
+	 * Creates a finder.
+	 *
+	 * @param useIndex <code>true</code> to look up the occurrences of variables in the
+	 *            {@link BindingOccurrenceIndex} of the AST, <code>false</code> to always walk the
+	 *            AST
+	 * @since 3.10
+	 */
+	public OccurrencesFinder(boolean useIndex) {
 		super(true);
+		fUseIndex= useIndex;
 	}
 
 	public String initialize(CompilationUnit root, int offset, int length) {
@@ -97,8 +114,58 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		if (fResult == null) {
 			fResult= new ArrayList<OccurrenceLocation>();
 			fWriteUsages= new HashSet<Name>();
-			fRoot.accept(this);
+			if (!fUseIndex || !(fTarget instanceof IVariableBinding) || !searchIndex())
+				fRoot.accept(this);
+		}
+	}
+
+	/**
+	 * Finds the occurrences of a variable with the binding index of the AST. Variables are only
+	 * referenced by simple names, so the occurrences are exactly the names of the variable.
+	 *
+	 * @return <code>true</code> if the index could be used
+	 */
+	private boolean searchIndex() {
+		List<SimpleName> names= BindingOccurrenceIndex.get(fRoot).getNames(fTarget);
+		if (names == null)
+			return false;
+		for (int i= 0; i < names.size(); i++) {
+			SimpleName name= names.get(i);
+			if (isWrite(name))
+				fWriteUsages.add(name);
+			addUsage(name, name.resolveBinding());
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether the given name is written, in the same way as the visit methods of this
+	 * finder determine write accesses.
+	 *
+	 * @param name the name of a variable
+	 * @return <code>true</code> if the variable is written at the name
+	 */
+	private static boolean isWrite(SimpleName name) {
+		StructuralPropertyDescriptor location= name.getLocationInParent();
+		if (location == SingleVariableDeclaration.NAME_PROPERTY)
+			return true;
+		if (location == VariableDeclarationFragment.NAME_PROPERTY) {
+			VariableDeclarationFragment fragment= (VariableDeclarationFragment) name.getParent();
+			return fragment.getParent() instanceof FieldDeclaration || fragment.getInitializer() != null;
+		}
+
+		ASTNode expression= name;
+		if (location == QualifiedName.NAME_PROPERTY || location == FieldAccess.NAME_PROPERTY) {
+			expression= name.getParent();
+			location= expression.getLocationInParent();
 		}
+		if (location == Assignment.LEFT_HAND_SIDE_PROPERTY || location == PostfixExpression.OPERAND_PROPERTY)
+			return true;
+		if (location == PrefixExpression.OPERAND_PROPERTY) {
+			PrefixExpression.Operator operator= ((PrefixExpression) expression.getParent()).getOperator();
+			return operator == Operator.INCREMENT || operator == Operator.DECREMENT;
+		}
+		return false;
 	}
 
 	public OccurrenceLocation[] getOccurrences() {
@@ -139,7 +206,12 @@ public class OccurrencesFinder extends ASTVisitor implements IOccurrencesFinder
 		final IBinding binding= node.resolveBinding();
 		if (binding instanceof IVariableBinding && ((IVariableBinding)binding).isField()) {
 			SimpleName name= node.getName();
-			return !addUsage(name, name.resolveBinding());
+			if (addUsage(name, name.resolveBinding())) {
+				// the qualifier can refer to the same field, e.g. in 'next.next'
+				node.getQualifier().accept(this);
+				return false;
+			}
+			return true;
 		}
 		if (binding instanceof IMethodBinding) {
 			if (isStaticImport(node)) {
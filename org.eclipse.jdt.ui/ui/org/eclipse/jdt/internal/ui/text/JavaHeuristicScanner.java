@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import org.eclipse.core.runtime.Assert;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITypedRegion;
 import org.eclipse.jface.text.Region;
@@ -29,6 +30,10 @@ import org.eclipse.jdt.ui.text.IJavaPartitions;
  *
  * <p>An instance holds some internal position in the document and is therefore not threadsafe.</p>
  *
+ * <p>The scanner reads the document in blocks, which it keeps as long as the modification stamp of
+ * the document does not change. Documents that do not provide modification stamps are read anew
+ * for every scan.</p>
+ *
  * @since 3.0
  */
 public final class JavaHeuristicScanner implements Symbols {
@@ -250,6 +255,12 @@ public final class JavaHeuristicScanner implements Symbols {
 	/** The partition to scan in. */
 	private final String fPartition;
 
+	/**
+	 * The size of the blocks in which the document is read.
+	 * @since 3.10
+	 */
+	private static final int BUFFER_SIZE= 1024;
+
 	/* internal scan state */
 
 	/** the most recently read character. */
@@ -261,6 +272,27 @@ public final class JavaHeuristicScanner implements Symbols {
 	 * @since 3.2
 	 */
 	private ITypedRegion fCachedPartition= new TypedRegion(-1, 0, "__no_partition_at_all"); //$NON-NLS-1$
+	/**
+	 * The most recently read block of the document, or <code>null</code> if none has been read yet.
+	 * @since 3.10
+	 */
+	private char[] fBuffer;
+	/**
+	 * The document offset of the first character in {@link #fBuffer}.
+	 * @since 3.10
+	 */
+	private int fBufferOffset;
+	/**
+	 * The number of valid characters in {@link #fBuffer}.
+	 * @since 3.10
+	 */
+	private int fBufferLength;
+	/**
+	 * The modification stamp of the document when {@link #fBuffer} and {@link #fCachedPartition}
+	 * were read.
+	 * @since 3.10
+	 */
+	private long fModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 
 	/* preset stop conditions */
 	private final StopCondition fNonWSDefaultPart= new NonWhitespaceDefaultPartition();
@@ -361,15 +393,12 @@ public final class JavaHeuristicScanner implements Symbols {
 			else
 				to= pos;
 
-			String identOrKeyword;
 			try {
-				identOrKeyword= fDocument.get(from, to - from);
+				return getToken(from, to);
 			} catch (BadLocationException e) {
 				return TokenEOF;
 			}
 
-			return getToken(identOrKeyword);
-
 
 		} else {
 			// operators, number literals etc
@@ -437,15 +466,12 @@ public final class JavaHeuristicScanner implements Symbols {
 			else
 				from= pos + 1;
 
-			String identOrKeyword;
 			try {
-				identOrKeyword= fDocument.get(from, to - from);
+				return getToken(from, to);
 			} catch (BadLocationException e) {
 				return TokenEOF;
 			}
 
-			return getToken(identOrKeyword);
-
 
 		} else {
 			// operators, number literals etc
@@ -457,75 +483,92 @@ public final class JavaHeuristicScanner implements Symbols {
 	/**
 	 * Returns one of the keyword constants or <code>TokenIDENT</code> for a scanned identifier.
 	 *
-	 * @param s a scanned identifier
+	 * @param from the offset of the scanned identifier
+	 * @param to the end offset (exclusive) of the scanned identifier
 	 * @return one of the constants defined in {@link Symbols}
+	 * @throws BadLocationException if the range is not in the document
 	 */
-	private int getToken(String s) {
-		Assert.isNotNull(s);
-
-		switch (s.length()) {
+	private int getToken(int from, int to) throws BadLocationException {
+		switch (to - from) {
 			case 2:
-				if ("if".equals(s)) //$NON-NLS-1$
+				if (matches(from, "if")) //$NON-NLS-1$
 					return TokenIF;
-				if ("do".equals(s)) //$NON-NLS-1$
+				if (matches(from, "do")) //$NON-NLS-1$
 					return TokenDO;
 				break;
 			case 3:
-				if ("for".equals(s)) //$NON-NLS-1$
+				if (matches(from, "for")) //$NON-NLS-1$
 					return TokenFOR;
-				if ("try".equals(s)) //$NON-NLS-1$
+				if (matches(from, "try")) //$NON-NLS-1$
 					return TokenTRY;
-				if ("new".equals(s)) //$NON-NLS-1$
+				if (matches(from, "new")) //$NON-NLS-1$
 					return TokenNEW;
 				break;
 			case 4:
-				if ("case".equals(s)) //$NON-NLS-1$
+				if (matches(from, "case")) //$NON-NLS-1$
 					return TokenCASE;
-				if ("else".equals(s)) //$NON-NLS-1$
+				if (matches(from, "else")) //$NON-NLS-1$
 					return TokenELSE;
-				if ("enum".equals(s)) //$NON-NLS-1$
+				if (matches(from, "enum")) //$NON-NLS-1$
 					return TokenENUM;
-				if ("goto".equals(s)) //$NON-NLS-1$
+				if (matches(from, "goto")) //$NON-NLS-1$
 					return TokenGOTO;
 				break;
 			case 5:
-				if ("break".equals(s)) //$NON-NLS-1$
+				if (matches(from, "break")) //$NON-NLS-1$
 					return TokenBREAK;
-				if ("catch".equals(s)) //$NON-NLS-1$
+				if (matches(from, "catch")) //$NON-NLS-1$
 					return TokenCATCH;
-				if ("class".equals(s)) //$NON-NLS-1$
+				if (matches(from, "class")) //$NON-NLS-1$
 					return TokenCLASS;
-				if ("while".equals(s)) //$NON-NLS-1$
+				if (matches(from, "while")) //$NON-NLS-1$
 					return TokenWHILE;
 				break;
 			case 6:
-				if ("return".equals(s)) //$NON-NLS-1$
+				if (matches(from, "return")) //$NON-NLS-1$
 					return TokenRETURN;
-				if ("static".equals(s)) //$NON-NLS-1$
+				if (matches(from, "static")) //$NON-NLS-1$
 					return TokenSTATIC;
-				if ("switch".equals(s)) //$NON-NLS-1$
+				if (matches(from, "switch")) //$NON-NLS-1$
 					return TokenSWITCH;
-				if ("throws".equals(s)) //$NON-NLS-1$
+				if (matches(from, "throws")) //$NON-NLS-1$
 					return TokenTHROWS;
 				break;
 			case 7:
-				if ("default".equals(s)) //$NON-NLS-1$
+				if (matches(from, "default")) //$NON-NLS-1$
 					return TokenDEFAULT;
-				if ("finally".equals(s)) //$NON-NLS-1$
+				if (matches(from, "finally")) //$NON-NLS-1$
 					return TokenFINALLY;
 				break;
 			case 9:
-				if ("interface".equals(s)) //$NON-NLS-1$
+				if (matches(from, "interface")) //$NON-NLS-1$
 					return TokenINTERFACE;
 				break;
 			case 12:
-				if ("synchronized".equals(s)) //$NON-NLS-1$
+				if (matches(from, "synchronized")) //$NON-NLS-1$
 					return TokenSYNCHRONIZED;
 				break;
 		}
 		return TokenIDENT;
 	}
 
+	/**
+	 * Tells whether the document contains the given keyword at the given offset.
+	 *
+	 * @param offset the offset in the document
+	 * @param keyword the keyword
+	 * @return <code>true</code> if the characters at <code>offset</code> are the keyword
+	 * @throws BadLocationException if the range is not in the document
+	 * @since 3.10
+	 */
+	private boolean matches(int offset, String keyword) throws BadLocationException {
+		for (int i= 0, length= keyword.length(); i < length; i++) {
+			if (readChar(offset + i) != keyword.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Returns the position of the closing peer character (forward search). Any scopes introduced by opening peers
 	 * are skipped. All peers accounted for must reside in the default partition.
@@ -567,7 +610,7 @@ public final class JavaHeuristicScanner implements Symbols {
 				if (start == NOT_FOUND)
 					return NOT_FOUND;
 
-				if (fDocument.getChar(start) == openingPeer)
+				if (readChar(start) == openingPeer)
 					depth++;
 				else
 					depth--;
@@ -622,7 +665,7 @@ public final class JavaHeuristicScanner implements Symbols {
 				if (start == NOT_FOUND)
 					return NOT_FOUND;
 
-				if (fDocument.getChar(start) == closingPeer)
+				if (readChar(start) == closingPeer)
 					depth++;
 				else
 					depth--;
@@ -731,11 +774,12 @@ public final class JavaHeuristicScanner implements Symbols {
 
 		Assert.isLegal(bound <= fDocument.getLength());
 
+		validateBuffer();
 		try {
 			fPos= start;
 			while (fPos < bound) {
 
-				fChar= fDocument.getChar(fPos);
+				fChar= readChar(fPos);
 				if (condition.stop(fChar, fPos, true))
 					return fPos;
 
@@ -791,11 +835,12 @@ public final class JavaHeuristicScanner implements Symbols {
 		Assert.isLegal(bound >= -1);
 		Assert.isLegal(start < fDocument.getLength() );
 
+		validateBuffer();
 		try {
 			fPos= start;
 			while (fPos > bound) {
 
-				fChar= fDocument.getChar(fPos);
+				fChar= readChar(fPos);
 				if (condition.stop(fChar, fPos, false))
 					return fPos;
 
@@ -834,6 +879,70 @@ public final class JavaHeuristicScanner implements Symbols {
 		return scanBackward(position, bound, new CharacterMatch(chars));
 	}
 
+	/**
+	 * Returns the character at the given position of the document.
+	 *
+	 * @param position the position
+	 * @return the character at <code>position</code>
+	 * @throws BadLocationException if <code>position</code> is not in the document
+	 * @since 3.10
+	 */
+	public char getChar(int position) throws BadLocationException {
+		validateBuffer();
+		if (fModificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+			return fDocument.getChar(position);
+		return readChar(position);
+	}
+
+	/**
+	 * Drops the buffered block and the cached partition if the document has been modified since
+	 * they were read. Must be called before the buffer is used by a scan.
+	 *
+	 * @since 3.10
+	 */
+	private void validateBuffer() {
+		long stamp= fDocument instanceof IDocumentExtension4 ? ((IDocumentExtension4) fDocument).getModificationStamp() : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		if (stamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP || stamp != fModificationStamp) {
+			fBufferLength= 0;
+			if (stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+				fCachedPartition= new TypedRegion(-1, 0, "__no_partition_at_all"); //$NON-NLS-1$
+			fModificationStamp= stamp;
+		}
+	}
+
+	/**
+	 * Returns the character at the given position from the buffered block, reading the block that
+	 * contains the position if necessary. The block is read so that it extends in both directions
+	 * from the position, favoring the direction of the last scan.
+	 *
+	 * @param position the position
+	 * @return the character at <code>position</code>
+	 * @throws BadLocationException if <code>position</code> is not in the document
+	 * @since 3.10
+	 */
+	private char readChar(int position) throws BadLocationException {
+		int index= position - fBufferOffset;
+		if (index >= 0 && index < fBufferLength)
+			return fBuffer[index];
+
+		int length= fDocument.getLength();
+		if (position < 0 || position >= length)
+			throw new BadLocationException();
+		if (fBuffer == null)
+			fBuffer= new char[BUFFER_SIZE];
+		int offset;
+		if (position < fBufferOffset)
+			offset= position - BUFFER_SIZE + BUFFER_SIZE / 8; // scanning backward
+		else
+			offset= position - BUFFER_SIZE / 8; // scanning forward
+		offset= Math.max(0, Math.min(offset, length - BUFFER_SIZE));
+		int end= Math.min(offset + BUFFER_SIZE, length);
+		fDocument.get(offset, end - offset).getChars(0, end - offset, fBuffer, 0);
+		fBufferOffset= offset;
+		fBufferLength= end - offset;
+		return fBuffer[position - offset];
+	}
+
 	/**
 	 * Checks whether <code>position</code> resides in a default (Java) partition of <code>fDocument</code>.
 	 *
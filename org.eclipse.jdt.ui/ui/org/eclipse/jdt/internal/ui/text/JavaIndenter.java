@@ -605,7 +605,7 @@ public final class JavaIndenter {
 			int spaces= 0;
 			while (start < indent) {
 
-				char ch= fDocument.getChar(start);
+				char ch= fScanner.getChar(start);
 				if (ch == '\t') {
 					ret.append('\t');
 					spaces= 0;
@@ -757,7 +757,7 @@ public final class JavaIndenter {
 				IRegion line= fDocument.getLineInformationOfOffset(offset);
 				int lineOffset= line.getOffset();
 				int prevPos= Math.max(offset - 1, 0);
-				boolean isFirstTokenOnLine= fDocument.get(lineOffset, prevPos + 1 - lineOffset).trim().length() == 0;
+				boolean isFirstTokenOnLine= isBlank(lineOffset, prevPos + 1);
 				int prevToken= fScanner.previousToken(prevPos, JavaHeuristicScanner.UNBOUND);
 				boolean bracelessBlockStart= fScanner.isBracelessBlockStart(prevPos, JavaHeuristicScanner.UNBOUND);
 
@@ -823,6 +823,24 @@ public final class JavaIndenter {
 		return ref;
 	}
 
+	/**
+	 * Tells whether the given document range consists of whitespace only, as defined by
+	 * {@link String#trim()}.
+	 *
+	 * @param from the start offset of the range
+	 * @param to the end offset (exclusive) of the range
+	 * @return <code>true</code> if the range contains no character above <code>' '</code>
+	 * @throws BadLocationException if the range is not in the document
+	 * @since 3.10
+	 */
+	private boolean isBlank(int from, int to) throws BadLocationException {
+		for (int i= from; i < to; i++) {
+			if (fScanner.getChar(i) > ' ')
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Tells whether the given string is a continuation expression.
 	 * 
@@ -834,7 +852,7 @@ public final class JavaIndenter {
 	private boolean isStringContinuation(int offset) {
 		int nextNonWSCharPosition= fScanner.findNonWhitespaceBackwardInAnyPartition(offset - 1, JavaHeuristicScanner.UNBOUND);
 		try {
-			if (nextNonWSCharPosition != JavaHeuristicScanner.NOT_FOUND && fDocument.getChar(nextNonWSCharPosition) == '"')
+			if (nextNonWSCharPosition != JavaHeuristicScanner.NOT_FOUND && fScanner.getChar(nextNonWSCharPosition) == '"')
 				return true;
 			else
 				return false;
@@ -961,7 +979,7 @@ public final class JavaIndenter {
 				try {
 					// align with the opening brace that is on a line by its own
 					int lineOffset= fDocument.getLineOffset(fLine);
-					if (lineOffset <= fPosition && fDocument.get(lineOffset, fPosition - lineOffset).trim().length() == 0)
+					if (lineOffset <= fPosition && isBlank(lineOffset, fPosition))
 						return fPosition;
 				} catch (BadLocationException e) {
 					// concurrent modification - walk default path
@@ -1163,7 +1181,7 @@ public final class JavaIndenter {
 					break; // possible tokens between '{' and ')' in method declaration
 				case Symbols.TokenOTHER: // dot of qualification
 					try {
-						if (fDocument.getChar(fPosition) != '.') {
+						if (fScanner.getChar(fPosition) != '.') {
 							return false;
 						}
 					} catch (BadLocationException e) {
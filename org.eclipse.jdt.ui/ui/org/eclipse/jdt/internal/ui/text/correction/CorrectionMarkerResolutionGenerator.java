@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,13 +48,13 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaModelMarker;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring.MultiFixTarget;
 
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.cleanup.ICleanUp;
 import org.eclipse.jdt.ui.text.java.CompletionProposalComparator;
-import org.eclipse.jdt.ui.text.java.IInvocationContext;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
 import org.eclipse.jdt.ui.text.java.IProblemLocation;
 
@@ -292,6 +292,13 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 		}
 	}
 
+	/**
+	 * The time in milliseconds after the last request when the shared quick fix ASTs are released
+	 */
+	private static final long AST_RELEASE_DELAY= 2000;
+
+	private static final QuickFixASTCache fgASTCache= new QuickFixASTCache(AST_RELEASE_DELAY);
+
 	private static final IMarkerResolution[] NO_RESOLUTIONS= new IMarkerResolution[0];
 
 
@@ -332,26 +339,37 @@ public class CorrectionMarkerResolutionGenerator implements IMarkerResolutionGen
 			IEditorInput input= EditorUtility.getEditorInput(cu);
 			if (input != null) {
 				IProblemLocation location= findProblemLocation(input, marker);
-				if (location != null) {
+				if (location != null)
+					return computeResolutions(cu, location, marker);
+			}
+		}
+		return NO_RESOLUTIONS;
+	}
 
-					IInvocationContext context= new AssistContext(cu,  location.getOffset(), location.getLength());
-					if (!hasProblem (context.getASTRoot().getProblems(), location))
-						return NO_RESOLUTIONS;
+	private static IMarkerResolution[] computeResolutions(ICompilationUnit cu, IProblemLocation location, IMarker marker) {
+		AssistContext context= new AssistContext(cu,  location.getOffset(), location.getLength());
+		if (!cu.isWorkingCopy()) { // working copies use the shared AST of the editor
+			CompilationUnit astRoot= fgASTCache.get(cu);
+			if (astRoot == null || !hasProblem(astRoot.getProblems(), location)) {
+				// the problem may have been reported by a build after the AST has been cached
+				astRoot= ASTResolving.createQuickFixAST(cu, null);
+				fgASTCache.put(cu, astRoot);
+			}
+			context.setASTRoot(astRoot);
+		}
+		if (!hasProblem (context.getASTRoot().getProblems(), location))
+			return NO_RESOLUTIONS;
 
-					ArrayList<IJavaCompletionProposal> proposals= new ArrayList<IJavaCompletionProposal>();
-					JavaCorrectionProcessor.collectCorrections(context, new IProblemLocation[] { location }, proposals);
-					Collections.sort(proposals, new CompletionProposalComparator());
+		ArrayList<IJavaCompletionProposal> proposals= new ArrayList<IJavaCompletionProposal>();
+		JavaCorrectionProcessor.collectCorrections(context, new IProblemLocation[] { location }, proposals);
+		Collections.sort(proposals, new CompletionProposalComparator());
 
-					int nProposals= proposals.size();
-					IMarkerResolution[] resolutions= new IMarkerResolution[nProposals];
-					for (int i= 0; i < nProposals; i++) {
-						resolutions[i]= new CorrectionMarkerResolution(context.getCompilationUnit(), location.getOffset(), location.getLength(), proposals.get(i), marker);
-					}
-					return resolutions;
-				}
-			}
+		int nProposals= proposals.size();
+		IMarkerResolution[] resolutions= new IMarkerResolution[nProposals];
+		for (int i= 0; i < nProposals; i++) {
+			resolutions[i]= new CorrectionMarkerResolution(context.getCompilationUnit(), location.getOffset(), location.getLength(), proposals.get(i), marker);
 		}
-		return NO_RESOLUTIONS;
+		return resolutions;
 	}
 
 	private static boolean hasProblem(IProblem[] problems, IProblemLocation location) {
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.correction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+
+/**
+ * Shares the quick fix ASTs of compilation units that are not open in an editor between the
+ * markers of a file. Quick fix on many markers asks {@link CorrectionMarkerResolutionGenerator}
+ * for the resolutions of each marker separately.
+ * <p>
+ * The ASTs are only kept for one batch of requests: they are released on every change of the
+ * Java model, which includes changes of the units that a cached unit depends on, and when no AST
+ * has been requested for a while.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class QuickFixASTCache {
+
+	private static final int MAX_UNITS= 5;
+
+	private final long fReleaseDelay;
+
+	/**
+	 * Map from compilation unit to its quick fix AST, in access order.
+	 */
+	private final Map<ICompilationUnit, CompilationUnit> fASTs= new LinkedHashMap<ICompilationUnit, CompilationUnit>(MAX_UNITS, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ICompilationUnit, CompilationUnit> eldest) {
+			return size() > MAX_UNITS;
+		}
+	};
+
+	private final IElementChangedListener fListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			clear();
+		}
+	};
+
+	private final Job fReleaseJob;
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param releaseDelay the time in milliseconds after the last request when the ASTs are
+	 *            released
+	 */
+	public QuickFixASTCache(long releaseDelay) {
+		fReleaseDelay= releaseDelay;
+		fReleaseJob= new Job(CorrectionMessages.QuickFixASTCache_release_job) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				clear();
+				return Status.OK_STATUS;
+			}
+		};
+		fReleaseJob.setSystem(true);
+	}
+
+	/**
+	 * Returns the cached AST of the given compilation unit.
+	 *
+	 * @param cu the compilation unit
+	 * @return the AST, or <code>null</code> if it is not cached
+	 */
+	public synchronized CompilationUnit get(ICompilationUnit cu) {
+		CompilationUnit astRoot= fASTs.get(cu);
+		if (astRoot != null)
+			fReleaseJob.schedule(fReleaseDelay);
+		return astRoot;
+	}
+
+	/**
+	 * Caches the AST of the given compilation unit.
+	 *
+	 * @param cu the compilation unit, must not be a working copy
+	 * @param astRoot the quick fix AST of the compilation unit
+	 */
+	public synchronized void put(ICompilationUnit cu, CompilationUnit astRoot) {
+		if (fASTs.isEmpty())
+			JavaCore.addElementChangedListener(fListener, ElementChangedEvent.POST_CHANGE);
+		fASTs.put(cu, astRoot);
+		fReleaseJob.schedule(fReleaseDelay);
+	}
+
+	/**
+	 * Releases the cached ASTs.
+	 */
+	public synchronized void clear() {
+		if (!fASTs.isEmpty()) {
+			fASTs.clear();
+			JavaCore.removeElementChangedListener(fListener);
+		}
+	}
+}
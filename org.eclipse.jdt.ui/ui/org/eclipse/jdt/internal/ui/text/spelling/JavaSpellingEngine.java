@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.spelling;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.eclipse.core.runtime.AssertionFailedException;
 import org.eclipse.core.runtime.IProgressMonitor;
 
@@ -28,12 +31,22 @@ import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker;
 
 
 /**
- * Java spelling engine
+ * Java spelling engine.
+ * <p>
+ * The words of the comment and string partitions are cached per document, see
+ * {@link SpellCheckCache}. Only the partitions that have been changed since the last check are
+ * scanned again.
+ * </p>
  *
  * @since 3.1
  */
 public class JavaSpellingEngine extends SpellingEngine {
 
+	/**
+	 * The caches of the checked documents.
+	 * @since 3.10
+	 */
+	private final Map<IDocument, SpellCheckCache> fCaches= new WeakHashMap<IDocument, SpellCheckCache>();
 
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.spelling.SpellingEngine#check(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IRegion[], org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker, org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector, org.eclipse.core.runtime.IProgressMonitor)
@@ -42,6 +55,9 @@ public class JavaSpellingEngine extends SpellingEngine {
 	protected void check(IDocument document, IRegion[] regions, ISpellChecker checker, ISpellingProblemCollector collector, IProgressMonitor monitor) {
 		SpellEventListener listener= new SpellEventListener(collector, document);
 		boolean isIgnoringJavaStrings= PreferenceConstants.getPreferenceStore().getBoolean(PreferenceConstants.SPELLING_IGNORE_JAVA_STRINGS);
+		boolean isIgnoringSingleLetters= PreferenceConstants.getPreferenceStore().getBoolean(PreferenceConstants.SPELLING_IGNORE_SINGLE_LETTERS);
+		SpellCheckCache cache= getCache(document);
+		cache.beginCheck(document, checker.getLocale(), isIgnoringSingleLetters);
 		try {
 			for (int i= 0; i < regions.length; i++) {
 				IRegion region= regions[i];
@@ -60,7 +76,7 @@ public class JavaSpellingEngine extends SpellingEngine {
 						continue;
 
 					if (!type.equals(IDocument.DEFAULT_CONTENT_TYPE) && !type.equals(IJavaPartitions.JAVA_CHARACTER))
-						checker.execute(listener, new SpellCheckIterator(document, partition, checker.getLocale()));
+						checker.execute(listener, cache.getIterator(document, partition));
 				}
 			}
 		} catch (BadLocationException x) {
@@ -69,4 +85,22 @@ public class JavaSpellingEngine extends SpellingEngine {
 			// ignore: the document has been changed in another thread and will be checked again
 		}
 	}
+
+	/**
+	 * Returns the cache of the given document.
+	 *
+	 * @param document the document
+	 * @return the cache
+	 * @since 3.10
+	 */
+	private SpellCheckCache getCache(IDocument document) {
+		synchronized (fCaches) {
+			SpellCheckCache cache= fCaches.get(document);
+			if (cache == null) {
+				cache= new SpellCheckCache();
+				fCaches.put(document, cache);
+			}
+			return cache;
+		}
+	}
 }
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.TextUtilities;
+
+import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckIterator;
+
+
+/**
+ * Caches the words that a {@link SpellCheckIterator} finds in the partitions of a document.
+ * <p>
+ * The words are keyed by the content of the partition. A partition that has not changed since
+ * the last check is not scanned again, its words are replayed at the current offset of the
+ * partition instead. The words themselves are checked by the spell checker on every run, so that
+ * changes of the dictionaries and the ignored words take effect immediately.
+ * </p>
+ * <p>
+ * Words of partitions that have not been requested during the last check are dropped.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class SpellCheckCache {
+
+	/**
+	 * The words of a partition. Offsets are relative to the start of the partition.
+	 */
+	private static class Words {
+
+		private String[] fWords= new String[8];
+		private int[] fBegins= new int[8];
+		private int[] fEnds= new int[8];
+		private boolean[] fSentenceStarts= new boolean[8];
+		private int fCount;
+
+		Words(SpellCheckIterator iterator) {
+			while (iterator.hasNext()) {
+				String word= iterator.next();
+				if (word != null)
+					add(word, iterator.getBegin(), iterator.getEnd(), iterator.startsSentence());
+			}
+		}
+
+		private void add(String word, int begin, int end, boolean startsSentence) {
+			if (fCount == fWords.length) {
+				int length= fCount * 2;
+				String[] words= new String[length];
+				System.arraycopy(fWords, 0, words, 0, fCount);
+				fWords= words;
+				int[] begins= new int[length];
+				System.arraycopy(fBegins, 0, begins, 0, fCount);
+				fBegins= begins;
+				int[] ends= new int[length];
+				System.arraycopy(fEnds, 0, ends, 0, fCount);
+				fEnds= ends;
+				boolean[] sentenceStarts= new boolean[length];
+				System.arraycopy(fSentenceStarts, 0, sentenceStarts, 0, fCount);
+				fSentenceStarts= sentenceStarts;
+			}
+			fWords[fCount]= word;
+			fBegins[fCount]= begin;
+			fEnds[fCount]= end;
+			fSentenceStarts[fCount]= startsSentence;
+			fCount++;
+		}
+	}
+
+	/**
+	 * Iterates over the cached words of a partition.
+	 */
+	private static class WordsIterator implements ISpellCheckIterator {
+
+		private final Words fWords;
+		private final int fOffset;
+		private int fIndex= -1;
+
+		WordsIterator(Words words, int offset) {
+			fWords= words;
+			fOffset= offset;
+		}
+
+		/*
+		 * @see java.util.Iterator#hasNext()
+		 */
+		public boolean hasNext() {
+			return fIndex + 1 < fWords.fCount;
+		}
+
+		/*
+		 * @see java.util.Iterator#next()
+		 */
+		public String next() {
+			fIndex++;
+			return fWords.fWords[fIndex];
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckIterator#getBegin()
+		 */
+		public int getBegin() {
+			return fWords.fBegins[fIndex] + fOffset;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckIterator#getEnd()
+		 */
+		public int getEnd() {
+			return fWords.fEnds[fIndex] + fOffset;
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckIterator#startsSentence()
+		 */
+		public boolean startsSentence() {
+			return fWords.fSentenceStarts[fIndex];
+		}
+
+		/*
+		 * The words have been collected with the setting that was given to the cache.
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckIterator#setIgnoreSingleLetters(boolean)
+		 */
+		public void setIgnoreSingleLetters(boolean state) {
+		}
+
+		/*
+		 * @see java.util.Iterator#remove()
+		 */
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/** Words by partition content, requested during the current check */
+	private Map<String, Words> fCurrentWords= new HashMap<String, Words>();
+
+	/** Words by partition content, requested during the previous check */
+	private Map<String, Words> fPreviousWords= new HashMap<String, Words>();
+
+	private Locale fLocale;
+	private String fDelimiter;
+	private boolean fIsIgnoringSingleLetters;
+
+	/**
+	 * Starts a new check of the document. Words of partitions that have not been requested since
+	 * the previous call are dropped. All words are dropped if the settings have changed.
+	 *
+	 * @param document the document
+	 * @param locale the locale of the spell checker
+	 * @param isIgnoringSingleLetters <code>true</code> if single letters are not checked
+	 */
+	public synchronized void beginCheck(IDocument document, Locale locale, boolean isIgnoringSingleLetters) {
+		String delimiter= TextUtilities.getDefaultLineDelimiter(document);
+		if (!locale.equals(fLocale) || !delimiter.equals(fDelimiter) || isIgnoringSingleLetters != fIsIgnoringSingleLetters) {
+			fLocale= locale;
+			fDelimiter= delimiter;
+			fIsIgnoringSingleLetters= isIgnoringSingleLetters;
+			fCurrentWords.clear();
+		}
+		fPreviousWords= fCurrentWords;
+		fCurrentWords= new HashMap<String, Words>();
+	}
+
+	/**
+	 * Returns an iterator over the words of the given partition. The partition is only scanned if
+	 * its content has not been seen before.
+	 *
+	 * @param document the document
+	 * @param partition the partition
+	 * @return the iterator
+	 * @throws BadLocationException if the partition is not valid in the document
+	 */
+	public synchronized ISpellCheckIterator getIterator(IDocument document, IRegion partition) throws BadLocationException {
+		String content= document.get(partition.getOffset(), partition.getLength());
+		Words words= fCurrentWords.get(content);
+		if (words == null) {
+			words= fPreviousWords.remove(content);
+			if (words == null) {
+				SpellCheckIterator iterator= new SpellCheckIterator(content, fDelimiter, fLocale);
+				iterator.setIgnoreSingleLetters(fIsIgnoringSingleLetters);
+				words= new Words(iterator);
+			}
+			fCurrentWords.put(content, words);
+		}
+		return new WordsIterator(words, partition.getOffset());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,6 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.spelling;
 
-import java.util.LinkedList;
 import java.util.Locale;
 
 import com.ibm.icu.text.BreakIterator;
@@ -61,8 +60,17 @@ public class SpellCheckIterator implements ISpellCheckIterator {
 	/** The previous break */
 	protected int fPrevious= 0;
 
-	/** The sentence breaks */
-	private final LinkedList<Integer> fSentenceBreaks= new LinkedList<Integer>();
+	/**
+	 * The sentence iterator.
+	 * @since 3.10
+	 */
+	private final BreakIterator fSentenceIterator;
+
+	/**
+	 * The next sentence break that has not been passed yet, or {@link BreakIterator#DONE}.
+	 * @since 3.10
+	 */
+	private int fNextSentenceBreak;
 
 	/** Does the current word start a sentence? */
 	private boolean fStartsSentence= false;
@@ -95,34 +103,54 @@ public class SpellCheckIterator implements ISpellCheckIterator {
 	 * @param breakIterator the break-iterator
 	 */
 	public SpellCheckIterator(IDocument document, IRegion region, Locale locale, BreakIterator breakIterator) {
-		fOffset= region.getOffset();
-		fWordIterator= breakIterator;
-		fDelimiter= TextUtilities.getDefaultLineDelimiter(document);
-
-		String content;
-		try {
+		this(getContent(document, region), region.getOffset(), TextUtilities.getDefaultLineDelimiter(document), locale, breakIterator);
+	}
 
-			content= document.get(region.getOffset(), region.getLength());
-			if (content.startsWith(NLSElement.TAG_PREFIX))
-				content= ""; //$NON-NLS-1$
+	/**
+	 * Creates a new spell check iterator for the given content. The offsets of the words are
+	 * relative to the start of the content.
+	 *
+	 * @param content the content of the region to spell check
+	 * @param delimiter the line delimiter of the document containing the content
+	 * @param locale the locale to use for spell checking
+	 * @since 3.10
+	 */
+	public SpellCheckIterator(String content, String delimiter, Locale locale) {
+		this(content, 0, delimiter, locale, BreakIterator.getWordInstance(locale));
+	}
 
-		} catch (Exception exception) {
+	private SpellCheckIterator(String content, int offset, String delimiter, Locale locale, BreakIterator breakIterator) {
+		if (content.startsWith(NLSElement.TAG_PREFIX))
 			content= ""; //$NON-NLS-1$
-		}
+
+		fOffset= offset;
+		fWordIterator= breakIterator;
+		fDelimiter= delimiter;
 		fContent= content;
 
 		fWordIterator.setText(content);
 		fPredecessor= fWordIterator.first();
 		fSuccessor= fWordIterator.next();
 
-		final BreakIterator iterator= BreakIterator.getSentenceInstance(locale);
-		iterator.setText(content);
-
-		int offset= iterator.current();
-		while (offset != BreakIterator.DONE) {
+		// sentence breaks are computed on demand while the words are iterated
+		fSentenceIterator= BreakIterator.getSentenceInstance(locale);
+		fSentenceIterator.setText(content);
+		fNextSentenceBreak= fSentenceIterator.first();
+	}
 
-			fSentenceBreaks.add(new Integer(offset));
-			offset= iterator.next();
+	/**
+	 * Returns the content of the given region.
+	 *
+	 * @param document the document
+	 * @param region the region
+	 * @return the content of the region, or an empty string if the region is not valid anymore
+	 * @since 3.10
+	 */
+	private static String getContent(IDocument document, IRegion region) {
+		try {
+			return document.get(region.getOffset(), region.getLength());
+		} catch (Exception exception) {
+			return ""; //$NON-NLS-1$
 		}
 	}
 
@@ -299,7 +327,7 @@ public class SpellCheckIterator implements ISpellCheckIterator {
 	 * @return the next sentence break
 	 */
 	protected final int nextSentence() {
-		return fSentenceBreaks.getFirst().intValue();
+		return fNextSentenceBreak;
 	}
 
 	/**
@@ -373,12 +401,11 @@ public class SpellCheckIterator implements ISpellCheckIterator {
 			}
 		}
 
-		if (update && fSentenceBreaks.size() > 0) {
+		if (update && fNextSentenceBreak != BreakIterator.DONE) {
 
 			if (fPrevious >= nextSentence()) {
 
-				while (fSentenceBreaks.size() > 0 && fPrevious >= nextSentence())
-					fSentenceBreaks.removeFirst();
+				fNextSentenceBreak= fSentenceIterator.following(fPrevious);
 
 				fStartsSentence= (fLastToken == null) || (token != null);
 			}
@@ -81,6 +81,14 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 */
 	private boolean fRefreshJobCanceledExplicitly= true;
 
+	/**
+	 * The store for hierarchy snapshots shown while the hierarchy is computed in the background,
+	 * or <code>null</code> if snapshots are not used.
+	 *
+	 * @since 3.10
+	 */
+	private TypeHierarchySnapshotStore fSnapshotStore;
+
 	/**
 	 * Creates the type hierarchy life cycle.
 	 *
@@ -91,6 +99,7 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 		this(false);
 		fTypeHierarchyViewPart= part;
 		fRefreshHierarchyJob= null;
+		fSnapshotStore= new TypeHierarchySnapshotStore(false);
 	}
 
 	public TypeHierarchyLifeCycle(boolean isSuperTypesOnly) {
@@ -258,7 +267,8 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 
 	/**
 	 * Refreshes the hierarchy in the background and updates the hierarchy viewer asynchronously in
-	 * the UI thread.
+	 * the UI thread. If a valid snapshot of the requested hierarchy exists, the snapshot is shown
+	 * first and the viewers are updated incrementally once the fresh hierarchy is available.
 	 * 
 	 * @param elements the java elements on which the hierarchy is computed
 	 * @param pm the progress monitor
@@ -268,7 +278,11 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 * @since 3.6
 	 */
 	protected void doHierarchyRefreshBackground(final IJavaElement[] elements, final IProgressMonitor pm) throws JavaModelException {
+		if (doHierarchyRefreshFromSnapshot(elements, pm))
+			return;
+
 		doHierarchyRefresh(elements, pm);
+		storeSnapshot(elements, fHierarchy, pm);
 		if (!pm.isCanceled()) {
 			Display.getDefault().asyncExec(new Runnable() {
 				/*
@@ -290,6 +304,92 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 		}
 	}
 
+	/**
+	 * Shows the stored snapshot of the hierarchy for the given elements, computes the fresh
+	 * hierarchy and then updates the viewers with the types whose relations have changed.
+	 * 
+	 * @param elements the java elements on which the hierarchy is computed
+	 * @param pm the progress monitor
+	 * @return <code>true</code> if a snapshot was shown, <code>false</code> if no valid snapshot
+	 *         exists and the hierarchy still has to be computed
+	 * @throws JavaModelException if the java element does not exist or if an exception occurs while
+	 *             accessing its corresponding resource.
+	 * 
+	 * @since 3.10
+	 */
+	private boolean doHierarchyRefreshFromSnapshot(final IJavaElement[] elements, final IProgressMonitor pm) throws JavaModelException {
+		if (!isSnapshotInput(elements) || (fHierarchy != null && Arrays.equals(elements, fInputElements)))
+			return false;
+
+		final ITypeHierarchy snapshot= fSnapshotStore.load((IType) elements[0], pm);
+		if (snapshot == null)
+			return false;
+		if (pm.isCanceled())
+			throw new OperationCanceledException();
+
+		Display.getDefault().asyncExec(new Runnable() {
+			public void run() {
+				synchronized (TypeHierarchyLifeCycle.this) {
+					if (fRefreshHierarchyJob == null) {
+						return;
+					}
+				}
+				if (pm.isCanceled())
+					return;
+				setHierarchy(elements, snapshot);
+				fTypeHierarchyViewPart.setViewersInput();
+				fTypeHierarchyViewPart.updateViewers();
+			}
+		});
+
+		TypeHierarchySnapshotStore.Relations snapshotRelations= TypeHierarchySnapshotStore.captureRelations(snapshot);
+		final ITypeHierarchy hierarchy= createTypeHierarchy(elements, pm);
+		if (pm.isCanceled())
+			throw new OperationCanceledException();
+		final IType[] changedTypes= TypeHierarchySnapshotStore.computeChangedTypes(snapshotRelations, hierarchy);
+		storeSnapshot(elements, hierarchy, pm);
+
+		Display.getDefault().asyncExec(new Runnable() {
+			public void run() {
+				synchronized (TypeHierarchyLifeCycle.this) {
+					if (fRefreshHierarchyJob == null) {
+						return;
+					}
+					fRefreshHierarchyJob= null;
+				}
+				if (pm.isCanceled() || fHierarchy != snapshot)
+					return;
+				setHierarchy(elements, hierarchy);
+				fTypeHierarchyViewPart.refreshChangedTypes(changedTypes);
+			}
+		});
+		return true;
+	}
+
+	private boolean isSnapshotInput(IJavaElement[] elements) {
+		return fSnapshotStore != null && elements.length == 1 && elements[0].getElementType() == IJavaElement.TYPE;
+	}
+
+	private void storeSnapshot(IJavaElement[] elements, ITypeHierarchy hierarchy, IProgressMonitor pm) {
+		if (isSnapshotInput(elements) && hierarchy != null && !pm.isCanceled()) {
+			fSnapshotStore.store((IType) elements[0], hierarchy, pm);
+		}
+	}
+
+	private void setHierarchy(IJavaElement[] elements, ITypeHierarchy hierarchy) {
+		// to ensure the order of the two listeners always remove / add listeners on operations
+		// on type hierarchies
+		if (fHierarchy != null) {
+			fHierarchy.removeTypeHierarchyChangedListener(this);
+			JavaCore.removeElementChangedListener(this);
+		}
+		fHierarchy= hierarchy;
+		fInputElements= elements;
+		fHierarchy.addTypeHierarchyChangedListener(this);
+		JavaCore.addElementChangedListener(this);
+		fHierarchyRefreshNeeded= false;
+	}
+
 	private ITypeHierarchy createTypeHierarchy(IJavaElement[] elements, IProgressMonitor pm) throws JavaModelException {
 		if (elements.length == 1 && elements[0].getElementType() == IJavaElement.TYPE) {
 			IType type= (IType)elements[0];
@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.typehierarchy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Keeps serialized snapshots of type hierarchies in the plug-in state location, one file per focus
+ * type. A snapshot is only handed out if the classpath of the focus type's project, the time
+ * stamps of its libraries and the modification stamps of the Java source files that can contribute
+ * types to the hierarchy are unchanged since the snapshot was taken. Callers are expected to
+ * refresh a loaded snapshot in the background.
+ * <p>
+ * Only the most recently used snapshots are kept, older snapshot files are deleted when a new
+ * snapshot is stored.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class TypeHierarchySnapshotStore {
+
+	private static final String SNAPSHOT_DIR= "typehierarchy"; //$NON-NLS-1$
+	private static final String SNAPSHOT_EXTENSION= ".snapshot"; //$NON-NLS-1$
+	private static final int FORMAT_VERSION= 2;
+	private static final int MAX_SNAPSHOTS= 50;
+
+	private final boolean fIsSuperTypesOnly;
+	private final int fMaxSnapshots;
+
+	/**
+	 * Creates a snapshot store.
+	 *
+	 * @param isSuperTypesOnly <code>true</code> if the stored hierarchies are super type
+	 *            hierarchies
+	 */
+	public TypeHierarchySnapshotStore(boolean isSuperTypesOnly) {
+		this(isSuperTypesOnly, MAX_SNAPSHOTS);
+	}
+
+	/**
+	 * Creates a snapshot store.
+	 *
+	 * @param isSuperTypesOnly <code>true</code> if the stored hierarchies are super type
+	 *            hierarchies
+	 * @param maxSnapshots the number of snapshot files to keep
+	 */
+	public TypeHierarchySnapshotStore(boolean isSuperTypesOnly, int maxSnapshots) {
+		fIsSuperTypesOnly= isSuperTypesOnly;
+		fMaxSnapshots= maxSnapshots;
+	}
+
+	/**
+	 * Loads the snapshot for the given focus type.
+	 *
+	 * @param type the focus type
+	 * @param pm the progress monitor, can be <code>null</code>
+	 * @return the loaded hierarchy or <code>null</code> if there is no valid snapshot
+	 */
+	public ITypeHierarchy load(IType type, IProgressMonitor pm) {
+		File file= getSnapshotFile(type);
+		if (file == null || !file.isFile())
+			return null;
+
+		DataInputStream in= null;
+		try {
+			in= new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != FORMAT_VERSION
+					|| !type.getHandleIdentifier().equals(in.readUTF())
+					|| in.readBoolean() != fIsSuperTypesOnly
+					|| in.readLong() != computeFingerprint(type, fIsSuperTypesOnly)) {
+				in.close();
+				in= null;
+				file.delete();
+				return null;
+			}
+			ITypeHierarchy hierarchy= type.loadTypeHierachy(in, pm);
+			if (hierarchy == null || !hierarchy.exists())
+				return null;
+			// most recently used snapshots survive pruning
+			file.setLastModified(System.currentTimeMillis());
+			return hierarchy;
+		} catch (IOException e) {
+			file.delete();
+			return null;
+		} catch (JavaModelException e) {
+			// stale or corrupt snapshot
+			file.delete();
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Stores a snapshot of the given hierarchy. Failures are logged.
+	 *
+	 * @param type the focus type
+	 * @param hierarchy the hierarchy to store
+	 * @param pm the progress monitor, can be <code>null</code>
+	 */
+	public void store(IType type, ITypeHierarchy hierarchy, IProgressMonitor pm) {
+		File file= getSnapshotFile(type);
+		if (file == null)
+			return;
+
+		DataOutputStream out= null;
+		try {
+			long fingerprint= computeFingerprint(type, fIsSuperTypesOnly);
+			out= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(type.getHandleIdentifier());
+			out.writeBoolean(fIsSuperTypesOnly);
+			out.writeLong(fingerprint);
+			hierarchy.store(out, pm);
+			out.flush();
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			file.delete();
+		} catch (JavaModelException e) {
+			JavaPlugin.log(e);
+			file.delete();
+		} finally {
+			close(out);
+		}
+		prune(file);
+	}
+
+	/*
+	 * Deletes the least recently used snapshot files, but never the given one.
+	 */
+	private void prune(File keep) {
+		File[] files= keep.getParentFile().listFiles();
+		if (files == null || files.length <= fMaxSnapshots)
+			return;
+		List<File> snapshots= new ArrayList<File>(files.length);
+		for (int i= 0; i < files.length; i++) {
+			if (files[i].getName().endsWith(SNAPSHOT_EXTENSION) && !files[i].equals(keep))
+				snapshots.add(files[i]);
+		}
+		Collections.sort(snapshots, new Comparator<File>() {
+			public int compare(File f1, File f2) {
+				long m1= f1.lastModified();
+				long m2= f2.lastModified();
+				return m1 < m2 ? -1 : m1 == m2 ? 0 : 1;
+			}
+		});
+		for (int i= 0, excess= snapshots.size() + 1 - fMaxSnapshots; i < excess; i++) {
+			snapshots.get(i).delete();
+		}
+	}
+
+	/**
+	 * Computes the types whose super or sub types differ between a captured hierarchy state and
+	 * the refreshed hierarchy.
+	 *
+	 * @param oldRelations the relations of the hierarchy before the refresh, see
+	 *            {@link #captureRelations(ITypeHierarchy)}
+	 * @param newHierarchy the refreshed hierarchy
+	 * @return the changed types, never <code>null</code>
+	 */
+	public static IType[] computeChangedTypes(Relations oldRelations, ITypeHierarchy newHierarchy) {
+		Relations newRelations= captureRelations(newHierarchy);
+		Set<IType> allTypes= new HashSet<IType>(oldRelations.fTypes);
+		allTypes.addAll(newRelations.fTypes);
+
+		Set<IType> changed= new LinkedHashSet<IType>();
+		for (IType type : allTypes) {
+			if (!oldRelations.equalRelations(type, newRelations)) {
+				changed.add(type);
+			}
+		}
+		return changed.toArray(new IType[changed.size()]);
+	}
+
+	/**
+	 * Captures the super and sub type relations of all types in the given hierarchy.
+	 *
+	 * @param hierarchy the hierarchy
+	 * @return the captured relations
+	 */
+	public static Relations captureRelations(ITypeHierarchy hierarchy) {
+		return new Relations(hierarchy);
+	}
+
+	/**
+	 * Immutable copy of the super and sub type relations of a hierarchy.
+	 */
+	public static final class Relations {
+
+		private final Set<IType> fTypes;
+		private final Map<IType, Set<IType>> fSupertypes;
+		private final Map<IType, Set<IType>> fSubtypes;
+
+		Relations(ITypeHierarchy hierarchy) {
+			IType[] types= hierarchy.getAllTypes();
+			fTypes= new HashSet<IType>(Arrays.asList(types));
+			fSupertypes= new HashMap<IType, Set<IType>>(types.length);
+			fSubtypes= new HashMap<IType, Set<IType>>(types.length);
+			for (int i= 0; i < types.length; i++) {
+				fSupertypes.put(types[i], new HashSet<IType>(Arrays.asList(hierarchy.getSupertypes(types[i]))));
+				fSubtypes.put(types[i], new HashSet<IType>(Arrays.asList(hierarchy.getSubtypes(types[i]))));
+			}
+		}
+
+		boolean equalRelations(IType type, Relations other) {
+			if (fTypes.contains(type) != other.fTypes.contains(type))
+				return false;
+			Set<IType> supertypes= fSupertypes.get(type);
+			Set<IType> subtypes= fSubtypes.get(type);
+			return (supertypes == null ? other.fSupertypes.get(type) == null : supertypes.equals(other.fSupertypes.get(type)))
+					&& (subtypes == null ? other.fSubtypes.get(type) == null : subtypes.equals(other.fSubtypes.get(type)));
+		}
+	}
+
+	private File getSnapshotFile(IType type) {
+		try {
+			File dir= JavaPlugin.getDefault().getStateLocation().append(SNAPSHOT_DIR).toFile();
+			if (!dir.exists()) {
+				dir.mkdirs();
+			}
+			if (!dir.isDirectory())
+				return null;
+			String key= type.getHandleIdentifier() + (fIsSuperTypesOnly ? "/super" : "/all"); //$NON-NLS-1$ //$NON-NLS-2$
+			return new File(dir, Integer.toHexString(key.hashCode()) + '_' + Integer.toHexString(key.length()) + SNAPSHOT_EXTENSION);
+		} catch (IllegalStateException e) {
+			// no state location
+			return null;
+		}
+	}
+
+	/*
+	 * Hash over the resolved classpath of the focus type's project, the time stamps of all
+	 * libraries on it, and the modification stamps of the Java source files of the projects that
+	 * can contribute types to the hierarchy: the focus type's project and the projects it requires
+	 * for super types, and all Java projects of the workspace for sub types.
+	 */
+	private static long computeFingerprint(IType type, boolean isSuperTypesOnly) throws JavaModelException {
+		long hash= 17;
+		IJavaProject project= type.getJavaProject();
+		IClasspathEntry[] entries= project.getResolvedClasspath(true);
+		for (int i= 0; i < entries.length; i++) {
+			IClasspathEntry entry= entries[i];
+			IPath path= entry.getPath();
+			hash= 31 * hash + entry.getEntryKind();
+			hash= 31 * hash + path.toString().hashCode();
+			if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
+				hash= 31 * hash + getTimeStamp(path);
+			}
+		}
+
+		IJavaProject[] projects;
+		if (isSuperTypesOnly) {
+			Set<IJavaProject> required= new LinkedHashSet<IJavaProject>();
+			collectRequiredProjects(project, required);
+			projects= required.toArray(new IJavaProject[required.size()]);
+		} else {
+			projects= JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+		}
+		SourceStampHash sourceHash= new SourceStampHash();
+		for (int i= 0; i < projects.length; i++) {
+			sourceHash.addSources(projects[i]);
+		}
+		return 31 * hash + sourceHash.fHash;
+	}
+
+	private static void collectRequiredProjects(IJavaProject project, Set<IJavaProject> result) throws JavaModelException {
+		if (!result.add(project) || !project.exists())
+			return;
+		IWorkspaceRoot root= ResourcesPlugin.getWorkspace().getRoot();
+		IClasspathEntry[] entries= project.getResolvedClasspath(true);
+		for (int i= 0; i < entries.length; i++) {
+			if (entries[i].getEntryKind() == IClasspathEntry.CPE_PROJECT) {
+				IProject required= root.getProject(entries[i].getPath().lastSegment());
+				collectRequiredProjects(JavaCore.create(required), result);
+			}
+		}
+	}
+
+	/**
+	 * Hashes the paths and modification stamps of the Java source files in the source folders of
+	 * projects. Visits resource proxies only, the Java model is not opened.
+	 */
+	private static final class SourceStampHash implements IResourceProxyVisitor {
+		long fHash= 17;
+
+		void addSources(IJavaProject project) throws JavaModelException {
+			if (!project.exists())
+				return;
+			IWorkspaceRoot root= ResourcesPlugin.getWorkspace().getRoot();
+			IClasspathEntry[] entries= project.getRawClasspath();
+			for (int i= 0; i < entries.length; i++) {
+				if (entries[i].getEntryKind() != IClasspathEntry.CPE_SOURCE)
+					continue;
+				IResource folder= root.findMember(entries[i].getPath());
+				if (folder == null)
+					continue;
+				try {
+					folder.accept(this, IResource.NONE);
+				} catch (CoreException e) {
+					throw new JavaModelException(e);
+				}
+			}
+		}
+
+		public boolean visit(IResourceProxy proxy) {
+			if (proxy.getType() == IResource.FILE) {
+				if (JavaCore.isJavaLikeFileName(proxy.getName())) {
+					fHash= 31 * fHash + proxy.requestFullPath().toString().hashCode();
+					fHash= 31 * fHash + proxy.getModificationStamp();
+				}
+				return false;
+			}
+			return true;
+		}
+	}
+
+	private static long getTimeStamp(IPath path) {
+		IResource resource= ResourcesPlugin.getWorkspace().getRoot().findMember(path);
+		if (resource != null) {
+			return resource.getLocalTimeStamp();
+		}
+		return path.toFile().lastModified();
+	}
+
+	private static void close(Closeable stream) {
+		if (stream != null) {
+			try {
+				stream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
@@ -166,6 +166,12 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 
 	private static final String GROUP_FOCUS= "group.focus"; //$NON-NLS-1$
 
+	/**
+	 * Number of changed types up to which the viewer is updated element by element after a
+	 * snapshot has been refreshed.
+	 */
+	private static final int MAX_INCREMENTAL_REFRESH= 200;
+
 
 
 	// the selected type in the hierarchy view
@@ -1936,6 +1942,29 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 		setKeepShowingEmptyViewers(false);
 	}
 
+	/**
+	 * Updates the viewers after a hierarchy shown from a snapshot has been replaced by the freshly
+	 * computed hierarchy. Only the given types are refreshed in the current viewer.
+	 *
+	 * @param changedTypes the types whose super or sub types have changed
+	 *
+	 * @since 3.10
+	 */
+	public void refreshChangedTypes(IType[] changedTypes) {
+		if (isDisposed() || fInputElements == null || changedTypes.length == 0)
+			return;
+
+		TypeHierarchyViewer viewer= getCurrentViewer();
+		if (changedTypes.length > MAX_INCREMENTAL_REFRESH || viewer.containsElements() == null) {
+			updateHierarchyViewer(false);
+		} else {
+			for (int i= 0; i < changedTypes.length; i++) {
+				viewer.refresh(changedTypes[i]);
+			}
+		}
+		fMethodsViewer.refresh();
+	}
+
 	/**
 	 * Sets whether empty viewers should keep showing. If false, replace with fEmptyTypesViewer.
 	 * 
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2014 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Platform;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+
+
+/**
+ * Caches the image descriptors that {@link JavaElementImageProvider} computes for Java elements.
+ * <p>
+ * The descriptor of a member depends on its flags and on the kind of its declaring type, which
+ * have to be read from the element infos. Viewers ask for the image of every visible element on
+ * every repaint, e.g. when a large Package Explorer or a type hierarchy is scrolled, so the
+ * descriptors are cached by element handle and image flags.
+ * </p>
+ * <p>
+ * The cache keeps the most recently used descriptors only, and is flushed on every change of the
+ * Java model, including changes of working copies. A descriptor that has been computed before a
+ * change is not cached after the change.
+ * </p>
+ *
+ * @since 3.10
+ */
+public class JavaElementImageCache {
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/JavaElementImageCache"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	private static final int MAX_SIZE= 5000;
+
+	private static JavaElementImageCache fgDefault;
+
+	private static boolean fgShutdown;
+
+	private static final class Key {
+		private final IJavaElement fElement;
+		private final int fFlags;
+
+		Key(IJavaElement element, int flags) {
+			fElement= element;
+			fFlags= flags;
+		}
+
+		@Override
+		public int hashCode() {
+			return fElement.hashCode() * 31 + fFlags;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fFlags == other.fFlags && fElement.equals(other.fElement);
+		}
+	}
+
+	/**
+	 * Incremented on every change, so that descriptors that have been computed before a change
+	 * are not cached after the change.
+	 */
+	private int fGeneration;
+
+	private long fHits;
+	private long fMisses;
+
+	/**
+	 * <code>false</code> if the cache does not track the Java model and must not keep any
+	 * descriptors
+	 */
+	private final boolean fTracking;
+
+	private final IElementChangedListener fListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			clear();
+		}
+	};
+
+	/**
+	 * Map from element and image flags to the image descriptor, in access order.
+	 */
+	private final Map<Key, ImageDescriptor> fDescriptors= new LinkedHashMap<Key, ImageDescriptor>(256, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, ImageDescriptor> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	/**
+	 * @return the cache, which starts to track the Java model when it is first requested. After
+	 *         {@link #shutdown()}, a new cache that does not keep any descriptors is returned.
+	 */
+	public static synchronized JavaElementImageCache getDefault() {
+		if (fgShutdown)
+			return new JavaElementImageCache(false);
+		if (fgDefault == null) {
+			fgDefault= new JavaElementImageCache(true);
+			JavaCore.addElementChangedListener(fgDefault.fListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		}
+		return fgDefault;
+	}
+
+	/**
+	 * Stops tracking the Java model and drops the cached descriptors.
+	 */
+	public static synchronized void shutdown() {
+		fgShutdown= true;
+		if (fgDefault != null) {
+			JavaCore.removeElementChangedListener(fgDefault.fListener);
+			if (DEBUG)
+				System.out.println("JavaElementImageCache > hits: " + fgDefault.getHitCount() + ", misses: " + fgDefault.getMissCount()); //$NON-NLS-1$ //$NON-NLS-2$
+			fgDefault= null;
+		}
+	}
+
+	private JavaElementImageCache(boolean tracking) {
+		fTracking= tracking;
+	}
+
+	private synchronized void clear() {
+		fDescriptors.clear();
+		fGeneration++;
+	}
+
+	/**
+	 * Returns the cached descriptor of the given element.
+	 *
+	 * @param element the element
+	 * @param flags the image flags of {@link JavaElementImageProvider}
+	 * @return the descriptor, or <code>null</code> if it is not cached
+	 */
+	public synchronized ImageDescriptor get(IJavaElement element, int flags) {
+		ImageDescriptor descriptor= fDescriptors.get(new Key(element, flags));
+		if (descriptor != null)
+			fHits++;
+		else
+			fMisses++;
+		return descriptor;
+	}
+
+	/**
+	 * @return the current generation, to be passed to
+	 *         {@link #put(IJavaElement, int, ImageDescriptor, int)}
+	 */
+	public synchronized int getGeneration() {
+		return fGeneration;
+	}
+
+	/**
+	 * Caches the descriptor of the given element, unless the Java model has changed since the
+	 * given generation.
+	 *
+	 * @param element the element
+	 * @param flags the image flags of {@link JavaElementImageProvider}
+	 * @param descriptor the descriptor
+	 * @param generation the generation before the descriptor has been computed
+	 */
+	public synchronized void put(IJavaElement element, int flags, ImageDescriptor descriptor, int generation) {
+		if (fTracking && generation == fGeneration)
+			fDescriptors.put(new Key(element, flags), descriptor);
+	}
+
+	/**
+	 * @return the number of lookups that found a cached descriptor
+	 */
+	public synchronized long getHitCount() {
+		return fHits;
+	}
+
+	/**
+	 * @return the number of lookups that did not find a cached descriptor
+	 */
+	public synchronized long getMissCount() {
+		return fMisses;
+	}
+}
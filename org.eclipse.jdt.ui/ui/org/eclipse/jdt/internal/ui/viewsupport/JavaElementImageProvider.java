@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2013 IBM Corporation and others.
+ * Copyright (c) 2000, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -158,6 +158,17 @@ public class JavaElementImageProvider {
 	 * @return returns the image descriptor
 	 */
 	public ImageDescriptor getJavaImageDescriptor(IJavaElement element, int flags) {
+		JavaElementImageCache cache= JavaElementImageCache.getDefault();
+		ImageDescriptor descriptor= cache.get(element, flags);
+		if (descriptor == null) {
+			int generation= cache.getGeneration();
+			descriptor= computeJavaImageDescriptor(element, flags);
+			cache.put(element, flags, descriptor, generation);
+		}
+		return descriptor;
+	}
+
+	private ImageDescriptor computeJavaImageDescriptor(IJavaElement element, int flags) {
 		Point size= useSmallSize(flags) ? SMALL_SIZE : BIG_SIZE;
 
 		ImageDescriptor baseDesc= getBaseImageDescriptor(element, flags);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2014 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
@@ -28,7 +29,9 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
@@ -358,7 +361,7 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 
 				fUpdatingCount++;
 				try {
-					update(createContext(false));
+					update(createContext(false), delta);
 				} finally {
 					fUpdatingCount--;
 				}
@@ -689,11 +692,96 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		}
 	}
 
+	/**
+	 * Tracks the range of the document that has been modified since the folding structure was
+	 * last updated. The range is taken by an update, and given back if the Java model did not
+	 * reflect all of the modifications when the update ran.
+	 *
+	 * @since 3.10
+	 */
+	private static final class DirtyRegionTracker implements IDocumentListener {
+		/** The modified range as start and end offset, or <code>null</code> if none */
+		private int[] fDirty;
+		/** The range that has been taken by the running update, or <code>null</code> */
+		private int[] fTaken;
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public synchronized void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int oldEnd= offset + event.getLength();
+			int newEnd= offset + (event.getText() == null ? 0 : event.getText().length());
+			if (fTaken != null)
+				shift(fTaken, offset, oldEnd, newEnd);
+			if (fDirty == null) {
+				fDirty= new int[] { offset, newEnd };
+			} else {
+				shift(fDirty, offset, oldEnd, newEnd);
+				fDirty[0]= Math.min(fDirty[0], offset);
+				fDirty[1]= Math.max(fDirty[1], newEnd);
+			}
+		}
+
+		private static void shift(int[] range, int offset, int oldEnd, int newEnd) {
+			for (int i= 0; i < range.length; i++) {
+				if (range[i] >= oldEnd)
+					range[i]+= newEnd - oldEnd;
+				else if (range[i] > offset)
+					range[i]= i == 0 ? offset : newEnd;
+			}
+		}
+
+		/**
+		 * Takes the modified range for an update.
+		 *
+		 * @return the modified range, or <code>null</code> if the document has not been modified
+		 */
+		synchronized IRegion take() {
+			fTaken= fDirty;
+			fDirty= null;
+			return fTaken == null ? null : new Region(fTaken[0], fTaken[1] - fTaken[0]);
+		}
+
+		/**
+		 * Ends the update that took the modified range.
+		 *
+		 * @param processed <code>false</code> to keep the taken range for the next update
+		 */
+		synchronized void done(boolean processed) {
+			if (!processed && fTaken != null) {
+				if (fDirty == null) {
+					fDirty= fTaken;
+				} else {
+					fDirty[0]= Math.min(fDirty[0], fTaken[0]);
+					fDirty[1]= Math.max(fDirty[1], fTaken[1]);
+				}
+			}
+			fTaken= null;
+		}
+	}
+
 	/* context and listeners */
 	private JavaEditor fEditor;
 	private ProjectionListener fProjectionListener;
 	private IJavaElement fInput;
 	private IElementChangedListener fElementListener;
+	/**
+	 * Tracks the document modifications for incremental updates, or <code>null</code>.
+	 * @since 3.10
+	 */
+	private DirtyRegionTracker fDirtyRegionTracker;
+	/**
+	 * The document {@link #fDirtyRegionTracker} is installed on, or <code>null</code>.
+	 * @since 3.10
+	 */
+	private IDocument fTrackedDocument;
 
 	/* preferences */
 	private boolean fCollapseJavadoc= false;
@@ -797,6 +885,11 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		handleProjectionDisabled();
 
 		if (isInstalled()) {
+			fTrackedDocument= getDocument();
+			if (fTrackedDocument != null) {
+				fDirtyRegionTracker= new DirtyRegionTracker();
+				fTrackedDocument.addDocumentListener(fDirtyRegionTracker);
+			}
 			initialize();
 			fElementListener= new ElementChangedListener();
 			JavaCore.addElementChangedListener(fElementListener);
@@ -818,12 +911,23 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			JavaCore.removeElementChangedListener(fElementListener);
 			fElementListener= null;
 		}
+		if (fDirtyRegionTracker != null) {
+			fTrackedDocument.removeDocumentListener(fDirtyRegionTracker);
+			fDirtyRegionTracker= null;
+			fTrackedDocument= null;
+		}
 	}
 
 	/*
 	 * @see org.eclipse.jdt.ui.text.folding.IJavaFoldingStructureProvider#initialize()
 	 */
 	public final void initialize() {
+		DirtyRegionTracker tracker= fDirtyRegionTracker;
+		if (tracker != null) {
+			tracker.take();
+			tracker.done(true);
+		}
+
 		fUpdatingCount++;
 		try {
 			update(createInitialContext());
@@ -877,13 +981,244 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		if (ctx == null)
 			return;
 
+		computeFoldingStructure(ctx);
+		updateAnnotations(ctx, computeCurrentStructure(ctx));
+	}
+
+	/**
+	 * Updates the folding structure after the given change of the input element. Only the
+	 * members that are affected by the change are computed again if possible.
+	 *
+	 * @param ctx the context, may be <code>null</code>
+	 * @param delta the delta of the input element
+	 * @since 3.10
+	 */
+	private void update(FoldingStructureComputationContext ctx, IJavaElementDelta delta) {
+		if (ctx == null)
+			return;
+
+		DirtyRegionTracker tracker= fDirtyRegionTracker;
+		if (tracker == null) {
+			update(ctx);
+			return;
+		}
+
+		IRegion dirty= tracker.take();
+		boolean processed= false;
+		try {
+			if (!updateIncrementally(ctx, delta, dirty))
+				update(ctx);
+			// the model of a working copy that is not consistent does not reflect all modifications yet
+			processed= !(fInput instanceof ICompilationUnit) || ((ICompilationUnit) fInput).isConsistent();
+		} catch (JavaModelException e) {
+			// keep the range for the next update
+		} finally {
+			tracker.done(processed);
+		}
+	}
+
+	/**
+	 * Computes the folding structure again for the members that have been changed according to
+	 * the delta, and for the members in the modified document range whose comments or
+	 * declaration have been modified or whose annotations no longer match their source range.
+	 * The annotations of all other members are kept: their positions have been updated with the
+	 * document.
+	 *
+	 * @param ctx the context
+	 * @param delta the delta of the input element
+	 * @param dirty the document range that has been modified since the last update, or
+	 *        <code>null</code>
+	 * @return <code>false</code> if the folding structure has to be computed from scratch
+	 * @throws JavaModelException if the input element cannot be accessed
+	 * @since 3.10
+	 */
+	private boolean updateIncrementally(FoldingStructureComputationContext ctx, IJavaElementDelta delta, IRegion dirty) throws JavaModelException {
+		if ((delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) == 0 || !(fInput instanceof ISourceReference) || !(fInput instanceof IParent))
+			return false;
+
+		IJavaElement[] children= ((IParent) fInput).getChildren();
+		IType firstType= null;
+		for (int i= 0; i < children.length && firstType == null; i++) {
+			if (children[i] instanceof IType && SourceRange.isAvailable(((IType) children[i]).getSourceRange()))
+				firstType= (IType) children[i];
+		}
+		if (firstType == null)
+			return false;
+
+		// the header comment, the package declaration and the imports are computed together with the first type
+		Set<IJavaElement> changed= new HashSet<IJavaElement>();
+		collectChangedElements(delta, changed);
+		ISourceRange nameRange= firstType.getNameRange();
+		if (changed.contains(firstType) || !SourceRange.isAvailable(nameRange))
+			return false;
+		if (dirty != null && dirty.getOffset() <= nameRange.getOffset() + nameRange.getLength())
+			return false;
+
+		Map<IJavaElement, List<Tuple>> currentStructure= computeCurrentStructure(ctx);
+		Set<IJavaElement> elements= new HashSet<IJavaElement>();
+		List<IJavaElement> outdated= new ArrayList<IJavaElement>();
+		elements.add(firstType);
+		collectOutdatedElements(firstType.getChildren(), currentStructure, changed, dirty, elements, outdated, ctx);
+		for (int i= 0; i < children.length; i++) {
+			if (children[i] != firstType && children[i].getElementType() == IJavaElement.TYPE) {
+				collectOutdatedElements(new IJavaElement[] { children[i] }, currentStructure, changed, dirty, elements, outdated, ctx);
+			} else if (currentStructure.containsKey(children[i])) {
+				elements.add(children[i]);
+			}
+		}
+
+		Map<IJavaElement, List<Tuple>> oldStructure= new HashMap<IJavaElement, List<Tuple>>();
+		for (Iterator<Entry<IJavaElement, List<Tuple>>> iter= currentStructure.entrySet().iterator(); iter.hasNext();) {
+			Entry<IJavaElement, List<Tuple>> entry= iter.next();
+			if (!elements.contains(entry.getKey())) // removed
+				oldStructure.put(entry.getKey(), entry.getValue());
+		}
+
+		if (!outdated.isEmpty()) {
+			String source= ((ISourceReference) fInput).getSource();
+			if (source == null)
+				return false;
+			ctx.getScanner().setSource(source.toCharArray());
+			ctx.setFirstType(firstType);
+			for (int i= 0; i < outdated.size(); i++) {
+				IJavaElement element= outdated.get(i);
+				List<Tuple> tuples= currentStructure.get(element);
+				if (tuples != null)
+					oldStructure.put(element, tuples);
+				computeFoldingStructure(element, ctx);
+			}
+		}
+
+		updateAnnotations(ctx, oldStructure);
+		return true;
+	}
+
+	/**
+	 * Collects the elements that have been added or changed in a way that is not limited to
+	 * their children.
+	 *
+	 * @param delta the delta
+	 * @param changed the set to add the elements to
+	 * @since 3.10
+	 */
+	private void collectChangedElements(IJavaElementDelta delta, Set<IJavaElement> changed) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			IJavaElementDelta child= children[i];
+			int flags= child.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_FINE_GRAINED | IJavaElementDelta.F_AST_AFFECTED);
+			if (child.getKind() == IJavaElementDelta.ADDED || child.getKind() == IJavaElementDelta.CHANGED && flags != 0)
+				changed.add(child.getElement());
+			collectChangedElements(child, changed);
+		}
+	}
+
+	/**
+	 * Collects the given elements and their descendants, and the ones among them whose folding
+	 * structure has to be computed again.
+	 *
+	 * @param elements the elements
+	 * @param currentStructure the annotations in the model by element
+	 * @param changed the elements that have been added or changed according to the delta
+	 * @param dirty the modified document range, or <code>null</code>
+	 * @param all the set to add all elements to
+	 * @param outdated the list to add the outdated elements to
+	 * @param ctx the context
+	 * @throws JavaModelException if an element cannot be accessed
+	 * @since 3.10
+	 */
+	private void collectOutdatedElements(IJavaElement[] elements, Map<IJavaElement, List<Tuple>> currentStructure, Set<IJavaElement> changed, IRegion dirty, Set<IJavaElement> all, List<IJavaElement> outdated, FoldingStructureComputationContext ctx) throws JavaModelException {
+		for (int i= 0; i < elements.length; i++) {
+			IJavaElement element= elements[i];
+			all.add(element);
+			if (isOutdated(element, currentStructure.get(element), changed, dirty, ctx))
+				outdated.add(element);
+			if (element instanceof IParent)
+				collectOutdatedElements(((IParent) element).getChildren(), currentStructure, changed, dirty, all, outdated, ctx);
+		}
+	}
+
+	/**
+	 * Tells whether the folding structure of the given element has to be computed again. Only
+	 * the elements that have been changed according to the delta or that overlap the modified
+	 * document range are checked against their source range.
+	 *
+	 * @param element the element
+	 * @param existing the annotations of the element in the model sorted by offset, or
+	 *        <code>null</code> if it has none
+	 * @param changed the elements that have been added or changed according to the delta
+	 * @param dirty the modified document range, or <code>null</code>
+	 * @param ctx the context
+	 * @return <code>true</code> if the annotations of the element may be outdated
+	 * @throws JavaModelException if the element cannot be accessed
+	 * @since 3.10
+	 */
+	private boolean isOutdated(IJavaElement element, List<Tuple> existing, Set<IJavaElement> changed, IRegion dirty, FoldingStructureComputationContext ctx) throws JavaModelException {
+		if (changed.contains(element))
+			return true;
+		if (!(element instanceof ISourceReference))
+			return existing != null;
+		ISourceRange range= ((ISourceReference) element).getSourceRange();
+		if (!SourceRange.isAvailable(range))
+			return existing != null;
+		int end= range.getOffset() + range.getLength();
+		int lineStart;
+		try {
+			lineStart= ctx.getDocument().getLineOffset(ctx.getDocument().getLineOfOffset(range.getOffset()));
+		} catch (BadLocationException e) {
+			return true;
+		}
+		// the annotations of an element that has not been modified have moved with the document
+		if (!intersects(dirty, lineStart, end))
+			return false;
+		if (existing == null) // may have become foldable
+			return true;
+
+		IRegion aligned= alignRegion(new Region(range.getOffset(), range.getLength()), ctx);
+		Position first= existing.get(0).position;
+		Tuple last= existing.get(existing.size() - 1);
+		Position code= last.annotation.isComment() ? null : last.position;
+		if (aligned == null || first.getOffset() != aligned.getOffset())
+			return true;
+		if (code != null && code.getOffset() + code.getLength() != aligned.getOffset() + aligned.getLength())
+			return true;
+
+		// comments may have been added or removed up to the declaration
+		ISourceRange nameRange= element instanceof IMember ? ((IMember) element).getNameRange() : null;
+		int declarationEnd;
+		if (SourceRange.isAvailable(nameRange)) {
+			declarationEnd= nameRange.getOffset() + nameRange.getLength();
+		} else if (code != null) {
+			try {
+				IRegion line= ctx.getDocument().getLineInformationOfOffset(code.getOffset());
+				declarationEnd= line.getOffset() + line.getLength();
+			} catch (BadLocationException e) {
+				return true;
+			}
+		} else {
+			declarationEnd= end;
+		}
+		return intersects(dirty, aligned.getOffset(), declarationEnd);
+	}
+
+	private static boolean intersects(IRegion region, int start, int end) {
+		return region != null && region.getOffset() <= end && start <= region.getOffset() + region.getLength();
+	}
+
+	/**
+	 * Replaces the annotations of the given old structure with the ones collected by the context.
+	 * Annotations that are in the model but not in the old structure are kept as they are.
+	 *
+	 * @param ctx the context with the new annotations
+	 * @param oldStructure the annotations in the model that may be replaced, by element; entries
+	 *        are removed while matching
+	 * @since 3.10
+	 */
+	private void updateAnnotations(FoldingStructureComputationContext ctx, Map<IJavaElement, List<Tuple>> oldStructure) {
 		Map<JavaProjectionAnnotation, Position> additions= new HashMap<JavaProjectionAnnotation, Position>();
 		List<JavaProjectionAnnotation> deletions= new ArrayList<JavaProjectionAnnotation>();
 		List<JavaProjectionAnnotation> updates= new ArrayList<JavaProjectionAnnotation>();
 
-		computeFoldingStructure(ctx);
 		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
-		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
 
 		Iterator<JavaProjectionAnnotation> e= newStructure.keySet().iterator();
 		while (e.hasNext()) {
@@ -951,7 +1286,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		Annotation[] changedArray= updates.toArray(new Annotation[updates.size()]);
 		ctx.getModel().modifyAnnotations(deletedArray, additions, changedArray);
 
-		ctx.fScanner.setSource(null);
+		if (ctx.fScanner != null)
+			ctx.fScanner.setSource(null);
     }
 
 	private void computeFoldingStructure(FoldingStructureComputationContext ctx) {